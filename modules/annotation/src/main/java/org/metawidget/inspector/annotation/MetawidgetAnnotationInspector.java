@@ -60,6 +60,12 @@ public class MetawidgetAnnotationInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectTrait( Trait trait )
 		throws Exception {
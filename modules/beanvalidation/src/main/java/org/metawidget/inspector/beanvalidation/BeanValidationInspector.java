@@ -59,6 +59,12 @@ public class BeanValidationInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectProperty( Property property )
 		throws Exception {
@@ -0,0 +1,61 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import org.metawidget.inspector.annotation.MetawidgetAnnotationInspector;
+import org.metawidget.inspector.beanvalidation.BeanValidationInspector;
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.composite.CompositeInspectorConfig;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.jpa.JpaInspector;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+
+/**
+ * Inspectors shared by the benchmarks.
+ *
+ * @author Richard Kennard
+ */
+
+public final class BenchmarkInspectors {
+
+	//
+	// Public statics
+	//
+
+	/**
+	 * The sub-Inspectors of a typical JPA/Bean Validation application, in the order such an
+	 * application would configure them.
+	 */
+
+	public static Inspector[] newInspectors() {
+
+		return new Inspector[] { new PropertyTypeInspector(), new MetawidgetAnnotationInspector(), new JpaInspector(), new BeanValidationInspector() };
+	}
+
+	public static CompositeInspector newCompositeInspector() {
+
+		return new CompositeInspector( new CompositeInspectorConfig().setInspectors( newInspectors() ) );
+	}
+
+	//
+	// Private constructor
+	//
+
+	private BenchmarkInspectors() {
+
+		// Can never be called
+	}
+}
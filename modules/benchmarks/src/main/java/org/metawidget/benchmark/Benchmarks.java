@@ -0,0 +1,61 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks.
+ * <p>
+ * Accepts the usual JMH command line options (eg. a regular expression to select benchmarks,
+ * <code>-t</code> to override the thread count, <code>-p properties=100</code> to select bean
+ * sizes). Always adds the GC profiler, so that allocation rates are reported alongside
+ * throughput, and always runs headless.
+ *
+ * @author Richard Kennard
+ */
+
+public final class Benchmarks {
+
+	//
+	// Public statics
+	//
+
+	public static void main( String[] args )
+		throws Exception {
+
+		Options options = new OptionsBuilder()
+				.parent( new CommandLineOptions( args ) )
+				.addProfiler( GCProfiler.class )
+				.jvmArgsAppend( "-Djava.awt.headless=true" )
+				.build();
+
+		new Runner( options ).run();
+	}
+
+	//
+	// Private constructor
+	//
+
+	private Benchmarks() {
+
+		// Can never be called
+	}
+}
@@ -0,0 +1,86 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspectionresultprocessor.sort.ComesAfterInspectionResultProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks sorting inspection results with <code>ComesAfterInspectionResultProcessor</code>.
+ * <p>
+ * Every synthetic property comes after the next one, so the processor must reverse the whole
+ * entity. <code>ComesAfterInspectionResultProcessor</code> builds a new DOM rather than modifying
+ * its input, so the same inspection result can be reused for every invocation.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ComesAfterBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int												properties;
+
+	//
+	// Private members
+	//
+
+	private String											mType;
+
+	private Element											mInspectionResult;
+
+	private ComesAfterInspectionResultProcessor<Object>	mInspectionResultProcessor;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mType = SyntheticBeans.getBeanType( properties );
+		mInspectionResult = BenchmarkInspectors.newCompositeInspector().inspectAsDom( null, mType );
+		mInspectionResultProcessor = new ComesAfterInspectionResultProcessor<Object>();
+	}
+
+	@Benchmark
+	public Element comesAfter() {
+
+		return mInspectionResultProcessor.processInspectionResultAsDom( mInspectionResult, null, null, mType );
+	}
+}
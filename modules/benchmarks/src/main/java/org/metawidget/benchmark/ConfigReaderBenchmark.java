@@ -0,0 +1,109 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.config.impl.BaseConfigReader;
+import org.metawidget.statically.html.StaticHtmlMetawidget;
+import org.metawidget.util.ClassUtils;
+import org.metawidget.util.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks configuring a new Metawidget from its metawidget.xml, as happens for every
+ * <code>UIMetawidget</code> on every JSF request.
+ * <p>
+ * <code>configure</code> applies the compiled <code>ConfigPlan</code> for the resource.
+ * <code>configureFromStream</code> re-reads the same XML each time, for comparison.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ConfigReaderBenchmark {
+
+	//
+	// Private statics
+	//
+
+	private static final String	CONFIG	= ClassUtils.getPackagesAsFolderNames( StaticHtmlMetawidget.class ) + "/metawidget-static-html-default.xml";
+
+	//
+	// Private members
+	//
+
+	private BaseConfigReader	mConfigReader;
+
+	private byte[]				mConfig;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mConfigReader = new BaseConfigReader();
+		mConfigReader.configure( CONFIG, new StaticHtmlMetawidget() );
+
+		ByteArrayOutputStream streamOut = new ByteArrayOutputStream();
+		IOUtils.streamBetween( mConfigReader.getResourceResolver().openResource( CONFIG ), streamOut );
+		mConfig = streamOut.toByteArray();
+	}
+
+	@Benchmark
+	public StaticHtmlMetawidget configure() {
+
+		StaticHtmlMetawidget metawidget = new StaticHtmlMetawidget();
+		mConfigReader.configure( CONFIG, metawidget );
+		return metawidget;
+	}
+
+	@Benchmark
+	@Threads( Threads.MAX )
+	public StaticHtmlMetawidget configureContended() {
+
+		StaticHtmlMetawidget metawidget = new StaticHtmlMetawidget();
+		mConfigReader.configure( CONFIG, metawidget );
+		return metawidget;
+	}
+
+	@Benchmark
+	public StaticHtmlMetawidget configureFromStream() {
+
+		StaticHtmlMetawidget metawidget = new StaticHtmlMetawidget();
+		mConfigReader.configure( new ByteArrayInputStream( mConfig ), metawidget );
+		return metawidget;
+	}
+}
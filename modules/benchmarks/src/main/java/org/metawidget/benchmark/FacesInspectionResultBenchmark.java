@@ -0,0 +1,123 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.benchmark;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.faces.FacesMetawidgetTests.MockFacesContext;
+import org.metawidget.inspectionresultprocessor.faces.FacesInspectionResultProcessor;
+import org.metawidget.util.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks evaluating EL in inspection results with <code>FacesInspectionResultProcessor</code>.
+ * <p>
+ * The inspection result of each (annotated) synthetic bean is given the attributes a JSF
+ * application typically declares using EL: a <code>label</code> on every property, plus
+ * <code>read-only</code> and <code>required</code> on every fifth. The processor replaces
+ * expressions in place, so each invocation processes a fresh copy.
+ * <p>
+ * This runs against <code>MockFacesContext</code>, whose <code>ValueBindings</code> are trivial to
+ * create and evaluate. So it measures the processor's own overhead (scanning and parsing attribute
+ * values), not that of any particular EL implementation.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class FacesInspectionResultBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int								properties;
+
+	//
+	// Private members
+	//
+
+	private MockFacesContext				mContext;
+
+	private String							mType;
+
+	private Element							mInspectionResult;
+
+	private FacesInspectionResultProcessor	mInspectionResultProcessor;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		// (FacesContext is per-thread, hence Scope.Thread)
+
+		mContext = new MockFacesContext();
+		mType = SyntheticBeans.getBeanType( properties );
+		mInspectionResult = BenchmarkInspectors.newCompositeInspector().inspectAsDom( null, mType );
+
+		Element entity = XmlUtils.getFirstChildElement( mInspectionResult );
+		int index = 0;
+
+		for ( Element property = XmlUtils.getFirstChildElement( entity ); property != null; property = XmlUtils.getNextSiblingElement( property ) ) {
+
+			property.setAttribute( LABEL, "#{bundle['" + property.getAttribute( NAME ) + "']}" );
+
+			if ( index++ % 5 == 0 ) {
+				property.setAttribute( READ_ONLY, "#{!controller.editing}" );
+				property.setAttribute( REQUIRED, "#{controller.strict}" );
+			}
+		}
+
+		mInspectionResultProcessor = new FacesInspectionResultProcessor();
+	}
+
+	@TearDown
+	public void tearDown() {
+
+		mContext.release();
+	}
+
+	@Benchmark
+	public Element process() {
+
+		Element inspectionResult = (Element) mInspectionResult.cloneNode( true );
+		return mInspectionResultProcessor.processInspectionResultAsDom( inspectionResult, null, null, mType );
+	}
+}
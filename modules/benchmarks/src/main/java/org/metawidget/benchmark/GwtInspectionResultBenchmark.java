@@ -0,0 +1,90 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.gwt.remote.server.CompactInspectionResultEncoder;
+import org.metawidget.util.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks encoding inspection results for sending to GWT clients: as XML versus the compact
+ * format of <code>GwtRemoteInspectionResults</code>.
+ * <p>
+ * Decoding happens in the browser so cannot be benchmarked here. The setup prints the payload size
+ * of each format.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class GwtInspectionResultBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int		properties;
+
+	//
+	// Private members
+	//
+
+	private Element	mInspectionResult;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mInspectionResult = BenchmarkInspectors.newCompositeInspector().inspectAsDom( null, SyntheticBeans.getBeanType( properties ) );
+
+		System.out.println( "Payload size: xml=" + encodeXml().length() + ", compact=" + encodeCompact().length() );
+	}
+
+	@Benchmark
+	public String encodeXml() {
+
+		return XmlUtils.nodeToString( mInspectionResult, false );
+	}
+
+	@Benchmark
+	public String encodeCompact() {
+
+		return CompactInspectionResultEncoder.encode( mInspectionResult );
+	}
+}
@@ -0,0 +1,120 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.caching.CachingInspector;
+import org.metawidget.inspector.caching.CachingInspectorConfig;
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.composite.ParallelCompositeInspector;
+import org.metawidget.inspector.composite.ParallelCompositeInspectorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks inspecting synthetic beans with a <code>CompositeInspector</code> of PropertyType,
+ * Metawidget annotation, JPA and Bean Validation Inspectors.
+ * <p>
+ * The <code>contended</code> variants run on all available cores against the same Inspector, to
+ * show how inspection scales when many requests (or many Metawidgets) inspect at once.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class InspectionBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int							properties;
+
+	//
+	// Private members
+	//
+
+	private String						mType;
+
+	private CompositeInspector			mCompositeInspector;
+
+	private ParallelCompositeInspector	mParallelCompositeInspector;
+
+	private CachingInspector			mCachingInspector;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mType = SyntheticBeans.getBeanType( properties );
+		mCompositeInspector = BenchmarkInspectors.newCompositeInspector();
+		mParallelCompositeInspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( BenchmarkInspectors.newInspectors() ) );
+		mCachingInspector = new CachingInspector( new CachingInspectorConfig().setInspector( BenchmarkInspectors.newCompositeInspector() ) );
+	}
+
+	@Benchmark
+	public Element composite() {
+
+		return mCompositeInspector.inspectAsDom( null, mType );
+	}
+
+	@Benchmark
+	@Threads( Threads.MAX )
+	public Element compositeContended() {
+
+		return mCompositeInspector.inspectAsDom( null, mType );
+	}
+
+	@Benchmark
+	public Element parallelComposite() {
+
+		return mParallelCompositeInspector.inspectAsDom( null, mType );
+	}
+
+	@Benchmark
+	public Element caching() {
+
+		return mCachingInspector.inspectAsDom( null, mType );
+	}
+
+	@Benchmark
+	@Threads( Threads.MAX )
+	public Element cachingContended() {
+
+		return mCachingInspector.inspectAsDom( null, mType );
+	}
+}
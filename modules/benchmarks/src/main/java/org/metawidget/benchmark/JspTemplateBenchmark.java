@@ -0,0 +1,116 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.jsp.JspMetawidgetTests.MockPageContext;
+import org.metawidget.jsp.JspUtils;
+import org.metawidget.jsp.tagext.html.HtmlMetawidgetTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks rendering a form with <code>HtmlMetawidgetTag</code>, as a JSP page would on every
+ * request: building the widgets from scratch (inspection, inspection result processing, widget
+ * building and layout) versus filling in a cached template (see
+ * <code>BaseHtmlMetawidgetTag.setTemplateCaching</code>).
+ * <p>
+ * Each operation renders a new tag, as a container that does not pool tags would. The first
+ * <code>templateCaching</code> operation records the template, so warmup excludes it.
+ * <p>
+ * This runs against <code>MockPageContext</code>, whose EL evaluation is trivial. So it measures
+ * Metawidget's own overhead, not that of any particular JSP container.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class JspTemplateBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "50", "100" } )
+	public int					properties;
+
+	//
+	// Private members
+	//
+
+	private MockPageContext		mPageContext;
+
+	private CompositeInspector	mInspector;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mPageContext = new MockPageContext();
+		mPageContext.setAttribute( "bean", SyntheticBeans.newBean( properties ) );
+		mInspector = BenchmarkInspectors.newCompositeInspector();
+	}
+
+	@Benchmark
+	public String buildWidgets()
+		throws Exception {
+
+		return JspUtils.writeTag( mPageContext, newMetawidget( false ), null );
+	}
+
+	@Benchmark
+	public String templateCaching()
+		throws Exception {
+
+		return JspUtils.writeTag( mPageContext, newMetawidget( true ), null );
+	}
+
+	//
+	// Private methods
+	//
+
+	private HtmlMetawidgetTag newMetawidget( boolean templateCaching ) {
+
+		HtmlMetawidgetTag metawidget = new HtmlMetawidgetTag();
+		metawidget.setConfig( null );
+		metawidget.setPageContext( mPageContext );
+		metawidget.setInspector( mInspector );
+		metawidget.setValue( "bean" );
+		metawidget.setTemplateCaching( templateCaching );
+
+		return metawidget;
+	}
+}
@@ -0,0 +1,207 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspectionresultprocessor.sort.ComesAfterInspectionResultProcessor;
+import org.metawidget.layout.iface.Layout;
+import org.metawidget.pipeline.base.BasePipeline;
+import org.metawidget.pipeline.w3c.W3CPipeline;
+import org.metawidget.widgetbuilder.iface.WidgetBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks the Pipeline itself, using a no-op WidgetBuilder and Layout so that only the
+ * Pipeline's own overhead (walking the inspection result, building attribute maps, dispatching to
+ * WidgetBuilders and Layouts) is measured.
+ * <p>
+ * <code>buildWidgets</code> benchmarks start from a ready-made inspection result.
+ * <code>inspectAndBuild</code> benchmarks run the whole pipeline: inspection, sorting by
+ * <code>ComesAfterInspectionResultProcessor</code> and building.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PipelineBenchmark {
+
+	//
+	// Private statics
+	//
+
+	/**
+	 * Every property is 'built' as this same widget.
+	 */
+
+	/* package private */static final Object	WIDGET	= new Object();
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int									properties;
+
+	//
+	// Private members
+	//
+
+	private String								mType;
+
+	private CountingLayout						mLayout;
+
+	private W3CBenchmarkPipeline				mW3CPipeline;
+
+	private Element								mW3CInspectionResult;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mType = SyntheticBeans.getBeanType( properties );
+		mLayout = new CountingLayout();
+
+		mW3CPipeline = new W3CBenchmarkPipeline();
+		configure( mW3CPipeline );
+		mW3CInspectionResult = mW3CPipeline.inspectAsDom( null, mType );
+	}
+
+	/**
+	 * @return the running count of widgets laid out, so the JIT cannot eliminate the build
+	 */
+
+	@Benchmark
+	public int w3cBuildWidgets()
+		throws Exception {
+
+		mW3CPipeline.buildWidgets( mW3CInspectionResult );
+		return mLayout.getCount();
+	}
+
+	@Benchmark
+	public int w3cInspectAndBuild()
+		throws Exception {
+
+		mW3CPipeline.buildWidgets( mW3CPipeline.inspectAsDom( null, mType ) );
+		return mLayout.getCount();
+	}
+
+	//
+	// Private methods
+	//
+
+	private void configure( BasePipeline<Object, Object, ?, Object> pipeline ) {
+
+		pipeline.setInspector( BenchmarkInspectors.newCompositeInspector() );
+		pipeline.addInspectionResultProcessor( new ComesAfterInspectionResultProcessor<Object>() );
+		pipeline.setWidgetBuilder( new NoOpWidgetBuilder() );
+		pipeline.setLayout( mLayout );
+	}
+
+	//
+	// Inner class
+	//
+
+	private static class W3CBenchmarkPipeline
+		extends W3CPipeline<Object, Object, Object> {
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected String getDefaultConfiguration() {
+
+			return null;
+		}
+
+		@Override
+		protected Map<String, String> getAdditionalAttributes( Object widget ) {
+
+			return null;
+		}
+
+		@Override
+		protected Object buildNestedMetawidget( Map<String, String> attributes ) {
+
+			return WIDGET;
+		}
+
+		@Override
+		protected Object getPipelineOwner() {
+
+			return WIDGET;
+		}
+	}
+
+	private static class NoOpWidgetBuilder
+		implements WidgetBuilder<Object, Object> {
+
+		//
+		// Public methods
+		//
+
+		public Object buildWidget( String elementName, Map<String, String> attributes, Object metawidget ) {
+
+			return WIDGET;
+		}
+	}
+
+	private static class CountingLayout
+		implements Layout<Object, Object, Object> {
+
+		//
+		// Private members
+		//
+
+		private int	mCount;
+
+		//
+		// Public methods
+		//
+
+		public void layoutWidget( Object widget, String elementName, Map<String, String> attributes, Object container, Object metawidget ) {
+
+			mCount += attributes.size();
+		}
+
+		public int getCount() {
+
+			return mCount;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyleConfig;
+import org.metawidget.inspector.impl.propertystyle.javabean.ReflectionPropertyAccessorFactory;
+import org.metawidget.inspector.impl.propertystyle.javassist.JavassistPropertyAccessorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks reading and writing every property of a synthetic bean (as binding does when a large
+ * form is displayed and saved) through <code>JavaBeanPropertyStyle</code>, comparing
+ * <code>PropertyAccessorFactory</code> implementations.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PropertyAccessorBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int						properties;
+
+	@Param( { "reflection", "javassist" } )
+	public String					accessor;
+
+	//
+	// Private members
+	//
+
+	private Object					mBean;
+
+	private Collection<Property>	mProperties;
+
+	private Object[]				mValues;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		JavaBeanPropertyStyleConfig config = new JavaBeanPropertyStyleConfig();
+
+		if ( "javassist".equals( accessor ) ) {
+			config.setPropertyAccessorFactory( new JavassistPropertyAccessorFactory() );
+		} else {
+			config.setPropertyAccessorFactory( new ReflectionPropertyAccessorFactory() );
+		}
+
+		mBean = SyntheticBeans.newBean( properties );
+		mProperties = new JavaBeanPropertyStyle( config ).getProperties( mBean.getClass().getName() ).values();
+
+		// Remember some valid values to write back
+
+		mValues = new Object[mProperties.size()];
+		int loop = 0;
+
+		for ( Property property : mProperties ) {
+			Object value = property.read( mBean );
+
+			if ( value == null ) {
+				value = property.getName();
+			}
+
+			mValues[loop++] = value;
+		}
+	}
+
+	@Benchmark
+	public void read( Blackhole blackhole ) {
+
+		for ( Property property : mProperties ) {
+			blackhole.consume( property.read( mBean ) );
+		}
+	}
+
+	@Benchmark
+	public Object write() {
+
+		int loop = 0;
+
+		for ( Property property : mProperties ) {
+			property.write( mBean, mValues[loop++] );
+		}
+
+		return mBean;
+	}
+}
@@ -0,0 +1,105 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.statically.html.StaticHtmlMetawidget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks static (ie. code-generating) Metawidgets, generating plain HTML and JSF pages for
+ * synthetic beans.
+ * <p>
+ * Each invocation uses a new Metawidget, as tools that generate pages do, but shares the same
+ * Inspector.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class StaticGenerationBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int					properties;
+
+	//
+	// Private members
+	//
+
+	private String				mType;
+
+	private CompositeInspector	mInspector;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mType = SyntheticBeans.getBeanType( properties );
+		mInspector = BenchmarkInspectors.newCompositeInspector();
+	}
+
+	@Benchmark
+	public String html() {
+
+		StaticHtmlMetawidget metawidget = new StaticHtmlMetawidget();
+		metawidget.setInspector( mInspector );
+		metawidget.setPath( mType );
+
+		StringWriter writer = new StringWriter();
+		metawidget.write( writer, 0 );
+
+		return writer.toString();
+	}
+
+	@Benchmark
+	public String faces() {
+
+		org.metawidget.statically.faces.component.html.StaticHtmlMetawidget metawidget = new org.metawidget.statically.faces.component.html.StaticHtmlMetawidget();
+		metawidget.setInspector( mInspector );
+		metawidget.setValue( "#{bean}" );
+		metawidget.setPath( mType );
+
+		StringWriter writer = new StringWriter();
+		metawidget.write( writer, 0 );
+
+		return writer.toString();
+	}
+}
@@ -0,0 +1,245 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.Map;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewMethod;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.ArrayMemberValue;
+import javassist.bytecode.annotation.BooleanMemberValue;
+import javassist.bytecode.annotation.IntegerMemberValue;
+import javassist.bytecode.annotation.LongMemberValue;
+import javassist.bytecode.annotation.MemberValue;
+import javassist.bytecode.annotation.StringMemberValue;
+
+import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * Generates synthetic business objects with a given number of properties.
+ * <p>
+ * Hand-written beans of 1,000 properties would swamp the source tree, so beans are generated (once
+ * per size) using Javassist. Properties cycle through four shapes, annotated the way a typical
+ * JPA/Bean Validation/Metawidget domain model would be:
+ * <ul>
+ * <li><code>String</code>: <code>@Column(length, nullable)</code>, <code>@NotNull</code>,
+ * <code>@Size(max)</code></li>
+ * <li><code>int</code>: <code>@Min</code>, <code>@Max</code></li>
+ * <li><code>java.util.Date</code>: <code>@UiLabel</code></li>
+ * <li><code>boolean</code>: <code>@UiRequired</code></li>
+ * </ul>
+ * Every property except the last is also annotated <code>@UiComesAfter</code> the next property,
+ * so that <code>ComesAfterInspectionResultProcessor</code> must reverse the natural (alphabetical)
+ * order.
+ * <p>
+ * Generated classes are defined in their own ClassLoader, which is registered with
+ * <code>ClassUtils.registerAlienClassLoader</code> so that Inspectors can resolve them by name.
+ *
+ * @author Richard Kennard
+ */
+
+public final class SyntheticBeans {
+
+	//
+	// Public statics
+	//
+
+	public static final String	PACKAGE	= "org.metawidget.benchmark.generated";
+
+	/**
+	 * Gets the name of a synthetic bean with the given number of properties, generating it if
+	 * necessary.
+	 */
+
+	public static synchronized String getBeanType( int properties ) {
+
+		Class<?> bean = BEANS.get( properties );
+
+		if ( bean == null ) {
+			try {
+				bean = generateBean( properties );
+			} catch ( Exception e ) {
+				throw new RuntimeException( e );
+			}
+
+			BEANS.put( properties, bean );
+		}
+
+		return bean.getName();
+	}
+
+	/**
+	 * Creates an instance of a synthetic bean with the given number of properties.
+	 */
+
+	public static Object newBean( int properties ) {
+
+		try {
+			return ClassUtils.niceForName( getBeanType( properties ) ).newInstance();
+		} catch ( Exception e ) {
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Gets the name of the given property.
+	 */
+
+	public static String getPropertyName( int property ) {
+
+		return "property" + property;
+	}
+
+	//
+	// Private statics
+	//
+
+	private static final Map<Integer, Class<?>>	BEANS			= CollectionUtils.newHashMap();
+
+	private static final BeanClassLoader		CLASS_LOADER	= new BeanClassLoader();
+
+	static {
+		ClassUtils.registerAlienClassLoader( CLASS_LOADER );
+	}
+
+	private static Class<?> generateBean( int properties )
+		throws Exception {
+
+		ClassPool pool = new ClassPool( true );
+		CtClass ctClass = pool.makeClass( PACKAGE + ".Bean" + properties );
+		// (annotations are ignored in class files earlier than Java 5)
+
+		ctClass.getClassFile().setVersionToJava5();
+		ConstPool constPool = ctClass.getClassFile().getConstPool();
+
+		for ( int loop = 0; loop < properties; loop++ ) {
+			String propertyName = getPropertyName( loop );
+			String capitalized = Character.toUpperCase( propertyName.charAt( 0 ) ) + propertyName.substring( 1 );
+			AnnotationsAttribute annotations = new AnnotationsAttribute( constPool, AnnotationsAttribute.visibleTag );
+			CtField field;
+			String getterPrefix = ClassUtils.JAVABEAN_GET_PREFIX;
+
+			switch ( loop % 4 ) {
+				case 0:
+					field = new CtField( pool.get( String.class.getName() ), propertyName, ctClass );
+
+					Annotation column = new Annotation( "javax.persistence.Column", constPool );
+					column.addMemberValue( "length", new IntegerMemberValue( constPool, 50 ) );
+					column.addMemberValue( "nullable", new BooleanMemberValue( false, constPool ) );
+					annotations.addAnnotation( column );
+					annotations.addAnnotation( new Annotation( "javax.validation.constraints.NotNull", constPool ) );
+
+					Annotation size = new Annotation( "javax.validation.constraints.Size", constPool );
+					size.addMemberValue( "max", new IntegerMemberValue( constPool, 50 ) );
+					annotations.addAnnotation( size );
+					break;
+
+				case 1:
+					field = new CtField( CtClass.intType, propertyName, ctClass );
+
+					Annotation min = new Annotation( "javax.validation.constraints.Min", constPool );
+					min.addMemberValue( "value", new LongMemberValue( 0L, constPool ) );
+					annotations.addAnnotation( min );
+
+					Annotation max = new Annotation( "javax.validation.constraints.Max", constPool );
+					max.addMemberValue( "value", new LongMemberValue( 100L, constPool ) );
+					annotations.addAnnotation( max );
+					break;
+
+				case 2:
+					field = new CtField( pool.get( "java.util.Date" ), propertyName, ctClass );
+
+					Annotation label = new Annotation( "org.metawidget.inspector.annotation.UiLabel", constPool );
+					label.addMemberValue( "value", new StringMemberValue( "Date " + loop, constPool ) );
+					annotations.addAnnotation( label );
+					break;
+
+				default:
+					field = new CtField( CtClass.booleanType, propertyName, ctClass );
+					getterPrefix = ClassUtils.JAVABEAN_IS_PREFIX;
+					annotations.addAnnotation( new Annotation( "org.metawidget.inspector.annotation.UiRequired", constPool ) );
+					break;
+			}
+
+			if ( loop < properties - 1 ) {
+				Annotation comesAfter = new Annotation( "org.metawidget.inspector.annotation.UiComesAfter", constPool );
+				ArrayMemberValue value = new ArrayMemberValue( new StringMemberValue( constPool ), constPool );
+				value.setValue( new MemberValue[] { new StringMemberValue( getPropertyName( loop + 1 ), constPool ) } );
+				comesAfter.addMemberValue( "value", value );
+				annotations.addAnnotation( comesAfter );
+			}
+
+			ctClass.addField( field );
+
+			CtMethod getter = CtNewMethod.getter( getterPrefix + capitalized, field );
+			getter.getMethodInfo().addAttribute( annotations );
+			ctClass.addMethod( getter );
+			ctClass.addMethod( CtNewMethod.setter( ClassUtils.JAVABEAN_SET_PREFIX + capitalized, field ) );
+		}
+
+		return CLASS_LOADER.defineClass( ctClass.getName(), ctClass.toBytecode() );
+	}
+
+	//
+	// Private constructor
+	//
+
+	private SyntheticBeans() {
+
+		// Can never be called
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * ClassLoader for generated beans.
+	 * <p>
+	 * Defining classes through our own ClassLoader (rather than Javassist's
+	 * <code>CtClass.toClass</code>) avoids reflecting on <code>ClassLoader.defineClass</code>,
+	 * which newer JDKs forbid.
+	 */
+
+	private static class BeanClassLoader
+		extends ClassLoader {
+
+		//
+		// Constructor
+		//
+
+		public BeanClassLoader() {
+
+			super( SyntheticBeans.class.getClassLoader() );
+		}
+
+		//
+		// Public methods
+		//
+
+		public Class<?> defineClass( String name, byte[] bytes ) {
+
+			return defineClass( name, bytes, 0, bytes.length );
+		}
+	}
+}
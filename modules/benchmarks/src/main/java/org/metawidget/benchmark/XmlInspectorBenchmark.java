@@ -0,0 +1,101 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.inspector.xml.XmlInspector;
+import org.metawidget.inspector.xml.XmlInspectorConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+/**
+ * Benchmarks the startup of XML-based Inspectors over large metadata files (10 properties per
+ * entity).
+ * <p>
+ * Each operation constructs the Inspector and performs its first inspection. The GC profiler's
+ * <code>gc.alloc.rate.norm</code> gives the bytes allocated per startup.
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class XmlInspectorBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "100", "1000", "10000" } )
+	public int		entities;
+
+	//
+	// Private members
+	//
+
+	private byte[]	mXml;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		StringBuilder builder = new StringBuilder( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\">" );
+
+		for ( int entity = 0; entity < entities; entity++ ) {
+			builder.append( "<entity type=\"Entity" );
+			builder.append( entity );
+			builder.append( "\">" );
+
+			for ( int property = 0; property < 10; property++ ) {
+				builder.append( "<property name=\"property" );
+				builder.append( property );
+				builder.append( "\" type=\"java.lang.String\" required=\"true\" maximum-length=\"30\"/>" );
+			}
+
+			builder.append( "</entity>" );
+		}
+
+		builder.append( "</inspection-result>" );
+		mXml = builder.toString().getBytes();
+	}
+
+	@Benchmark
+	public Element startup() {
+
+		XmlInspector inspector = new XmlInspector( new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( mXml ) ) );
+		return inspector.inspectAsDom( null, "Entity0" );
+	}
+}
@@ -0,0 +1,92 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+package org.metawidget.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.metawidget.util.XmlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks parsing and serializing inspection results with <code>XmlUtils</code>, on one thread
+ * and on all available cores (where contention on shared DocumentBuilders shows up).
+ *
+ * @author Richard Kennard
+ */
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class XmlUtilsBenchmark {
+
+	//
+	// Public members
+	//
+
+	@Param( { "10", "100", "1000" } )
+	public int	properties;
+
+	//
+	// Private members
+	//
+
+	private String	mXml;
+
+	//
+	// Public methods
+	//
+
+	@Setup
+	public void setup() {
+
+		mXml = BenchmarkInspectors.newCompositeInspector().inspect( null, SyntheticBeans.getBeanType( properties ) );
+	}
+
+	@Benchmark
+	public Document documentFromString() {
+
+		return XmlUtils.documentFromString( mXml );
+	}
+
+	@Benchmark
+	@Threads( Threads.MAX )
+	public Document documentFromStringContended() {
+
+		return XmlUtils.documentFromString( mXml );
+	}
+
+	@Benchmark
+	@Threads( Threads.MAX )
+	public Document newDocumentContended() {
+
+		return XmlUtils.newDocument();
+	}
+}
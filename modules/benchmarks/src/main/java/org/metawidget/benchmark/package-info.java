@@ -0,0 +1,47 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+/**
+ * JMH benchmarks.
+ * <p>
+ * Covers the main stages of the Metawidget pipeline, over synthetic beans of 10, 100 and 1,000
+ * properties:
+ * <ul>
+ * <li>inspection (<code>InspectionBenchmark</code>), and XML Inspector startup over large metadata
+ * files (<code>XmlInspectorBenchmark</code>)</li>
+ * <li>inspection result processing (<code>ComesAfterBenchmark</code>,
+ * <code>FacesInspectionResultBenchmark</code>)</li>
+ * <li>widget building (<code>PipelineBenchmark</code>, <code>StaticGenerationBenchmark</code>)</li>
+ * <li>rendering JSP forms, with and without template caching (<code>JspTemplateBenchmark</code>)</li>
+ * <li>configuration (<code>ConfigReaderBenchmark</code>)</li>
+ * <li>encoding inspection results for GWT clients (<code>GwtInspectionResultBenchmark</code>)</li>
+ * <li>supporting utilities (<code>PropertyAccessorBenchmark</code>,
+ * <code>XmlUtilsBenchmark</code>)</li>
+ * </ul>
+ * Benchmarks run headless and need no network or application server. To run them all:
+ * <p>
+ * <code>java -jar target/metawidget-benchmarks.jar</code>
+ * <p>
+ * Or a subset, with fewer sizes:
+ * <p>
+ * <code>java -jar target/metawidget-benchmarks.jar Inspection -p properties=100</code>
+ * <p>
+ * Benchmarks whose names end in <code>Contended</code> run on all available cores, so comparing
+ * them with their single-threaded counterparts shows how well each stage scales.
+ *
+ * @author Richard Kennard
+ */
+
+package org.metawidget.benchmark;
@@ -16,18 +16,18 @@
 
 package org.metawidget.inspectionresultprocessor.commons.jexl;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.jexl2.Expression;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
 import org.apache.commons.jexl2.MapContext;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessorException;
 import org.metawidget.inspectionresultprocessor.impl.BaseInspectionResultProcessor;
+import org.metawidget.inspectionresultprocessor.impl.BaseParsedValueCache;
 import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
-import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.simple.StringUtils;
 import org.w3c.dom.Element;
@@ -62,6 +62,20 @@ public class JexlInspectionResultProcessor<M>
 
 	private JexlEngine								mJexlEngine;
 
+	/**
+	 * Objects to inject into each JexlContext, keyed by their decapitalized Class name. Computed
+	 * once, rather than for every context.
+	 */
+
+	private Map<String, Object>						mInjected;
+
+	/**
+	 * Attribute values containing expressions, parsed. Bounded by
+	 * <code>JexlInspectionResultProcessorConfig.setMaximumCacheSize</code>.
+	 */
+
+	private ParsedValueCache						mParsedValues;
+
 	//
 	// Constructors
 	//
@@ -84,17 +98,35 @@ public class JexlInspectionResultProcessor<M>
 		mInjectThis = config.getInjectThis();
 		mInject = config.getInject();
 		mJexlEngine = createEngine();
+		mParsedValues = new ParsedValueCache( config.getMaximumCacheSize() );
+
+		if ( mInject != null ) {
+			mInjected = CollectionUtils.newHashMap();
+
+			for ( Object inject : mInject ) {
+				mInjected.put( StringUtils.decapitalize( inject.getClass().getSimpleName() ), inject );
+			}
+		}
 	}
 
 	@Override
 	public Element processInspectionResultAsDom( Element inspectionResult, M metawidget, Object toInspect, String type, String... names ) {
 
+		// Expressions may themselves trigger processing (eg. of a nested Metawidget), so restore
+		// the outer context afterwards rather than removing it
+
+		JexlContext previousContext = LOCAL_CONTEXT.get();
+
 		try {
 			LOCAL_CONTEXT.set( createContext( metawidget ) );
 			return super.processInspectionResultAsDom( inspectionResult, metawidget, toInspect, type, names );
 
 		} finally {
-			LOCAL_CONTEXT.remove();
+			if ( previousContext == null ) {
+				LOCAL_CONTEXT.remove();
+			} else {
+				LOCAL_CONTEXT.set( previousContext );
+			}
 		}
 	}
 
@@ -139,6 +171,8 @@ public class JexlInspectionResultProcessor<M>
 	@Override
 	protected void processAttributes( Map<String, String> attributes, M metawidget ) {
 
+		JexlContext context = LOCAL_CONTEXT.get();
+
 		// For each attribute value...
 
 		for ( Map.Entry<String, String> entry : attributes.entrySet() ) {
@@ -146,66 +180,25 @@ public class JexlInspectionResultProcessor<M>
 			String key = entry.getKey();
 			String value = entry.getValue();
 
-			// ...that contains an EL expression...
-
-			Matcher matcher = PATTERN_EXPRESSION.matcher( value );
-			int matchOffset = 0;
-
-			while ( matcher.find() ) {
-
-				String expression = matcher.group( 1 );
-
-				// ...evaluate it...
-
-				try {
-					Object valueObject = mJexlEngine.createExpression( expression ).evaluate( LOCAL_CONTEXT.get() );
-					String valueObjectAsString;
-
-					if ( valueObject == null ) {
-
-						// Support the default case (when the String is just one EL)
-
-						if ( matcher.start() == 0 && matcher.end() == value.length() ) {
-							value = null;
-							break;
-						}
-
-						valueObjectAsString = "";
-					} else {
+			// ...that may contain an EL expression (most attributes cannot, so skip them without
+			// any pattern matching)...
 
-						// Support the default case (when the String is just one EL)
-
-						if ( matcher.start() == 0 && matcher.end() == value.length() ) {
-							if ( valueObject instanceof Collection<?> ) {
-								value = CollectionUtils.toString( (Collection<?>) valueObject );
-							} else if ( valueObject.getClass().isArray() ) {
-								value = ArrayUtils.toString( valueObject );
-							} else {
-								value = String.valueOf( valueObject );
-							}
-							break;
-						}
-
-						valueObjectAsString = String.valueOf( valueObject );
-					}
+			if ( value.indexOf( "${" ) == -1 ) {
+				continue;
+			}
 
-					// Replace multiple ELs within the String
+			try {
+				// ...parse it (once, if there is room in the cache), evaluate it, and replace it
 
-					value = new StringBuilder( value ).replace( matcher.start() + matchOffset, matcher.end() + matchOffset, valueObjectAsString ).toString();
-					matchOffset += valueObjectAsString.length() - ( matcher.end() - matcher.start() );
+				attributes.put( key, mParsedValues.evaluate( value, context ) );
 
-				} catch ( Exception e ) {
+			} catch ( Exception e ) {
 
-					// We have found it helpful to include the actual expression we were trying to
-					// evaluate
+				// We have found it helpful to include the actual expression we were trying to
+				// evaluate
 
-					throw InspectionResultProcessorException.newException( "Unable to evaluate " + value, e );
-				}
+				throw InspectionResultProcessorException.newException( "Unable to evaluate " + value, e );
 			}
-
-			// ...and replace it
-
-			attributes.put( key, value );
 		}
 	}
 
@@ -231,15 +224,53 @@ public class JexlInspectionResultProcessor<M>
 
 	protected JexlContext createContext( M metawidget ) {
 
-		JexlContext context = new MapContext();
+		if ( mInjected == null ) {
+			return new MapContext();
+		}
 
-		if ( mInject != null ) {
+		return new MapContext( CollectionUtils.newHashMap( mInjected ) );
+	}
 
-			for ( Object inject : mInject ) {
-				context.set( StringUtils.decapitalize( inject.getClass().getSimpleName() ), inject );
-			}
+	//
+	// Inner class
+	//
+
+	/**
+	 * Attribute values, parsed into their literal text and their JEXL expressions.
+	 */
+
+	private class ParsedValueCache
+		extends BaseParsedValueCache<Expression, JexlContext> {
+
+		//
+		// Constructor
+		//
+
+		public ParsedValueCache( int maximumSize ) {
+
+			super( maximumSize );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Matcher matchExpressions( String value ) {
+
+			return PATTERN_EXPRESSION.matcher( value );
 		}
 
-		return context;
+		@Override
+		protected Expression parseExpression( Matcher matcher, JexlContext context ) {
+
+			return mJexlEngine.createExpression( matcher.group( 1 ) );
+		}
+
+		@Override
+		protected Object evaluateExpression( Expression expression, JexlContext context ) {
+
+			return expression.evaluate( context );
+		}
 	}
 }
@@ -45,6 +45,8 @@ public class JexlInspectionResultProcessorConfig {
 
 	private boolean					mNullInjectThis;
 
+	private int						mMaximumCacheSize	= 1000;
+
 	//
 	// Public methods
 	//
@@ -107,6 +109,24 @@ public class JexlInspectionResultProcessorConfig {
 		return this;
 	}
 
+	/**
+	 * Sets the maximum number of attribute values whose parsed JEXL expressions are cached. Once
+	 * this is reached, further attribute values are parsed every time they are evaluated.
+	 * <p>
+	 * 1000 by default. Set to 0 to disable caching.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public JexlInspectionResultProcessorConfig setMaximumCacheSize( int maximumCacheSize ) {
+
+		mMaximumCacheSize = maximumCacheSize;
+
+		// Fluent interface
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -130,6 +150,10 @@ public class JexlInspectionResultProcessorConfig {
 			return false;
 		}
 
+		if ( mMaximumCacheSize != ( (JexlInspectionResultProcessorConfig) that ).mMaximumCacheSize ) {
+			return false;
+		}
+
 		return true;
 	}
 
@@ -140,6 +164,7 @@ public class JexlInspectionResultProcessorConfig {
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mInjectThis );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mNullInjectThis );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mInject );
+		hashCode = 31 * hashCode + mMaximumCacheSize;
 
 		return hashCode;
 	}
@@ -167,4 +192,9 @@ public class JexlInspectionResultProcessorConfig {
 
 		return mInject;
 	}
-}
\ No newline at end of file
+
+	protected int getMaximumCacheSize() {
+
+		return mMaximumCacheSize;
+	}
+}
\ No newline at end of file
@@ -19,9 +19,12 @@ package org.metawidget.inspectionresultprocessor.commons.jexl;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.util.Collection;
+import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.apache.commons.jexl2.Expression;
+import org.apache.commons.jexl2.JexlEngine;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyleConfig;
 import org.metawidget.util.CollectionUtils;
@@ -248,6 +251,76 @@ public class JexlInspectionResultProcessorTest
 		assertEquals( entity.getChildNodes().getLength(), 1 );
 	}
 
+	public void testParsedValuesAreCached() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://www.metawidget.org/inspection-result\" version=\"1.0\">";
+		xml += "<entity type=\"Foo\">";
+		xml += "<property name=\"bar1\" value-is-el=\"${this.baz}\" value-is-text=\"text {}\"/>";
+		xml += "<property name=\"bar2\" value-is-embedded-el=\"first ${this.abc} middle ${null}${this.def} last\"/>";
+		xml += "<property name=\"bar3\" value-is-el=\"${this.baz}\"/>";
+		xml += "</entity></inspection-result>";
+
+		final List<String> createdExpressions = CollectionUtils.newArrayList();
+		JexlInspectionResultProcessor<?> inspectionResultProcessor = new JexlInspectionResultProcessor<Object>() {
+
+			@Override
+			protected JexlEngine createEngine() {
+
+				return new JexlEngine() {
+
+					@Override
+					public Expression createExpression( String expression ) {
+
+						createdExpressions.add( expression );
+						return super.createExpression( expression );
+					}
+				};
+			}
+		};
+
+		String result = inspectionResultProcessor.processInspectionResult( xml, null, new Foo(), Foo.class.getName() );
+
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( result ).getDocumentElement() );
+		Element property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( "from-baz", property.getAttribute( "value-is-el" ) );
+		assertEquals( "text {}", property.getAttribute( "value-is-text" ) );
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "first from-abc middle from-def last", property.getAttribute( "value-is-embedded-el" ) );
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "from-baz", property.getAttribute( "value-is-el" ) );
+
+		// Each attribute value is parsed once
+
+		assertEquals( 4, createdExpressions.size() );
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, new Foo(), Foo.class.getName() ) );
+		assertEquals( 4, createdExpressions.size() );
+
+		// Not cached
+
+		createdExpressions.clear();
+		inspectionResultProcessor = new JexlInspectionResultProcessor<Object>( new JexlInspectionResultProcessorConfig().setMaximumCacheSize( 0 ) ) {
+
+			@Override
+			protected JexlEngine createEngine() {
+
+				return new JexlEngine() {
+
+					@Override
+					public Expression createExpression( String expression ) {
+
+						createdExpressions.add( expression );
+						return super.createExpression( expression );
+					}
+				};
+			}
+		};
+
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, new Foo(), Foo.class.getName() ) );
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, new Foo(), Foo.class.getName() ) );
+		assertEquals( 10, createdExpressions.size() );
+	}
+
 	//
 	// Inner class
 	//
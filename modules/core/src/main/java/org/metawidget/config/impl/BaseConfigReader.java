@@ -93,6 +93,13 @@ public class BaseConfigReader
 
 	/* package private */final Map<String, CachingContentHandler>		mResourceCache				= CollectionUtils.newHashMap();
 
+	/**
+	 * Cache of compiled resources, keyed the same as mResourceCache. Unlike mResourceCache, this
+	 * cache is read without locking.
+	 */
+
+	/* package private */final Map<String, ConfigPlan>					mPlanCache					= CollectionUtils.newConcurrentHashMap();
+
 	/**
 	 * Cache of objects that are immutable, indexed by a unique location (ie. the resource name) and
 	 * element number. This is a broad-grained cache that can prune off large portions of the tree.
@@ -159,6 +166,9 @@ public class BaseConfigReader
 	 * <p>
 	 * This version further caches any immutable objects, in the same way as
 	 * <code>configure( InputStream, Object )</code> (see the JavaDoc for that method).
+	 * <p>
+	 * The first call for a given resource compiles it into a <code>ConfigPlan</code>. Subsequent
+	 * calls apply that plan without locking and without looking up any classes or methods.
 	 *
 	 * @param resource
 	 *            resource name that will be looked up using openResource
@@ -172,8 +182,6 @@ public class BaseConfigReader
 
 	public Object configure( String resource, Object toConfigure, String... names ) {
 
-		ConfigHandler configHandler = new ConfigHandler( toConfigure, names );
-
 		// Establish cache
 
 		String locationKey = resource + StringUtils.SEPARATOR_FORWARD_SLASH;
@@ -186,8 +194,28 @@ public class BaseConfigReader
 
 		locationKey += ArrayUtils.toString( names, StringUtils.SEPARATOR_FORWARD_SLASH, true, false );
 
+		// Apply the compiled plan (if any)...
+
+		ConfigPlan configPlan = mPlanCache.get( locationKey );
+
+		if ( configPlan != null ) {
+			return applyPlan( configPlan, toConfigure );
+		}
+
+		// ...or read the resource
+
 		synchronized ( mImmutableByLocationCache ) {
 
+			// (another thread may have compiled it while we waited)
+
+			configPlan = mPlanCache.get( locationKey );
+
+			if ( configPlan != null ) {
+				return applyPlan( configPlan, toConfigure );
+			}
+
+			ConfigHandler configHandler = new ConfigHandler( toConfigure, names );
+
 			Map<Integer, Immutable> immutableByLocationCache = mImmutableByLocationCache.get( locationKey );
 
 			if ( immutableByLocationCache == null ) {
@@ -213,12 +241,19 @@ public class BaseConfigReader
 					LOG.debug( "Reading resource from {0}", locationKey );
 					cachingContentHandler = new CachingContentHandler( configHandler );
 					configHandler.setCachingContentHandler( cachingContentHandler );
+					configHandler.startPlan();
 					mFactory.newSAXParser().parse( mResourceResolver.openResource( resource ), cachingContentHandler );
 
 					// Only cache if successful
 
 					mResourceCache.put( locationKey, cachingContentHandler );
 					mImmutableByLocationCache.put( locationKey, immutableByLocationCache );
+
+					configPlan = configHandler.getPlan();
+
+					if ( configPlan != null ) {
+						mPlanCache.put( locationKey, configPlan );
+					}
 				}
 
 				return configHandler.getConfigured();
@@ -392,6 +427,57 @@ public class BaseConfigReader
 		return false;
 	}
 
+	/**
+	 * Whether the given native type always creates an equivalent, immutable value from the same
+	 * recorded text. Such natives are created once, when a resource is first read, and reused by
+	 * its <code>ConfigPlan</code>. Other natives (such as <code>resource</code>) are recreated
+	 * every time.
+	 * <p>
+	 * Subclasses that override <code>createNative</code> to return different values on different
+	 * calls should override this method too.
+	 */
+
+	protected boolean isNativeConstant( String name ) {
+
+		if ( "null".equals( name ) ) {
+			return true;
+		}
+
+		if ( "string".equals( name ) ) {
+			return true;
+		}
+
+		if ( "class".equals( name ) ) {
+			return true;
+		}
+
+		if ( "pattern".equals( name ) ) {
+			return true;
+		}
+
+		if ( "int".equals( name ) ) {
+			return true;
+		}
+
+		if ( "boolean".equals( name ) ) {
+			return true;
+		}
+
+		if ( "bundle".equals( name ) ) {
+			return true;
+		}
+
+		if ( "enum".equals( name ) ) {
+			return true;
+		}
+
+		if ( "constant".equals( name ) ) {
+			return true;
+		}
+
+		return false;
+	}
+
 	/**
 	 * Create the given native type based on the recorded text (as returned by
 	 * <code>SAX.endRecording</code>)
@@ -626,6 +712,23 @@ public class BaseConfigReader
 		return ( Immutable.class.isAssignableFrom( clazz ) );
 	}
 
+	//
+	// Private methods
+	//
+
+	private Object applyPlan( ConfigPlan configPlan, Object toConfigure ) {
+
+		try {
+			return configPlan.apply( this, toConfigure );
+		} catch ( InvocationTargetException e ) {
+			// Prevent InvocationTargetException 'masking' the error
+
+			throw MetawidgetException.newException( e.getTargetException() );
+		} catch ( Exception e ) {
+			throw MetawidgetException.newException( e );
+		}
+	}
+
 	//
 	// Inner classes
 	//
@@ -732,6 +835,13 @@ public class BaseConfigReader
 
 		private CachingContentHandler	mCachingContentHandler;
 
+		/**
+		 * Stack of ConfigPlan steps recorded so far, mirroring mConstructing. Null if not recording
+		 * a plan.
+		 */
+
+		private Stack<ConfigPlan.Builder>	mPlanning;
+
 		//
 		// Constructor
 		//
@@ -756,6 +866,28 @@ public class BaseConfigReader
 			mCachingContentHandler = cachingContentHandler;
 		}
 
+		/**
+		 * Record a <code>ConfigPlan</code> while processing.
+		 */
+
+		public void startPlan() {
+
+			mPlanning = CollectionUtils.newStack();
+		}
+
+		/**
+		 * @return the recorded <code>ConfigPlan</code>, or null if none was recorded
+		 */
+
+		public ConfigPlan getPlan() {
+
+			if ( mPlanning == null || mPlanning.size() != 1 ) {
+				return null;
+			}
+
+			return new ConfigPlan( mPlanning.peek().toObjectStep() );
+		}
+
 		public Object getConfigured() {
 
 			if ( mConstructing.isEmpty() ) {
@@ -862,6 +994,7 @@ public class BaseConfigReader
 
 							mConstructing.push( mToConfigure );
 							mEncountered.push( EncounteredState.JAVA_OBJECT );
+							planPush( ConfigPlan.Builder.forToConfigure() );
 						}
 
 						mExpecting = ExpectingState.METHOD;
@@ -890,6 +1023,7 @@ public class BaseConfigReader
 						if ( collection != null ) {
 							mConstructing.push( collection );
 							mEncountered.push( EncounteredState.NATIVE_COLLECTION_TYPE );
+							planPush( ConfigPlan.Builder.forCollection( localName ) );
 
 							mExpecting = ExpectingState.OBJECT;
 							return;
@@ -931,6 +1065,7 @@ public class BaseConfigReader
 
 						mConstructing.push( new ArrayList<Object>() );
 						mEncountered.push( EncounteredState.METHOD );
+						planPush( ConfigPlan.Builder.forArguments() );
 
 						mExpecting = ExpectingState.OBJECT;
 						break;
@@ -1037,7 +1172,15 @@ public class BaseConfigReader
 
 						// Create native
 
-						addToConstructing( createNative( localName, constructing.getClass(), endRecording() ) );
+						String recordedText = endRecording();
+						Object nativeValue = createNative( localName, constructing.getClass(), recordedText );
+						addToConstructing( nativeValue );
+
+						if ( isNativeConstant( localName ) ) {
+							planAdd( new ConfigPlan.ConstantStep( nativeValue ) );
+						} else {
+							planAdd( new ConfigPlan.NativeStep( localName, constructing.getClass(), recordedText ) );
+						}
 
 						mExpecting = ExpectingState.OBJECT;
 						return;
@@ -1050,6 +1193,10 @@ public class BaseConfigReader
 						Collection<Object> parameters = (Collection<Object>) mConstructing.peek();
 						parameters.add( nativeCollectionType );
 
+						if ( mPlanning != null ) {
+							planAdd( mPlanning.pop().toCollectionStep() );
+						}
+
 						mExpecting = ExpectingState.OBJECT;
 						return;
 					}
@@ -1057,6 +1204,11 @@ public class BaseConfigReader
 					case CONFIGURED_TYPE:
 					case JAVA_OBJECT: {
 						Object object = mConstructing.pop();
+						ConfigPlan.Builder planned = null;
+
+						if ( mPlanning != null ) {
+							planned = mPlanning.pop();
+						}
 
 						if ( encountered == EncounteredState.CONFIGURED_TYPE ) {
 							Class<?> classToConstruct = lookupClass( uri, localName, mToConfigure.getClass().getClassLoader() );
@@ -1074,6 +1226,10 @@ public class BaseConfigReader
 								try {
 									Constructor<?> constructor = classToConstruct.getConstructor( object.getClass() );
 									configuredObject = constructor.newInstance( object );
+
+									if ( planned != null ) {
+										planned.setConstructor( constructor );
+									}
 								} catch ( NoSuchMethodException e ) {
 									String likelyConfig = getLikelyConfig( classToConstruct );
 
@@ -1117,18 +1273,29 @@ public class BaseConfigReader
 							// on
 
 							object = configuredObject;
+
+							// Immutable? Plan to reuse the same instance
+
+							if ( planned != null && isImmutable( classToConstruct ) ) {
+								planned = ConfigPlan.Builder.forInstance( configuredObject );
+							}
 						}
 
 						// Back at root? Expect another TO_CONFIGURE
 
 						if ( mDepth == 1 ) {
 							mConstructing.push( object );
+							planPush( planned );
 							mExpecting = ExpectingState.TO_CONFIGURE;
 							return;
 						}
 
 						addToConstructing( object );
 
+						if ( planned != null ) {
+							planAdd( planned.toObjectStep() );
+						}
+
 						mExpecting = ExpectingState.OBJECT;
 						return;
 					}
@@ -1146,8 +1313,19 @@ public class BaseConfigReader
 						String methodName = "set" + StringUtils.capitalize( localName );
 
 						try {
+							List<Object> recordedParameters = null;
+
+							if ( mPlanning != null ) {
+								recordedParameters = CollectionUtils.newArrayList( parameters );
+							}
+
 							Method method = classGetMethod( constructingClass, methodName, parameters );
 							method.invoke( constructing, parameters.toArray() );
+
+							if ( mPlanning != null ) {
+								ConfigPlan.Builder arguments = mPlanning.pop();
+								mPlanning.peek().addMethod( new ConfigPlan.MethodStep( method, arguments.getValues(), recordedParameters, parameters ) );
+							}
 						} catch ( NoSuchMethodException e ) {
 							// Hint for config-based constructors
 
@@ -1245,6 +1423,7 @@ public class BaseConfigReader
 
 				mConstructing.push( immutable );
 				mEncountered.push( EncounteredState.JAVA_OBJECT );
+				planPush( ConfigPlan.Builder.forInstance( immutable ) );
 				return ExpectingState.CLOSE_OBJECT_WITH_REFID;
 			}
 
@@ -1287,6 +1466,7 @@ public class BaseConfigReader
 
 					mConstructing.push( new ConfigAndId( config, attributes.getValue( "id" ) ) );
 					mEncountered.push( EncounteredState.CONFIGURED_TYPE );
+					planPush( ConfigPlan.Builder.forConfig( configClass ) );
 
 					// Pause caching (if any)
 
@@ -1307,9 +1487,11 @@ public class BaseConfigReader
 
 			// Java objects (without config)?
 
+			Constructor<?> defaultConstructor = null;
+
 			if ( object == null ) {
 				try {
-					Constructor<?> defaultConstructor = classToConstruct.getConstructor();
+					defaultConstructor = classToConstruct.getConstructor();
 					object = defaultConstructor.newInstance();
 				} catch ( NoSuchMethodException e ) {
 					String likelyConfig = getLikelyConfig( classToConstruct );
@@ -1339,6 +1521,15 @@ public class BaseConfigReader
 			mConstructing.push( object );
 			mEncountered.push( EncounteredState.JAVA_OBJECT );
 
+			// Immutables are planned as shared instances. Any methods called on them now are not
+			// replayed by the plan
+
+			if ( isImmutable( classToConstruct ) ) {
+				planPush( ConfigPlan.Builder.forInstance( object ) );
+			} else {
+				planPush( ConfigPlan.Builder.forConstructor( defaultConstructor ) );
+			}
+
 			return ExpectingState.METHOD;
 		}
 
@@ -1372,6 +1563,24 @@ public class BaseConfigReader
 			throw MetawidgetException.newException( "Don't know how to add to a " + parameters.getClass() );
 		}
 
+		private void planPush( ConfigPlan.Builder planned ) {
+
+			if ( mPlanning == null ) {
+				return;
+			}
+
+			mPlanning.push( planned );
+		}
+
+		private void planAdd( ConfigPlan.Step step ) {
+
+			if ( mPlanning == null ) {
+				return;
+			}
+
+			mPlanning.peek().addValue( step );
+		}
+
 		private Object getImmutableByLocation() {
 
 			// No cache (ie. XML coming from a nameless InputStream)?
@@ -0,0 +1,550 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.config.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+
+import org.metawidget.config.iface.NeedsResourceResolver;
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * Compiled form of a configuration resource.
+ * <p>
+ * A <code>ConfigPlan</code> is recorded by <code>BaseConfigReader</code> the first time it reads a
+ * resource. It is a tree of steps: the setter methods to call, already resolved, and the values
+ * to pass them. Immutable objects (and natives that always evaluate the same, as decided by
+ * <code>BaseConfigReader.isNativeConstant</code>) are stored as shared instances, already
+ * configured. Everything else is recreated each time, just as if the XML had been read again.
+ * <p>
+ * Once built, a <code>ConfigPlan</code> is never modified, so it can be applied by many threads at
+ * once without locking, and without looking up any classes or methods.
+ *
+ * @author Richard Kennard
+ */
+
+/* package private */final class ConfigPlan {
+
+	//
+	// Private members
+	//
+
+	private final ObjectStep	mRoot;
+
+	//
+	// Constructor
+	//
+
+	/* package private */ConfigPlan( ObjectStep root ) {
+
+		mRoot = root;
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Apply this plan.
+	 *
+	 * @param toConfigure
+	 *            object to configure. Only used if the plan was recorded against an instance,
+	 *            rather than a Class
+	 * @return the configured object
+	 */
+
+	public Object apply( BaseConfigReader configReader, Object toConfigure )
+		throws Exception {
+
+		return mRoot.evaluate( configReader, toConfigure );
+	}
+
+	//
+	// Inner classes
+	//
+
+	/**
+	 * A step that evaluates to a value (ie. a method parameter, or an element of a collection).
+	 */
+
+	/* package private */static abstract class Step {
+
+		//
+		// Public methods
+		//
+
+		public abstract Object evaluate( BaseConfigReader configReader, Object toConfigure )
+			throws Exception;
+	}
+
+	/**
+	 * Step that always evaluates to the same instance (ie. an <code>Immutable</code>, or a constant
+	 * native).
+	 */
+
+	/* package private */static final class ConstantStep
+		extends Step {
+
+		//
+		// Private members
+		//
+
+		private final Object	mValue;
+
+		//
+		// Constructor
+		//
+
+		public ConstantStep( Object value ) {
+
+			mValue = value;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Object getValue() {
+
+			return mValue;
+		}
+
+		@Override
+		public Object evaluate( BaseConfigReader configReader, Object toConfigure ) {
+
+			return mValue;
+		}
+	}
+
+	/**
+	 * Step that creates a new native on every evaluation (ie. a <code>resource</code> or
+	 * <code>format</code>).
+	 */
+
+	/* package private */static final class NativeStep
+		extends Step {
+
+		//
+		// Private members
+		//
+
+		private final String	mName;
+
+		private final Class<?>	mNamespace;
+
+		private final String	mRecordedText;
+
+		//
+		// Constructor
+		//
+
+		public NativeStep( String name, Class<?> namespace, String recordedText ) {
+
+			mName = name;
+			mNamespace = namespace;
+			mRecordedText = recordedText;
+		}
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public Object evaluate( BaseConfigReader configReader, Object toConfigure )
+			throws Exception {
+
+			return configReader.createNative( mName, mNamespace, mRecordedText );
+		}
+	}
+
+	/**
+	 * Step that creates a new native collection, and evaluates each of its elements into it.
+	 */
+
+	/* package private */static final class CollectionStep
+		extends Step {
+
+		//
+		// Private members
+		//
+
+		private final String	mName;
+
+		private final Step[]	mElements;
+
+		//
+		// Constructor
+		//
+
+		public CollectionStep( String name, List<Step> elements ) {
+
+			mName = name;
+			mElements = elements.toArray( new Step[elements.size()] );
+		}
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public Object evaluate( BaseConfigReader configReader, Object toConfigure )
+			throws Exception {
+
+			Object collection = configReader.createNativeCollection( mName );
+
+			// Collections
+
+			if ( collection instanceof Collection<?> ) {
+				@SuppressWarnings( "unchecked" )
+				Collection<Object> elements = (Collection<Object>) collection;
+
+				for ( Step element : mElements ) {
+					elements.add( element.evaluate( configReader, toConfigure ) );
+				}
+
+				return elements;
+			}
+
+			// Arrays
+
+			Object[] array = (Object[]) collection;
+			Object[] newArray = new Object[array.length + mElements.length];
+			System.arraycopy( array, 0, newArray, 0, array.length );
+
+			for ( int loop = 0, length = mElements.length; loop < length; loop++ ) {
+				newArray[array.length + loop] = mElements[loop].evaluate( configReader, toConfigure );
+			}
+
+			return newArray;
+		}
+	}
+
+	/**
+	 * Step that obtains an object and calls its setter methods.
+	 */
+
+	/* package private */static final class ObjectStep
+		extends Step {
+
+		//
+		// Private members
+		//
+
+		/**
+		 * Instance to use, or null to create a new one (or to use <code>toConfigure</code>).
+		 */
+
+		private final Object			mInstance;
+
+		/**
+		 * Whether to use <code>toConfigure</code>.
+		 */
+
+		private final boolean			mToConfigure;
+
+		/**
+		 * Config class to instantiate and pass to <code>mConstructor</code>. If null,
+		 * <code>mConstructor</code> is a default constructor.
+		 */
+
+		private final Class<?>			mConfigClass;
+
+		private final Constructor<?>	mConstructor;
+
+		/**
+		 * Setter methods to call, either on the object or (if <code>mConfigClass</code> is not
+		 * null) on its config.
+		 */
+
+		private final MethodStep[]		mMethods;
+
+		//
+		// Constructor
+		//
+
+		/* package private */ObjectStep( Object instance, boolean toConfigure, Class<?> configClass, Constructor<?> constructor, List<MethodStep> methods ) {
+
+			mInstance = instance;
+			mToConfigure = toConfigure;
+			mConfigClass = configClass;
+			mConstructor = constructor;
+			mMethods = methods.toArray( new MethodStep[methods.size()] );
+		}
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public Object evaluate( BaseConfigReader configReader, Object toConfigure )
+			throws Exception {
+
+			// Configured types
+
+			if ( mConfigClass != null ) {
+				Object config = mConfigClass.newInstance();
+
+				if ( config instanceof NeedsResourceResolver ) {
+					( (NeedsResourceResolver) config ).setResourceResolver( configReader.getResourceResolver() );
+				}
+
+				invokeMethods( configReader, toConfigure, config );
+				return mConstructor.newInstance( config );
+			}
+
+			// Java objects
+
+			Object object;
+
+			if ( mToConfigure ) {
+				object = toConfigure;
+			} else if ( mConstructor != null ) {
+				object = mConstructor.newInstance();
+			} else {
+				object = mInstance;
+			}
+
+			invokeMethods( configReader, toConfigure, object );
+			return object;
+		}
+
+		//
+		// Private methods
+		//
+
+		private void invokeMethods( BaseConfigReader configReader, Object toConfigure, Object target )
+			throws Exception {
+
+			for ( MethodStep method : mMethods ) {
+				method.invoke( configReader, toConfigure, target );
+			}
+		}
+	}
+
+	/**
+	 * Call to a setter method, resolved when the plan was recorded.
+	 */
+
+	/* package private */static final class MethodStep {
+
+		//
+		// Private members
+		//
+
+		private final Method	mMethod;
+
+		private final Step[]	mArguments;
+
+		/**
+		 * For each argument, the type to lazily resolve it to (as per
+		 * <code>BaseConfigReader.createLazyResolvingNative</code>), or null if it is used as-is.
+		 */
+
+		private final Class<?>[]	mResolveTo;
+
+		//
+		// Constructor
+		//
+
+		/**
+		 * @param arguments
+		 *            the argument steps
+		 * @param recordedArguments
+		 *            the arguments as originally evaluated, before lazy resolution
+		 * @param resolvedArguments
+		 *            the arguments after lazy resolution, as passed to the method
+		 */
+
+		public MethodStep( Method method, List<Step> arguments, List<Object> recordedArguments, List<Object> resolvedArguments ) {
+
+			mMethod = method;
+			mArguments = arguments.toArray( new Step[arguments.size()] );
+			mResolveTo = new Class<?>[mArguments.length];
+
+			Class<?>[] parameterTypes = method.getParameterTypes();
+
+			for ( int loop = 0, length = mArguments.length; loop < length; loop++ ) {
+
+				Object resolvedArgument = resolvedArguments.get( loop );
+
+				if ( recordedArguments.get( loop ) == resolvedArgument ) {
+					continue;
+				}
+
+				// Constants can be resolved once, up front
+
+				if ( mArguments[loop] instanceof ConstantStep ) {
+					mArguments[loop] = new ConstantStep( resolvedArgument );
+					continue;
+				}
+
+				mResolveTo[loop] = parameterTypes[loop];
+			}
+		}
+
+		//
+		// Public methods
+		//
+
+		public void invoke( BaseConfigReader configReader, Object toConfigure, Object target )
+			throws Exception {
+
+			int length = mArguments.length;
+			Object[] arguments = new Object[length];
+
+			for ( int loop = 0; loop < length; loop++ ) {
+				Object argument = mArguments[loop].evaluate( configReader, toConfigure );
+				Class<?> resolveTo = mResolveTo[loop];
+
+				if ( resolveTo != null && argument != null && !resolveTo.isInstance( argument ) ) {
+					argument = configReader.createLazyResolvingNative( argument, resolveTo );
+
+					if ( argument == null ) {
+						throw MetawidgetException.newException( "Could not resolve argument " + loop + " of " + mMethod );
+					}
+				}
+
+				arguments[loop] = argument;
+			}
+
+			mMethod.invoke( target, arguments );
+		}
+	}
+
+	/**
+	 * Records an <code>ObjectStep</code>, a <code>CollectionStep</code> or the arguments of a
+	 * <code>MethodStep</code> while its XML element is still open.
+	 */
+
+	/* package private */static final class Builder {
+
+		//
+		// Private members
+		//
+
+		private Object					mInstance;
+
+		private boolean					mToConfigure;
+
+		private Class<?>				mConfigClass;
+
+		private Constructor<?>			mConstructor;
+
+		private String					mCollectionName;
+
+		private final List<Step>		mValues		= CollectionUtils.newArrayList();
+
+		private final List<MethodStep>	mMethods	= CollectionUtils.newArrayList();
+
+		//
+		// Public statics
+		//
+
+		public static Builder forToConfigure() {
+
+			Builder builder = new Builder();
+			builder.mToConfigure = true;
+			return builder;
+		}
+
+		public static Builder forInstance( Object instance ) {
+
+			Builder builder = new Builder();
+			builder.mInstance = instance;
+			return builder;
+		}
+
+		public static Builder forConstructor( Constructor<?> constructor ) {
+
+			Builder builder = new Builder();
+			builder.mConstructor = constructor;
+			return builder;
+		}
+
+		public static Builder forConfig( Class<?> configClass ) {
+
+			Builder builder = new Builder();
+			builder.mConfigClass = configClass;
+			return builder;
+		}
+
+		public static Builder forCollection( String name ) {
+
+			Builder builder = new Builder();
+			builder.mCollectionName = name;
+			return builder;
+		}
+
+		public static Builder forArguments() {
+
+			return new Builder();
+		}
+
+		//
+		// Public methods
+		//
+
+		public void setConstructor( Constructor<?> constructor ) {
+
+			mConstructor = constructor;
+		}
+
+		/**
+		 * Add a method parameter, or a collection element.
+		 */
+
+		public void addValue( Step value ) {
+
+			mValues.add( value );
+		}
+
+		public List<Step> getValues() {
+
+			return mValues;
+		}
+
+		/**
+		 * Add a setter method to call.
+		 * <p>
+		 * Methods on a shared instance are not recorded. They were already called once, on that
+		 * same instance, while the plan was being recorded. Calling them again on every apply would
+		 * modify an instance other threads may be using.
+		 */
+
+		public void addMethod( MethodStep method ) {
+
+			if ( mInstance != null ) {
+				return;
+			}
+
+			mMethods.add( method );
+		}
+
+		public ObjectStep toObjectStep() {
+
+			return new ObjectStep( mInstance, mToConfigure, mConfigClass, mConstructor, mMethods );
+		}
+
+		public CollectionStep toCollectionStep() {
+
+			return new CollectionStep( mCollectionName, mValues );
+		}
+	}
+}
@@ -0,0 +1,209 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspectionresultprocessor.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+
+import org.metawidget.util.ArrayUtils;
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * Convenience implementation for InspectionResultProcessors that evaluate expressions embedded in
+ * attribute values.
+ * <p>
+ * Splits each attribute value into its literal text and its expressions. The expressions are parsed
+ * once, and can be evaluated again and again (including concurrently). Parsed values are cached, up
+ * to a maximum number of attribute values. Once this is reached, further attribute values are
+ * parsed every time they are evaluated.
+ *
+ * @param <X>
+ *            parsed expression type
+ * @param <C>
+ *            context type
+ * @author Richard Kennard
+ */
+
+public abstract class BaseParsedValueCache<X, C> {
+
+	//
+	// Private members
+	//
+
+	private final ConcurrentMap<String, ParsedValue<X>>	mParsedValues;
+
+	private final int									mMaximumSize;
+
+	//
+	// Constructor
+	//
+
+	protected BaseParsedValueCache( int maximumSize ) {
+
+		mParsedValues = CollectionUtils.newConcurrentHashMap();
+		mMaximumSize = maximumSize;
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Evaluates the given attribute value.
+	 *
+	 * @return the value itself, if it contains no expressions. Otherwise, if the value is a single
+	 *         expression, its result (or null). Otherwise, the value with each expression replaced
+	 *         by its result (or an empty String)
+	 */
+
+	public String evaluate( String value, C context ) {
+
+		ParsedValue<X> parsedValue = mParsedValues.get( value );
+
+		if ( parsedValue == null ) {
+			parsedValue = parse( value, context );
+
+			if ( mParsedValues.size() < mMaximumSize ) {
+				mParsedValues.putIfAbsent( value, parsedValue );
+			}
+		}
+
+		int length = parsedValue.mExpressions.size();
+
+		if ( length == 0 ) {
+			return value;
+		}
+
+		String[] literals = parsedValue.mLiterals;
+
+		// Support the default case (when the String is just one expression)
+
+		if ( length == 1 && literals[0].length() == 0 && literals[1].length() == 0 ) {
+
+			Object valueObject = evaluateExpression( parsedValue.mExpressions.get( 0 ), context );
+
+			if ( valueObject == null ) {
+				return null;
+			}
+
+			if ( valueObject instanceof Collection<?> ) {
+				return CollectionUtils.toString( (Collection<?>) valueObject );
+			}
+
+			if ( valueObject.getClass().isArray() ) {
+				return ArrayUtils.toString( valueObject );
+			}
+
+			return String.valueOf( valueObject );
+		}
+
+		// Replace multiple expressions within the String
+
+		StringBuilder builder = new StringBuilder( literals[0] );
+
+		for ( int loop = 0; loop < length; loop++ ) {
+
+			Object valueObject = evaluateExpression( parsedValue.mExpressions.get( loop ), context );
+
+			if ( valueObject != null ) {
+				builder.append( valueObject );
+			}
+
+			builder.append( literals[loop + 1] );
+		}
+
+		return builder.toString();
+	}
+
+	//
+	// Protected methods
+	//
+
+	/**
+	 * Matches the expressions within the given attribute value.
+	 */
+
+	protected abstract Matcher matchExpressions( String value );
+
+	/**
+	 * Parses the expression currently found by the given Matcher.
+	 */
+
+	protected abstract X parseExpression( Matcher matcher, C context );
+
+	protected abstract Object evaluateExpression( X expression, C context );
+
+	//
+	// Private methods
+	//
+
+	private ParsedValue<X> parse( String value, C context ) {
+
+		List<String> literals = CollectionUtils.newArrayList();
+		List<X> expressions = CollectionUtils.newArrayList();
+
+		Matcher matcher = matchExpressions( value );
+		int literalStart = 0;
+
+		while ( matcher.find() ) {
+
+			literals.add( value.substring( literalStart, matcher.start() ) );
+			expressions.add( parseExpression( matcher, context ) );
+			literalStart = matcher.end();
+		}
+
+		literals.add( value.substring( literalStart ) );
+
+		return new ParsedValue<X>( literals.toArray( new String[literals.size()] ), expressions );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * An attribute value, split into its literal text and its parsed expressions.
+	 */
+
+	private static class ParsedValue<X> {
+
+		//
+		// Private members
+		//
+
+		/**
+		 * Literal text before, between and after each expression. Always one longer than
+		 * <code>mExpressions</code>.
+		 */
+
+		private final String[]		mLiterals;
+
+		private final List<X>		mExpressions;
+
+		//
+		// Constructor
+		//
+
+		public ParsedValue( String[] literals, List<X> expressions ) {
+
+			mLiterals = literals;
+			mExpressions = expressions;
+		}
+	}
+}
@@ -19,8 +19,6 @@ package org.metawidget.inspectionresultprocessor.sort;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,14 +27,19 @@ import org.metawidget.inspectionresultprocessor.impl.BaseInspectionResultProcess
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.XmlUtils;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * Sorts an inspection result by any <code>comes-after</code> attributes.
  * <p>
  * <code>comes-after</code> attributes can be added using the <code>UiComesAfter</code> annotation,
  * among other ways.
+ * <p>
+ * Traits are sorted in place, with a topological sort (Kahn's algorithm) over the graph of
+ * <code>comes-after</code> references, in <code>O(traits + references)</code>. Each trait is
+ * placed immediately after the trait it was last waiting for, so (for example) two traits that both
+ * come after the same trait end up in reverse document order.
  *
  * @author Richard Kennard
  */
@@ -52,140 +55,159 @@ public class ComesAfterInspectionResultProcessor<M>
 	public Element processInspectionResultAsDom( Element inspectionResult, M metawidget, Object toInspect, String type, String... names ) {
 
 		try {
-			// Start a new document
-			//
-			// (Android 1.1 did not cope well with shuffling the nodes of an existing document)
+			Element entity = XmlUtils.getFirstChildElement( inspectionResult );
 
-			Document newDocument = XmlUtils.newDocument();
-			Element newInspectionResult = newDocument.createElementNS( NAMESPACE, ROOT );
-			XmlUtils.setMapAsAttributes( newInspectionResult, XmlUtils.getAttributesAsMap( inspectionResult ) );
-			newDocument.appendChild( newInspectionResult );
+			// Record all traits (ie. properties/actions)
 
-			Element entity = XmlUtils.getFirstChildElement( inspectionResult );
-			Element newEntity = newDocument.createElementNS( NAMESPACE, ENTITY );
-			XmlUtils.setMapAsAttributes( newEntity, XmlUtils.getAttributesAsMap( entity ) );
-			newInspectionResult.appendChild( newEntity );
+			List<Trait> traits = CollectionUtils.newArrayList();
+			Map<String, List<Trait>> traitsByName = CollectionUtils.newHashMap();
+			Element element = XmlUtils.getFirstChildElement( entity );
 
-			// Record all traits (ie. properties/actions) that have comes-after
+			while ( element != null ) {
 
-			Map<Element, String[]> traitsWithComesAfter = new LinkedHashMap<Element, String[]>();
-			Element trait = XmlUtils.getFirstChildElement( entity );
+				String[] comesAfter = null;
 
-			while( trait != null ) {
+				if ( hasComesAfter( element, metawidget ) ) {
+					comesAfter = ArrayUtils.fromString( getComesAfter( element, metawidget ) );
+				}
 
-				// (if no comes-after, move them across to the new document)
+				Trait trait = new Trait( element, comesAfter );
 
-				if ( hasComesAfter( trait, metawidget ) ) {
-					traitsWithComesAfter.put( trait, ArrayUtils.fromString( getComesAfter( trait, metawidget ) ) );
-				} else {
-					newEntity.appendChild( XmlUtils.importElement( newDocument, trait ) );
+				if ( ArrayUtils.contains( comesAfter, trait.mName ) ) {
+					throw InspectionResultProcessorException.newException( "'" + trait.mName + "' " + COMES_AFTER + " itself" );
 				}
 
-				trait = XmlUtils.getNextSiblingElement( trait );
+				traits.add( trait );
+
+				List<Trait> traitsNamed = traitsByName.get( trait.mName );
+
+				if ( traitsNamed == null ) {
+					traitsNamed = CollectionUtils.newArrayList();
+					traitsByName.put( trait.mName, traitsNamed );
+				}
+
+				traitsNamed.add( trait );
+				element = XmlUtils.getNextSiblingElement( element );
 			}
 
-			// Next, sort the traits
-			//
-			// Note: this has high big-O complexity. We could plug-in something smarter for large
-			// numbers of traits.
+			// Link each trait to the traits it comes after. Traits that come after none of the
+			// traits present come after the start. Traits that 'come at the end' are left out of
+			// the graph
 
-			int infiniteLoop = traitsWithComesAfter.size();
-			infiniteLoop *= infiniteLoop;
+			Trait start = new Trait( null, null );
+			List<Trait> traitsAtEnd = CollectionUtils.newArrayList();
 
-			while ( !traitsWithComesAfter.isEmpty() ) {
-				// Infinite loop? Explain why
+			for ( Trait trait : traits ) {
 
-				infiniteLoop--;
+				if ( trait.mComesAfter == null ) {
+					continue;
+				}
 
-				if ( infiniteLoop < 0 ) {
-					List<String> comesAfterNames = CollectionUtils.newArrayList();
+				if ( trait.mComesAfter.length == 0 ) {
+					traitsAtEnd.add( trait );
+					continue;
+				}
 
-					for ( Map.Entry<Element, String[]> entry : traitsWithComesAfter.entrySet() ) {
+				for ( String comeAfter : trait.mComesAfter ) {
 
-						String value;
+					List<Trait> traitsNamed = traitsByName.get( comeAfter );
 
-						if ( entry.getValue().length == 0 ) {
-							value = "at the end";
-						} else {
-							value = "after " + ArrayUtils.toString( entry.getValue(), " and " );
-						}
+					if ( traitsNamed == null ) {
+						continue;
+					}
 
-						comesAfterNames.add( entry.getKey().getAttribute( NAME ) + " comes " + value );
+					for ( Trait traitNamed : traitsNamed ) {
+						traitNamed.mSuccessors.add( trait );
+						trait.mWaitingFor++;
 					}
+				}
+
+				if ( trait.mWaitingFor == 0 ) {
+					start.mSuccessors.add( trait );
+					trait.mWaitingFor++;
+				}
+			}
 
-					// (sort for unit tests)
+			// Sort. Ready traits are kept on a stack, starting with the start and then traits
+			// without comes-after (in document order), so that each trait is placed immediately
+			// after the trait it was last waiting for
 
-					Collections.sort( comesAfterNames );
+			List<Trait> sorted = CollectionUtils.newArrayList();
+			List<Trait> ready = CollectionUtils.newArrayList();
 
-					throw InspectionResultProcessorException.newException( "Infinite loop detected when sorting " + COMES_AFTER + ": " + CollectionUtils.toString( comesAfterNames, ", but " ) );
-				}
+			for ( int loop = traits.size() - 1; loop >= 0; loop-- ) {
 
-				// For each entry in the Map...
+				Trait trait = traits.get( loop );
 
-				outer: for ( Iterator<Map.Entry<Element, String[]>> i = traitsWithComesAfter.entrySet().iterator(); i.hasNext(); ) {
-					Map.Entry<Element, String[]> entry = i.next();
-					Element traitWithComesAfter = entry.getKey();
-					String[] comesAfter = entry.getValue();
+				if ( trait.mComesAfter == null ) {
+					ready.add( trait );
+				}
+			}
 
-					// ...if it 'comesAfter everything', make sure there are only
-					// other 'comesAfter everything's left...
+			ready.add( start );
 
-					if ( comesAfter.length == 0 ) {
-						for ( String[] traitWithComesAfterExisting : traitsWithComesAfter.values() ) {
-							if ( traitWithComesAfterExisting.length > 0 ) {
-								continue outer;
-							}
-						}
+			while ( !ready.isEmpty() ) {
 
-						newEntity.appendChild( XmlUtils.importElement( newDocument, traitWithComesAfter ) );
-					}
+				Trait trait = ready.remove( ready.size() - 1 );
 
-					// ...or, if it 'comesAfter' something, make sure none of those
-					// somethings are left...
+				if ( trait != start ) {
+					sorted.add( trait );
+				}
 
-					else {
-						String name = traitWithComesAfter.getAttribute( NAME );
+				for ( Trait successor : trait.mSuccessors ) {
 
-						for ( String comeAfter : comesAfter ) {
-							if ( name.equals( comeAfter ) ) {
-								throw InspectionResultProcessorException.newException( "'" + comeAfter + "' " + COMES_AFTER + " itself" );
-							}
+					successor.mWaitingFor--;
 
-							for ( Element traitExisting : traitsWithComesAfter.keySet() ) {
-								if ( comeAfter.equals( traitExisting.getAttribute( NAME ) ) ) {
-									continue outer;
-								}
-							}
-						}
+					if ( successor.mWaitingFor == 0 ) {
+						ready.add( successor );
+					}
+				}
+			}
 
-						// Insert it at the earliest point. This seems most 'natural'
+			// Infinite loop? Explain why
 
-						Element newTrait = XmlUtils.getFirstChildElement( newEntity );
-						Element insertBefore = newTrait;
+			if ( sorted.size() + traitsAtEnd.size() < traits.size() ) {
+				List<String> comesAfterNames = CollectionUtils.newArrayList();
 
-						while( newTrait != null ) {
+				for ( Trait trait : traits ) {
 
-							if ( ArrayUtils.contains( comesAfter, newTrait.getAttribute( NAME ) ) ) {
-								newTrait = XmlUtils.getNextSiblingElement( newTrait );
-								insertBefore = newTrait;
-								continue;
-							}
+					if ( trait.mComesAfter == null || ( trait.mWaitingFor == 0 && trait.mComesAfter.length > 0 ) ) {
+						continue;
+					}
 
-							newTrait = XmlUtils.getNextSiblingElement( newTrait );
-						}
+					String value;
 
-						if ( insertBefore == null ) {
-							newEntity.appendChild( XmlUtils.importElement( newDocument, traitWithComesAfter ) );
-						} else {
-							newEntity.insertBefore( XmlUtils.importElement( newDocument, traitWithComesAfter ), insertBefore );
-						}
+					if ( trait.mComesAfter.length == 0 ) {
+						value = "at the end";
+					} else {
+						value = "after " + ArrayUtils.toString( trait.mComesAfter, " and " );
 					}
 
-					i.remove();
+					comesAfterNames.add( trait.mName + " comes " + value );
 				}
+
+				// (sort for unit tests)
+
+				Collections.sort( comesAfterNames );
+
+				throw InspectionResultProcessorException.newException( "Infinite loop detected when sorting " + COMES_AFTER + ": " + CollectionUtils.toString( comesAfterNames, ", but " ) );
+			}
+
+			// Rearrange the DOM (dropping any whitespace between elements). Traits that 'come at
+			// the end' go at the end, in document order
+
+			removeChildren( inspectionResult, entity );
+			removeChildren( entity, null );
+
+			for ( Trait trait : sorted ) {
+				entity.appendChild( trait.mElement );
+			}
+
+			for ( Trait trait : traitsAtEnd ) {
+				entity.appendChild( trait.mElement );
 			}
 
-			return newInspectionResult;
+			return inspectionResult;
 		} catch ( Exception e ) {
 			throw InspectionResultProcessorException.newException( e );
 		}
@@ -230,4 +252,74 @@ public class ComesAfterInspectionResultProcessor<M>
 
 		return element.getAttribute( COMES_AFTER );
 	}
+
+	//
+	// Private methods
+	//
+
+	private void removeChildren( Element element, Node except ) {
+
+		Node child = element.getFirstChild();
+
+		while ( child != null ) {
+
+			Node nextSibling = child.getNextSibling();
+
+			if ( child != except ) {
+				element.removeChild( child );
+			}
+
+			child = nextSibling;
+		}
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * A trait in the graph being sorted.
+	 */
+
+	private static class Trait {
+
+		//
+		// Private members
+		//
+
+		/* package private */final Element		mElement;
+
+		/* package private */final String		mName;
+
+		/**
+		 * Names of the traits this trait comes after. Null if it has no comes-after, empty if it
+		 * comes at the end.
+		 */
+
+		/* package private */final String[]		mComesAfter;
+
+		/**
+		 * Traits that come after this trait.
+		 */
+
+		/* package private */final List<Trait>	mSuccessors	= CollectionUtils.newArrayList();
+
+		/* package private */int				mWaitingFor;
+
+		//
+		// Constructor
+		//
+
+		public Trait( Element element, String[] comesAfter ) {
+
+			mElement = element;
+			mComesAfter = comesAfter;
+
+			if ( element == null ) {
+				mName = null;
+			} else {
+				mName = element.getAttribute( NAME );
+			}
+		}
+	}
 }
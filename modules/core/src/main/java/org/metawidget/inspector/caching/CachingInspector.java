@@ -0,0 +1,480 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.caching;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.metawidget.inspector.iface.CacheableInspector;
+import org.metawidget.inspector.iface.DomInspector;
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.util.XmlUtils;
+import org.metawidget.util.simple.ObjectUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Decorates an Inspector, caching its inspection results.
+ * <p>
+ * Inspection results are cached by the class of the object being inspected, the type and the
+ * names. Only those inspection results the decorated Inspector declares cacheable (by implementing
+ * <code>CacheableInspector</code>) are cached. All others are passed straight through. For example,
+ * wrapping a <code>CompositeInspector</code> of annotation-based Inspectors will cache its results,
+ * but adding a <code>PropertyTypeInspector</code> (which reads property values to determine their
+ * actual class) will stop results being cached whenever there is a value to read.
+ * <p>
+ * Note: the default Inspector configuration includes <code>PropertyTypeInspector</code>, so
+ * wrapping the default Inspectors caches nothing for Metawidgets that have an object to inspect
+ * (ie. <code>setToInspect</code> has been called). To benefit, wrap Inspectors that do not read
+ * property values.
+ * <p>
+ * The cache is bounded: once it reaches its maximum size the least recently used inspection result
+ * is evicted. Classes are distinguished by ClassLoader as well as by name, so that same-named
+ * classes from different ClassLoaders (eg. after a redeploy) do not share inspection results.
+ * Cached inspection results are never handed out directly. Each caller receives its own copy, so
+ * callers (such as <code>CompositeInspector</code>, which merges DOMs in place) may modify them
+ * freely.
+ *
+ * @author Richard Kennard
+ */
+
+public class CachingInspector
+	implements DomInspector<Element>, CacheableInspector {
+
+	//
+	// Private members
+	//
+
+	private final Inspector								mInspector;
+
+	private final int									mMaximumSize;
+
+	/**
+	 * Cached inspection results, in access order. Guarded by synchronizing on itself.
+	 */
+
+	/* package private */final Map<CacheKey, CacheEntry>	mCache;
+
+	//
+	// Constructor
+	//
+
+	public CachingInspector( CachingInspectorConfig config ) {
+
+		mInspector = config.getInspector();
+
+		if ( mInspector == null ) {
+			throw InspectorException.newException( "CachingInspector needs an Inspector" );
+		}
+
+		mMaximumSize = config.getMaximumSize();
+
+		if ( mMaximumSize < 1 ) {
+			throw InspectorException.newException( "CachingInspector needs a maximumSize of at least 1" );
+		}
+
+		mCache = new LeastRecentlyUsedMap<CacheKey, CacheEntry>( mMaximumSize );
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Inspect the given Object according to the given path, and return the result as a String
+	 * conforming to inspection-result-1.0.xsd.
+	 * <p>
+	 * This method is marked <code>final</code> because most Metawidget implementations will call
+	 * <code>inspectAsDom</code> directly instead. So subclasses need to override
+	 * <code>inspectAsDom</code>, not <code>inspect</code>.
+	 */
+
+	public final String inspect( Object toInspect, String type, String... names ) {
+
+		Element element = inspectAsDom( toInspect, type, names );
+
+		if ( element == null ) {
+			return null;
+		}
+
+		return XmlUtils.nodeToString( element, false );
+	}
+
+	public Element inspectAsDom( Object toInspect, String type, String... names ) {
+
+		if ( !isInspectionResultCacheable( toInspect, type, names ) ) {
+			return inspectUncached( toInspect, type, names );
+		}
+
+		CacheKey key = new CacheKey( toInspect, type, names );
+		CacheEntry entry;
+
+		synchronized ( mCache ) {
+			entry = mCache.get( key );
+		}
+
+		// Cache hit? (copy outside the lock)
+
+		if ( entry != null ) {
+			return entry.copy();
+		}
+
+		// Cache miss. Note: two threads may miss concurrently and both inspect. This is harmless
+		// (the results are identical) and avoids blocking
+
+		Element inspectionResult = inspectUncached( toInspect, type, names );
+		CacheEntry newEntry = new CacheEntry( copy( inspectionResult ) );
+
+		synchronized ( mCache ) {
+			if ( !mCache.containsKey( key ) ) {
+				mCache.put( key.toStoredKey(), newEntry );
+			}
+		}
+
+		return inspectionResult;
+	}
+
+	/**
+	 * Inspection results are cacheable if the decorated Inspector's are.
+	 */
+
+	public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+		if ( !( mInspector instanceof CacheableInspector ) ) {
+			return false;
+		}
+
+		return ( (CacheableInspector) mInspector ).isInspectionResultCacheable( toInspect, type, names );
+	}
+
+	/**
+	 * Invalidates all cached inspection results.
+	 * <p>
+	 * This does not affect immutability, as our external behaviour is unchanged (we will just be a
+	 * little slower the next time we are called, while we re-cache).
+	 */
+
+	public void clearCache() {
+
+		synchronized ( mCache ) {
+			mCache.clear();
+		}
+	}
+
+	/**
+	 * Invalidates all cached inspection results for the given type (including those for paths
+	 * beneath it).
+	 */
+
+	public void clearCache( String type ) {
+
+		synchronized ( mCache ) {
+			for ( Iterator<CacheKey> i = mCache.keySet().iterator(); i.hasNext(); ) {
+
+				if ( type.equals( i.next().getType() ) ) {
+					i.remove();
+				}
+			}
+		}
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected Element inspectUncached( Object toInspect, String type, String... names ) {
+
+		// DomInspector...
+
+		if ( mInspector instanceof DomInspector<?> ) {
+
+			@SuppressWarnings( "unchecked" )
+			DomInspector<Element> domInspector = (DomInspector<Element>) mInspector;
+			return domInspector.inspectAsDom( toInspect, type, names );
+		}
+
+		// ...or just regular Inspector
+
+		String xml = mInspector.inspect( toInspect, type, names );
+
+		if ( xml == null ) {
+			return null;
+		}
+
+		return XmlUtils.documentFromString( xml ).getDocumentElement();
+	}
+
+	//
+	// Private methods
+	//
+
+	/* package private */static Element copy( Element element ) {
+
+		if ( element == null ) {
+			return null;
+		}
+
+		Document document = XmlUtils.newDocument();
+		Element copy = XmlUtils.importElement( document, element );
+		document.appendChild( copy );
+
+		return copy;
+	}
+
+	//
+	// Inner classes
+	//
+
+	/**
+	 * Cache key of the class of the object being inspected, the type and the names.
+	 * <p>
+	 * The class is identified by its name and its ClassLoader. Keys used for lookups reference
+	 * their ClassLoader strongly (they are short-lived). Keys stored in the cache reference their
+	 * ClassLoader weakly, so that the cache does not keep ClassLoaders from being garbage collected.
+	 * Once a stored key's ClassLoader has been garbage collected, the key is only equal to itself
+	 * (and will eventually be evicted).
+	 */
+
+	private static class CacheKey {
+
+		//
+		// Private members
+		//
+
+		private final String						mClassName;
+
+		private final ClassLoader					mClassLoader;
+
+		private final WeakReference<ClassLoader>	mClassLoaderReference;
+
+		private final String						mType;
+
+		private final String[]						mNames;
+
+		private final int							mHashCode;
+
+		//
+		// Constructors
+		//
+
+		public CacheKey( Object toInspect, String type, String... names ) {
+
+			if ( toInspect == null ) {
+				mClassName = null;
+				mClassLoader = null;
+			} else {
+				Class<?> clazz = toInspect.getClass();
+				mClassName = clazz.getName();
+				mClassLoader = clazz.getClassLoader();
+			}
+
+			mClassLoaderReference = null;
+			mType = type;
+
+			// (defensive copy)
+
+			if ( names == null || names.length == 0 ) {
+				mNames = null;
+			} else {
+				mNames = names.clone();
+			}
+
+			int hashCode = 1;
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mClassName );
+			hashCode = 31 * hashCode + System.identityHashCode( mClassLoader );
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mType );
+			hashCode = 31 * hashCode + Arrays.hashCode( mNames );
+			mHashCode = hashCode;
+		}
+
+		private CacheKey( CacheKey lookupKey ) {
+
+			mClassName = lookupKey.mClassName;
+			mClassLoader = null;
+
+			if ( lookupKey.mClassLoader == null ) {
+				mClassLoaderReference = null;
+			} else {
+				mClassLoaderReference = new WeakReference<ClassLoader>( lookupKey.mClassLoader );
+			}
+
+			mType = lookupKey.mType;
+			mNames = lookupKey.mNames;
+			mHashCode = lookupKey.mHashCode;
+		}
+
+		//
+		// Public methods
+		//
+
+		/**
+		 * @return an equal key, suitable for storing in the cache
+		 */
+
+		public CacheKey toStoredKey() {
+
+			return new CacheKey( this );
+		}
+
+		public String getType() {
+
+			return mType;
+		}
+
+		public ClassLoader getClassLoader() {
+
+			if ( mClassLoaderReference == null ) {
+				return mClassLoader;
+			}
+
+			return mClassLoaderReference.get();
+		}
+
+		@Override
+		public boolean equals( Object that ) {
+
+			if ( this == that ) {
+				return true;
+			}
+
+			if ( !( that instanceof CacheKey ) ) {
+				return false;
+			}
+
+			CacheKey thatKey = (CacheKey) that;
+
+			if ( mHashCode != thatKey.mHashCode ) {
+				return false;
+			}
+
+			if ( !ObjectUtils.nullSafeEquals( mClassName, thatKey.mClassName ) ) {
+				return false;
+			}
+
+			if ( !ObjectUtils.nullSafeEquals( mType, thatKey.mType ) ) {
+				return false;
+			}
+
+			if ( !Arrays.equals( mNames, thatKey.mNames ) ) {
+				return false;
+			}
+
+			ClassLoader classLoader = getClassLoader();
+
+			if ( classLoader == null && mClassLoaderReference != null ) {
+				return false;
+			}
+
+			ClassLoader thatClassLoader = thatKey.getClassLoader();
+
+			if ( thatClassLoader == null && thatKey.mClassLoaderReference != null ) {
+				return false;
+			}
+
+			return ( classLoader == thatClassLoader );
+		}
+
+		@Override
+		public int hashCode() {
+
+			return mHashCode;
+		}
+	}
+
+	/**
+	 * Cached inspection result.
+	 * <p>
+	 * The cached DOM is never modified after construction, but DOMs are not threadsafe even for
+	 * read operations (see https://issues.apache.org/jira/browse/XERCESJ-727). So copies are taken
+	 * under a lock. The lock is per entry, so threads only contend when copying the same
+	 * inspection result.
+	 */
+
+	private static class CacheEntry {
+
+		//
+		// Private members
+		//
+
+		private final Element	mInspectionResult;
+
+		//
+		// Constructor
+		//
+
+		public CacheEntry( Element inspectionResult ) {
+
+			mInspectionResult = inspectionResult;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Element copy() {
+
+			if ( mInspectionResult == null ) {
+				return null;
+			}
+
+			synchronized ( mInspectionResult ) {
+				return CachingInspector.copy( mInspectionResult );
+			}
+		}
+	}
+
+	/**
+	 * Map in access order that evicts its least recently used entry once it grows beyond its
+	 * maximum size.
+	 */
+
+	@SuppressWarnings( "serial" )
+	private static class LeastRecentlyUsedMap<K, V>
+		extends LinkedHashMap<K, V> {
+
+		//
+		// Private members
+		//
+
+		private final int	mMaximumSize;
+
+		//
+		// Constructor
+		//
+
+		public LeastRecentlyUsedMap( int maximumSize ) {
+
+			super( 16, 0.75f, true );
+
+			mMaximumSize = maximumSize;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<K, V> eldest ) {
+
+			return ( size() > mMaximumSize );
+		}
+	}
+}
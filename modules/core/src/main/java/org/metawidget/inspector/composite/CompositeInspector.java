@@ -18,6 +18,7 @@ package org.metawidget.inspector.composite;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import org.metawidget.inspector.iface.CacheableInspector;
 import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.iface.InspectorException;
@@ -51,7 +52,7 @@ import org.w3c.dom.Element;
  */
 
 public class CompositeInspector
-	implements DomInspector<Element> {
+	implements DomInspector<Element>, CacheableInspector {
 
 	//
 	// Private statics
@@ -196,6 +197,26 @@ public class CompositeInspector
 		}
 	}
 
+	/**
+	 * Inspection results can be cached if, and only if, every sub-Inspector's can.
+	 */
+
+	public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+		for ( Inspector inspector : mInspectors ) {
+
+			if ( !( inspector instanceof CacheableInspector ) ) {
+				return false;
+			}
+
+			if ( !( (CacheableInspector) inspector ).isInspectionResultCacheable( toInspect, type, names ) ) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	//
 	// Protected methods
 	//
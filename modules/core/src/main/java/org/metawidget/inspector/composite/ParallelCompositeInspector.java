@@ -0,0 +1,251 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.composite;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.metawidget.inspector.iface.Inspector;
+import org.w3c.dom.Document;
+
+/**
+ * CompositeInspector that runs its sub-Inspectors concurrently.
+ * <p>
+ * Inspectors are immutable and independent of each other, so with several configured (say, JPA,
+ * Hibernate Validator, annotation and XML Inspectors) their inspections can overlap. The results
+ * are still combined in the calling thread, in the declared order, so the combined DOM is
+ * identical to that of a regular <code>CompositeInspector</code>.
+ * <p>
+ * The first sub-Inspector is always run in the calling thread. Any sub-Inspector the Executor has
+ * not yet started by the time its result is needed is also run in the calling thread. This means
+ * nested <code>ParallelCompositeInspectors</code> (or a saturated Executor) can never deadlock
+ * waiting for a free thread.
+ * <p>
+ * Sub-Inspectors are run with the calling thread's context ClassLoader, as many Inspectors (and
+ * their PropertyStyles) resolve types through it.
+ *
+ * @author Richard Kennard
+ */
+
+public class ParallelCompositeInspector
+	extends CompositeInspector {
+
+	//
+	// Private statics
+	//
+
+	private static Executor	DEFAULT_EXECUTOR;
+
+	//
+	// Private members
+	//
+
+	private final Executor	mExecutor;
+
+	//
+	// Constructor
+	//
+
+	public ParallelCompositeInspector( ParallelCompositeInspectorConfig config ) {
+
+		super( config );
+
+		Executor executor = config.getExecutor();
+
+		if ( executor == null ) {
+			executor = getDefaultExecutor();
+		}
+
+		mExecutor = executor;
+	}
+
+	//
+	// Protected methods
+	//
+
+	@Override
+	protected Document runInspectors( Document masterDocument, Object toInspect, String type, String... names )
+		throws Exception {
+
+		int length = mInspectors.length;
+
+		if ( length == 1 ) {
+			return super.runInspectors( masterDocument, toInspect, type, names );
+		}
+
+		// Fan out all but the first Inspector...
+
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		@SuppressWarnings( "unchecked" )
+		FutureTask<Document>[] tasks = new FutureTask[length];
+
+		for ( int loop = 1; loop < length; loop++ ) {
+			tasks[loop] = new FutureTask<Document>( new InspectorCallable( mInspectors[loop], contextClassLoader, toInspect, type, names ) );
+			mExecutor.execute( tasks[loop] );
+		}
+
+		// ...run the first Inspector in this thread...
+
+		boolean succeeded = false;
+
+		try {
+			Document masterDocumentToUse = combineInspectionResult( masterDocument, runInspector( mInspectors[0], toInspect, type, names ) );
+
+			// ...and combine the rest in declared order. If a task hasn't been started yet, run it
+			// here (FutureTask.run does nothing if the task is already running or done)
+
+			for ( int loop = 1; loop < length; loop++ ) {
+				FutureTask<Document> task = tasks[loop];
+				task.run();
+
+				Document inspectionDocument;
+
+				try {
+					inspectionDocument = task.get();
+				} catch ( ExecutionException e ) {
+					Throwable cause = e.getCause();
+
+					if ( cause instanceof Exception ) {
+						throw (Exception) cause;
+					}
+
+					throw (Error) cause;
+				}
+
+				masterDocumentToUse = combineInspectionResult( masterDocumentToUse, inspectionDocument );
+			}
+
+			succeeded = true;
+			return masterDocumentToUse;
+		} finally {
+
+			// Don't leave tasks queued for an inspection that has already failed
+
+			if ( !succeeded ) {
+				for ( int loop = 1; loop < length; loop++ ) {
+					tasks[loop].cancel( false );
+				}
+			}
+		}
+	}
+
+	//
+	// Private statics
+	//
+
+	private static synchronized Executor getDefaultExecutor() {
+
+		if ( DEFAULT_EXECUTOR == null ) {
+			DEFAULT_EXECUTOR = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory() );
+		}
+
+		return DEFAULT_EXECUTOR;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Runs a single sub-Inspector under a given context ClassLoader.
+	 */
+
+	private class InspectorCallable
+		implements Callable<Document> {
+
+		//
+		// Private members
+		//
+
+		private final Inspector		mInspector;
+
+		private final ClassLoader	mContextClassLoader;
+
+		private final Object		mToInspect;
+
+		private final String		mType;
+
+		private final String[]		mNames;
+
+		//
+		// Constructor
+		//
+
+		public InspectorCallable( Inspector inspector, ClassLoader contextClassLoader, Object toInspect, String type, String... names ) {
+
+			mInspector = inspector;
+			mContextClassLoader = contextClassLoader;
+			mToInspect = toInspect;
+			mType = type;
+			mNames = names;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Document call()
+			throws Exception {
+
+			Thread thread = Thread.currentThread();
+			ClassLoader previousClassLoader = thread.getContextClassLoader();
+
+			if ( previousClassLoader == mContextClassLoader ) {
+				return runInspector( mInspector, mToInspect, mType, mNames );
+			}
+
+			thread.setContextClassLoader( mContextClassLoader );
+
+			try {
+				return runInspector( mInspector, mToInspect, mType, mNames );
+			} finally {
+				thread.setContextClassLoader( previousClassLoader );
+			}
+		}
+	}
+
+	/**
+	 * Creates daemon threads, so that the default Executor never prevents the JVM from exiting.
+	 */
+
+	private static class DaemonThreadFactory
+		implements ThreadFactory {
+
+		//
+		// Private members
+		//
+
+		private final AtomicInteger	mThreadNumber	= new AtomicInteger();
+
+		//
+		// Public methods
+		//
+
+		public Thread newThread( Runnable runnable ) {
+
+			Thread thread = new Thread( runnable, "ParallelCompositeInspector-" + mThreadNumber.incrementAndGet() );
+			thread.setDaemon( true );
+
+			return thread;
+		}
+	}
+}
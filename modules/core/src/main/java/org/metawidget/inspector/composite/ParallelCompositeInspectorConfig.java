@@ -0,0 +1,105 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.composite;
+
+import java.util.concurrent.Executor;
+
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a ParallelCompositeInspector prior to use. Once instantiated, Inspectors are
+ * immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class ParallelCompositeInspectorConfig
+	extends CompositeInspectorConfig {
+
+	//
+	// Private members
+	//
+
+	private Executor	mExecutor;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Overridden to provide a covariant return type for our fluent interface.
+	 */
+
+	@Override
+	public ParallelCompositeInspectorConfig setInspectors( Inspector... inspectors ) {
+
+		return (ParallelCompositeInspectorConfig) super.setInspectors( inspectors );
+	}
+
+	/**
+	 * Sets the Executor the ParallelCompositeInspector will run sub-Inspectors on.
+	 * <p>
+	 * If not set, a shared pool of daemon threads, sized to the number of available processors, is
+	 * used.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public ParallelCompositeInspectorConfig setExecutor( Executor executor ) {
+
+		mExecutor = executor;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mExecutor, ( (ParallelCompositeInspectorConfig) that ).mExecutor ) ) {
+			return false;
+		}
+
+		return super.equals( that );
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = super.hashCode();
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mExecutor );
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected Executor getExecutor() {
+
+		return mExecutor;
+	}
+}
@@ -0,0 +1,59 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.iface;
+
+/**
+ * Declares whether an Inspector's inspection results can be cached.
+ * <p>
+ * <code>CacheableInspector</code> is an <em>optional</em> interface that enables an optimization.
+ * Many Inspectors (such as those that only look at annotations or XML files) return exactly the
+ * same inspection result every time they are asked to inspect the same type. Others (such as
+ * <code>PropertyTypeInspector</code>, which reports the actual class of each property's value)
+ * depend on the runtime values of the objects they are inspecting. This interface allows an
+ * Inspector to say which case applies, so that decorators such as <code>CachingInspector</code>
+ * can safely cache the former without breaking the latter.
+ * <p>
+ * Inspectors that do not implement this interface are assumed to be <em>not</em> cacheable.
+ *
+ * @author Richard Kennard
+ */
+
+public interface CacheableInspector
+	extends Inspector {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * Whether the inspection result for the given arguments can be cached.
+	 * <p>
+	 * An inspection result can be cached if it depends only on the given <code>type</code>, the
+	 * given <code>names</code> and the <em>class</em> of the given <code>toInspect</code> - not on
+	 * the values of <code>toInspect</code> or any of its properties.
+	 *
+	 * @param toInspect
+	 *            runtime object to inspect. May be null
+	 * @param type
+	 *            match type attribute in inspection-result.xml
+	 * @param names
+	 *            match name attributes under type
+	 * @return true if the inspection result can be cached
+	 */
+
+	boolean isInspectionResultCacheable( Object toInspect, String type, String... names );
+}
@@ -18,10 +18,14 @@ package org.metawidget.inspector.impl;
 
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+import org.metawidget.inspector.iface.CacheableInspector;
 import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.actionstyle.Action;
@@ -31,6 +35,7 @@ import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.ValueAndDeclaredType;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtils.Log;
 import org.metawidget.util.XmlUtils;
@@ -67,21 +72,30 @@ import org.w3c.dom.Element;
  */
 
 public abstract class BaseObjectInspector
-	implements DomInspector<Element> {
+	implements DomInspector<Element>, CacheableInspector {
 
 	//
 	// Protected members
 	//
 
-	protected final Log			mLog	= LogUtils.getLog( getClass() );
+	protected final Log													mLog	= LogUtils.getLog( getClass() );
 
 	//
 	// Private members
 	//
 
-	private final PropertyStyle	mPropertyStyle;
+	private final PropertyStyle											mPropertyStyle;
 
-	private final ActionStyle	mActionStyle;
+	private final ActionStyle											mActionStyle;
+
+	/**
+	 * Cache of trait inspections, keyed by type. Only used if <code>isTraitInspectionStatic</code>.
+	 * <p>
+	 * Inspected traits hold <code>Property</code>s, which refer back to their ClassLoader, so
+	 * (like <code>BaseTraitStyle</code>) we only softly reference them.
+	 */
+
+	private final ConcurrentMap<String, SoftReference<InspectedTraits>>	mInspectedTraits;
 
 	//
 	// Constructors
@@ -103,6 +117,7 @@ public abstract class BaseObjectInspector
 
 		mPropertyStyle = config.getPropertyStyle();
 		mActionStyle = config.getActionStyle();
+		mInspectedTraits = CollectionUtils.newConcurrentHashMap();
 	}
 
 	//
@@ -280,6 +295,20 @@ public abstract class BaseObjectInspector
 		}
 	}
 
+	/**
+	 * Inspection results can be cached if there are no names to traverse.
+	 * <p>
+	 * Traversing names involves reading property values: a null value, or a value whose class is a
+	 * subclass of its declared type, changes the inspection result. Subclasses that consult
+	 * property values in other ways (such as by overriding <code>shouldInspectPropertyAsEntity</code>)
+	 * should override this method.
+	 */
+
+	public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+		return ( names == null || names.length == 0 );
+	}
+
 	//
 	// Protected methods
 	//
@@ -336,6 +365,35 @@ public abstract class BaseObjectInspector
 
 		Document document = toAddTo.getOwnerDocument();
 
+		// Class-static inspectors only need to inspect each type once
+
+		if ( isTraitInspectionStatic() ) {
+
+			for ( InspectedTrait inspectedTrait : getInspectedTraits( type ).getTraits() ) {
+
+				Map<String, String> attributes = inspectedTrait.getAttributes();
+				Map<String, String> entityAttributes = null;
+
+				if ( inspectedTrait.getProperty() != null ) {
+					entityAttributes = inspectPropertyAsEntity( inspectedTrait.getProperty(), toInspect );
+				}
+
+				if ( attributes.isEmpty() && ( entityAttributes == null || entityAttributes.isEmpty() ) ) {
+					continue;
+				}
+
+				Element element = document.createElementNS( NAMESPACE, inspectedTrait.getElementName() );
+				element.setAttribute( NAME, inspectedTrait.getName() );
+
+				XmlUtils.setMapAsAttributes( element, attributes );
+				XmlUtils.setMapAsAttributes( element, entityAttributes );
+
+				toAddTo.appendChild( element );
+			}
+
+			return;
+		}
+
 		// Inspect properties
 
 		for ( Property property : getProperties( type ).values() ) {
@@ -486,6 +544,27 @@ public abstract class BaseObjectInspector
 		return false;
 	}
 
+	/**
+	 * Whether this Inspector is 'class-static'. That is, whether the results of
+	 * <code>inspectTrait</code>, <code>inspectProperty</code>, <code>inspectAction</code> and
+	 * <code>shouldInspectPropertyAsEntity</code> depend only on the given trait (ie. on its class)
+	 * and never on runtime values or other external state.
+	 * <p>
+	 * If true, <code>inspectTraits</code> calls those methods only once per type, and thereafter
+	 * rebuilds their results from a cache. Only <code>inspectPropertyAsEntity</code>, which reads
+	 * property values, is still called every time. This makes repeat inspections of the same type
+	 * much cheaper for annotation-based Inspectors, which do a lot of reflection per trait.
+	 * <p>
+	 * Returns <code>false</code> by default. Subclasses that return <code>true</code>, and
+	 * are themselves subclassed to consult runtime state, must be overridden to return
+	 * <code>false</code> again.
+	 */
+
+	protected boolean isTraitInspectionStatic() {
+
+		return false;
+	}
+
 	//
 	// Protected final methods
 	//
@@ -512,6 +591,95 @@ public abstract class BaseObjectInspector
 	// Private methods
 	//
 
+	/**
+	 * Gets the cached trait inspections for the given type, inspecting them if necessary.
+	 * <p>
+	 * The cache is checked against the current properties and actions of the type, so that it
+	 * stays consistent with the <code>PropertyStyle</code> and <code>ActionStyle</code> (for
+	 * example, if their caches are cleared).
+	 */
+
+	private InspectedTraits getInspectedTraits( String type )
+		throws Exception {
+
+		Map<String, Property> properties = getProperties( type );
+		Map<String, Action> actions = getActions( type );
+
+		SoftReference<InspectedTraits> reference = mInspectedTraits.get( type );
+
+		if ( reference != null ) {
+			InspectedTraits inspectedTraits = reference.get();
+
+			if ( inspectedTraits != null ) {
+
+				if ( inspectedTraits.isFor( properties, actions ) ) {
+					return inspectedTraits;
+				}
+
+				// Same traits, different Map instances (eg. BaseTraitStyle returns an unmodifiable
+				// view to all but the first caller)
+
+				if ( inspectedTraits.isEquivalentTo( properties, actions ) ) {
+					inspectedTraits = new InspectedTraits( properties, actions, inspectedTraits.getTraits() );
+					mInspectedTraits.put( type, new SoftReference<InspectedTraits>( inspectedTraits ) );
+
+					return inspectedTraits;
+				}
+			}
+		}
+
+		// Inspect properties
+
+		List<InspectedTrait> traits = CollectionUtils.newArrayList();
+
+		for ( Property property : properties.values() ) {
+
+			Map<String, String> attributes = mergeAttributes( inspectTrait( property ), inspectProperty( property ) );
+
+			if ( shouldInspectPropertyAsEntity( property ) ) {
+				traits.add( new InspectedTrait( PROPERTY, property.getName(), attributes, property ) );
+			} else if ( !attributes.isEmpty() ) {
+				traits.add( new InspectedTrait( PROPERTY, property.getName(), attributes, null ) );
+			}
+		}
+
+		// Inspect actions
+
+		for ( Action action : actions.values() ) {
+
+			Map<String, String> attributes = mergeAttributes( inspectTrait( action ), inspectAction( action ) );
+
+			if ( !attributes.isEmpty() ) {
+				traits.add( new InspectedTrait( ACTION, action.getName(), attributes, null ) );
+			}
+		}
+
+		InspectedTraits inspectedTraits = new InspectedTraits( properties, actions, traits.toArray( new InspectedTrait[traits.size()] ) );
+		mInspectedTraits.put( type, new SoftReference<InspectedTraits>( inspectedTraits ) );
+
+		return inspectedTraits;
+	}
+
+	/**
+	 * Merge trait attributes with property/action attributes, such that the latter take precedence
+	 * (just as if they were set on the same Element one after the other).
+	 */
+
+	private Map<String, String> mergeAttributes( Map<String, String> traitAttributes, Map<String, String> attributes ) {
+
+		Map<String, String> merged = CollectionUtils.newLinkedHashMap();
+
+		if ( traitAttributes != null ) {
+			merged.putAll( traitAttributes );
+		}
+
+		if ( attributes != null ) {
+			merged.putAll( attributes );
+		}
+
+		return Collections.unmodifiableMap( merged );
+	}
+
 	/**
 	 * Inspect the given property 'as an entity'.
 	 * <p>
@@ -590,4 +758,128 @@ public abstract class BaseObjectInspector
 
 		return true;
 	}
+
+	//
+	// Inner classes
+	//
+
+	/**
+	 * Cached trait inspections for a type.
+	 */
+
+	private static class InspectedTraits {
+
+		//
+		// Private members
+		//
+
+		private final Map<String, Property>	mProperties;
+
+		private final Map<String, Action>	mActions;
+
+		private final InspectedTrait[]		mTraits;
+
+		//
+		// Constructor
+		//
+
+		public InspectedTraits( Map<String, Property> properties, Map<String, Action> actions, InspectedTrait[] traits ) {
+
+			mProperties = properties;
+			mActions = actions;
+			mTraits = traits;
+		}
+
+		//
+		// Public methods
+		//
+
+		/**
+		 * Whether these inspected traits were inspected from the given properties and actions.
+		 * Compares by identity, because <code>BaseTraitStyle</code> returns the same Map instances
+		 * for as long as its cache holds them.
+		 */
+
+		public boolean isFor( Map<String, Property> properties, Map<String, Action> actions ) {
+
+			return ( mProperties == properties && mActions == actions );
+		}
+
+		/**
+		 * Whether the given properties and actions are the same traits these were inspected from,
+		 * albeit in different Map instances. Traits do not override <code>equals</code>, so this
+		 * is still an identity comparison of each trait.
+		 */
+
+		public boolean isEquivalentTo( Map<String, Property> properties, Map<String, Action> actions ) {
+
+			return ( mProperties.equals( properties ) && mActions.equals( actions ) );
+		}
+
+		public InspectedTrait[] getTraits() {
+
+			return mTraits;
+		}
+	}
+
+	/**
+	 * Cached inspection of a single Property or Action.
+	 */
+
+	private static class InspectedTrait {
+
+		//
+		// Private members
+		//
+
+		private final String				mElementName;
+
+		private final String				mName;
+
+		private final Map<String, String>	mAttributes;
+
+		private final Property				mProperty;
+
+		//
+		// Constructor
+		//
+
+		/**
+		 * @param property
+		 *            the property to <code>inspectPropertyAsEntity</code> on every inspection, or
+		 *            null if <code>shouldInspectPropertyAsEntity</code> was false
+		 */
+
+		public InspectedTrait( String elementName, String name, Map<String, String> attributes, Property property ) {
+
+			mElementName = elementName;
+			mName = name;
+			mAttributes = attributes;
+			mProperty = property;
+		}
+
+		//
+		// Public methods
+		//
+
+		public String getElementName() {
+
+			return mElementName;
+		}
+
+		public String getName() {
+
+			return mName;
+		}
+
+		public Map<String, String> getAttributes() {
+
+			return mAttributes;
+		}
+
+		public Property getProperty() {
+
+			return mProperty;
+		}
+	}
 }
@@ -17,11 +17,17 @@
 package org.metawidget.inspector.impl;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.metawidget.util.CollectionUtils;
 
 /**
  * Convenience implementation for Traits.
  * <p>
- * Handles construction, and returning names.
+ * Handles construction, and returning names. Also provides an optional annotation index (see
+ * <code>getIndexedAnnotation</code>).
  *
  * @author Richard Kennard
  */
@@ -33,7 +39,16 @@ public abstract class BaseTrait
 	// Private methods
 	//
 
-	private String	mName;
+	private String													mName;
+
+	/**
+	 * Index of this Trait's annotations, keyed by annotation type. Built lazily, on first call to
+	 * <code>getIndexedAnnotation</code>, and never modified thereafter.
+	 * <p>
+	 * Building is idempotent, so we don't lock: at worst two threads both build one.
+	 */
+
+	private volatile Map<Class<? extends Annotation>, Annotation>	mAnnotations;
 
 	//
 	// Constructor
@@ -63,4 +78,63 @@ public abstract class BaseTrait
 
 		return mName;
 	}
+
+	//
+	// Protected methods
+	//
+
+	/**
+	 * Gets the given annotation from this Trait's annotation index, building the index on first
+	 * call using <code>indexAnnotations</code>.
+	 * <p>
+	 * Traits are generally cached by their <code>TraitStyle</code>, so subclasses that implement
+	 * <code>getAnnotation</code> by calling this method only do their (possibly expensive)
+	 * reflection once per Trait, rather than once per <code>getAnnotation</code>.
+	 */
+
+	protected <T extends Annotation> T getIndexedAnnotation( Class<T> annotationClass ) {
+
+		Map<Class<? extends Annotation>, Annotation> annotations = mAnnotations;
+
+		if ( annotations == null ) {
+			annotations = CollectionUtils.newHashMap();
+			indexAnnotations( annotations );
+
+			if ( annotations.isEmpty() ) {
+				annotations = Collections.emptyMap();
+			}
+
+			mAnnotations = annotations;
+		}
+
+		return annotationClass.cast( annotations.get( annotationClass ) );
+	}
+
+	/**
+	 * Populate this Trait's annotation index. Subclasses that call <code>getIndexedAnnotation</code>
+	 * must override this method, typically by calling <code>addToIndex</code> once per annotated
+	 * member, in order of precedence.
+	 */
+
+	protected void indexAnnotations( Map<Class<? extends Annotation>, Annotation> index ) {
+
+		// Nothing to index by default
+	}
+
+	/**
+	 * Adds the given annotations to the given index. Annotation types already in the index are not
+	 * replaced, so earlier calls take precedence over later ones.
+	 */
+
+	protected static void addToIndex( Map<Class<? extends Annotation>, Annotation> index, List<Annotation> annotations ) {
+
+		for ( Annotation annotation : annotations ) {
+
+			Class<? extends Annotation> annotationType = annotation.annotationType();
+
+			if ( !index.containsKey( annotationType ) ) {
+				index.put( annotationType, annotation );
+			}
+		}
+	}
 }
@@ -16,10 +16,19 @@
 
 package org.metawidget.inspector.impl;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
+import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
@@ -50,24 +59,41 @@ public abstract class BaseTraitStyle<T extends Trait> {
 	 * This also stops problems with subclasses of <code>BaseTraitStyle</code> sharing the same
 	 * static cache.
 	 * <p>
-	 * Note: the cache is unbounded, because the number of Classes in the system is fixed. This even
-	 * applies to hot deployment products such as FakeReplace, because new Classes are replaced such
-	 * that they <code>.equal()</code> their originals.
+	 * The cache is a <code>ConcurrentMap</code>, so that cache hits never block. It is keyed by
+	 * type <em>and</em> by ClassLoader (see <code>getCacheClassLoader</code>), so that two
+	 * applications sharing the same <code>PropertyStyle</code> but deploying different classes of
+	 * the same name do not see each other's traits.
+	 * <p>
+	 * Note: the cache is not bounded by size, because the number of Classes in the system is fixed.
+	 * This even applies to hot deployment products such as FakeReplace, because new Classes are
+	 * replaced such that they <code>.equal()</code> their originals.
+	 * <p>
+	 * Note: ClassLoaders are only weakly referenced, and cached traits only softly referenced.
+	 * However traits hold <code>Method</code>s that refer back to their ClassLoader, so a weakly
+	 * referenced ClassLoader is still softly reachable through its own traits. After a Web
+	 * application is redeployed, its old ClassLoader (and its entries in this cache) are therefore
+	 * only released once the garbage collector clears soft references, which in practice means a
+	 * full GC under memory pressure. Until then, the cache holds one set of entries per deployment.
+	 * Environments that share a <code>PropertyStyle</code> across redeploys and need the old
+	 * ClassLoader released promptly should call <code>clearCache</code> on undeploy (eg. from a
+	 * <code>ServletContextListener</code>).
 	 */
 
-	/* package private */final Map<String, Map<String, T>>	mCache;
+	/* package private */final ConcurrentMap<TraitsKey, TraitsReference<T>>	mCache;
+
+	private final ReferenceQueue<Object>									mCacheReferenceQueue;
 
-	private Pattern											mExcludeBaseType;
+	private Pattern															mExcludeBaseType;
 
-	private Class<?>[]										mExcludeReturnType;
+	private Class<?>[]														mExcludeReturnType;
 
-	private String[]										mExcludeName;
+	private String[]														mExcludeName;
 
 	//
 	// Protected members
 	//
 
-	protected final Log										mLog	= LogUtils.getLog( getClass() );
+	protected final Log														mLog	= LogUtils.getLog( getClass() );
 
 	//
 	// Constructor
@@ -76,9 +102,11 @@ public abstract class BaseTraitStyle<T extends Trait> {
 	protected BaseTraitStyle( BaseTraitStyleConfig config ) {
 
 		if ( config.isCacheLookups() ) {
-			mCache = CollectionUtils.newHashMap();
+			mCache = CollectionUtils.newConcurrentHashMap();
+			mCacheReferenceQueue = new ReferenceQueue<Object>();
 		} else {
 			mCache = null;
+			mCacheReferenceQueue = null;
 		}
 
 		mExcludeBaseType = config.getExcludeBaseType();
@@ -104,41 +132,151 @@ public abstract class BaseTraitStyle<T extends Trait> {
 			return;
 		}
 
-		synchronized ( mCache ) {
-			mCache.clear();
-		}
+		mCache.clear();
 	}
 
 	//
 	// Protected methods
 	//
 
+	/**
+	 * Gets the traits for the given type, caching them if <code>setCacheLookups</code> is true.
+	 * <p>
+	 * Cache hits do not block. Cache misses are looked up exactly once: concurrent callers for the
+	 * same type wait for the first caller's lookup, rather than repeating it.
+	 */
+
 	protected final Map<String, T> getTraits( String type ) {
 
 		if ( mCache == null ) {
 			return getUncachedTraits( type );
 		}
 
-		synchronized ( mCache ) {
-			Map<String, T> traits = getCachedTraits( type );
+		TraitsKey key = new TraitsKey( type, getCacheClassLoader() );
+
+		while ( true ) {
+			TraitsReference<T> reference = mCache.get( key );
+			FutureTask<Map<String, T>> future = null;
+
+			if ( reference != null ) {
+				future = reference.get();
+			}
 
-			if ( traits == null ) {
-				traits = getUncachedTraits( type );
-				cacheTraits( type, traits );
+			// Cache miss (or cached traits reclaimed by the garbage collector)?
+
+			if ( future == null ) {
+				purgeCache();
+
+				TraitsLookup lookup = new TraitsLookup( type );
+				future = new FutureTask<Map<String, T>>( lookup );
+
+				if ( reference == null ) {
+					reference = new TraitsReference<T>( new TraitsKey( type, key.getClassLoader(), mCacheReferenceQueue ), future, mCacheReferenceQueue );
+
+					if ( mCache.putIfAbsent( reference.getKey(), reference ) != null ) {
+						continue;
+					}
+				} else {
+					TraitsReference<T> staleReference = reference;
+					reference = new TraitsReference<T>( staleReference.getKey(), future, mCacheReferenceQueue );
+
+					if ( !mCache.replace( staleReference.getKey(), staleReference, reference ) ) {
+						continue;
+					}
+				}
+
+				future.run();
+
+				// The caller that did the lookup gets the traits exactly as returned by
+				// getUncachedTraits (other callers get an unmodifiable view)
+
+				if ( lookup.getTraits() != null ) {
+					return lookup.getTraits();
+				}
 			}
 
-			return traits;
+			try {
+				return future.get();
+			} catch ( ExecutionException e ) {
+
+				// Do not cache failed lookups
+
+				mCache.remove( key, reference );
+				Throwable cause = e.getCause();
+
+				if ( cause instanceof RuntimeException ) {
+					throw (RuntimeException) cause;
+				}
+
+				if ( cause instanceof Error ) {
+					throw (Error) cause;
+				}
+
+				throw InspectorException.newException( cause );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				throw InspectorException.newException( e );
+			}
 		}
 	}
 
+	/**
+	 * @return the cached traits for the given type, or null if they have not been cached (or are
+	 *         still being looked up)
+	 */
+
 	protected final Map<String, T> getCachedTraits( String type ) {
 
-		return mCache.get( type );
+		TraitsReference<T> reference = mCache.get( new TraitsKey( type, getCacheClassLoader() ) );
+
+		if ( reference == null ) {
+			return null;
+		}
+
+		FutureTask<Map<String, T>> future = reference.get();
+
+		if ( future == null || !future.isDone() ) {
+			return null;
+		}
+
+		try {
+			return future.get();
+		} catch ( Exception e ) {
+			return null;
+		}
 	}
 
 	protected final void cacheTraits( String type, Map<String, T> traits ) {
 
-		mCache.put( type, Collections.unmodifiableMap( traits ) );
+		purgeCache();
+
+		FutureTask<Map<String, T>> future = new FutureTask<Map<String, T>>( new Runnable() {
+
+			public void run() {
+
+				// Already looked up
+			}
+		}, Collections.unmodifiableMap( traits ) );
+		future.run();
+
+		TraitsKey key = new TraitsKey( type, getCacheClassLoader(), mCacheReferenceQueue );
+		mCache.put( key, new TraitsReference<T>( key, future, mCacheReferenceQueue ) );
+	}
+
+	/**
+	 * Returns the ClassLoader to partition the cache by.
+	 * <p>
+	 * By default, returns the current Thread's context ClassLoader. This is the ClassLoader
+	 * environments such as Web containers use to isolate applications, and the one
+	 * <code>ClassUtils.niceForName</code> consults when resolving types. Subclasses that always
+	 * resolve types using a fixed ClassLoader may override this method.
+	 *
+	 * @return the ClassLoader, or null if there is none
+	 */
+
+	protected ClassLoader getCacheClassLoader() {
+
+		return Thread.currentThread().getContextClassLoader();
 	}
 
 	protected abstract Map<String, T> getUncachedTraits( String type );
@@ -245,4 +383,236 @@ public abstract class BaseTraitStyle<T extends Trait> {
 
 		return false;
 	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Removes cache entries whose ClassLoader, or whose traits, have been garbage collected.
+	 */
+
+	private void purgeCache() {
+
+		for ( Reference<?> reference = mCacheReferenceQueue.poll(); reference != null; reference = mCacheReferenceQueue.poll() ) {
+
+			if ( reference instanceof TraitsReference<?> ) {
+				mCache.remove( ( (TraitsReference<?>) reference ).getKey(), reference );
+			} else {
+				mCache.remove( ( (ClassLoaderReference) reference ).getKey() );
+			}
+		}
+	}
+
+	//
+	// Inner classes
+	//
+
+	/**
+	 * Uncached lookup of traits, run at most once per cache miss.
+	 */
+
+	private class TraitsLookup
+		implements Callable<Map<String, T>> {
+
+		//
+		// Private members
+		//
+
+		private final String	mType;
+
+		private Map<String, T>	mTraits;
+
+		//
+		// Constructor
+		//
+
+		public TraitsLookup( String type ) {
+
+			mType = type;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Map<String, T> call() {
+
+			mTraits = getUncachedTraits( mType );
+			return Collections.unmodifiableMap( mTraits );
+		}
+
+		public Map<String, T> getTraits() {
+
+			return mTraits;
+		}
+	}
+
+	/**
+	 * Cache key of type and ClassLoader.
+	 * <p>
+	 * Keys used for lookups reference their ClassLoader strongly (they are short-lived). Keys
+	 * stored in the cache reference their ClassLoader weakly. Once a stored key's ClassLoader has
+	 * been garbage collected, the key is only equal to itself.
+	 */
+
+	/* package private */static class TraitsKey {
+
+		//
+		// Private members
+		//
+
+		private final String				mType;
+
+		private final ClassLoader			mClassLoader;
+
+		private final ClassLoaderReference	mClassLoaderReference;
+
+		private final int					mHashCode;
+
+		//
+		// Constructors
+		//
+
+		public TraitsKey( String type, ClassLoader classLoader ) {
+
+			mType = type;
+			mClassLoader = classLoader;
+			mClassLoaderReference = null;
+			mHashCode = 31 * type.hashCode() + System.identityHashCode( classLoader );
+		}
+
+		public TraitsKey( String type, ClassLoader classLoader, ReferenceQueue<Object> referenceQueue ) {
+
+			mType = type;
+			mClassLoader = null;
+
+			if ( classLoader == null ) {
+				mClassLoaderReference = null;
+			} else {
+				mClassLoaderReference = new ClassLoaderReference( classLoader, this, referenceQueue );
+			}
+
+			mHashCode = 31 * type.hashCode() + System.identityHashCode( classLoader );
+		}
+
+		//
+		// Public methods
+		//
+
+		public ClassLoader getClassLoader() {
+
+			if ( mClassLoaderReference == null ) {
+				return mClassLoader;
+			}
+
+			return mClassLoaderReference.get();
+		}
+
+		@Override
+		public boolean equals( Object that ) {
+
+			if ( this == that ) {
+				return true;
+			}
+
+			if ( !( that instanceof TraitsKey ) ) {
+				return false;
+			}
+
+			TraitsKey thatKey = (TraitsKey) that;
+
+			if ( mHashCode != thatKey.mHashCode || !mType.equals( thatKey.mType ) ) {
+				return false;
+			}
+
+			ClassLoader classLoader = getClassLoader();
+
+			if ( classLoader == null && mClassLoaderReference != null ) {
+				return false;
+			}
+
+			ClassLoader thatClassLoader = thatKey.getClassLoader();
+
+			if ( thatClassLoader == null && thatKey.mClassLoaderReference != null ) {
+				return false;
+			}
+
+			return ( classLoader == thatClassLoader );
+		}
+
+		@Override
+		public int hashCode() {
+
+			return mHashCode;
+		}
+	}
+
+	/**
+	 * Weak reference from a stored TraitsKey to its ClassLoader.
+	 */
+
+	private static class ClassLoaderReference
+		extends WeakReference<ClassLoader> {
+
+		//
+		// Private members
+		//
+
+		private final TraitsKey	mKey;
+
+		//
+		// Constructor
+		//
+
+		public ClassLoaderReference( ClassLoader classLoader, TraitsKey key, ReferenceQueue<Object> referenceQueue ) {
+
+			super( classLoader, referenceQueue );
+
+			mKey = key;
+		}
+
+		//
+		// Public methods
+		//
+
+		public TraitsKey getKey() {
+
+			return mKey;
+		}
+	}
+
+	/**
+	 * Soft reference from the cache to a (possibly still running) trait lookup.
+	 */
+
+	/* package private */static class TraitsReference<T>
+		extends SoftReference<FutureTask<Map<String, T>>> {
+
+		//
+		// Private members
+		//
+
+		private final TraitsKey	mKey;
+
+		//
+		// Constructor
+		//
+
+		public TraitsReference( TraitsKey key, FutureTask<Map<String, T>> future, ReferenceQueue<Object> referenceQueue ) {
+
+			super( future, referenceQueue );
+
+			mKey = key;
+		}
+
+		//
+		// Public methods
+		//
+
+		public TraitsKey getKey() {
+
+			return mKey;
+		}
+	}
 }
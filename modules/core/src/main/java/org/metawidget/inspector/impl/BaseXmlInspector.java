@@ -19,9 +19,12 @@ package org.metawidget.inspector.impl;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.metawidget.config.iface.ResourceResolver;
+import org.metawidget.inspector.iface.CacheableInspector;
 import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.propertystyle.Property;
@@ -29,6 +32,7 @@ import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.inspector.impl.propertystyle.ValueAndDeclaredType;
 import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
 import org.metawidget.util.LogUtils.Log;
 import org.metawidget.util.XmlUtils;
@@ -99,12 +103,20 @@ import org.w3c.dom.Element;
  * Third, it is important the properties defined by the XML and the ones defined by the Java classes
  * stay in sync. To enforce this, you can set
  * <code>BaseXmlInspectorConfig.setValidateAgainstClasses</code>.
+ * <p>
+ * <h2>Performance</h2>
+ * <p>
+ * At construction time, the XML is indexed by top-level type and, within each top-level element,
+ * by child name. Path traversal (including <code>extends</code> hops) is therefore a series of hash
+ * lookups, and never touches the shared DOM. The result of <code>inspectTraits</code> for each
+ * top-level element, and of <code>inspectProperty</code> for each parent property, is computed once
+ * and then reused, so after warm-up <code>inspectAsDom</code> runs without holding any lock.
  *
  * @author Richard Kennard
  */
 
 public abstract class BaseXmlInspector
-	implements DomInspector<Element> {
+	implements DomInspector<Element>, CacheableInspector {
 
 	//
 	// Protected members
@@ -126,11 +138,32 @@ public abstract class BaseXmlInspector
 	 * just invoking read operations".
 	 */
 
-	private Element				mRoot;
+	private final Element										mRoot;
+
+	/**
+	 * Index of top-level elements, keyed by their <code>getTopLevelTypeAttribute</code>.
+	 * <p>
+	 * Built once at construction time, and never modified thereafter.
+	 */
+
+	private final Map<String, IndexedEntity>					mEntities;
+
+	/**
+	 * Results of <code>inspectTraits</code>, keyed by top-level element.
+	 */
 
-	private final PropertyStyle	mRestrictAgainstObject;
+	private final ConcurrentMap<Element, LiteElement>			mInspectedTraits		= CollectionUtils.newConcurrentHashMap();
 
-	private final boolean		mInferInheritanceHierarchy;
+	/**
+	 * Results of <code>inspectProperty</code>, keyed by child element. Stored as an empty Map if
+	 * <code>inspectProperty</code> returned <code>null</code>.
+	 */
+
+	private final ConcurrentMap<Element, Map<String, String>>	mInspectedProperties	= CollectionUtils.newConcurrentHashMap();
+
+	private final PropertyStyle									mRestrictAgainstObject;
+
+	private final boolean										mInferInheritanceHierarchy;
 
 	//
 	// Constructor
@@ -148,19 +181,23 @@ public abstract class BaseXmlInspector
 			// Look up the XML file
 
 			InputStream[] files = config.getInputStreams();
+			Element root = null;
 
 			if ( files != null && files.length > 0 ) {
-				mRoot = getDocumentElement( config.getResourceResolver(), config.getInputStreams() );
+				root = getDocumentElement( config.getResourceResolver(), files );
 			}
 
-			if ( mRoot == null ) {
+			if ( root == null ) {
 				throw InspectorException.newException( "No XML input file specified" );
 			}
 
+			mRoot = root;
+			mEntities = indexEntities( root );
+
 			// Debug
 
 			if ( mLog.isTraceEnabled() ) {
-				mLog.trace( XmlUtils.documentToString( mRoot.getOwnerDocument(), false ) );
+				mLog.trace( XmlUtils.documentToString( root.getOwnerDocument(), false ) );
 			}
 
 			// restrictAgainstObject
@@ -180,63 +217,7 @@ public abstract class BaseXmlInspector
 			PropertyStyle validateAgainstClasses = config.getValidateAgainstClasses();
 
 			if ( validateAgainstClasses != null ) {
-
-				String topLevelTypeAttribute = getTopLevelTypeAttribute();
-				String extendsAttribute = getExtendsAttribute();
-				String nameAttribute = getNameAttribute();
-				String typeAttribute = getTypeAttribute();
-
-				// For each entity...
-
-				Element entity = XmlUtils.getChildWithAttribute( mRoot, topLevelTypeAttribute );
-
-				while ( entity != null ) {
-
-					// ...the maps to a Java class...
-
-					String topLevelType = entity.getAttribute( topLevelTypeAttribute );
-					Class<?> actualClass = ClassUtils.niceForName( topLevelType );
-
-					if ( actualClass != null ) {
-
-						// ...check its extends...
-
-						String extendz = entity.getAttribute( extendsAttribute );
-						Class<?> actualSuperclass = actualClass.getSuperclass();
-
-						if ( !"".equals( extendz ) && !extendz.equals( actualSuperclass.getName() ) ) {
-							throw InspectorException.newException( actualClass + " extends " + actualSuperclass + ", not '" + extendz + "'" );
-						}
-
-						// ...then for each property...
-
-						Map<String, Property> actualProperties = validateAgainstClasses.getProperties( topLevelType );
-						Element property = XmlUtils.getChildWithAttribute( entity, nameAttribute );
-
-						while ( property != null ) {
-
-							// ...check it exists
-
-							String propertyName = property.getAttribute( nameAttribute );
-							Property actualProperty = actualProperties.get( propertyName );
-
-							if ( actualProperty == null ) {
-								throw InspectorException.newException( actualClass + " does not define a property '" + propertyName + "'" );
-							}
-
-							String propertyType = property.getAttribute( typeAttribute );
-							String actualType = actualProperty.getType();
-
-							if ( !"".equals( propertyType ) && !propertyType.equals( actualType ) ) {
-								throw InspectorException.newException( actualClass + " defines property '" + propertyName + "' to be " + actualType + ", not '" + propertyType + "'" );
-							}
-
-							property = XmlUtils.getSiblingWithAttribute( property, nameAttribute );
-						}
-					}
-
-					entity = XmlUtils.getSiblingWithAttribute( entity, topLevelTypeAttribute );
-				}
+				validateAgainstClasses( root, validateAgainstClasses );
 			}
 
 		} catch ( Exception e ) {
@@ -281,52 +262,48 @@ public abstract class BaseXmlInspector
 			ValueAndDeclaredType valueAndDeclaredType;
 			Map<String, String> parentAttributes = null;
 
-			// "There's no requirement that a DOM be thread safe, so applications need to make sure
-			// that threads are properly synchronized for concurrent access to [a shared] DOM. This
-			// is true even if you're just invoking read operations"
-			//
-			// https://issues.apache.org/jira/browse/XERCESJ-727
+			// If the path has a parent...
 
-			synchronized ( mRoot ) {
+			if ( names != null && names.length > 0 ) {
+				// ...inspect its property for useful attributes...
 
-				// If the path has a parent...
+				Element propertyInParent = (Element) traverse( toInspect, type, true, names ).getValue();
 
-				if ( names != null && names.length > 0 ) {
-					// ...inspect its property for useful attributes...
+				if ( propertyInParent != null ) {
+					parentAttributes = getInspectedProperty( propertyInParent );
+				}
+			}
 
-					Element propertyInParent = (Element) traverse( toInspect, type, true, names ).getValue();
+			// ...otherwise, just start at the end point
 
-					if ( propertyInParent != null ) {
-						parentAttributes = inspectProperty( propertyInParent );
-					}
-				}
+			valueAndDeclaredType = traverse( toInspect, type, false, names );
 
-				// ...otherwise, just start at the end point
+			if ( valueAndDeclaredType.getValue() == null ) {
 
-				valueAndDeclaredType = traverse( toInspect, type, false, names );
+				if ( parentAttributes == null || parentAttributes.isEmpty() ) {
+					return null;
+				}
 
-				if ( valueAndDeclaredType.getValue() == null ) {
+				document = XmlUtils.newDocument();
+				entity = document.createElementNS( NAMESPACE, ENTITY );
 
-					if ( parentAttributes == null || parentAttributes.isEmpty() ) {
-						return null;
-					}
+			} else {
 
-					document = XmlUtils.newDocument();
-					entity = document.createElementNS( NAMESPACE, ENTITY );
+				// Inspect traits
 
-				} else {
+				LiteElement traits = getInspectedTraits( (Element) valueAndDeclaredType.getValue() );
 
-					// Inspect traits
+				// Nothing of consequence to return?
 
-					document = XmlUtils.newDocument();
-					entity = document.createElementNS( NAMESPACE, ENTITY );
-					inspectTraits( (Element) valueAndDeclaredType.getValue(), entity );
+				if ( traits.getFirstChild() == null ) {
+					return null;
+				}
 
-					// Nothing of consequence to return?
+				document = XmlUtils.newDocument();
+				entity = document.createElementNS( NAMESPACE, ENTITY );
 
-					if ( !entity.hasChildNodes() ) {
-						return null;
-					}
+				for ( LiteElement trait = traits.getFirstChild(); trait != null; trait = trait.getNextSibling() ) {
+					entity.appendChild( trait.toDom( document ) );
 				}
 			}
 
@@ -351,6 +328,16 @@ public abstract class BaseXmlInspector
 		}
 	}
 
+	/**
+	 * Inspection results can be cached unless <code>restrictAgainstObject</code> is set, because
+	 * otherwise they depend only on the XML.
+	 */
+
+	public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+		return ( mRestrictAgainstObject == null );
+	}
+
 	//
 	// Protected methods
 	//
@@ -392,6 +379,177 @@ public abstract class BaseXmlInspector
 		return documentMaster.getDocumentElement();
 	}
 
+	/**
+	 * @return the element (may be null) and its declared type (not actual type). Never null. If
+	 *         the declared type within the ValueAndDeclaredType is null, inspection will be
+	 *         aborted
+	 */
+
+	protected ValueAndDeclaredType traverse( Object toTraverse, String type, boolean onlyToParent, String... names ) {
+
+		// If given a non-null Object, use it to restrictAgainstObject
+
+		String typeToInspect = type;
+		String[] namesToInspect = names;
+		Object traverseAgainstObject = null;
+		String declaredType = null;
+
+		if ( toTraverse != null && mRestrictAgainstObject != null ) {
+			ValueAndDeclaredType valueAndDeclaredType = mRestrictAgainstObject.traverse( toTraverse, typeToInspect, onlyToParent, namesToInspect );
+			traverseAgainstObject = valueAndDeclaredType.getValue();
+
+			if ( valueAndDeclaredType.getDeclaredType() != null ) {
+				declaredType = valueAndDeclaredType.getDeclaredType();
+			}
+
+			if ( traverseAgainstObject == null ) {
+				return new ValueAndDeclaredType( null, declaredType );
+			}
+
+			if ( onlyToParent ) {
+				namesToInspect = new String[] { namesToInspect[namesToInspect.length - 1] };
+			} else {
+				namesToInspect = null;
+			}
+
+			typeToInspect = traverseAgainstObject.getClass().getName();
+		}
+
+		if ( declaredType == null ) {
+			declaredType = typeToInspect;
+		}
+
+		// Validate type
+
+		IndexedEntity entity = mEntities.get( typeToInspect );
+
+		if ( entity == null ) {
+
+			if ( traverseAgainstObject == null && !mInferInheritanceHierarchy ) {
+				return new ValueAndDeclaredType( null, declaredType );
+			}
+
+			// If using mRestrictAgainstObject or mInferInheritanceHierarchy, attempt to match
+			// superclasses by checking against the Java class heirarchy
+
+			Class<?> actualClass;
+
+			if ( traverseAgainstObject != null ) {
+				actualClass = traverseAgainstObject.getClass();
+			} else {
+				actualClass = ClassUtils.niceForName( typeToInspect );
+
+				if ( actualClass == null ) {
+					return new ValueAndDeclaredType( null, typeToInspect );
+				}
+			}
+
+			while ( entity == null && ( actualClass = actualClass.getSuperclass() ) != null ) {
+
+				entity = mEntities.get( actualClass.getName() );
+			}
+
+			if ( entity == null ) {
+				return new ValueAndDeclaredType( null, declaredType );
+			}
+		}
+
+		if ( namesToInspect == null ) {
+			return new ValueAndDeclaredType( entity.getElement(), declaredType );
+		}
+
+		int length = namesToInspect.length;
+
+		if ( length == 0 ) {
+			return new ValueAndDeclaredType( entity.getElement(), declaredType );
+		}
+
+		// Traverse names
+
+		String typeAttribute = getTypeAttribute();
+
+		for ( int loop = 0; loop < length; loop++ ) {
+			String name = namesToInspect[loop];
+			IndexedProperty property = entity.getProperty( name );
+
+			// Property may be defined in an 'extends' (if the XML structure supports 'extends')
+
+			while ( property == null ) {
+				String childExtends = entity.getExtends();
+
+				if ( childExtends == null ) {
+					return new ValueAndDeclaredType( null, null );
+				}
+
+				entity = mEntities.get( childExtends );
+
+				if ( entity == null ) {
+					return new ValueAndDeclaredType( null, null );
+				}
+
+				property = entity.getProperty( name );
+			}
+
+			if ( onlyToParent && loop >= ( length - 1 ) ) {
+				return new ValueAndDeclaredType( property.getElement(), property.getType() );
+			}
+
+			if ( !property.hasType() ) {
+				throw InspectorException.newException( "Property " + name + " in entity " + entity.getType() + " has no @" + typeAttribute + " attribute in the XML, so cannot navigate to " + type + ArrayUtils.toString( namesToInspect, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
+			}
+
+			declaredType = property.getType();
+			entity = mEntities.get( declaredType );
+
+			if ( entity == null ) {
+				return new ValueAndDeclaredType( null, declaredType );
+			}
+		}
+
+		return new ValueAndDeclaredType( entity.getElement(), declaredType );
+	}
+
+	/**
+	 * The attribute on top-level elements that uniquely identifies them.
+	 */
+
+	protected String getTopLevelTypeAttribute() {
+
+		return TYPE;
+	}
+
+	/**
+	 * The attribute on child elements that uniquely identifies them.
+	 */
+
+	protected String getNameAttribute() {
+
+		return NAME;
+	}
+
+	/**
+	 * The attribute on child elements that identifies another top-level element.
+	 * <p>
+	 * This is necessary for path traversal. If an XML format does not specify a way to traverse
+	 * from a child to another top-level element, the Inspector cannot find information along paths
+	 * (eg. <code>foo/bar/baz</code>). There <em>is</em> a way around this but, on balance, we
+	 * decided against it (see http://blog.kennardconsulting.com/2008/01/ask-your-father.html).
+	 */
+
+	protected String getTypeAttribute() {
+
+		return TYPE;
+	}
+
+	/**
+	 * The attribute on top-level elements that identifies a superclass relationship (if any).
+	 */
+
+	protected String getExtendsAttribute() {
+
+		return null;
+	}
+
 	/**
 	 * Hook for subclasses to preprocess the document after the Inspector is initialized.
 	 * <p>
@@ -532,195 +690,299 @@ public abstract class BaseXmlInspector
 		return null;
 	}
 
-	/**
-	 * @return the Element (may be null) and its declared type (not actual type). Never null.
-	 *         If the declared type within the ValueAndDeclaredType is null, inspection will be
-	 *         aborted
-	 */
+	//
+	// Private methods
+	//
 
-	protected ValueAndDeclaredType traverse( Object toTraverse, String type, boolean onlyToParent, String... names ) {
+	private void validateAgainstClasses( Element root, PropertyStyle validateAgainstClasses ) {
 
-		// If given a non-null Object, use it to restrictAgainstObject
+		String topLevelTypeAttribute = getTopLevelTypeAttribute();
+		String extendsAttribute = getExtendsAttribute();
+		String nameAttribute = getNameAttribute();
+		String typeAttribute = getTypeAttribute();
 
-		String typeToInspect = type;
-		String[] namesToInspect = names;
-		Object traverseAgainstObject = null;
-		String declaredType = null;
+		// For each entity...
 
-		if ( toTraverse != null && mRestrictAgainstObject != null ) {
-			ValueAndDeclaredType valueAndDeclaredType = mRestrictAgainstObject.traverse( toTraverse, typeToInspect, onlyToParent, namesToInspect );
-			traverseAgainstObject = valueAndDeclaredType.getValue();
+		for ( Element entity = XmlUtils.getFirstChildElement( root ); entity != null; entity = XmlUtils.getNextSiblingElement( entity ) ) {
 
-			if ( valueAndDeclaredType.getDeclaredType() != null ) {
-				declaredType = valueAndDeclaredType.getDeclaredType();
+			if ( !entity.hasAttribute( topLevelTypeAttribute ) ) {
+				continue;
 			}
 
-			if ( traverseAgainstObject == null ) {
-				return new ValueAndDeclaredType( null, declaredType );
-			}
+			// ...that maps to a Java class...
 
-			if ( onlyToParent ) {
-				namesToInspect = new String[] { namesToInspect[namesToInspect.length - 1] };
-			} else {
-				namesToInspect = null;
+			String topLevelType = entity.getAttribute( topLevelTypeAttribute );
+			Class<?> actualClass = ClassUtils.niceForName( topLevelType );
+
+			if ( actualClass == null ) {
+				continue;
 			}
 
-			typeToInspect = traverseAgainstObject.getClass().getName();
-		}
+			// ...check its extends...
 
-		if ( declaredType == null ) {
-			declaredType = typeToInspect;
-		}
+			if ( extendsAttribute != null ) {
+				String extendz = entity.getAttribute( extendsAttribute );
+				Class<?> actualSuperclass = actualClass.getSuperclass();
 
-		// Validate type
+				if ( !"".equals( extendz ) && !extendz.equals( actualSuperclass.getName() ) ) {
+					throw InspectorException.newException( actualClass + " extends " + actualSuperclass + ", not '" + extendz + "'" );
+				}
+			}
 
-		String topLevelTypeAttribute = getTopLevelTypeAttribute();
-		Element entityElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, typeToInspect );
+			// ...then for each property...
 
-		if ( entityElement == null ) {
+			Map<String, Property> actualProperties = validateAgainstClasses.getProperties( topLevelType );
 
-			if ( traverseAgainstObject == null && !mInferInheritanceHierarchy ) {
-				return new ValueAndDeclaredType( null, declaredType );
-			}
+			for ( Element property = XmlUtils.getFirstChildElement( entity ); property != null; property = XmlUtils.getNextSiblingElement( property ) ) {
 
-			// If using mRestrictAgainstObject or mInferInheritanceHierarchy, attempt to match
-			// superclasses by checking against the Java class heirarchy
+				if ( !property.hasAttribute( nameAttribute ) ) {
+					continue;
+				}
 
-			Class<?> actualClass;
+				// ...check it exists
 
-			if ( traverseAgainstObject != null ) {
-				actualClass = traverseAgainstObject.getClass();
-			} else {
-				actualClass = ClassUtils.niceForName( typeToInspect );
+				String propertyName = property.getAttribute( nameAttribute );
+				Property actualProperty = actualProperties.get( propertyName );
 
-				if ( actualClass == null ) {
-					return new ValueAndDeclaredType( null, typeToInspect );
+				if ( actualProperty == null ) {
+					throw InspectorException.newException( actualClass + " does not define a property '" + propertyName + "'" );
 				}
-			}
-
-			while ( entityElement == null && ( actualClass = actualClass.getSuperclass() ) != null ) {
 
-				entityElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, actualClass.getName() );
-			}
+				String propertyType = property.getAttribute( typeAttribute );
+				String actualType = actualProperty.getType();
 
-			if ( entityElement == null ) {
-				return new ValueAndDeclaredType( null, declaredType );
+				if ( !"".equals( propertyType ) && !propertyType.equals( actualType ) ) {
+					throw InspectorException.newException( actualClass + " defines property '" + propertyName + "' to be " + actualType + ", not '" + propertyType + "'" );
+				}
 			}
 		}
+	}
 
-		if ( namesToInspect == null ) {
-			return new ValueAndDeclaredType( entityElement, declaredType );
-		}
-
-		int length = namesToInspect.length;
-
-		if ( length == 0 ) {
-			return new ValueAndDeclaredType( entityElement, declaredType );
-		}
+	/**
+	 * Indexes the top-level elements of the given root, and the child elements of each.
+	 * <p>
+	 * Mirrors the semantics of <code>XmlUtils.getChildWithAttributeValue</code>: if more than one
+	 * element has the same attribute value, the first one wins.
+	 */
 
-		// Traverse names
+	private Map<String, IndexedEntity> indexEntities( Element root ) {
 
+		String topLevelTypeAttribute = getTopLevelTypeAttribute();
 		String extendsAttribute = getExtendsAttribute();
 		String nameAttribute = getNameAttribute();
 		String typeAttribute = getTypeAttribute();
 
-		for ( int loop = 0; loop < length; loop++ ) {
-			String name = namesToInspect[loop];
-			Element property = XmlUtils.getChildWithAttributeValue( entityElement, nameAttribute, name );
+		Map<String, IndexedEntity> entities = CollectionUtils.newHashMap();
 
-			if ( property == null ) {
-				// XML structure may not support 'extends'
+		for ( Element entity = XmlUtils.getFirstChildElement( root ); entity != null; entity = XmlUtils.getNextSiblingElement( entity ) ) {
 
-				if ( extendsAttribute == null ) {
-					return new ValueAndDeclaredType( null, null );
-				}
+			String topLevelType = entity.getAttribute( topLevelTypeAttribute );
 
-				// Property may be defined in an 'extends'
-
-				while ( true ) {
-					if ( !entityElement.hasAttribute( extendsAttribute ) ) {
-						return new ValueAndDeclaredType( null, null );
-					}
+			if ( entities.containsKey( topLevelType ) ) {
+				continue;
+			}
 
-					String childExtends = entityElement.getAttribute( extendsAttribute );
-					entityElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, childExtends );
+			String extendz = null;
 
-					if ( entityElement == null ) {
-						return new ValueAndDeclaredType( null, null );
-					}
+			if ( extendsAttribute != null && entity.hasAttribute( extendsAttribute ) ) {
+				extendz = entity.getAttribute( extendsAttribute );
+			}
 
-					property = XmlUtils.getChildWithAttributeValue( entityElement, nameAttribute, name );
+			Map<String, IndexedProperty> properties = CollectionUtils.newHashMap();
 
-					if ( property != null ) {
-						break;
-					}
-				}
+			for ( Element property = XmlUtils.getFirstChildElement( entity ); property != null; property = XmlUtils.getNextSiblingElement( property ) ) {
 
-				// This check is unnecessary. However it stops a 'potential null pointer access'
-				// warning in Eclipse!
+				String name = property.getAttribute( nameAttribute );
 
-				if ( property == null ) {
-					throw new NullPointerException( "property" );
+				if ( !properties.containsKey( name ) ) {
+					properties.put( name, new IndexedProperty( property, property.hasAttribute( typeAttribute ), property.getAttribute( typeAttribute ) ) );
 				}
 			}
 
-			if ( onlyToParent && loop >= ( length - 1 ) ) {
-				return new ValueAndDeclaredType( property, property.getAttribute( typeAttribute ) );
-			}
+			entities.put( topLevelType, new IndexedEntity( entity, entity.getAttribute( typeAttribute ), extendz, properties ) );
+		}
 
-			if ( !property.hasAttribute( typeAttribute ) ) {
-				throw InspectorException.newException( "Property " + name + " in entity " + entityElement.getAttribute( typeAttribute ) + " has no @" + typeAttribute + " attribute in the XML, so cannot navigate to " + type + ArrayUtils.toString( namesToInspect, StringUtils.SEPARATOR_FORWARD_SLASH, true, false ) );
-			}
+		return entities;
+	}
+
+	/**
+	 * Gets the result of <code>inspectTraits</code> for the given top-level element, computing it
+	 * the first time.
+	 */
+
+	private LiteElement getInspectedTraits( Element toInspect ) {
+
+		LiteElement traits = mInspectedTraits.get( toInspect );
+
+		if ( traits == null ) {
+			traits = getUncachedTraits( toInspect );
+			mInspectedTraits.put( toInspect, traits );
+		}
+
+		return traits;
+	}
+
+	/**
+	 * Gets the result of <code>inspectProperty</code> for the given child element, computing it
+	 * the first time.
+	 *
+	 * @return the (unmodifiable) attributes. Never null
+	 */
 
-			declaredType = property.getAttribute( typeAttribute );
-			entityElement = XmlUtils.getChildWithAttributeValue( mRoot, topLevelTypeAttribute, declaredType );
+	private Map<String, String> getInspectedProperty( Element toInspect ) {
 
-			if ( entityElement == null ) {
-				break;
+		Map<String, String> attributes = mInspectedProperties.get( toInspect );
+
+		if ( attributes == null ) {
+			attributes = getUncachedProperty( toInspect );
+
+			if ( attributes == null ) {
+				attributes = Collections.emptyMap();
+			} else {
+				attributes = Collections.unmodifiableMap( CollectionUtils.newHashMap( attributes ) );
 			}
+
+			mInspectedProperties.put( toInspect, attributes );
 		}
 
-		return new ValueAndDeclaredType( entityElement, declaredType );
+		return attributes;
 	}
 
 	/**
-	 * The attribute on top-level elements that uniquely identifies them.
+	 * Runs <code>inspectTraits</code> under the DOM lock.
 	 */
 
-	protected String getTopLevelTypeAttribute() {
+	private LiteElement getUncachedTraits( Element toInspect ) {
 
-		return TYPE;
+		synchronized ( mRoot ) {
+			Element entity = XmlUtils.newDocument().createElementNS( NAMESPACE, ENTITY );
+			inspectTraits( toInspect, entity );
+			return LiteElement.fromDom( entity );
+		}
 	}
 
 	/**
-	 * The attribute on child elements that uniquely identifies them.
+	 * Runs <code>inspectProperty</code> under the DOM lock.
 	 */
 
-	protected String getNameAttribute() {
+	private Map<String, String> getUncachedProperty( Element toInspect ) {
 
-		return NAME;
+		synchronized ( mRoot ) {
+			return inspectProperty( toInspect );
+		}
 	}
 
+	//
+	// Inner class
+	//
+
 	/**
-	 * The attribute on child elements that identifies another top-level element.
-	 * <p>
-	 * This is necessary for path traversal. If an XML format does not specify a way to traverse
-	 * from a child to another top-level element, the Inspector cannot find information along paths
-	 * (eg. <code>foo/bar/baz</code>). There <em>is</em> a way around this but, on balance, we
-	 * decided against it (see http://blog.kennardconsulting.com/2008/01/ask-your-father.html).
+	 * Immutable index entry for a top-level element.
 	 */
 
-	protected String getTypeAttribute() {
+	private static class IndexedEntity {
 
-		return TYPE;
+		//
+		// Private members
+		//
+
+		private final Element									mElement;
+
+		private final String							mType;
+
+		private final String							mExtends;
+
+		private final Map<String, IndexedProperty>	mProperties;
+
+		//
+		// Constructor
+		//
+
+		public IndexedEntity( Element element, String type, String extendz, Map<String, IndexedProperty> properties ) {
+
+			mElement = element;
+			mType = type;
+			mExtends = extendz;
+			mProperties = properties;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Element getElement() {
+
+			return mElement;
+		}
+
+		/**
+		 * @return the value of the element's <code>getTypeAttribute</code>. Used for error messages
+		 */
+
+		public String getType() {
+
+			return mType;
+		}
+
+		/**
+		 * @return the value of the element's <code>getExtendsAttribute</code>, or null if it has none
+		 */
+
+		public String getExtends() {
+
+			return mExtends;
+		}
+
+		public IndexedProperty getProperty( String name ) {
+
+			return mProperties.get( name );
+		}
 	}
 
 	/**
-	 * The attribute on top-level elements that identifies a superclass relationship (if any).
+	 * Immutable index entry for a child of a top-level element.
 	 */
 
-	protected String getExtendsAttribute() {
+	private static class IndexedProperty {
 
-		return null;
+		//
+		// Private members
+		//
+
+		private final Element			mElement;
+
+		private final boolean	mHasType;
+
+		private final String	mType;
+
+		//
+		// Constructor
+		//
+
+		public IndexedProperty( Element element, boolean hasType, String type ) {
+
+			mElement = element;
+			mHasType = hasType;
+			mType = type;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Element getElement() {
+
+			return mElement;
+		}
+
+		public boolean hasType() {
+
+			return mHasType;
+		}
+
+		public String getType() {
+
+			return mType;
+		}
 	}
 }
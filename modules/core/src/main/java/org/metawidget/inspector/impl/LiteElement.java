@@ -0,0 +1,489 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import java.util.Map;
+
+import org.metawidget.util.CollectionUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Lightweight, DOM-free representation of an inspection result element.
+ * <p>
+ * Used by XML-based Inspectors to cache the traits they have looked up for each entity. The
+ * cached traits are a shallow tree: an <code>entity</code> and an ordered list of
+ * <code>property</code> and <code>action</code> traits. Holding that tree as
+ * <code>org.w3c.dom</code> nodes, and copying each element's <code>NamedNodeMap</code> into a
+ * <code>Map</code> on every inspection, is a significant source of object churn.
+ * <code>LiteElement</code> instead stores its attributes in a single, interleaved name/value array
+ * and its children as a singly-linked list.
+ * <p>
+ * Attribute lookups are linear scans. This is deliberate: inspection result elements rarely have
+ * more than a dozen attributes, and a scan over a small array is both faster and smaller than a
+ * hash table.
+ * <p>
+ * <code>fromDom</code>, <code>toDom</code> and <code>toString</code> adapt to and from the
+ * <code>org.w3c.dom</code> inspection results that Inspectors return.
+ * <p>
+ * <em>LiteElement is not Thread-safe.</em>
+ *
+ * @author Richard Kennard
+ */
+
+public class LiteElement {
+
+	//
+	// Private statics
+	//
+
+	private static final String[]	EMPTY_ATTRIBUTES	= new String[0];
+
+	//
+	// Private members
+	//
+
+	private final String			mName;
+
+	private String					mNamespace;
+
+	/**
+	 * Attribute names and values, interleaved (ie. <code>name0, value0, name1, value1...</code>).
+	 */
+
+	private String[]				mAttributes			= EMPTY_ATTRIBUTES;
+
+	private int						mAttributesLength;
+
+	private LiteElement				mParent;
+
+	private LiteElement				mFirstChild;
+
+	private LiteElement				mLastChild;
+
+	private LiteElement				mNextSibling;
+
+	//
+	// Constructor
+	//
+
+	public LiteElement( String name ) {
+
+		if ( name == null ) {
+			throw new NullPointerException( "name" );
+		}
+
+		mName = name;
+	}
+
+	//
+	// Public statics
+	//
+
+	/**
+	 * Converts the given <code>org.w3c.dom.Element</code> (and its child elements) into a
+	 * <code>LiteElement</code>.
+	 *
+	 * @return the converted element. Null if the given element was null
+	 */
+
+	public static LiteElement fromDom( Element element ) {
+
+		if ( element == null ) {
+			return null;
+		}
+
+		LiteElement liteElement = new LiteElement( element.getNodeName() );
+		liteElement.mNamespace = element.getNamespaceURI();
+
+		NamedNodeMap attributes = element.getAttributes();
+
+		for ( int loop = 0, length = attributes.getLength(); loop < length; loop++ ) {
+			Node attribute = attributes.item( loop );
+			String attributeName = attribute.getNodeName();
+
+			// (never xmlns)
+
+			if ( isNamespaceDeclaration( attributeName ) ) {
+				continue;
+			}
+
+			liteElement.appendAttribute( attributeName, attribute.getNodeValue() );
+		}
+
+		for ( Node child = element.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			if ( child instanceof Element ) {
+				liteElement.appendChild( fromDom( (Element) child ) );
+			}
+		}
+
+		return liteElement;
+	}
+
+	//
+	// Public methods
+	//
+
+	public String getName() {
+
+		return mName;
+	}
+
+	/**
+	 * @return the namespace URI of this element. May be null
+	 */
+
+	public String getNamespace() {
+
+		return mNamespace;
+	}
+
+	public void setNamespace( String namespace ) {
+
+		mNamespace = namespace;
+	}
+
+	public boolean hasAttribute( String name ) {
+
+		return ( indexOfAttribute( name ) != -1 );
+	}
+
+	/**
+	 * Gets the value of the given attribute.
+	 * <p>
+	 * Note: unlike <code>org.w3c.dom.Element.getAttribute</code>, this method returns
+	 * <code>null</code> (not an empty String) for missing attributes.
+	 */
+
+	public String getAttribute( String name ) {
+
+		int index = indexOfAttribute( name );
+
+		if ( index == -1 ) {
+			return null;
+		}
+
+		return mAttributes[index + 1];
+	}
+
+	/**
+	 * Sets the value of the given attribute, overwriting any existing value. Setting a
+	 * <code>null</code> value removes the attribute.
+	 */
+
+	public void setAttribute( String name, String value ) {
+
+		if ( value == null ) {
+			removeAttribute( name );
+			return;
+		}
+
+		int index = indexOfAttribute( name );
+
+		if ( index != -1 ) {
+			mAttributes[index + 1] = value;
+			return;
+		}
+
+		appendAttribute( name, value );
+	}
+
+	public void removeAttribute( String name ) {
+
+		int index = indexOfAttribute( name );
+
+		if ( index == -1 ) {
+			return;
+		}
+
+		System.arraycopy( mAttributes, index + 2, mAttributes, index, mAttributesLength - index - 2 );
+		mAttributesLength -= 2;
+		mAttributes[mAttributesLength] = null;
+		mAttributes[mAttributesLength + 1] = null;
+	}
+
+	public int getAttributeCount() {
+
+		return mAttributesLength / 2;
+	}
+
+	public String getAttributeName( int index ) {
+
+		return mAttributes[index * 2];
+	}
+
+	public String getAttributeValue( int index ) {
+
+		return mAttributes[index * 2 + 1];
+	}
+
+	/**
+	 * Returns a new, mutable Map of this element's attributes.
+	 * <p>
+	 * The Map is a copy: callers are free to modify it without affecting this element.
+	 */
+
+	public Map<String, String> getAttributesAsMap() {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap( getAttributeCount() );
+
+		for ( int loop = 0; loop < mAttributesLength; loop += 2 ) {
+			attributes.put( mAttributes[loop], mAttributes[loop + 1] );
+		}
+
+		return attributes;
+	}
+
+	/**
+	 * Sets the Map as attributes on this element. Attributes with a <code>null</code> value are
+	 * removed.
+	 */
+
+	public void setAttributesFromMap( Map<String, String> attributes ) {
+
+		if ( attributes == null ) {
+			return;
+		}
+
+		for ( Map.Entry<String, String> entry : attributes.entrySet() ) {
+			setAttribute( entry.getKey(), entry.getValue() );
+		}
+	}
+
+	/**
+	 * @return the parent element. Null if this is the root
+	 */
+
+	public LiteElement getParent() {
+
+		return mParent;
+	}
+
+	public LiteElement getFirstChild() {
+
+		return mFirstChild;
+	}
+
+	public LiteElement getNextSibling() {
+
+		return mNextSibling;
+	}
+
+	/**
+	 * Appends the given child to the end of this element's children.
+	 *
+	 * @return the given child
+	 */
+
+	public LiteElement appendChild( LiteElement child ) {
+
+		if ( child.mParent != null ) {
+			throw new IllegalArgumentException( "Element " + child.mName + " already has a parent" );
+		}
+
+		child.mParent = this;
+
+		if ( mLastChild == null ) {
+			mFirstChild = child;
+		} else {
+			mLastChild.mNextSibling = child;
+		}
+
+		mLastChild = child;
+		return child;
+	}
+
+	/**
+	 * Converts this element (and its children) into an <code>org.w3c.dom.Element</code> owned by
+	 * the given Document. The returned element is not attached to the Document.
+	 */
+
+	public Element toDom( Document document ) {
+
+		String namespace = mNamespace;
+
+		if ( namespace == null && mParent != null ) {
+			namespace = mParent.getInheritedNamespace();
+		}
+
+		Element element = document.createElementNS( namespace, mName );
+
+		for ( int loop = 0; loop < mAttributesLength; loop += 2 ) {
+			element.setAttribute( mAttributes[loop], mAttributes[loop + 1] );
+		}
+
+		for ( LiteElement child = mFirstChild; child != null; child = child.mNextSibling ) {
+			element.appendChild( child.toDom( document ) );
+		}
+
+		return element;
+	}
+
+	/**
+	 * Serializes this element (and its children) as XML, in the same format as
+	 * <code>XmlUtils.nodeToString( node, false )</code>.
+	 */
+
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		toString( builder );
+
+		return builder.toString();
+	}
+
+	//
+	// Private statics
+	//
+
+	private static boolean isNamespaceDeclaration( String attributeName ) {
+
+		return ( "xmlns".equals( attributeName ) || attributeName.startsWith( "xmlns:" ) );
+	}
+
+	private static void appendEscaped( StringBuilder builder, String in ) {
+
+		for ( int loop = 0, length = in.length(); loop < length; loop++ ) {
+			char c = in.charAt( loop );
+
+			switch ( c ) {
+				case '&':
+					builder.append( "&amp;" );
+					break;
+
+				case '<':
+					builder.append( "&lt;" );
+					break;
+
+				case '>':
+					builder.append( "&gt;" );
+					break;
+
+				case '"':
+					builder.append( "&quot;" );
+					break;
+
+				case '\'':
+					builder.append( "&apos;" );
+					break;
+
+				default:
+					builder.append( c );
+			}
+		}
+	}
+
+	//
+	// Private methods
+	//
+
+	private int indexOfAttribute( String name ) {
+
+		for ( int loop = 0; loop < mAttributesLength; loop += 2 ) {
+			if ( mAttributes[loop].equals( name ) ) {
+				return loop;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Appends an attribute without checking for an existing one of the same name.
+	 */
+
+	private void appendAttribute( String name, String value ) {
+
+		if ( mAttributesLength == mAttributes.length ) {
+			String[] attributes = new String[Math.max( 8, mAttributesLength * 2 )];
+			System.arraycopy( mAttributes, 0, attributes, 0, mAttributesLength );
+			mAttributes = attributes;
+		}
+
+		mAttributes[mAttributesLength++] = name;
+		mAttributes[mAttributesLength++] = value;
+	}
+
+	private String getInheritedNamespace() {
+
+		if ( mNamespace != null || mParent == null ) {
+			return mNamespace;
+		}
+
+		return mParent.getInheritedNamespace();
+	}
+
+	private void toString( StringBuilder builder ) {
+
+		// Open tag
+
+		builder.append( "<" );
+		appendEscaped( builder, mName );
+
+		// Changing namespace
+
+		if ( mNamespace != null && ( mParent == null || !mNamespace.equals( mParent.getInheritedNamespace() ) ) ) {
+			builder.append( " xmlns=\"" );
+			builder.append( mNamespace );
+			builder.append( "\"" );
+		}
+
+		// Attributes (always put name first for easy unit tests)
+
+		int nameIndex = indexOfAttribute( "name" );
+
+		if ( nameIndex != -1 ) {
+			builder.append( " name=\"" );
+			appendEscaped( builder, mAttributes[nameIndex + 1] );
+			builder.append( "\"" );
+		}
+
+		for ( int loop = 0; loop < mAttributesLength; loop += 2 ) {
+			if ( loop == nameIndex ) {
+				continue;
+			}
+
+			builder.append( " " );
+			appendEscaped( builder, mAttributes[loop] );
+			builder.append( "=\"" );
+			appendEscaped( builder, mAttributes[loop + 1] );
+			builder.append( "\"" );
+		}
+
+		// Children (if any)
+
+		if ( mFirstChild == null ) {
+			builder.append( "/>" );
+			return;
+		}
+
+		builder.append( ">" );
+
+		for ( LiteElement child = mFirstChild; child != null; child = child.mNextSibling ) {
+			child.toString( builder );
+		}
+
+		// Close tag
+
+		builder.append( "</" );
+		appendEscaped( builder, mName );
+		builder.append( ">" );
+	}
+}
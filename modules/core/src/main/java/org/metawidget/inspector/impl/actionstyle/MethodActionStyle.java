@@ -131,7 +131,17 @@ public abstract class MethodActionStyle
 
 		public <T extends Annotation> T getAnnotation( Class<T> annotation ) {
 
-			return ClassUtils.getOriginalAnnotation( mMethod, annotation );
+			return getIndexedAnnotation( annotation );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected void indexAnnotations( Map<Class<? extends Annotation>, Annotation> index ) {
+
+			addToIndex( index, ClassUtils.getOriginalAnnotations( mMethod ) );
 		}
 	}
 }
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -65,11 +66,13 @@ public class JavaBeanPropertyStyle
 	// Private members
 	//
 
-	private boolean			mSupportPublicFields;
+	private boolean						mSupportPublicFields;
 
-	private MessageFormat	mPrivateFieldConvention;
+	private MessageFormat				mPrivateFieldConvention;
 
-	private ClassLoader		mAdditionalClassLoader;
+	private ClassLoader					mAdditionalClassLoader;
+
+	private PropertyAccessorFactory		mPropertyAccessorFactory;
 
 	//
 	// Constructor
@@ -87,6 +90,7 @@ public class JavaBeanPropertyStyle
 		mSupportPublicFields = config.isSupportPublicFields();
 		mPrivateFieldConvention = config.getPrivateFieldConvention();
 		mAdditionalClassLoader = config.getAdditionalClassLoader();
+		mPropertyAccessorFactory = config.getPropertyAccessorFactory();
 	}
 
 	//
@@ -248,7 +252,7 @@ public class JavaBeanPropertyStyle
 				continue;
 			}
 
-			properties.put( propertyName, new JavaBeanProperty( propertyName, type.getName(), method, null, getPrivateField( clazz, propertyName ) ) );
+			properties.put( propertyName, new JavaBeanProperty( propertyName, type.getName(), method, null, getPrivateField( clazz, propertyName ), mPropertyAccessorFactory ) );
 		}
 	}
 
@@ -342,7 +346,7 @@ public class JavaBeanPropertyStyle
 
 				// Beware covariant return types: always prefer the getter's type
 
-				properties.put( propertyName, new JavaBeanProperty( propertyName, existingJavaBeanProperty.getType(), existingJavaBeanProperty.getReadMethod(), method, getPrivateField( clazz, propertyName ) ) );
+				properties.put( propertyName, new JavaBeanProperty( propertyName, existingJavaBeanProperty.getType(), existingJavaBeanProperty.getReadMethod(), method, getPrivateField( clazz, propertyName ), mPropertyAccessorFactory ) );
 				continue;
 			}
 
@@ -352,7 +356,7 @@ public class JavaBeanPropertyStyle
 				continue;
 			}
 
-			properties.put( propertyName, new JavaBeanProperty( propertyName, type.getName(), null, method, getPrivateField( clazz, propertyName ) ) );
+			properties.put( propertyName, new JavaBeanProperty( propertyName, type.getName(), null, method, getPrivateField( clazz, propertyName ), mPropertyAccessorFactory ) );
 		}
 	}
 
@@ -500,7 +504,7 @@ public class JavaBeanPropertyStyle
 
 		public <T extends Annotation> T getAnnotation( Class<T> annotation ) {
 
-			return mField.getAnnotation( annotation );
+			return getIndexedAnnotation( annotation );
 		}
 
 		public String getGenericType() {
@@ -512,6 +516,16 @@ public class JavaBeanPropertyStyle
 
 			return mField;
 		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected void indexAnnotations( Map<Class<? extends Annotation>, Annotation> index ) {
+
+			addToIndex( index, Arrays.asList( mField.getAnnotations() ) );
+		}
 	}
 
 	/**
@@ -525,15 +539,31 @@ public class JavaBeanPropertyStyle
 	public static class JavaBeanProperty
 		extends BaseProperty {
 
+		//
+		// Private statics
+		//
+
+		private static final PropertyAccessorFactory	DEFAULT_PROPERTY_ACCESSOR_FACTORY	= new ReflectionPropertyAccessorFactory();
+
 		//
 		// Private methods
 		//
 
-		private Method	mReadMethod;
+		private Method									mReadMethod;
+
+		private Method									mWriteMethod;
 
-		private Method	mWriteMethod;
+		private Field									mPrivateField;
 
-		private Field	mPrivateField;
+		private PropertyAccessorFactory					mPropertyAccessorFactory;
+
+		/**
+		 * PropertyAccessor, created lazily on first read or write.
+		 * <p>
+		 * Creation is idempotent, so we don't lock: at worst two threads both create one.
+		 */
+
+		private volatile PropertyAccessor				mPropertyAccessor;
 
 		//
 		// Constructor
@@ -541,6 +571,17 @@ public class JavaBeanPropertyStyle
 
 		public JavaBeanProperty( String name, String type, Method readMethod, Method writeMethod, Field privateField ) {
 
+			this( name, type, readMethod, writeMethod, privateField, null );
+		}
+
+		/**
+		 * @param propertyAccessorFactory
+		 *            used to create a PropertyAccessor on first read or write. If null, uses
+		 *            <code>ReflectionPropertyAccessorFactory</code>
+		 */
+
+		public JavaBeanProperty( String name, String type, Method readMethod, Method writeMethod, Field privateField, PropertyAccessorFactory propertyAccessorFactory ) {
+
 			super( name, type );
 
 			mReadMethod = readMethod;
@@ -553,6 +594,12 @@ public class JavaBeanPropertyStyle
 			}
 
 			mPrivateField = privateField;
+
+			if ( propertyAccessorFactory == null ) {
+				mPropertyAccessorFactory = DEFAULT_PROPERTY_ACCESSOR_FACTORY;
+			} else {
+				mPropertyAccessorFactory = propertyAccessorFactory;
+			}
 		}
 
 		//
@@ -573,7 +620,7 @@ public class JavaBeanPropertyStyle
 		public Object read( Object obj ) {
 
 			try {
-				return mReadMethod.invoke( obj );
+				return getPropertyAccessor().read( obj );
 			} catch ( Exception e ) {
 				throw InspectorException.newException( e );
 			}
@@ -587,41 +634,24 @@ public class JavaBeanPropertyStyle
 		public void write( Object obj, Object value ) {
 
 			try {
-				mWriteMethod.invoke( obj, value );
+				getPropertyAccessor().write( obj, value );
 			} catch ( Exception e ) {
 				throw InspectorException.newException( e );
 			}
 		}
 
-		public <T extends Annotation> T getAnnotation( Class<T> annotationClass ) {
-
-			if ( mReadMethod != null ) {
-				T annotation = ClassUtils.getOriginalAnnotation( mReadMethod, annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
-			}
-
-			if ( mWriteMethod != null ) {
-				T annotation = ClassUtils.getOriginalAnnotation( mWriteMethod, annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
-			}
-
-			if ( mPrivateField != null ) {
-				T annotation = mPrivateField.getAnnotation( annotationClass );
-
-				if ( annotation != null ) {
-					return annotation;
-				}
+		/**
+		 * Gets the given annotation from the getter, the setter or the private field, in that order.
+		 * Getter and setter annotations are searched for as per
+		 * <code>ClassUtils.getOriginalAnnotation</code>.
+		 * <p>
+		 * The hierarchy traversal this involves is done once per JavaBeanProperty, not once per
+		 * call.
+		 */
 
-				return null;
-			}
+		public <T extends Annotation> T getAnnotation( Class<T> annotationClass ) {
 
-			return null;
+			return getIndexedAnnotation( annotationClass );
 		}
 
 		public String getGenericType() {
@@ -646,5 +676,41 @@ public class JavaBeanPropertyStyle
 
 			return mWriteMethod;
 		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected void indexAnnotations( Map<Class<? extends Annotation>, Annotation> index ) {
+
+			if ( mReadMethod != null ) {
+				addToIndex( index, ClassUtils.getOriginalAnnotations( mReadMethod ) );
+			}
+
+			if ( mWriteMethod != null ) {
+				addToIndex( index, ClassUtils.getOriginalAnnotations( mWriteMethod ) );
+			}
+
+			if ( mPrivateField != null ) {
+				addToIndex( index, Arrays.asList( mPrivateField.getAnnotations() ) );
+			}
+		}
+
+		//
+		// Private methods
+		//
+
+		private PropertyAccessor getPropertyAccessor() {
+
+			PropertyAccessor propertyAccessor = mPropertyAccessor;
+
+			if ( propertyAccessor == null ) {
+				propertyAccessor = mPropertyAccessorFactory.newPropertyAccessor( mReadMethod, mWriteMethod );
+				mPropertyAccessor = propertyAccessor;
+			}
+
+			return propertyAccessor;
+		}
 	}
 }
@@ -34,19 +34,21 @@ public class JavaBeanPropertyStyleConfig
 	// Private statics
 	//
 
-	private static String[]	DEFAULT_EXCLUDE_NAME	= new String[] { "propertyChangeListeners", "vetoableChangeListeners" };
+	private static String[]				DEFAULT_EXCLUDE_NAME	= new String[] { "propertyChangeListeners", "vetoableChangeListeners" };
 
 	//
 	// Private members
 	//
 
-	private boolean			mNullExcludeName;
+	private boolean						mNullExcludeName;
 
-	private boolean			mSupportPublicFields;
+	private boolean						mSupportPublicFields;
 
-	private MessageFormat	mPrivateFieldConvention;
+	private MessageFormat				mPrivateFieldConvention;
 
-	private ClassLoader		mAdditionalClassLoader;
+	private ClassLoader					mAdditionalClassLoader;
+
+	private PropertyAccessorFactory		mPropertyAccessorFactory;
 
 	//
 	// Public methods
@@ -137,6 +139,24 @@ public class JavaBeanPropertyStyleConfig
 		return this;
 	}
 
+	/**
+	 * Sets the factory used to create the <code>PropertyAccessors</code> that read and write
+	 * JavaBean properties. Defaults to <code>ReflectionPropertyAccessorFactory</code>.
+	 * <p>
+	 * Reading and writing properties is on the critical path of every inspection (when traversing
+	 * and inspecting object graphs) and every save (when binding). For large forms it may be worth
+	 * swapping in a faster strategy, such as <code>JavassistPropertyAccessorFactory</code>.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public JavaBeanPropertyStyleConfig setPropertyAccessorFactory( PropertyAccessorFactory propertyAccessorFactory ) {
+
+		mPropertyAccessorFactory = propertyAccessorFactory;
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -164,6 +184,10 @@ public class JavaBeanPropertyStyleConfig
 			return false;
 		}
 
+		if ( !ObjectUtils.nullSafeEquals( mPropertyAccessorFactory, ( (JavaBeanPropertyStyleConfig) that ).mPropertyAccessorFactory ) ) {
+			return false;
+		}
+
 		return super.equals( that );
 	}
 
@@ -175,6 +199,7 @@ public class JavaBeanPropertyStyleConfig
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mPrivateFieldConvention );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mSupportPublicFields );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mAdditionalClassLoader );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mPropertyAccessorFactory );
 
 		return hashCode;
 	}
@@ -209,4 +234,9 @@ public class JavaBeanPropertyStyleConfig
 
 		return mAdditionalClassLoader;
 	}
+
+	protected PropertyAccessorFactory getPropertyAccessorFactory() {
+
+		return mPropertyAccessorFactory;
+	}
 }
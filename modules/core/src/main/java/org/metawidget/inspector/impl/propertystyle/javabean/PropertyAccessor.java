@@ -0,0 +1,56 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl.propertystyle.javabean;
+
+/**
+ * Reads and writes a single JavaBean property.
+ * <p>
+ * <code>JavaBeanProperty</code> delegates to a <code>PropertyAccessor</code>, rather than calling
+ * <code>Method.invoke</code> itself, so that faster strategies (such as generated bytecode) can be
+ * plugged in using <code>JavaBeanPropertyStyleConfig.setPropertyAccessorFactory</code>.
+ * <p>
+ * PropertyAccessors must be immutable (or at least appear that way to clients of their methods).
+ *
+ * @author Richard Kennard
+ */
+
+public interface PropertyAccessor {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * Reads the property from the given Object.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the property has no getter
+	 */
+
+	Object read( Object obj )
+		throws Exception;
+
+	/**
+	 * Writes the given value to the property of the given Object.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the property has no setter
+	 */
+
+	void write( Object obj, Object value )
+		throws Exception;
+}
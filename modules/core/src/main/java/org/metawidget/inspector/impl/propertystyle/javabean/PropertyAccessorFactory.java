@@ -0,0 +1,52 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl.propertystyle.javabean;
+
+import java.lang.reflect.Method;
+
+import org.metawidget.iface.Immutable;
+
+/**
+ * Creates <code>PropertyAccessors</code> for <code>JavaBeanProperty</code>.
+ * <p>
+ * <code>JavaBeanProperty</code> only asks for its <code>PropertyAccessor</code> the first time it
+ * is read or written, and <code>JavaBeanProperty</code> is itself cached (per class) by
+ * <code>JavaBeanPropertyStyle</code>. So implementations may do relatively expensive work here,
+ * such as generating bytecode.
+ * <p>
+ * PropertyAccessorFactories must be immutable (or at least appear that way to clients of their
+ * methods), as they are shared by all <code>JavaBeanPropertyStyles</code> with the same config.
+ *
+ * @author Richard Kennard
+ */
+
+public interface PropertyAccessorFactory
+	extends Immutable {
+
+	//
+	// Methods
+	//
+
+	/**
+	 * @param readMethod
+	 *            the property's getter. May be null
+	 * @param writeMethod
+	 *            the property's setter. May be null
+	 */
+
+	PropertyAccessor newPropertyAccessor( Method readMethod, Method writeMethod );
+}
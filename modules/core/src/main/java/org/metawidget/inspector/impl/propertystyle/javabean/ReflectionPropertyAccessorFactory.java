@@ -0,0 +1,91 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl.propertystyle.javabean;
+
+import java.lang.reflect.Method;
+
+/**
+ * PropertyAccessorFactory that uses <code>java.lang.reflect.Method.invoke</code>.
+ * <p>
+ * This is the default for <code>JavaBeanPropertyStyle</code>, as it is available on all target
+ * platforms (including Android and GWT's server side) and has no setup cost.
+ *
+ * @author Richard Kennard
+ */
+
+public class ReflectionPropertyAccessorFactory
+	implements PropertyAccessorFactory {
+
+	//
+	// Public methods
+	//
+
+	public PropertyAccessor newPropertyAccessor( Method readMethod, Method writeMethod ) {
+
+		return new ReflectionPropertyAccessor( readMethod, writeMethod );
+	}
+
+	//
+	// Inner class
+	//
+
+	private static class ReflectionPropertyAccessor
+		implements PropertyAccessor {
+
+		//
+		// Private members
+		//
+
+		private final Method	mReadMethod;
+
+		private final Method	mWriteMethod;
+
+		//
+		// Constructor
+		//
+
+		public ReflectionPropertyAccessor( Method readMethod, Method writeMethod ) {
+
+			mReadMethod = readMethod;
+			mWriteMethod = writeMethod;
+		}
+
+		//
+		// Public methods
+		//
+
+		public Object read( Object obj )
+			throws Exception {
+
+			if ( mReadMethod == null ) {
+				throw new UnsupportedOperationException( "No getter" );
+			}
+
+			return mReadMethod.invoke( obj );
+		}
+
+		public void write( Object obj, Object value )
+			throws Exception {
+
+			if ( mWriteMethod == null ) {
+				throw new UnsupportedOperationException( "No setter" );
+			}
+
+			mWriteMethod.invoke( obj, value );
+		}
+	}
+}
@@ -60,10 +60,35 @@ public class PropertyTypeInspector
 		super( config );
 	}
 
+	//
+	// Public methods
+	//
+
+	/**
+	 * PropertyTypeInspector reads the value of each property (to detect its actual class), so its
+	 * inspection results can only be cached when there is no object to read from.
+	 */
+
+	@Override
+	public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+		if ( toInspect != null ) {
+			return false;
+		}
+
+		return super.isInspectionResultCacheable( toInspect, type, names );
+	}
+
 	//
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected boolean shouldInspectPropertyAsEntity( Property property ) {
 
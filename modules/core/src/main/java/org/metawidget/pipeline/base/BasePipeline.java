@@ -332,19 +332,7 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 
 	public E inspectAsDom( Object toInspect, String type, String... names ) {
 
-		configureOnce();
-
-		if ( mInspector == null ) {
-			throw new NullPointerException( "No inspector configured" );
-		}
-
-		Object inspectionResult;
-
-		if ( mInspector instanceof DomInspector<?> ) {
-			inspectionResult = ( (DomInspector<?>) mInspector ).inspectAsDom( toInspect, type, names );
-		} else {
-			inspectionResult = mInspector.inspect( toInspect, type, names );
-		}
+		Object inspectionResult = inspectWithoutProcessing( toInspect, type, names );
 
 		if ( inspectionResult == null ) {
 			return null;
@@ -600,6 +588,32 @@ public abstract class BasePipeline<W, C extends W, E, M extends C> {
 		}
 	}
 
+	/**
+	 * Inspect the given Object according to the given path, but do not run the
+	 * <code>InspectionResultProcessors</code>.
+	 * <p>
+	 * Together with <code>processInspectionResult</code>, this allows subclasses to run the
+	 * Inspector on a different thread to the <code>InspectionResultProcessors</code>.
+	 *
+	 * @return a String of XML, or an E, depending on whether the Inspector was a DomInspector. May
+	 *         be null
+	 */
+
+	protected Object inspectWithoutProcessing( Object toInspect, String type, String... names ) {
+
+		configureOnce();
+
+		if ( mInspector == null ) {
+			throw new NullPointerException( "No inspector configured" );
+		}
+
+		if ( mInspector instanceof DomInspector<?> ) {
+			return ( (DomInspector<?>) mInspector ).inspectAsDom( toInspect, type, names );
+		}
+
+		return mInspector.inspect( toInspect, type, names );
+	}
+
 	/**
 	 * @param inspectionResult
 	 *            may be a String of XML, or an E, depending on whether the Inspector was a
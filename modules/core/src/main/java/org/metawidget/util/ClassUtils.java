@@ -17,11 +17,17 @@
 package org.metawidget.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.security.AccessControlException;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 import org.metawidget.util.simple.StringUtils;
 
@@ -110,13 +116,15 @@ public final class ClassUtils {
 	/**
 	 * Get the value of the JavaBean-convention property without using <code>java.beans</code>, as
 	 * that package is not available on all target platforms.
+	 * <p>
+	 * The getter is looked up once per class and property, and cached.
 	 */
 
 	@SuppressWarnings( "unchecked" )
 	public static <T> T getProperty( Object base, String property ) {
 
 		try {
-			Method method = getReadMethod( base.getClass(), property );
+			Method method = getCachedReadMethod( base.getClass(), property );
 			return (T) method.invoke( base );
 		} catch ( Exception e ) {
 			if ( base == null ) {
@@ -130,18 +138,27 @@ public final class ClassUtils {
 	/**
 	 * Set the value of the JavaBean-convention property without using <code>java.beans</code>, as
 	 * that package is not available on all target platforms.
+	 * <p>
+	 * The setter is looked up once per class and property, and cached.
 	 */
 
 	public static void setProperty( Object base, String property, Object value ) {
 
 		try {
 			Class<?> baseClass = base.getClass();
+			ConcurrentMap<String, Method> writeMethods = getPropertyMethods( baseClass ).getWriteMethods();
+			Method method = writeMethods.get( property );
+
+			if ( method == null ) {
+
+				// Determine the type based on the 'read' method, not the value.getClass(), because
+				// that is unreliable for 'Integer' versus 'int'
 
-			// Determine the type based on the 'read' method, not the value.getClass(), because
-			// that is unreliable for 'Integer' versus 'int'
+				method = getCachedReadMethod( baseClass, property );
+				method = getWriteMethod( baseClass, property, method.getReturnType() );
+				writeMethods.put( property, method );
+			}
 
-			Method method = getReadMethod( baseClass, property );
-			method = getWriteMethod( baseClass, property, method.getReturnType() );
 			method.invoke( base, value );
 		} catch ( Exception e ) {
 			throw new RuntimeException( "Unable to set '" + property + "' of '" + base + "' to '" + value + "'", e );
@@ -358,18 +375,6 @@ public final class ClassUtils {
 		throw new RuntimeException( clazz + " is not a number type" );
 	}
 
-	/**
-	 * When dealing with multiple isolated ClassLoaders, sometimes the object being inspected may
-	 * reference a class that is not available to any of our own ClassLoaders. Therefore
-	 * <code>Class.forName</code> will always fail. To cope with this, we
-	 * record 'alien' ClassLoaders as and when we encounter them.
-	 * <p>
-	 * This is a static Set, rather than a ThreadLocal, because we couldn't find a good place to
-	 * reset the ThreadLocal.
-	 */
-
-	/* package private */static final Set<ClassLoader>	ALIEN_CLASSLOADERS	= CollectionUtils.newHashSet();
-
 	/**
 	 * When dealing with multiple isolated ClassLoaders, sometimes the object being inspected may
 	 * reference a class that is not available to any of our own ClassLoaders. Therefore
@@ -393,8 +398,45 @@ public final class ClassUtils {
 			return;
 		}
 
-		synchronized ( ALIEN_CLASSLOADERS ) {
-			ALIEN_CLASSLOADERS.add( classLoader );
+		// (this is called on every inspection, so check without locking first)
+
+		if ( isAlienClassLoader( classLoader ) ) {
+			return;
+		}
+
+		synchronized ( ALIEN_CLASSLOADERS_LOCK ) {
+
+			if ( isAlienClassLoader( classLoader ) ) {
+				return;
+			}
+
+			// Copy-on-write, dropping any ClassLoaders that have since been garbage collected
+
+			WeakReference<ClassLoader>[] alienClassLoaders = ALIEN_CLASSLOADERS;
+			@SuppressWarnings( "unchecked" )
+			WeakReference<ClassLoader>[] newAlienClassLoaders = new WeakReference[alienClassLoaders.length + 1];
+			int length = 0;
+
+			for ( WeakReference<ClassLoader> alienClassLoader : alienClassLoaders ) {
+				if ( alienClassLoader.get() != null ) {
+					newAlienClassLoaders[length++] = alienClassLoader;
+				}
+			}
+
+			newAlienClassLoaders[length++] = new WeakReference<ClassLoader>( classLoader );
+
+			if ( length < newAlienClassLoaders.length ) {
+				@SuppressWarnings( "unchecked" )
+				WeakReference<ClassLoader>[] trimmedAlienClassLoaders = new WeakReference[length];
+				System.arraycopy( newAlienClassLoaders, 0, trimmedAlienClassLoaders, 0, length );
+				newAlienClassLoaders = trimmedAlienClassLoaders;
+			}
+
+			// A new alien ClassLoader may resolve classes that previously could not be (or were
+			// resolved differently), so invalidate the resolution cache
+
+			ALIEN_CLASSLOADERS_GENERATION++;
+			ALIEN_CLASSLOADERS = newAlienClassLoaders;
 		}
 	}
 
@@ -425,7 +467,17 @@ public final class ClassUtils {
 	 * fails, it then tries the Thread's current ClassLoader (this works best for EJB/WAR splits
 	 * where, say, metawidget-core and metawidget-annotations are located in the EJB/lib and the
 	 * other modules are located in the WAR/lib). If that fails, it tries ClassUtils' ClassLoader.
-	 * If that fails, it tries our alien ClassLoader.
+	 * If that fails, it tries our alien ClassLoaders.
+	 * <p>
+	 * Results, including failures, are cached against the given ClassLoader and the Thread's
+	 * current ClassLoader. This matters because many names passed to this method are symbolic (eg.
+	 * Struts form beans, jBPM page names), and each failure would otherwise cost several
+	 * <code>ClassNotFoundExceptions</code>. The cache only holds weak references to ClassLoaders and
+	 * Classes, and is invalidated whenever a new alien ClassLoader is registered.
+	 * <p>
+	 * Note: a cached failure is not revisited if a ClassLoader later defines a class of that name.
+	 * ClassLoaders that define classes on the fly should be registered as alien ClassLoaders before
+	 * their classes are looked up by name.
 	 *
 	 * @param classLoader
 	 *            the specific ClassLoader to use to try and load this class. In general clients
@@ -437,67 +489,41 @@ public final class ClassUtils {
 
 	public static Class<?> niceForName( String className, ClassLoader classLoader ) {
 
-		String classNameToUse = className;
-
-		// Support parameterized type
-
-		int indexOf = classNameToUse.indexOf( '<' );
-
-		if ( indexOf != -1 ) {
-			classNameToUse = classNameToUse.substring( 0, indexOf );
-		}
-
-		// Try given ClassLoader (may be none)
-
-		try {
-			if ( classLoader != null ) {
-				return Class.forName( classNameToUse, false, classLoader );
-			}
-		} catch ( ClassNotFoundException e ) {
+		ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
+		int generation = ALIEN_CLASSLOADERS_GENERATION;
 
-			// Fall through and try other ClassLoaders
-		}
+		// Cached?
 
-		// Try given Thread ClassLoader (may be none, such as on Android)
+		ResolvedClass[] resolvedClasses = RESOLVED_CLASSES.get( className );
 
-		ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
+		if ( resolvedClasses != null ) {
+			for ( ResolvedClass resolvedClass : resolvedClasses ) {
 
-		try {
-			if ( threadClassLoader != null && !threadClassLoader.equals( classLoader ) ) {
-				return Class.forName( classNameToUse, false, threadClassLoader );
-			}
-		} catch ( ClassNotFoundException e ) {
+				if ( !resolvedClass.isResolvedBy( classLoader, threadClassLoader, generation ) ) {
+					continue;
+				}
 
-			// Fall through and try other ClassLoaders
-		}
+				if ( !resolvedClass.isFound() ) {
+					return null;
+				}
 
-		// Try our own ClassLoader (if different to threadClassLoader)
+				Class<?> clazz = resolvedClass.getResolvedClass();
 
-		ClassLoader thisClassLoader = ClassUtils.class.getClassLoader();
+				// (may have been garbage collected)
 
-		try {
-			if ( !thisClassLoader.equals( threadClassLoader ) && !thisClassLoader.equals( classLoader ) ) {
-				return Class.forName( classNameToUse, false, thisClassLoader );
+				if ( clazz != null ) {
+					return clazz;
+				}
 			}
-		} catch ( ClassNotFoundException e ) {
-
-			// Fall through and try other ClassLoaders
 		}
 
-		// Try our alien ClassLoaders
+		// Resolve and cache
 
-		synchronized ( ALIEN_CLASSLOADERS ) {
-			for ( ClassLoader alienClassLoader : ALIEN_CLASSLOADERS ) {
-				try {
-					return Class.forName( classNameToUse, false, alienClassLoader );
-				} catch ( ClassNotFoundException e ) {
+		Class<?> clazz = resolveClass( className, classLoader, threadClassLoader );
 
-					// Fall through and try other ClassLoaders
-				}
-			}
-		}
+		cacheResolvedClass( className, new ResolvedClass( classLoader, threadClassLoader, generation, clazz ) );
 
-		return getPrimitive( classNameToUse );
+		return clazz;
 	}
 
 	public static boolean isPrimitive( String className ) {
@@ -567,33 +593,9 @@ public final class ClassUtils {
 
 	public static <T extends Annotation> T getOriginalAnnotation( Method method, Class<T> annotationClass ) {
 
-		Method methodToUse = method;
-		String name = methodToUse.getName();
-		Class<?>[] parameterTypes = methodToUse.getParameterTypes();
-
-		// If no annotations are defined at all, traverse up the hierarchy
-
-		while ( methodToUse.getAnnotations().length == 0 ) {
-
-			Class<?> superclass = methodToUse.getDeclaringClass().getSuperclass();
-			methodToUse = null;
-
-			while ( superclass != null ) {
-
-				try {
-					methodToUse = superclass.getDeclaredMethod( name, parameterTypes );
-					break;
-				} catch ( Exception e ) {
-					// Not in this superclass, but may be in super-superclass
-				}
-
-				superclass = superclass.getSuperclass();
-			}
-
-			if ( methodToUse == null ) {
-				break;
-			}
-		}
+		String name = method.getName();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		Method methodToUse = getAnnotatedOriginalMethod( method );
 
 		// If this method has the annotation, return it
 
@@ -626,6 +628,41 @@ public final class ClassUtils {
 		return null;
 	}
 
+	/**
+	 * Gets all the annotations <code>getOriginalAnnotation</code> would consider for the given
+	 * method, in the order it would consider them. So for any given annotationClass, the first
+	 * match in the returned List is the one <code>getOriginalAnnotation</code> would return.
+	 * <p>
+	 * Useful for callers that want to do the (relatively expensive) hierarchy traversal just once,
+	 * rather than once per annotationClass.
+	 */
+
+	public static List<Annotation> getOriginalAnnotations( Method method ) {
+
+		List<Annotation> annotations = CollectionUtils.newArrayList();
+		Method methodToUse = getAnnotatedOriginalMethod( method );
+
+		if ( methodToUse != null ) {
+			annotations.addAll( Arrays.asList( methodToUse.getAnnotations() ) );
+		}
+
+		// Try interfaces too, in case annotations are defined there
+
+		String name = method.getName();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+
+		for ( Class<?> iface : method.getDeclaringClass().getInterfaces() ) {
+
+			try {
+				annotations.addAll( Arrays.asList( iface.getDeclaredMethod( name, parameterTypes ).getAnnotations() ) );
+			} catch ( Exception e ) {
+				// Not in this interface
+			}
+		}
+
+		return annotations;
+	}
+
 	/**
 	 * Gets the given genericReturnType defined on the given method. If no such genericReturnType is
 	 * defined but the method is overridden, searches up the class heirarchy to original versions of
@@ -773,6 +810,234 @@ public final class ClassUtils {
 	// Private statics
 	//
 
+	/**
+	 * 'Alien' ClassLoaders (see <code>registerAlienClassLoader</code>).
+	 * <p>
+	 * This is a static array, rather than a ThreadLocal, because we couldn't find a good place to
+	 * reset the ThreadLocal. It is replaced (copy-on-write) rather than modified, so that
+	 * <code>niceForName</code> can iterate over it without locking. It only holds weak references,
+	 * so that registering a ClassLoader never prevents it being garbage collected.
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	private static volatile WeakReference<ClassLoader>[]					ALIEN_CLASSLOADERS					= new WeakReference[0];
+
+	private static volatile int												ALIEN_CLASSLOADERS_GENERATION;
+
+	private static final Object												ALIEN_CLASSLOADERS_LOCK				= new Object();
+
+	/**
+	 * Cache of <code>niceForName</code> resolutions (including failures), keyed by class name.
+	 * <p>
+	 * Each name maps to a small array of resolutions, one per combination of ClassLoaders it has
+	 * been resolved against. The array is replaced (copy-on-write) rather than modified.
+	 */
+
+	private static final ConcurrentMap<String, ResolvedClass[]>				RESOLVED_CLASSES					= CollectionUtils.newConcurrentHashMap();
+
+	/**
+	 * Upper bound on the number of names in <code>RESOLVED_CLASSES</code>, in case an application
+	 * calls <code>niceForName</code> with an unbounded number of (eg. generated) names.
+	 */
+
+	private static final int												MAXIMUM_RESOLVED_CLASSES			= 10000;
+
+	/**
+	 * Upper bound on the number of resolutions cached per name.
+	 */
+
+	private static final int												MAXIMUM_RESOLVED_CLASSES_PER_NAME	= 8;
+
+	/**
+	 * Cache of <code>getProperty</code> getters and <code>setProperty</code> setters, keyed by
+	 * class name and ClassLoader, then property name.
+	 * <p>
+	 * ClassLoaders are weakly referenced, and their methods only softly referenced (because a
+	 * <code>Method</code> refers back to its Class, which would otherwise stop the ClassLoader ever
+	 * being garbage collected).
+	 */
+
+	private static final ConcurrentMap<ClassKey, PropertyMethodsReference>	PROPERTY_METHODS					= CollectionUtils.newConcurrentHashMap();
+
+	private static final ReferenceQueue<Object>								PROPERTY_METHODS_REFERENCE_QUEUE	= new ReferenceQueue<Object>();
+
+	private static Method getCachedReadMethod( Class<?> clazz, String property ) {
+
+		ConcurrentMap<String, Method> readMethods = getPropertyMethods( clazz ).getReadMethods();
+		Method method = readMethods.get( property );
+
+		if ( method == null ) {
+			method = getReadMethod( clazz, property );
+			readMethods.put( property, method );
+		}
+
+		return method;
+	}
+
+	private static PropertyMethods getPropertyMethods( Class<?> clazz ) {
+
+		ClassKey key = new ClassKey( clazz.getName(), clazz.getClassLoader() );
+		PropertyMethodsReference reference = PROPERTY_METHODS.get( key );
+
+		if ( reference != null ) {
+			PropertyMethods methods = reference.get();
+
+			if ( methods != null ) {
+				return methods;
+			}
+		}
+
+		purgePropertyMethods();
+
+		// (concurrent callers may occasionally replace each other's maps. This is harmless)
+
+		PropertyMethods methods = new PropertyMethods();
+		ClassKey storedKey = new ClassKey( clazz.getName(), clazz.getClassLoader(), PROPERTY_METHODS_REFERENCE_QUEUE );
+		PROPERTY_METHODS.put( storedKey, new PropertyMethodsReference( storedKey, methods, PROPERTY_METHODS_REFERENCE_QUEUE ) );
+
+		return methods;
+	}
+
+	/**
+	 * Removes cache entries whose ClassLoader, or whose methods, have been garbage collected.
+	 */
+
+	private static void purgePropertyMethods() {
+
+		for ( Reference<?> reference = PROPERTY_METHODS_REFERENCE_QUEUE.poll(); reference != null; reference = PROPERTY_METHODS_REFERENCE_QUEUE.poll() ) {
+
+			if ( reference instanceof PropertyMethodsReference ) {
+				PROPERTY_METHODS.remove( ( (PropertyMethodsReference) reference ).getKey(), reference );
+			} else {
+				PROPERTY_METHODS.remove( ( (ClassLoaderReference) reference ).getKey() );
+			}
+		}
+	}
+
+	private static boolean isAlienClassLoader( ClassLoader classLoader ) {
+
+		for ( WeakReference<ClassLoader> alienClassLoader : ALIEN_CLASSLOADERS ) {
+			if ( classLoader.equals( alienClassLoader.get() ) ) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static Class<?> resolveClass( String className, ClassLoader classLoader, ClassLoader threadClassLoader ) {
+
+		String classNameToUse = className;
+
+		// Support parameterized type
+
+		int indexOf = classNameToUse.indexOf( '<' );
+
+		if ( indexOf != -1 ) {
+			classNameToUse = classNameToUse.substring( 0, indexOf );
+		}
+
+		// Try given ClassLoader (may be none)
+
+		try {
+			if ( classLoader != null ) {
+				return Class.forName( classNameToUse, false, classLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try given Thread ClassLoader (may be none, such as on Android)
+
+		try {
+			if ( threadClassLoader != null && !threadClassLoader.equals( classLoader ) ) {
+				return Class.forName( classNameToUse, false, threadClassLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try our own ClassLoader (if different to threadClassLoader)
+
+		ClassLoader thisClassLoader = ClassUtils.class.getClassLoader();
+
+		try {
+			if ( !thisClassLoader.equals( threadClassLoader ) && !thisClassLoader.equals( classLoader ) ) {
+				return Class.forName( classNameToUse, false, thisClassLoader );
+			}
+		} catch ( ClassNotFoundException e ) {
+
+			// Fall through and try other ClassLoaders
+		}
+
+		// Try our alien ClassLoaders
+
+		for ( WeakReference<ClassLoader> alienClassLoaderReference : ALIEN_CLASSLOADERS ) {
+
+			ClassLoader alienClassLoader = alienClassLoaderReference.get();
+
+			if ( alienClassLoader == null ) {
+				continue;
+			}
+
+			try {
+				return Class.forName( classNameToUse, false, alienClassLoader );
+			} catch ( ClassNotFoundException e ) {
+
+				// Fall through and try other ClassLoaders
+			}
+		}
+
+		return getPrimitive( classNameToUse );
+	}
+
+	/**
+	 * Adds the given resolution to the cache, replacing any previous resolution against the same
+	 * ClassLoaders and dropping any that are stale.
+	 * <p>
+	 * Concurrent updates to the same name may occasionally lose a resolution. This is harmless: it
+	 * will simply be resolved (and cached) again.
+	 */
+
+	private static void cacheResolvedClass( String className, ResolvedClass resolvedClass ) {
+
+		ResolvedClass[] existingResolvedClasses = RESOLVED_CLASSES.get( className );
+		ResolvedClass[] resolvedClasses;
+
+		if ( existingResolvedClasses == null ) {
+
+			if ( RESOLVED_CLASSES.size() >= MAXIMUM_RESOLVED_CLASSES ) {
+				RESOLVED_CLASSES.clear();
+			}
+
+			resolvedClasses = new ResolvedClass[] { resolvedClass };
+		} else {
+			ResolvedClass[] newResolvedClasses = new ResolvedClass[Math.min( existingResolvedClasses.length + 1, MAXIMUM_RESOLVED_CLASSES_PER_NAME )];
+			newResolvedClasses[0] = resolvedClass;
+			int length = 1;
+
+			for ( ResolvedClass existingResolvedClass : existingResolvedClasses ) {
+
+				if ( length == newResolvedClasses.length ) {
+					break;
+				}
+
+				if ( existingResolvedClass.isStale( resolvedClass.getGeneration() ) || existingResolvedClass.isResolvedBySame( resolvedClass ) ) {
+					continue;
+				}
+
+				newResolvedClasses[length++] = existingResolvedClass;
+			}
+
+			resolvedClasses = new ResolvedClass[length];
+			System.arraycopy( newResolvedClasses, 0, resolvedClasses, 0, length );
+		}
+
+		RESOLVED_CLASSES.put( className, resolvedClasses );
+	}
+
 	private static Class<?> getPrimitive( String className ) {
 
 		if ( "byte".equals( className ) ) {
@@ -810,6 +1075,388 @@ public final class ClassUtils {
 		return null;
 	}
 
+	/**
+	 * Unregisters all alien ClassLoaders. For unit tests.
+	 */
+
+	/* package private */static void unregisterAllAlienClassLoaders() {
+
+		synchronized ( ALIEN_CLASSLOADERS_LOCK ) {
+			ALIEN_CLASSLOADERS_GENERATION++;
+			@SuppressWarnings( "unchecked" )
+			WeakReference<ClassLoader>[] alienClassLoaders = new WeakReference[0];
+			ALIEN_CLASSLOADERS = alienClassLoaders;
+		}
+	}
+
+	/**
+	 * Gets the given method or, if it defines <em>no</em> annotations at all, the nearest original
+	 * version of it (up the superclass heirarchy) that does. Returns null if there is none.
+	 */
+
+	private static Method getAnnotatedOriginalMethod( Method method ) {
+
+		Method methodToUse = method;
+		String name = methodToUse.getName();
+		Class<?>[] parameterTypes = methodToUse.getParameterTypes();
+
+		// If no annotations are defined at all, traverse up the hierarchy
+
+		while ( methodToUse.getAnnotations().length == 0 ) {
+
+			Class<?> superclass = methodToUse.getDeclaringClass().getSuperclass();
+			methodToUse = null;
+
+			while ( superclass != null ) {
+
+				try {
+					methodToUse = superclass.getDeclaredMethod( name, parameterTypes );
+					break;
+				} catch ( Exception e ) {
+					// Not in this superclass, but may be in super-superclass
+				}
+
+				superclass = superclass.getSuperclass();
+			}
+
+			if ( methodToUse == null ) {
+				break;
+			}
+		}
+
+		return methodToUse;
+	}
+
+	//
+	// Inner classes
+	//
+
+	/**
+	 * The result of resolving a class name against a particular given ClassLoader and Thread
+	 * ClassLoader.
+	 * <p>
+	 * Holds only weak references, so as not to prevent ClassLoaders (and their Classes) being
+	 * garbage collected.
+	 */
+
+	private static class ResolvedClass {
+
+		//
+		// Private members
+		//
+
+		private final WeakReference<ClassLoader>	mClassLoader;
+
+		private final WeakReference<ClassLoader>	mThreadClassLoader;
+
+		private final int							mGeneration;
+
+		/**
+		 * The resolved class, or null if the class name could not be resolved.
+		 */
+
+		private final WeakReference<Class<?>>		mResolvedClass;
+
+		//
+		// Constructor
+		//
+
+		public ResolvedClass( ClassLoader classLoader, ClassLoader threadClassLoader, int generation, Class<?> resolvedClass ) {
+
+			mClassLoader = newWeakReference( classLoader );
+			mThreadClassLoader = newWeakReference( threadClassLoader );
+			mGeneration = generation;
+
+			if ( resolvedClass == null ) {
+				mResolvedClass = null;
+			} else {
+				mResolvedClass = new WeakReference<Class<?>>( resolvedClass );
+			}
+		}
+
+		//
+		// Public methods
+		//
+
+		public int getGeneration() {
+
+			return mGeneration;
+		}
+
+		public boolean isResolvedBy( ClassLoader classLoader, ClassLoader threadClassLoader, int generation ) {
+
+			if ( mGeneration != generation ) {
+				return false;
+			}
+
+			return ( isReferenceTo( mClassLoader, classLoader ) && isReferenceTo( mThreadClassLoader, threadClassLoader ) );
+		}
+
+		public boolean isResolvedBySame( ResolvedClass that ) {
+
+			return isResolvedBy( that.mClassLoader == null ? null : that.mClassLoader.get(), that.mThreadClassLoader == null ? null : that.mThreadClassLoader.get(), that.mGeneration );
+		}
+
+		public boolean isFound() {
+
+			return ( mResolvedClass != null );
+		}
+
+		/**
+		 * @return the resolved class. Null if it was not found, or has since been garbage collected
+		 */
+
+		public Class<?> getResolvedClass() {
+
+			if ( mResolvedClass == null ) {
+				return null;
+			}
+
+			return mResolvedClass.get();
+		}
+
+		/**
+		 * @return true if this resolution is from a previous generation, or any of its
+		 *         ClassLoaders (or its Class) have since been garbage collected
+		 */
+
+		public boolean isStale( int generation ) {
+
+			if ( mGeneration != generation ) {
+				return true;
+			}
+
+			if ( mClassLoader != null && mClassLoader.get() == null ) {
+				return true;
+			}
+
+			if ( mThreadClassLoader != null && mThreadClassLoader.get() == null ) {
+				return true;
+			}
+
+			return ( mResolvedClass != null && mResolvedClass.get() == null );
+		}
+
+		//
+		// Private methods
+		//
+
+		private static WeakReference<ClassLoader> newWeakReference( ClassLoader classLoader ) {
+
+			if ( classLoader == null ) {
+				return null;
+			}
+
+			return new WeakReference<ClassLoader>( classLoader );
+		}
+
+		private static boolean isReferenceTo( WeakReference<ClassLoader> reference, ClassLoader classLoader ) {
+
+			if ( reference == null ) {
+				return ( classLoader == null );
+			}
+
+			return ( classLoader != null && reference.get() == classLoader );
+		}
+	}
+
+	/**
+	 * Cache key of class name and ClassLoader.
+	 * <p>
+	 * Keys used for lookups reference their ClassLoader strongly (they are short-lived). Keys
+	 * stored in the cache reference their ClassLoader weakly. Once a stored key's ClassLoader has
+	 * been garbage collected, the key is only equal to itself.
+	 */
+
+	private static class ClassKey {
+
+		//
+		// Private members
+		//
+
+		private final String				mClassName;
+
+		private final ClassLoader			mClassLoader;
+
+		private final ClassLoaderReference	mClassLoaderReference;
+
+		private final int					mHashCode;
+
+		//
+		// Constructors
+		//
+
+		public ClassKey( String className, ClassLoader classLoader ) {
+
+			mClassName = className;
+			mClassLoader = classLoader;
+			mClassLoaderReference = null;
+			mHashCode = 31 * className.hashCode() + System.identityHashCode( classLoader );
+		}
+
+		public ClassKey( String className, ClassLoader classLoader, ReferenceQueue<Object> referenceQueue ) {
+
+			mClassName = className;
+			mClassLoader = null;
+
+			if ( classLoader == null ) {
+				mClassLoaderReference = null;
+			} else {
+				mClassLoaderReference = new ClassLoaderReference( classLoader, this, referenceQueue );
+			}
+
+			mHashCode = 31 * className.hashCode() + System.identityHashCode( classLoader );
+		}
+
+		//
+		// Public methods
+		//
+
+		public ClassLoader getClassLoader() {
+
+			if ( mClassLoaderReference == null ) {
+				return mClassLoader;
+			}
+
+			return mClassLoaderReference.get();
+		}
+
+		@Override
+		public boolean equals( Object that ) {
+
+			if ( this == that ) {
+				return true;
+			}
+
+			if ( !( that instanceof ClassKey ) ) {
+				return false;
+			}
+
+			ClassKey thatKey = (ClassKey) that;
+
+			if ( mHashCode != thatKey.mHashCode || !mClassName.equals( thatKey.mClassName ) ) {
+				return false;
+			}
+
+			ClassLoader classLoader = getClassLoader();
+
+			if ( classLoader == null && mClassLoaderReference != null ) {
+				return false;
+			}
+
+			ClassLoader thatClassLoader = thatKey.getClassLoader();
+
+			if ( thatClassLoader == null && thatKey.mClassLoaderReference != null ) {
+				return false;
+			}
+
+			return ( classLoader == thatClassLoader );
+		}
+
+		@Override
+		public int hashCode() {
+
+			return mHashCode;
+		}
+	}
+
+	/**
+	 * Weak reference from a stored ClassKey to its ClassLoader.
+	 */
+
+	private static class ClassLoaderReference
+		extends WeakReference<ClassLoader> {
+
+		//
+		// Private members
+		//
+
+		private final ClassKey	mKey;
+
+		//
+		// Constructor
+		//
+
+		public ClassLoaderReference( ClassLoader classLoader, ClassKey key, ReferenceQueue<Object> referenceQueue ) {
+
+			super( classLoader, referenceQueue );
+
+			mKey = key;
+		}
+
+		//
+		// Public methods
+		//
+
+		public ClassKey getKey() {
+
+			return mKey;
+		}
+	}
+
+	/**
+	 * Cached getters and setters of a class, keyed by property name.
+	 */
+
+	private static class PropertyMethods {
+
+		//
+		// Private members
+		//
+
+		private final ConcurrentMap<String, Method>	mReadMethods	= CollectionUtils.newConcurrentHashMap();
+
+		private final ConcurrentMap<String, Method>	mWriteMethods	= CollectionUtils.newConcurrentHashMap();
+
+		//
+		// Public methods
+		//
+
+		public ConcurrentMap<String, Method> getReadMethods() {
+
+			return mReadMethods;
+		}
+
+		public ConcurrentMap<String, Method> getWriteMethods() {
+
+			return mWriteMethods;
+		}
+	}
+
+	/**
+	 * Soft reference from the cache to a class's PropertyMethods.
+	 */
+
+	private static class PropertyMethodsReference
+		extends SoftReference<PropertyMethods> {
+
+		//
+		// Private members
+		//
+
+		private final ClassKey	mKey;
+
+		//
+		// Constructor
+		//
+
+		public PropertyMethodsReference( ClassKey key, PropertyMethods methods, ReferenceQueue<Object> referenceQueue ) {
+
+			super( methods, referenceQueue );
+
+			mKey = key;
+		}
+
+		//
+		// Public methods
+		//
+
+		public ClassKey getKey() {
+
+			return mKey;
+		}
+	}
+
 	//
 	// Private constructor
 	//
@@ -30,6 +30,7 @@ import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -171,6 +172,15 @@ public final class CollectionUtils {
 		return map;
 	}
 
+	/**
+	 * Type-safe initializer.
+	 */
+
+	public static final <K, V> ConcurrentHashMap<K, V> newConcurrentHashMap() {
+
+		return new ConcurrentHashMap<K, V>();
+	}
+
 	/**
 	 * Type-safe initializer.
 	 * <p>
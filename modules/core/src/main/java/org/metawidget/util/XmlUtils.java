@@ -23,7 +23,10 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -382,33 +385,73 @@ public class XmlUtils {
 			return null;
 		}
 
+		DocumentBuilderPool pool = DOCUMENT_BUILDER_POOL;
+		DocumentBuilder documentBuilder = pool.borrow();
+
 		try {
-			synchronized ( DOCUMENT_BUILDER ) {
-				return DOCUMENT_BUILDER.parse( new InputSource( new StringReader( xml ) ) );
-			}
+			return documentBuilder.parse( new InputSource( new StringReader( xml ) ) );
 		} catch ( Exception e ) {
 			throw new RuntimeException( e );
+		} finally {
+			pool.release( documentBuilder, true );
 		}
 	}
 
 	/**
-	 * Creates a new Document built from a shared, no-external-connection-making DocumentBuilder
+	 * Creates a new Document built from a pooled, no-external-connection-making DocumentBuilder
 	 * created by a namespace-aware, comment-ignoring, whitespace-ignoring DocumentBuilderFactory.
 	 */
 
 	public static Document newDocument() {
 
-		synchronized ( DOCUMENT_BUILDER ) {
-			return DOCUMENT_BUILDER.newDocument();
+		DocumentBuilderPool pool = DOCUMENT_BUILDER_POOL;
+		DocumentBuilder documentBuilder = pool.borrow();
+
+		try {
+			return documentBuilder.newDocument();
+		} finally {
+			pool.release( documentBuilder, false );
 		}
 	}
 
 	public static Document parse( InputStream stream )
 		throws IOException, SAXException {
 
-		synchronized ( DOCUMENT_BUILDER ) {
-			return DOCUMENT_BUILDER.parse( stream );
+		DocumentBuilderPool pool = DOCUMENT_BUILDER_POOL;
+		DocumentBuilder documentBuilder = pool.borrow();
+
+		try {
+			return documentBuilder.parse( stream );
+		} finally {
+			pool.release( documentBuilder, true );
+		}
+	}
+
+	/**
+	 * Sets the DocumentBuilderFactory used by <code>documentFromString</code>,
+	 * <code>newDocument</code> and <code>parse</code>.
+	 * <p>
+	 * DocumentBuilders are not thread-safe. Rather than share a single, synchronized
+	 * DocumentBuilder (which serializes all parsing across all threads), we keep a bounded pool of
+	 * them and <code>reset</code> each one before reuse. Setting a new factory discards the
+	 * existing pool. Regardless of the factory, DocumentBuilders are always given a no-op
+	 * EntityResolver so that they do not make external connections.
+	 * <p>
+	 * By default, uses a namespace-aware, comment-ignoring, whitespace-ignoring
+	 * DocumentBuilderFactory.
+	 *
+	 * @param factory
+	 *            the factory to use, or null to restore the default
+	 */
+
+	public static void setDocumentBuilderFactory( DocumentBuilderFactory factory ) {
+
+		if ( factory == null ) {
+			DOCUMENT_BUILDER_POOL = new DocumentBuilderPool( newDefaultDocumentBuilderFactory() );
+			return;
 		}
+
+		DOCUMENT_BUILDER_POOL = new DocumentBuilderPool( factory );
 	}
 
 	/**
@@ -1386,6 +1429,16 @@ public class XmlUtils {
 		return builder.toString();
 	}
 
+	private static DocumentBuilderFactory newDefaultDocumentBuilderFactory() {
+
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware( true );
+		factory.setIgnoringComments( true );
+		factory.setIgnoringElementContentWhitespace( true );
+
+		return factory;
+	}
+
 	private static void indent( StringBuilder builder, int indent ) {
 
 		for ( int loop = 0; loop < indent; loop++ ) {
@@ -1438,34 +1491,129 @@ public class XmlUtils {
 		}
 	}
 
+	/**
+	 * Bounded pool of DocumentBuilders.
+	 * <p>
+	 * Borrowing never blocks: if the pool is empty, a new DocumentBuilder is created. Releasing
+	 * never blocks either: if the pool is full, the DocumentBuilder is discarded. The pool is
+	 * bounded at twice the number of available processors, which is enough to keep every
+	 * processor parsing without retaining a DocumentBuilder per request thread.
+	 */
+
+	/* package private */static class DocumentBuilderPool {
+
+		//
+		// Private members
+		//
+
+		private final DocumentBuilderFactory	mFactory;
+
+		private final Queue<DocumentBuilder>	mPool		= new ConcurrentLinkedQueue<DocumentBuilder>();
+
+		private final AtomicInteger				mPoolSize	= new AtomicInteger();
+
+		private final int						mMaximumPoolSize;
+
+		//
+		// Constructor
+		//
+
+		public DocumentBuilderPool( DocumentBuilderFactory factory ) {
+
+			mFactory = factory;
+			mMaximumPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+		}
+
+		//
+		// Public methods
+		//
+
+		public DocumentBuilder borrow() {
+
+			DocumentBuilder documentBuilder = mPool.poll();
+
+			if ( documentBuilder != null ) {
+				mPoolSize.decrementAndGet();
+				return documentBuilder;
+			}
+
+			// DocumentBuilderFactory is not thread-safe (but is only used when the pool is empty)
+
+			synchronized ( mFactory ) {
+				try {
+					documentBuilder = mFactory.newDocumentBuilder();
+				} catch ( ParserConfigurationException e ) {
+					throw new RuntimeException( e );
+				}
+			}
+
+			documentBuilder.setEntityResolver( new NopEntityResolver() );
+			return documentBuilder;
+		}
+
+		/**
+		 * @param used
+		 *            whether the DocumentBuilder was used to parse, and therefore needs resetting
+		 *            before reuse
+		 */
+
+		public void release( DocumentBuilder documentBuilder, boolean used ) {
+
+			if ( mPoolSize.incrementAndGet() > mMaximumPoolSize ) {
+				mPoolSize.decrementAndGet();
+				return;
+			}
+
+			if ( used ) {
+				try {
+					documentBuilder.reset();
+				} catch ( UnsupportedOperationException e ) {
+
+					// DocumentBuilder cannot be reused
+
+					mPoolSize.decrementAndGet();
+					return;
+				}
+
+				// (reset restores the original EntityResolver)
+
+				documentBuilder.setEntityResolver( new NopEntityResolver() );
+			}
+
+			mPool.offer( documentBuilder );
+		}
+
+		/**
+		 * @return the number of pooled (idle) DocumentBuilders
+		 */
+
+		public int size() {
+
+			return mPoolSize.get();
+		}
+	}
+
 	//
 	// Private statics
 	//
 
-	private static final DocumentBuilder	DOCUMENT_BUILDER;
+	/**
+	 * Pool of DocumentBuilders.
+	 * <p>
+	 * Volatile, rather than final, so that it can be replaced by <code>setDocumentBuilderFactory</code>.
+	 */
 
-	static {
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-		factory.setNamespaceAware( true );
-		factory.setIgnoringComments( true );
-		factory.setIgnoringElementContentWhitespace( true );
-		try {
-			DOCUMENT_BUILDER = factory.newDocumentBuilder();
-			DOCUMENT_BUILDER.setEntityResolver( new NopEntityResolver() );
-		} catch ( ParserConfigurationException e ) {
-			throw new RuntimeException( e );
-		}
-	}
+	private static volatile DocumentBuilderPool	DOCUMENT_BUILDER_POOL	= new DocumentBuilderPool( newDefaultDocumentBuilderFactory() );
 
-	private static final Pattern			PATTERN_AMP		= Pattern.compile( "&", Pattern.LITERAL );
+	private static final Pattern				PATTERN_AMP				= Pattern.compile( "&", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_LT		= Pattern.compile( "<", Pattern.LITERAL );
+	private static final Pattern				PATTERN_LT				= Pattern.compile( "<", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_GT		= Pattern.compile( ">", Pattern.LITERAL );
+	private static final Pattern				PATTERN_GT				= Pattern.compile( ">", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_QUOT	= Pattern.compile( "\"", Pattern.LITERAL );
+	private static final Pattern				PATTERN_QUOT			= Pattern.compile( "\"", Pattern.LITERAL );
 
-	private static final Pattern			PATTERN_APOS	= Pattern.compile( "\'", Pattern.LITERAL );
+	private static final Pattern				PATTERN_APOS			= Pattern.compile( "\'", Pattern.LITERAL );
 
 	//
 	// Private constructor
@@ -38,6 +38,27 @@ public class PathUtils {
 		return new TypeAndNames( path, separator );
 	}
 
+	/**
+	 * The reverse of <code>parsePath</code>: joins the given type and names into a
+	 * <code>type/name</code>-formatted String.
+	 */
+
+	public static String toPath( String type, String... names ) {
+
+		if ( names == null || names.length == 0 ) {
+			return type;
+		}
+
+		StringBuilder builder = new StringBuilder( type );
+
+		for ( String name : names ) {
+			builder.append( StringUtils.SEPARATOR_FORWARD_SLASH_CHAR );
+			builder.append( name );
+		}
+
+		return builder.toString();
+	}
+
 	/**
 	 * Tuple for returning a <code>type</code> and an array of <code>names</code>.
 	 * <p>
@@ -18,6 +18,7 @@ package org.metawidget.config.impl;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -701,6 +702,125 @@ public class ConfigReaderTest
 		}
 	}
 
+	public void testConfigPlan() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<metawidget xmlns=\"http://metawidget.org\"	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"	xsi:schemaLocation=\"http://metawidget.org http://metawidget.org/xsd/metawidget-1.0.xsd\" version=\"1.0\">";
+		xml += "<allTypesInspector xmlns=\"java:org.metawidget.config.impl\" config=\"AllTypesInspectorConfig\">";
+		xml += "<int><int>3</int></int>";
+		xml += "</allTypesInspector>";
+		xml += "<allTypesInspectorConfig xmlns=\"java:org.metawidget.config.impl\">";
+		xml += "<int><int>5</int></int>";
+		xml += "<list>";
+		xml += "<list>";
+		xml += "<string>foo</string>";
+		xml += "<instanceOf>java.util.Date</instanceOf>";
+		xml += "<propertyTypeInspector xmlns=\"java:org.metawidget.inspector.propertytype\"/>";
+		xml += "</list>";
+		xml += "</list>";
+		xml += "<inputStream><resource>org/metawidget/config/metawidget-test-caching.xml</resource></inputStream>";
+		xml += "<stringArray><array><string>foo</string><string>bar</string></array></stringArray>";
+		xml += "<enum><enum>BAR</enum></enum>";
+		xml += "</allTypesInspectorConfig>";
+		xml += "</metawidget>";
+
+		final String planXml = xml;
+		final int[] opened = new int[1];
+
+		BaseConfigReader configReader = new BaseConfigReader( new SimpleResourceResolver() {
+
+			@Override
+			public InputStream openResource( String resource ) {
+
+				if ( "plan.xml".equals( resource ) ) {
+					opened[0]++;
+					return new ByteArrayInputStream( planXml.getBytes() );
+				}
+
+				return super.openResource( resource );
+			}
+		} );
+
+		// Immutables are reused by the plan
+
+		AllTypesInspector inspector1 = (AllTypesInspector) configReader.configure( "plan.xml", Inspector.class );
+		AllTypesInspector inspector2 = (AllTypesInspector) configReader.configure( "plan.xml", Inspector.class );
+		assertTrue( inspector1 == inspector2 );
+		assertEquals( 3, inspector2.getInt() );
+		assertEquals( 1, opened[0] );
+		assertEquals( 1, configReader.mPlanCache.size() );
+
+		// Configure existing instances
+
+		AllTypesInspectorConfig config1 = new AllTypesInspectorConfig();
+		AllTypesInspectorConfig config2 = new AllTypesInspectorConfig();
+		AllTypesInspectorConfig config3 = new AllTypesInspectorConfig();
+		assertTrue( config1 == configReader.configure( "plan.xml", config1 ) );
+		assertTrue( config2 == configReader.configure( "plan.xml", config2 ) );
+		assertTrue( config3 == configReader.configure( "plan.xml", config3 ) );
+		assertEquals( 2, opened[0] );
+		assertEquals( 2, configReader.mPlanCache.size() );
+
+		// Mutable objects are recreated by the plan...
+
+		assertTrue( config2.getList() != config3.getList() );
+		assertTrue( config2.getList().get( 1 ) != config3.getList().get( 1 ) );
+		assertTrue( config2.getStringArray() != config3.getStringArray() );
+		assertTrue( config2.getInputStream() != config3.getInputStream() );
+
+		// ...immutable ones are not...
+
+		assertTrue( config1.getList().get( 2 ) instanceof PropertyTypeInspector );
+		assertTrue( config1.getList().get( 2 ) == config3.getList().get( 2 ) );
+
+		// ...and both give the same result as reading the resource
+
+		for ( AllTypesInspectorConfig config : new AllTypesInspectorConfig[] { config1, config2, config3 } ) {
+			assertEquals( 5, config.getInt() );
+			assertEquals( "foo", config.getList().get( 0 ) );
+			assertTrue( config.getList().get( 1 ) instanceof Date );
+			assertEquals( 3, config.getList().size() );
+			assertTrue( config.getInputStream() != null );
+			assertEquals( 2, config.getStringArray().length );
+			assertEquals( "bar", config.getStringArray()[1] );
+			assertEquals( FooEnum.BAR, config.getEnum() );
+		}
+	}
+
+	public void testConfigPlanDoesNotReconfigureImmutables() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<metawidget xmlns=\"http://metawidget.org\"	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"	xsi:schemaLocation=\"http://metawidget.org http://metawidget.org/xsd/metawidget-1.0.xsd\" version=\"1.0\">";
+		xml += "<mutableInspector xmlns=\"java:org.metawidget.config.impl\">";
+		xml += "<foo><string>bar</string></foo>";
+		xml += "</mutableInspector>";
+		xml += "</metawidget>";
+
+		final String planXml = xml;
+
+		BaseConfigReader configReader = new BaseConfigReader( new SimpleResourceResolver() {
+
+			@Override
+			public InputStream openResource( String resource ) {
+
+				if ( "immutable.xml".equals( resource ) ) {
+					return new ByteArrayInputStream( planXml.getBytes() );
+				}
+
+				return super.openResource( resource );
+			}
+		} );
+
+		// Shared instance is configured once, when the plan is recorded, not on every apply
+
+		MutableInspector inspector1 = (MutableInspector) configReader.configure( "immutable.xml", Inspector.class );
+		MutableInspector inspector2 = (MutableInspector) configReader.configure( "immutable.xml", Inspector.class );
+		MutableInspector inspector3 = (MutableInspector) configReader.configure( "immutable.xml", Inspector.class );
+		assertTrue( inspector1 == inspector2 );
+		assertTrue( inspector2 == inspector3 );
+		assertEquals( 1, inspector3.getSetFooCount() );
+	}
+
 	//
 	// Inner class
 	//
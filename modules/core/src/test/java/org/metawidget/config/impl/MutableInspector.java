@@ -25,18 +25,29 @@ import org.metawidget.inspector.iface.Inspector;
 public class MutableInspector
 	implements Inspector {
 
+	//
+	// Private members
+	//
+
+	private int	mSetFooCount;
+
 	//
 	// Public methods
 	//
 
 	/**
 	 * @param foo
-	 *            ignored
+	 *            ignored (only counted)
 	 */
 
 	public void setFoo( String foo ) {
 
-		// Do nothing
+		mSetFooCount++;
+	}
+
+	public int getSetFooCount() {
+
+		return mSetFooCount;
 	}
 
 	public String inspect( Object toInspect, String type, String... names ) {
@@ -0,0 +1,152 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspectionresultprocessor.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class BaseParsedValueCacheTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testEvaluate() {
+
+		Map<String, Object> context = CollectionUtils.newHashMap();
+		context.put( "abc", "from-abc" );
+		context.put( "def", 42 );
+		context.put( "list", CollectionUtils.newArrayList( "foo", "bar" ) );
+		context.put( "array", new String[] { "baz", "qux" } );
+
+		MapParsedValueCache cache = new MapParsedValueCache( 1000 );
+
+		assertEquals( "text {}", cache.evaluate( "text {}", context ) );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( "42", cache.evaluate( "${def}", context ) );
+		assertEquals( null, cache.evaluate( "${null}", context ) );
+		assertEquals( "foo,bar", cache.evaluate( "${list}", context ) );
+		assertEquals( "baz,qux", cache.evaluate( "${array}", context ) );
+		assertEquals( "first from-abc middle 42 last", cache.evaluate( "first ${abc} middle ${null}${def} last", context ) );
+		assertEquals( " ", cache.evaluate( "${null} ", context ) );
+	}
+
+	public void testMaximumSize() {
+
+		Map<String, Object> context = CollectionUtils.newHashMap();
+		context.put( "abc", "from-abc" );
+
+		// Each attribute value is parsed once
+
+		MapParsedValueCache cache = new MapParsedValueCache( 1 );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( 1, cache.getParsedExpressions().size() );
+
+		// ...until the cache is full
+
+		assertEquals( "from-abc from-abc", cache.evaluate( "${abc} ${abc}", context ) );
+		assertEquals( "from-abc from-abc", cache.evaluate( "${abc} ${abc}", context ) );
+		assertEquals( 5, cache.getParsedExpressions().size() );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( 5, cache.getParsedExpressions().size() );
+
+		// Not cached
+
+		cache = new MapParsedValueCache( 0 );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( "from-abc", cache.evaluate( "${abc}", context ) );
+		assertEquals( 2, cache.getParsedExpressions().size() );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Evaluates expressions of the form <code>${...}</code> by looking them up in a Map.
+	 */
+
+	/* package private */static class MapParsedValueCache
+		extends BaseParsedValueCache<String, Map<String, Object>> {
+
+		//
+		// Private statics
+		//
+
+		private static final Pattern	PATTERN_EXPRESSION	= Pattern.compile( "\\$\\{([^\\}]+)\\}" );
+
+		//
+		// Private members
+		//
+
+		private List<String>			mParsedExpressions	= CollectionUtils.newArrayList();
+
+		//
+		// Constructor
+		//
+
+		public MapParsedValueCache( int maximumSize ) {
+
+			super( maximumSize );
+		}
+
+		//
+		// Public methods
+		//
+
+		public List<String> getParsedExpressions() {
+
+			return mParsedExpressions;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Matcher matchExpressions( String value ) {
+
+			return PATTERN_EXPRESSION.matcher( value );
+		}
+
+		@Override
+		protected String parseExpression( Matcher matcher, Map<String, Object> context ) {
+
+			String expression = matcher.group( 1 );
+			mParsedExpressions.add( expression );
+			return expression;
+		}
+
+		@Override
+		protected Object evaluateExpression( String expression, Map<String, Object> context ) {
+
+			return context.get( expression );
+		}
+	}
+}
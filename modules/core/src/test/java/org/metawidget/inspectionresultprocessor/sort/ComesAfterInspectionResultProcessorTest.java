@@ -16,10 +16,13 @@
 
 package org.metawidget.inspectionresultprocessor.sort;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
 import junit.framework.TestCase;
 
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessorException;
 import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
 
 /**
  * @author Richard Kennard
@@ -218,6 +221,74 @@ public class ComesAfterInspectionResultProcessorTest
 		assertEquals( validateXml, outputXml );
 	}
 
+	public void testLongChain() {
+
+		// Set up: every property comes after the one declared after it
+
+		int properties = 1000;
+		StringBuilder builder = new StringBuilder( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\">" );
+
+		for ( int loop = 0; loop < properties; loop++ ) {
+			builder.append( "<property name=\"property" + loop + "\"" );
+
+			if ( loop < properties - 1 ) {
+				builder.append( " comes-after=\"property" + ( loop + 1 ) + "\"" );
+			}
+
+			builder.append( "/>" );
+		}
+
+		builder.append( "</entity></inspection-result>" );
+
+		// Run processor
+
+		Element inspectionResult = XmlUtils.documentFromString( builder.toString() ).getDocumentElement();
+		assertTrue( inspectionResult == new ComesAfterInspectionResultProcessor<Object>().processInspectionResultAsDom( inspectionResult, null, null, null ) );
+
+		// Test result (sorted in place, in reverse)
+
+		Element property = XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( inspectionResult ) );
+
+		for ( int loop = properties - 1; loop >= 0; loop-- ) {
+			assertEquals( "property" + loop, property.getAttribute( NAME ) );
+			property = XmlUtils.getNextSiblingElement( property );
+		}
+
+		assertTrue( property == null );
+	}
+
+	public void testComesAfterMissing()
+		throws Exception {
+
+		// Set up
+
+		String inputXml = "<?xml version=\"1.0\"?>";
+		inputXml += "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\">";
+		inputXml += "<entity type=\"Foo\">";
+		inputXml += "<property name=\"foo\"/>";
+		inputXml += "<property name=\"bar\" comes-after=\"missing\"/>";
+		inputXml += "<property name=\"baz\" comes-after=\"foo,missing\"/>";
+		inputXml += "<property name=\"abc\"/>";
+		inputXml += "</entity></inspection-result>";
+
+		// Run processor
+
+		String outputXml = new ComesAfterInspectionResultProcessor<Object>().processInspectionResult( inputXml, null, null, null );
+
+		// Test result (missing traits are ignored)
+
+		String validateXml = "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\">";
+		validateXml += "<entity type=\"Foo\">";
+		validateXml += "<property name=\"bar\" comes-after=\"missing\"/>";
+		validateXml += "<property name=\"foo\"/>";
+		validateXml += "<property name=\"baz\" comes-after=\"foo,missing\"/>";
+		validateXml += "<property name=\"abc\"/>";
+		validateXml += "</entity>";
+		validateXml += "</inspection-result>";
+
+		assertEquals( validateXml, outputXml );
+	}
+
 	public void testInfiniteLoop() {
 
 		try {
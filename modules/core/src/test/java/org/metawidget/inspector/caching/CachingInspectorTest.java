@@ -0,0 +1,289 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.caching;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.composite.CompositeInspectorConfig;
+import org.metawidget.inspector.iface.CacheableInspector;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.util.IOUtils;
+import org.metawidget.util.MetawidgetTestUtils;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class CachingInspectorTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testCaching() {
+
+		CountingInspector countingInspector = new CountingInspector( true );
+		CachingInspector inspector = new CachingInspector( new CachingInspectorConfig().setInspector( countingInspector ) );
+
+		Element element1 = inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		assertEquals( 1, countingInspector.mInspections );
+		assertEquals( "1", ( (Element) element1.getFirstChild() ).getAttribute( "count" ) );
+
+		Element element2 = inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		assertEquals( 1, countingInspector.mInspections );
+		assertEquals( "1", ( (Element) element2.getFirstChild() ).getAttribute( "count" ) );
+		assertTrue( element1 != element2 );
+
+		// Defensive copies
+
+		( (Element) element2.getFirstChild() ).setAttribute( "count", "99" );
+		assertEquals( "1", ( (Element) inspector.inspectAsDom( new Foo(), Foo.class.getName() ).getFirstChild() ).getAttribute( "count" ) );
+		assertEquals( "<inspection-result xmlns=\"" + NAMESPACE + "\"><entity count=\"1\" type=\"" + Foo.class.getName() + "\"/></inspection-result>", inspector.inspect( new Foo(), Foo.class.getName() ) );
+		assertEquals( 1, countingInspector.mInspections );
+
+		// Different key
+
+		inspector.inspectAsDom( null, Foo.class.getName() );
+		assertEquals( 2, countingInspector.mInspections );
+		inspector.inspectAsDom( new Foo(), Foo.class.getName(), "bar" );
+		assertEquals( 3, countingInspector.mInspections );
+		inspector.inspectAsDom( new Foo(), Foo.class.getName(), "bar" );
+		assertEquals( 3, countingInspector.mInspections );
+		assertEquals( 3, inspector.mCache.size() );
+
+		// Invalidation
+
+		inspector.clearCache( Foo.class.getName() );
+		assertEquals( 0, inspector.mCache.size() );
+		inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		assertEquals( 4, countingInspector.mInspections );
+		inspector.clearCache();
+		assertEquals( 0, inspector.mCache.size() );
+	}
+
+	public void testNotCacheable() {
+
+		CountingInspector countingInspector = new CountingInspector( false );
+		CachingInspector inspector = new CachingInspector( new CachingInspectorConfig().setInspector( countingInspector ) );
+
+		inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		assertEquals( 2, countingInspector.mInspections );
+		assertEquals( 0, inspector.mCache.size() );
+
+		// PropertyTypeInspector is value-dependent
+
+		CompositeInspector compositeInspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( new CountingInspector( true ), new PropertyTypeInspector() ) );
+		assertEquals( false, compositeInspector.isInspectionResultCacheable( new Foo(), Foo.class.getName() ) );
+		assertEquals( true, compositeInspector.isInspectionResultCacheable( null, Foo.class.getName() ) );
+		assertEquals( false, compositeInspector.isInspectionResultCacheable( null, Foo.class.getName(), "bar" ) );
+
+		inspector = new CachingInspector( new CachingInspectorConfig().setInspector( compositeInspector ) );
+		Foo foo = new Foo();
+		assertTrue( inspector.inspect( foo, Foo.class.getName() ).indexOf( "actual-class=\"java.lang.Integer\"" ) != -1 );
+		foo.setBar( Long.valueOf( 42 ) );
+		assertTrue( inspector.inspect( foo, Foo.class.getName() ).indexOf( "actual-class=\"java.lang.Long\"" ) != -1 );
+	}
+
+	public void testEviction() {
+
+		CountingInspector countingInspector = new CountingInspector( true );
+		CachingInspector inspector = new CachingInspector( new CachingInspectorConfig().setInspector( countingInspector ).setMaximumSize( 2 ) );
+
+		inspector.inspectAsDom( null, "foo" );
+		inspector.inspectAsDom( null, "bar" );
+		inspector.inspectAsDom( null, "foo" );
+		inspector.inspectAsDom( null, "baz" );
+		assertEquals( 3, countingInspector.mInspections );
+		assertEquals( 2, inspector.mCache.size() );
+
+		// 'bar' was least recently used
+
+		inspector.inspectAsDom( null, "foo" );
+		assertEquals( 3, countingInspector.mInspections );
+		inspector.inspectAsDom( null, "bar" );
+		assertEquals( 4, countingInspector.mInspections );
+	}
+
+	public void testClassLoaders()
+		throws Exception {
+
+		CountingInspector countingInspector = new CountingInspector( true );
+		CachingInspector inspector = new CachingInspector( new CachingInspectorConfig().setInspector( countingInspector ) );
+
+		// Same-named classes from different ClassLoaders (eg. after a redeploy) must not share
+		// inspection results
+
+		Object reloadedFoo = new ReloadingClassLoader( Foo.class ).loadClass( Foo.class.getName() ).newInstance();
+		assertEquals( Foo.class.getName(), reloadedFoo.getClass().getName() );
+		assertTrue( Foo.class != reloadedFoo.getClass() );
+
+		inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		inspector.inspectAsDom( reloadedFoo, Foo.class.getName() );
+		assertEquals( 2, countingInspector.mInspections );
+
+		inspector.inspectAsDom( new Foo(), Foo.class.getName() );
+		inspector.inspectAsDom( reloadedFoo, Foo.class.getName() );
+		assertEquals( 2, countingInspector.mInspections );
+		assertEquals( 2, inspector.mCache.size() );
+	}
+
+	public void testConfig() {
+
+		try {
+			new CachingInspector( new CachingInspectorConfig() );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "CachingInspector needs an Inspector", e.getMessage() );
+		}
+
+		try {
+			new CachingInspector( new CachingInspectorConfig().setInspector( new PropertyTypeInspector() ).setMaximumSize( 0 ) );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "CachingInspector needs a maximumSize of at least 1", e.getMessage() );
+		}
+
+		MetawidgetTestUtils.testEqualsAndHashcode( CachingInspectorConfig.class, new CachingInspectorConfig() {
+			// Subclass
+		} );
+	}
+
+	//
+	// Inner class
+	//
+
+	protected static class CountingInspector
+		implements CacheableInspector {
+
+		//
+		// Private members
+		//
+
+		private final boolean	mCacheable;
+
+		/* package private */int	mInspections;
+
+		//
+		// Constructor
+		//
+
+		public CountingInspector( boolean cacheable ) {
+
+			mCacheable = cacheable;
+		}
+
+		//
+		// Public methods
+		//
+
+		public String inspect( Object toInspect, String type, String... names ) {
+
+			mInspections++;
+			return "<inspection-result xmlns=\"" + NAMESPACE + "\"><entity type=\"" + type + "\" count=\"" + mInspections + "\"/></inspection-result>";
+		}
+
+		public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+			return mCacheable;
+		}
+	}
+
+	/**
+	 * ClassLoader that defines its own copy of the given class.
+	 */
+
+	/* package private */static class ReloadingClassLoader
+		extends ClassLoader {
+
+		//
+		// Private members
+		//
+
+		private final Class<?>	mClass;
+
+		//
+		// Constructor
+		//
+
+		public ReloadingClassLoader( Class<?> clazz ) {
+
+			super( clazz.getClassLoader() );
+
+			mClass = clazz;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected synchronized Class<?> loadClass( String name, boolean resolve )
+			throws ClassNotFoundException {
+
+			if ( !name.equals( mClass.getName() ) ) {
+				return super.loadClass( name, resolve );
+			}
+
+			Class<?> clazz = findLoadedClass( name );
+
+			if ( clazz != null ) {
+				return clazz;
+			}
+
+			// (streamBetween closes both streams)
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			IOUtils.streamBetween( getParent().getResourceAsStream( name.replace( '.', '/' ) + ".class" ), out );
+			byte[] bytes = out.toByteArray();
+
+			return defineClass( name, bytes, 0, bytes.length );
+		}
+	}
+
+	public static class Foo {
+
+		//
+		// Private members
+		//
+
+		private Object	mBar	= Integer.valueOf( 42 );
+
+		//
+		// Public methods
+		//
+
+		public Object getBar() {
+
+			return mBar;
+		}
+
+		public void setBar( Object bar ) {
+
+			mBar = bar;
+		}
+	}
+}
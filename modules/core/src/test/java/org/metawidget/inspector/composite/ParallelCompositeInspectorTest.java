@@ -0,0 +1,269 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.composite;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.inspector.iface.InspectorException;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.inspector.xml.XmlInspector;
+import org.metawidget.inspector.xml.XmlInspectorConfig;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.MetawidgetTestUtils;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class ParallelCompositeInspectorTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testInspection() {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\">";
+		xml += "<entity type=\"" + Foo.class.getName() + "\">";
+		xml += "<property name=\"title\" lookup=\"Mr, Mrs, Miss, Dr, Cpt\"/>";
+		xml += "<property name=\"notes\" large=\"true\"/>";
+		xml += "<property name=\"id\" hidden=\"true\"/>";
+		xml += "</entity></inspection-result>";
+
+		Inspector inspectorXml = new XmlInspector( new XmlInspectorConfig().setRestrictAgainstObject( new JavaBeanPropertyStyle() ).setInputStream( new ByteArrayInputStream( xml.getBytes() ) ) );
+		Inspector inspectorPropertyType = new PropertyTypeInspector();
+		Inspector inspectorSlow = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				try {
+					Thread.sleep( 50 );
+				} catch ( InterruptedException e ) {
+					throw InspectorException.newException( e );
+				}
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"" + type + "\"><property name=\"id\" hidden=\"false\"/><property name=\"abc\"/></entity></inspection-result>";
+			}
+		};
+
+		// Same result, in the same order, as a regular CompositeInspector
+
+		Foo toInspect = new Foo();
+
+		for ( Inspector[] inspectors : new Inspector[][] { { inspectorXml, inspectorPropertyType, inspectorSlow }, { inspectorSlow, inspectorPropertyType, inspectorXml }, { inspectorPropertyType, inspectorSlow, inspectorXml } } ) {
+			String expected = new CompositeInspector( new CompositeInspectorConfig().setInspectors( inspectors ) ).inspect( toInspect, Foo.class.getName() );
+			ParallelCompositeInspector inspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspectors ) );
+
+			for ( int loop = 0; loop < 5; loop++ ) {
+				assertEquals( expected, inspector.inspect( toInspect, Foo.class.getName() ) );
+			}
+		}
+
+		// Single Inspector
+
+		ParallelCompositeInspector inspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspectorPropertyType ) );
+		assertEquals( new CompositeInspector( new CompositeInspectorConfig().setInspectors( inspectorPropertyType ) ).inspect( toInspect, Foo.class.getName() ), inspector.inspect( toInspect, Foo.class.getName() ) );
+	}
+
+	public void testConcurrency()
+		throws Exception {
+
+		// Sub-Inspectors should overlap: each waits until the other has started
+
+		final CountDownLatch latch = new CountDownLatch( 2 );
+		final ClassLoader contextClassLoader = new URLClassLoader( new URL[0] );
+		final Map<String, ClassLoader> contextClassLoaders = CollectionUtils.newHashMap();
+
+		Inspector inspector1 = new LatchInspector( "foo", latch, contextClassLoaders );
+		Inspector inspector2 = new LatchInspector( "bar", latch, contextClassLoaders );
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+		try {
+			ParallelCompositeInspector inspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspector1, inspector2 ).setExecutor( executor ) );
+
+			ClassLoader previousClassLoader = Thread.currentThread().getContextClassLoader();
+			Thread.currentThread().setContextClassLoader( contextClassLoader );
+
+			try {
+				assertEquals( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Baz\"><property name=\"foo\"/><property name=\"bar\"/></entity></inspection-result>", inspector.inspect( null, "Baz" ) );
+			} finally {
+				Thread.currentThread().setContextClassLoader( previousClassLoader );
+			}
+
+			// Context ClassLoader is propagated to the Executor's threads
+
+			assertTrue( contextClassLoader == contextClassLoaders.get( "foo" ) );
+			assertTrue( contextClassLoader == contextClassLoaders.get( "bar" ) );
+		} finally {
+			executor.shutdown();
+			assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+		}
+	}
+
+	public void testStarvedExecutor() {
+
+		// An Executor that never runs anything: tasks must be run by the calling thread
+
+		Executor executor = new Executor() {
+
+			public void execute( Runnable command ) {
+
+				// Do nothing
+			}
+		};
+
+		Inspector inspector1 = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"" + type + "\"><property name=\"foo\"/></entity></inspection-result>";
+			}
+		};
+
+		Inspector inspector2 = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"" + type + "\"><property name=\"bar\"/></entity></inspection-result>";
+			}
+		};
+
+		Inspector nested = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspector1, inspector2 ).setExecutor( executor ) );
+		ParallelCompositeInspector inspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspector2, nested ).setExecutor( executor ) );
+		assertEquals( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Baz\"><property name=\"bar\"/><property name=\"foo\"/></entity></inspection-result>", inspector.inspect( null, "Baz" ) );
+	}
+
+	public void testException() {
+
+		Inspector inspector1 = new PropertyTypeInspector();
+		Inspector inspector2 = new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				throw InspectorException.newException( "Failed inspection" );
+			}
+		};
+
+		ParallelCompositeInspector inspector = new ParallelCompositeInspector( new ParallelCompositeInspectorConfig().setInspectors( inspector1, inspector2 ) );
+
+		try {
+			inspector.inspect( new Foo(), Foo.class.getName() );
+			fail();
+		} catch ( InspectorException e ) {
+			assertEquals( "Failed inspection", e.getMessage() );
+		}
+	}
+
+	public void testConfig() {
+
+		Map<Class<?>, Object> dummyTypes = CollectionUtils.newHashMap();
+		dummyTypes.put( Executor.class, Executors.newSingleThreadExecutor() );
+
+		MetawidgetTestUtils.testEqualsAndHashcode( ParallelCompositeInspectorConfig.class, new ParallelCompositeInspectorConfig() {
+			// Subclass
+		}, dummyTypes );
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		//
+		// Public methods
+		//
+
+		public String getTitle() {
+
+			return null;
+		}
+
+		public String getNotes() {
+
+			return null;
+		}
+
+		public long getId() {
+
+			return 0;
+		}
+	}
+
+	/* package private */static class LatchInspector
+		implements Inspector {
+
+		//
+		// Private members
+		//
+
+		private final String					mName;
+
+		private final CountDownLatch			mLatch;
+
+		private final Map<String, ClassLoader>	mContextClassLoaders;
+
+		//
+		// Constructor
+		//
+
+		public LatchInspector( String name, CountDownLatch latch, Map<String, ClassLoader> contextClassLoaders ) {
+
+			mName = name;
+			mLatch = latch;
+			mContextClassLoaders = contextClassLoaders;
+		}
+
+		//
+		// Public methods
+		//
+
+		public String inspect( Object toInspect, String type, String... names ) {
+
+			synchronized ( mContextClassLoaders ) {
+				mContextClassLoaders.put( mName, Thread.currentThread().getContextClassLoader() );
+			}
+
+			mLatch.countDown();
+
+			try {
+				if ( !mLatch.await( 10, TimeUnit.SECONDS ) ) {
+					throw InspectorException.newException( "Inspectors did not run concurrently" );
+				}
+			} catch ( InterruptedException e ) {
+				throw InspectorException.newException( e );
+			}
+
+			return "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"" + type + "\"><property name=\"" + mName + "\"/></entity></inspection-result>";
+		}
+	}
+}
@@ -16,8 +16,16 @@
 
 package org.metawidget.inspector.impl;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.List;
+import java.util.Map;
+
 import junit.framework.TestCase;
 
+import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.MetawidgetTestUtils;
 
 /**
@@ -31,10 +39,164 @@ public class BaseObjectInspectorTest
 	// Public methods
 	//
 
+	public void testTraitInspectionStatic() {
+
+		JavaBeanPropertyStyle propertyStyle = new JavaBeanPropertyStyle();
+		CountingInspector staticInspector = new CountingInspector( true, new BaseObjectInspectorConfig().setPropertyStyle( propertyStyle ).setActionStyle( null ) );
+		CountingInspector inspector = new CountingInspector( false, new BaseObjectInspectorConfig().setPropertyStyle( propertyStyle ).setActionStyle( null ) );
+
+		// Trait inspection is cached
+
+		Foo foo = new Foo();
+		String result = staticInspector.inspect( foo, Foo.class.getName() );
+		assertEquals( inspector.inspect( foo, Foo.class.getName() ), result );
+		assertTrue( result.contains( "<property name=\"bar\" label=\"Bar\" required=\"true\"/>" ) );
+		assertFalse( result.contains( "name=\"abc\"" ) );
+		assertEquals( 4, staticInspector.getInspected().size() );
+
+		assertEquals( result, staticInspector.inspect( foo, Foo.class.getName() ) );
+		assertEquals( 4, staticInspector.getInspected().size() );
+
+		// ...but inspectPropertyAsEntity is not
+
+		foo.setAbc( 42 );
+		result = staticInspector.inspect( foo, Foo.class.getName() );
+		assertEquals( inspector.inspect( foo, Foo.class.getName() ), result );
+		assertTrue( result.contains( "<property name=\"abc\" type=\"java.lang.Integer\"/>" ) );
+		assertEquals( 4, staticInspector.getInspected().size() );
+
+		// Cache follows the PropertyStyle
+
+		propertyStyle.clearCache();
+		assertEquals( result, staticInspector.inspect( foo, Foo.class.getName() ) );
+		assertEquals( 8, staticInspector.getInspected().size() );
+	}
+
 	public void testConfig() {
 
 		MetawidgetTestUtils.testEqualsAndHashcode( BaseObjectInspectorConfig.class, new BaseObjectInspectorConfig() {
 			// Subclass
 		} );
 	}
+
+	//
+	// Inner class
+	//
+
+	/* package private */static class CountingInspector
+		extends BaseObjectInspector {
+
+		//
+		// Private members
+		//
+
+		private boolean			mTraitInspectionStatic;
+
+		private List<String>	mInspected	= CollectionUtils.newArrayList();
+
+		//
+		// Constructor
+		//
+
+		public CountingInspector( boolean traitInspectionStatic, BaseObjectInspectorConfig config ) {
+
+			super( config );
+
+			mTraitInspectionStatic = traitInspectionStatic;
+		}
+
+		//
+		// Public methods
+		//
+
+		public List<String> getInspected() {
+
+			return mInspected;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected boolean isTraitInspectionStatic() {
+
+			return mTraitInspectionStatic;
+		}
+
+		@Override
+		protected Map<String, String> inspectTrait( Trait trait ) {
+
+			mInspected.add( "trait " + trait.getName() );
+
+			if ( "abc".equals( trait.getName() ) ) {
+				return null;
+			}
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( LABEL, trait.getName() );
+			return attributes;
+		}
+
+		@Override
+		protected Map<String, String> inspectProperty( Property property ) {
+
+			mInspected.add( property.getName() );
+
+			if ( !"bar".equals( property.getName() ) ) {
+				return null;
+			}
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( LABEL, "Bar" );
+			attributes.put( REQUIRED, TRUE );
+			return attributes;
+		}
+
+		@Override
+		protected boolean shouldInspectPropertyAsEntity( Property property ) {
+
+			return "abc".equals( property.getName() );
+		}
+
+		@Override
+		protected Map<String, String> inspectEntity( String declaredClass, String actualClass ) {
+
+			if ( declaredClass.equals( actualClass ) ) {
+				return null;
+			}
+
+			Map<String, String> attributes = CollectionUtils.newHashMap();
+			attributes.put( TYPE, actualClass );
+			return attributes;
+		}
+	}
+
+	public static class Foo {
+
+		//
+		// Private members
+		//
+
+		private Object	mAbc;
+
+		//
+		// Public methods
+		//
+
+		public String getBar() {
+
+			return null;
+		}
+
+		public Object getAbc() {
+
+			return mAbc;
+		}
+
+		public void setAbc( Object abc ) {
+
+			mAbc = abc;
+		}
+	}
 }
@@ -16,8 +16,16 @@
 
 package org.metawidget.inspector.impl;
 
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.swing.JComponent;
@@ -61,7 +69,8 @@ public class BaseTraitStyleTest
 		assertTrue( traitStyle.mCache.isEmpty() );
 		assertTrue( traitStyle.getTraits( Date.class.getName() ) != null );
 		assertEquals( 1, traitStyle.mCache.size() );
-		assertTrue( traitStyle.mCache.get( Date.class.getName() ) != null );
+		assertTrue( traitStyle.getCachedTraits( Date.class.getName() ) != null );
+		assertTrue( traitStyle.getTraits( Date.class.getName() ) == traitStyle.getCachedTraits( Date.class.getName() ) );
 
 		// Without caching
 
@@ -72,6 +81,81 @@ public class BaseTraitStyleTest
 		assertEquals( traitStyle.mCache, null );
 	}
 
+	public void testCacheByClassLoader() {
+
+		BaseTraitStyle<Property> traitStyle = new JavaBeanPropertyStyle();
+		traitStyle.getTraits( Date.class.getName() );
+		Map<String, Property> traits = traitStyle.getCachedTraits( Date.class.getName() );
+		assertEquals( 1, traitStyle.mCache.size() );
+
+		// Different ClassLoader
+
+		Thread thread = Thread.currentThread();
+		ClassLoader classLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader( new URLClassLoader( new URL[0], classLoader ) );
+
+		try {
+			assertTrue( traitStyle.getCachedTraits( Date.class.getName() ) == null );
+			assertTrue( traitStyle.getTraits( Date.class.getName() ) != traits );
+			assertEquals( 2, traitStyle.mCache.size() );
+		} finally {
+			thread.setContextClassLoader( classLoader );
+		}
+
+		assertTrue( traitStyle.getTraits( Date.class.getName() ) == traits );
+
+		// Clear cache
+
+		traitStyle.clearCache();
+		assertTrue( traitStyle.mCache.isEmpty() );
+		assertTrue( traitStyle.getCachedTraits( Date.class.getName() ) == null );
+	}
+
+	public void testConcurrentLookup()
+		throws Exception {
+
+		final AtomicInteger lookups = new AtomicInteger();
+		final BaseTraitStyle<Property> traitStyle = new JavaBeanPropertyStyle() {
+
+			@Override
+			protected Map<String, Property> inspectProperties( String type ) {
+
+				lookups.incrementAndGet();
+
+				try {
+					Thread.sleep( 50 );
+				} catch ( InterruptedException e ) {
+					// Ignore
+				}
+
+				return super.inspectProperties( type );
+			}
+		};
+
+		final CountDownLatch latch = new CountDownLatch( 10 );
+		final List<Map<String, Property>> results = Collections.synchronizedList( new ArrayList<Map<String, Property>>() );
+
+		for ( int loop = 0; loop < 10; loop++ ) {
+			new Thread( new Runnable() {
+
+				public void run() {
+
+					results.add( traitStyle.getTraits( Date.class.getName() ) );
+					latch.countDown();
+				}
+			} ).start();
+		}
+
+		latch.await();
+
+		assertEquals( 1, lookups.get() );
+		assertEquals( 10, results.size() );
+
+		for ( Map<String, Property> result : results ) {
+			assertEquals( traitStyle.getCachedTraits( Date.class.getName() ), result );
+		}
+	}
+
 	public void testExcludedBaseType() {
 
 		// Default excludeBaseType
@@ -0,0 +1,143 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class LiteElementTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testAttributes() {
+
+		LiteElement element = new LiteElement( "property" );
+		assertEquals( "property", element.getName() );
+		assertEquals( 0, element.getAttributeCount() );
+		assertTrue( element.getAttributesAsMap().isEmpty() );
+
+		// Grow beyond the initial capacity
+
+		for ( int loop = 0; loop < 10; loop++ ) {
+			element.setAttribute( "attribute" + loop, "value" + loop );
+		}
+
+		assertEquals( 10, element.getAttributeCount() );
+		assertEquals( "attribute3", element.getAttributeName( 3 ) );
+		assertEquals( "value3", element.getAttributeValue( 3 ) );
+		assertEquals( "value9", element.getAttribute( "attribute9" ) );
+		assertTrue( element.hasAttribute( "attribute0" ) );
+		assertTrue( !element.hasAttribute( "attribute10" ) );
+		assertEquals( null, element.getAttribute( "attribute10" ) );
+
+		// Overwrite and remove
+
+		element.setAttribute( "attribute3", "value3b" );
+		assertEquals( 10, element.getAttributeCount() );
+		assertEquals( "value3b", element.getAttribute( "attribute3" ) );
+
+		element.removeAttribute( "attribute0" );
+		element.setAttribute( "attribute9", null );
+		element.removeAttribute( "attribute10" );
+		assertEquals( 8, element.getAttributeCount() );
+		assertEquals( "attribute1", element.getAttributeName( 0 ) );
+		assertEquals( "attribute8", element.getAttributeName( 7 ) );
+
+		// Map is a copy
+
+		Map<String, String> attributes = element.getAttributesAsMap();
+		assertEquals( 8, attributes.size() );
+		assertEquals( "value3b", attributes.get( "attribute3" ) );
+		attributes.put( "foo", "bar" );
+		assertTrue( !element.hasAttribute( "foo" ) );
+
+		element.setAttributesFromMap( attributes );
+		assertEquals( "bar", element.getAttribute( "foo" ) );
+	}
+
+	public void testChildren() {
+
+		LiteElement entity = new LiteElement( "entity" );
+		assertEquals( null, entity.getFirstChild() );
+
+		LiteElement foo = entity.appendChild( new LiteElement( "property" ) );
+		LiteElement bar = entity.appendChild( new LiteElement( "action" ) );
+
+		assertTrue( foo == entity.getFirstChild() );
+		assertTrue( bar == foo.getNextSibling() );
+		assertTrue( null == bar.getNextSibling() );
+		assertTrue( entity == bar.getParent() );
+
+		try {
+			new LiteElement( "entity" ).appendChild( foo );
+			fail();
+		} catch ( IllegalArgumentException e ) {
+			assertEquals( "Element property already has a parent", e.getMessage() );
+		}
+	}
+
+	public void testConversion() {
+
+		String xml = "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\"><property name=\"bar\" label=\"&lt;Bar &amp; &quot;Baz&quot;&gt;\" type=\"int\"/><action name=\"save\"/></entity></inspection-result>";
+
+		// From DOM
+
+		LiteElement root = LiteElement.fromDom( XmlUtils.documentFromString( xml ).getDocumentElement() );
+		assertEquals( "inspection-result", root.getName() );
+		assertEquals( "http://metawidget.org/inspection-result", root.getNamespace() );
+		assertEquals( "1.0", root.getAttribute( "version" ) );
+		assertTrue( !root.hasAttribute( "xmlns" ) );
+
+		LiteElement entity = root.getFirstChild();
+		assertEquals( "entity", entity.getName() );
+		assertEquals( "<Bar & \"Baz\">", entity.getFirstChild().getAttribute( "label" ) );
+		assertEquals( "action", entity.getFirstChild().getNextSibling().getName() );
+
+		// To String (same format as XmlUtils)
+
+		assertEquals( xml, root.toString() );
+		assertEquals( XmlUtils.nodeToString( XmlUtils.documentFromString( xml ).getDocumentElement(), false ), root.toString() );
+
+		// To DOM
+
+		Document document = XmlUtils.newDocument();
+		Element element = root.toDom( document );
+		document.appendChild( element );
+		assertEquals( "http://metawidget.org/inspection-result", XmlUtils.getFirstChildElement( element ).getNamespaceURI() );
+		assertEquals( xml, XmlUtils.nodeToString( element, false ) );
+
+		// Round trip
+
+		assertEquals( xml, LiteElement.fromDom( element ).toString() );
+
+		// Nulls
+
+		assertEquals( null, LiteElement.fromDom( null ) );
+	}
+}
@@ -19,7 +19,11 @@ package org.metawidget.inspector.impl.propertystyle.javabean;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +35,8 @@ import junit.framework.TestCase;
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.BaseTraitStyle;
 import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle.JavaBeanProperty;
+import org.metawidget.util.ClassUtils;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.MetawidgetTestUtils;
 
@@ -257,6 +263,91 @@ public class JavaBeanPropertyStyleTest
 		assertEquals( 3, properties.size() );
 	}
 
+	public void testPropertyAccessorFactory() {
+
+		// Default (reflection)
+
+		Map<String, Property> properties = new JavaBeanPropertyStyle().getProperties( Accessed.class.getName() );
+		Accessed accessed = new Accessed();
+		properties.get( "name" ).write( accessed, "Foo" );
+		assertEquals( "Foo", accessed.getName() );
+		assertEquals( "Foo", properties.get( "name" ).read( accessed ) );
+
+		try {
+			properties.get( "writeOnly" ).read( accessed );
+			fail();
+		} catch ( InspectorException e ) {
+			assertTrue( e.getCause() instanceof UnsupportedOperationException );
+		}
+
+		// Custom (created lazily, once per property)
+
+		final List<String> created = CollectionUtils.newArrayList();
+
+		PropertyAccessorFactory propertyAccessorFactory = new PropertyAccessorFactory() {
+
+			public PropertyAccessor newPropertyAccessor( final Method readMethod, final Method writeMethod ) {
+
+				created.add( readMethod.getName() );
+
+				return new PropertyAccessor() {
+
+					public Object read( Object obj )
+						throws Exception {
+
+						return "Custom " + readMethod.invoke( obj );
+					}
+
+					public void write( Object obj, Object value )
+						throws Exception {
+
+						writeMethod.invoke( obj, "Custom " + value );
+					}
+				};
+			}
+		};
+
+		properties = new JavaBeanPropertyStyle( new JavaBeanPropertyStyleConfig().setPropertyAccessorFactory( propertyAccessorFactory ) ).getProperties( Accessed.class.getName() );
+		assertTrue( created.isEmpty() );
+
+		properties.get( "name" ).write( accessed, "Bar" );
+		assertEquals( "Custom Bar", accessed.getName() );
+		assertEquals( "Custom Custom Bar", properties.get( "name" ).read( accessed ) );
+		assertEquals( "getName", created.get( 0 ) );
+		assertEquals( 1, created.size() );
+	}
+
+	public void testAnnotationIndex() {
+
+		Map<String, Property> properties = new JavaBeanPropertyStyle( new JavaBeanPropertyStyleConfig().setPrivateFieldConvention( new MessageFormat( "{0}" ) ) ).getProperties( AnnotatedFoo.class.getName() );
+
+		// Getter, then setter, then private field
+
+		Property property = properties.get( "precedence" );
+		assertEquals( "getter", property.getAnnotation( Marked.class ).value() );
+		assertTrue( property.isAnnotationPresent( Deprecated.class ) );
+		assertTrue( property.getAnnotation( Marked.class ) == property.getAnnotation( Marked.class ) );
+		assertEquals( null, property.getAnnotation( Retention.class ) );
+		assertFalse( property.isAnnotationPresent( Retention.class ) );
+
+		property = properties.get( "fieldOnly" );
+		assertEquals( "field", property.getAnnotation( Marked.class ).value() );
+
+		// Overridden originals and interfaces (same as ClassUtils.getOriginalAnnotation)
+
+		property = properties.get( "inherited" );
+		assertEquals( "super getter", property.getAnnotation( Marked.class ).value() );
+		assertTrue( ClassUtils.getOriginalAnnotation( ( (JavaBeanProperty) property ).getReadMethod(), Marked.class ) == property.getAnnotation( Marked.class ) );
+
+		property = properties.get( "interfaced" );
+		assertEquals( "interface", property.getAnnotation( Marked.class ).value() );
+		assertTrue( ClassUtils.getOriginalAnnotation( ( (JavaBeanProperty) property ).getReadMethod(), Marked.class ) == property.getAnnotation( Marked.class ) );
+
+		property = properties.get( "suppressed" );
+		assertEquals( null, property.getAnnotation( Marked.class ) );
+		assertTrue( property.isAnnotationPresent( Deprecated.class ) );
+	}
+
 	public void testConfig() {
 
 		MetawidgetTestUtils.testEqualsAndHashcode( JavaBeanPropertyStyleConfig.class, new JavaBeanPropertyStyleConfig() {
@@ -268,6 +359,38 @@ public class JavaBeanPropertyStyleTest
 	// Inner class
 	//
 
+	public static class Accessed {
+
+		//
+		// Private members
+		//
+
+		private String	mName;
+
+		//
+		// Public methods
+		//
+
+		public String getName() {
+
+			return mName;
+		}
+
+		public void setName( String name ) {
+
+			mName = name;
+		}
+
+		/**
+		 * @param writeOnly
+		 */
+
+		public void setWriteOnly( String writeOnly ) {
+
+			// Do nothing
+		}
+	}
+
 	static class Foo
 		extends SuperFoo {
 
@@ -535,4 +658,91 @@ public class JavaBeanPropertyStyleTest
 			// Do nothing
 		}
 	}
+
+	@Retention( RetentionPolicy.RUNTIME )
+	static @interface Marked {
+
+		String value();
+	}
+
+	static interface AnnotatedInterface {
+
+		@Marked( "interface" )
+		String getInterfaced();
+	}
+
+	static class SuperAnnotatedFoo {
+
+		@Marked( "super getter" )
+		public String getInherited() {
+
+			return null;
+		}
+
+		@Marked( "super getter" )
+		public String getSuppressed() {
+
+			return null;
+		}
+	}
+
+	static class AnnotatedFoo
+		extends SuperAnnotatedFoo
+		implements AnnotatedInterface {
+
+		//
+		// Private members
+		//
+
+		@Marked( "field" )
+		private String	precedence;
+
+		@Marked( "field" )
+		private String	fieldOnly;
+
+		//
+		// Public methods
+		//
+
+		@Marked( "getter" )
+		public String getPrecedence() {
+
+			return precedence;
+		}
+
+		@Marked( "setter" )
+		@Deprecated
+		public void setPrecedence( String precedence ) {
+
+			this.precedence = precedence;
+		}
+
+		public String getFieldOnly() {
+
+			return fieldOnly;
+		}
+
+		@Override
+		public String getInherited() {
+
+			return null;
+		}
+
+		/**
+		 * Explicitly overridden, with a different annotation, so as to suppress the superclass'
+		 * annotation.
+		 */
+
+		@Override
+		@Deprecated
+		public String getSuppressed() {
+
+			return null;
+		}
+
+		public String getInterfaced() {
+
+			return null;
+		}
+	}
 }
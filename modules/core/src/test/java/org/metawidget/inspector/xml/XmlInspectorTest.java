@@ -20,7 +20,9 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.io.ByteArrayInputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
 
@@ -663,6 +665,53 @@ public class XmlInspectorTest
 		assertTrue( concurrencyFailures.isEmpty() );
 	}
 
+	public void testIndexedLookups() {
+
+		// Duplicate top-level types: the first one wins (same as XmlUtils.getChildWithAttributeValue)
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://www.metawidget.org/inspection-result\" version=\"1.0\">";
+		xml += "<entity type=\"Foo\">";
+		xml += "<property name=\"bar\" type=\"Bar\"/>";
+		xml += "</entity>";
+		xml += "<entity type=\"Foo\">";
+		xml += "<property name=\"ignored\"/>";
+		xml += "</entity>";
+		xml += "<entity type=\"Bar\">";
+		xml += "<property name=\"abc\"/>";
+		xml += "</entity>";
+		xml += "</inspection-result>";
+
+		final AtomicInteger inspectPropertyCalls = new AtomicInteger();
+
+		XmlInspector inspector = new XmlInspector( new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( xml.getBytes() ) ) ) {
+
+			@Override
+			protected Map<String, String> inspectProperty( Element toInspect ) {
+
+				inspectPropertyCalls.incrementAndGet();
+				return super.inspectProperty( toInspect );
+			}
+		};
+
+		assertEquals( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\"><property name=\"bar\" type=\"Bar\"/></entity></inspection-result>", inspector.inspect( null, "Foo" ) );
+		assertEquals( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity name=\"bar\" type=\"Bar\"><property name=\"abc\"/></entity></inspection-result>", inspector.inspect( null, "Foo", "bar" ) );
+
+		// Inspection of the XML is only done once per element
+
+		int calls = inspectPropertyCalls.get();
+		assertTrue( calls > 0 );
+		inspector.inspect( null, "Foo" );
+		inspector.inspect( null, "Foo", "bar" );
+		assertEquals( calls, inspectPropertyCalls.get() );
+
+		// Results are independent copies
+
+		Element entity = XmlUtils.getFirstChildElement( inspector.inspectAsDom( null, "Foo" ) );
+		XmlUtils.getFirstChildElement( entity ).setAttribute( NAME, "changed" );
+		assertEquals( "<inspection-result xmlns=\"http://metawidget.org/inspection-result\" version=\"1.0\"><entity type=\"Foo\"><property name=\"bar\" type=\"Bar\"/></entity></inspection-result>", inspector.inspect( null, "Foo" ) );
+	}
+
 	//
 	// Inner class
 	//
@@ -238,13 +238,88 @@ public class ClassUtilsTest
 		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
 	}
 
-	public static void unregisterAllAlienClassLoaders() {
+	public void testNiceForNameCache()
+		throws Exception {
+
+		// Failures and successes are both cached
+
+		assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+		assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+		assertEquals( String.class, ClassUtils.niceForName( "java.lang.String" ) );
+		assertTrue( String.class == ClassUtils.niceForName( "java.lang.String" ) );
+		assertEquals( int.class, ClassUtils.niceForName( "int" ) );
+		assertEquals( int.class, ClassUtils.niceForName( "int" ) );
+
+		// A cached failure for one ClassLoader does not apply to another
+
+		ClassLoader alienClassLoader = new AlienClassLoader();
+		alienClassLoader.loadClass( "org.metawidget.util.AlienSet" );
+		ClassUtilsTest.unregisterAllAlienClassLoaders();
+
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
+		assertEquals( "org.metawidget.util.AlienSet", ClassUtils.niceForName( "org.metawidget.util.AlienSet", alienClassLoader ).getName() );
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
+
+		Thread thread = Thread.currentThread();
+		ClassLoader threadClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader( alienClassLoader );
+
+		try {
+			assertEquals( "org.metawidget.util.AlienSet", ClassUtils.niceForName( "org.metawidget.util.AlienSet" ).getName() );
+		} finally {
+			thread.setContextClassLoader( threadClassLoader );
+		}
+
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
+
+		// Registering the same alien ClassLoader twice is harmless
+
+		try {
+			ClassUtils.registerAlienClassLoader( alienClassLoader );
+			ClassUtils.registerAlienClassLoader( alienClassLoader );
+			assertEquals( "org.metawidget.util.AlienSet", ClassUtils.niceForName( "org.metawidget.util.AlienSet" ).getName() );
+		} finally {
+			ClassUtilsTest.unregisterAllAlienClassLoaders();
+		}
+
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet" ) );
+
+		// Failures against non-system ClassLoaders (eg. a Web application's) are cached too...
+
+		LateClassLoader lateClassLoader = new LateClassLoader();
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet", lateClassLoader ) );
+		assertEquals( 1, lateClassLoader.getFindClassCount() );
+
+		thread.setContextClassLoader( lateClassLoader );
+
+		try {
+			assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+			assertEquals( null, ClassUtils.niceForName( "Login Screen" ) );
+			assertEquals( 2, lateClassLoader.getFindClassCount() );
+		} finally {
+			thread.setContextClassLoader( threadClassLoader );
+		}
+
+		lateClassLoader.setDefinable( true );
+		assertEquals( null, ClassUtils.niceForName( "org.metawidget.util.AlienSet", lateClassLoader ) );
+		assertEquals( 2, lateClassLoader.getFindClassCount() );
+
+		// ...until an alien ClassLoader is registered
 
-		synchronized ( ClassUtils.ALIEN_CLASSLOADERS ) {
-			ClassUtils.ALIEN_CLASSLOADERS.clear();
+		try {
+			ClassUtils.registerAlienClassLoader( new AlienClassLoader() );
+			assertEquals( "org.metawidget.util.AlienSet", ClassUtils.niceForName( "org.metawidget.util.AlienSet", lateClassLoader ).getName() );
+			assertTrue( lateClassLoader == ClassUtils.niceForName( "org.metawidget.util.AlienSet", lateClassLoader ).getClassLoader() );
+		} finally {
+			ClassUtilsTest.unregisterAllAlienClassLoaders();
 		}
 	}
 
+	public static void unregisterAllAlienClassLoaders() {
+
+		ClassUtils.unregisterAllAlienClassLoaders();
+	}
+
 	public static void testGetPackagesAsFolderNames() {
 
 		assertEquals( "/java/lang", ClassUtils.getPackagesAsFolderNames( String.class ) );
@@ -272,6 +347,49 @@ public class ClassUtilsTest
 		}
 	}
 
+	/**
+	 * ClassLoader that cannot find AlienSet until told it can.
+	 */
+
+	public static class LateClassLoader
+		extends AlienClassLoader {
+
+		//
+		// Private members
+		//
+
+		private boolean	mDefinable;
+
+		private int		mFindClassCount;
+
+		//
+		// Public methods
+		//
+
+		public void setDefinable( boolean definable ) {
+
+			mDefinable = definable;
+		}
+
+		public int getFindClassCount() {
+
+			return mFindClassCount;
+		}
+
+		@Override
+		public Class<?> findClass( String name )
+			throws ClassNotFoundException {
+
+			mFindClassCount++;
+
+			if ( !mDefinable ) {
+				throw new ClassNotFoundException( name );
+			}
+
+			return super.findClass( name );
+		}
+	}
+
 	public static class Foo {
 
 		//
@@ -17,12 +17,20 @@
 package org.metawidget.util;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
 
 import junit.framework.TestCase;
 
 import org.metawidget.util.XmlUtils.CachingContentHandler;
+import org.metawidget.util.XmlUtils.DocumentBuilderPool;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -167,6 +175,79 @@ public class XmlUtilsTest
 		assertEquals( "<foo>&lt;&apos;&quot;&amp;&gt;</foo>", XmlUtils.documentToString( document, true ) );
 	}
 
+	public void testDocumentBuilderPool()
+		throws Exception {
+
+		// Concurrent parsing
+
+		final CountDownLatch latch = new CountDownLatch( 20 );
+		final List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+
+		for ( int loop = 0; loop < 20; loop++ ) {
+			final int id = loop;
+
+			new Thread( new Runnable() {
+
+				public void run() {
+
+					try {
+						for ( int parse = 0; parse < 50; parse++ ) {
+							Document document = XmlUtils.documentFromString( "<foo id=\"" + id + "\"><bar id=\"" + parse + "\"/></foo>" );
+							Document newDocument = XmlUtils.newDocument();
+							newDocument.appendChild( XmlUtils.importElement( newDocument, document.getDocumentElement() ) );
+							results.add( XmlUtils.documentToString( newDocument, false ) );
+						}
+					} finally {
+						latch.countDown();
+					}
+				}
+			} ).start();
+		}
+
+		latch.await();
+		assertEquals( 1000, results.size() );
+
+		for ( int loop = 0; loop < 20; loop++ ) {
+			for ( int parse = 0; parse < 50; parse++ ) {
+				assertTrue( results.contains( "<foo id=\"" + loop + "\"><bar id=\"" + parse + "\"/></foo>" ) );
+			}
+		}
+
+		// Pool is bounded
+
+		DocumentBuilderPool pool = new DocumentBuilderPool( DocumentBuilderFactory.newInstance() );
+		List<DocumentBuilder> documentBuilders = CollectionUtils.newArrayList();
+		int maximumPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+
+		for ( int loop = 0; loop < maximumPoolSize + 5; loop++ ) {
+			documentBuilders.add( pool.borrow() );
+		}
+
+		assertEquals( 0, pool.size() );
+
+		for ( DocumentBuilder documentBuilder : documentBuilders ) {
+			pool.release( documentBuilder, true );
+		}
+
+		assertEquals( maximumPoolSize, pool.size() );
+		assertTrue( documentBuilders.contains( pool.borrow() ) );
+		assertEquals( maximumPoolSize - 1, pool.size() );
+
+		// Pluggable factory
+
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setIgnoringComments( false );
+
+		try {
+			XmlUtils.setDocumentBuilderFactory( factory );
+			assertEquals( Node.COMMENT_NODE, XmlUtils.documentFromString( "<foo><!--bar--></foo>" ).getDocumentElement().getFirstChild().getNodeType() );
+		} finally {
+			XmlUtils.setDocumentBuilderFactory( null );
+		}
+
+		assertEquals( null, XmlUtils.documentFromString( "<foo><!--bar--></foo>" ).getDocumentElement().getFirstChild() );
+	}
+
 	public void testCombineElements() {
 
 		Document documentMaster = XmlUtils.documentFromString( "<inspection-result><foo fooAttr=\"1\"><bar barAttr=\"2\" data=\"bar2\"/></foo></inspection-result>" );
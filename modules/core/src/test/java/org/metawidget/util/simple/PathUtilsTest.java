@@ -49,4 +49,12 @@ public class PathUtilsTest
 
 		assertEquals( "type", PathUtils.parsePath( "communication.type", '.' ).getNamesAsArray()[0] );
 	}
+
+	public void testToPath() {
+
+		assertEquals( "foo", PathUtils.toPath( "foo" ) );
+		assertEquals( "foo", PathUtils.toPath( "foo", (String[]) null ) );
+		assertEquals( "foo/bar/baz", PathUtils.toPath( "foo", "bar", "baz" ) );
+		assertEquals( "baz", PathUtils.parsePath( PathUtils.toPath( "foo", "bar", "baz" ) ).getNamesAsArray()[1] );
+	}
 }
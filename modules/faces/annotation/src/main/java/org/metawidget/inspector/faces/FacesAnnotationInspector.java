@@ -56,6 +56,12 @@ public class FacesAnnotationInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectProperty( Property property )
 		throws Exception {
@@ -20,12 +20,15 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import javax.faces.application.Application;
 import javax.faces.component.EditableValueHolder;
@@ -183,6 +186,15 @@ public abstract class UIMetawidget
 
 	private Map<Object, Object>				mClientProperties;
 
+	private boolean							mReuseUnchangedWidgets;
+
+	/**
+	 * Digest of the inspection result (and read-only state) the current children were built from.
+	 * Only used if <code>setReuseUnchangedWidgets</code>.
+	 */
+
+	private String							mBuiltInspectionResultDigest;
+
 	/* package private */Pipeline			mPipeline;
 
 	/* package private */Object				mBuildWidgetsSupport;
@@ -260,6 +272,7 @@ public abstract class UIMetawidget
 	public void setConfig( String config ) {
 
 		mPipeline.setConfig( config );
+		mBuiltInspectionResultDigest = null;
 	}
 
 	public void setInspector( Inspector inspector ) {
@@ -399,6 +412,36 @@ public abstract class UIMetawidget
 		mBuildWidgetsOnAjaxRequest = buildWidgetsOnAjaxRequest;
 	}
 
+	public boolean isReuseUnchangedWidgets() {
+
+		return mReuseUnchangedWidgets;
+	}
+
+	/**
+	 * By default, <code>UIMetawidget</code> destroys and recreates its generated components on every
+	 * request (see <code>COMPONENT_ATTRIBUTE_NOT_RECREATABLE</code>). Under JSF 2 partial state
+	 * saving, this means every generated component is recorded as dynamically removed and re-added,
+	 * which inflates the view state and the time taken to save and restore it.
+	 * <p>
+	 * Clients can use <code>setReuseUnchangedWidgets</code> to instruct <code>UIMetawidget</code> to
+	 * remember a digest of the inspection result (and read-only state) its components were built
+	 * from. If the next inspection result is unchanged, the existing components are reused in place
+	 * and the <code>WidgetBuilders</code>, <code>WidgetProcessors</code> and <code>Layout</code> are
+	 * not run. If it has changed, the components are recreated as usual. Nested Metawidgets make
+	 * the same decision for themselves, so a change deep in a form only recreates the nested
+	 * Metawidget it is in.
+	 * <p>
+	 * This requires <code>WidgetBuilders</code> whose components depend only on the inspection
+	 * result (which is true of the built-in ones, because they bind to values using EL expressions
+	 * rather than copying them).
+	 */
+
+	public void setReuseUnchangedWidgets( boolean reuseUnchangedWidgets ) {
+
+		mReuseUnchangedWidgets = reuseUnchangedWidgets;
+		mBuiltInspectionResultDigest = null;
+	}
+
 	/**
 	 * @return the text of the label. This may itself contain a value expression, such as
 	 *         <code>UiLabel( "#{foo.name}'s name" )</code>
@@ -718,6 +761,10 @@ public abstract class UIMetawidget
 
 		nestedMetawidget.copyParameters( this );
 
+		// Reuse
+
+		nestedMetawidget.setReuseUnchangedWidgets( mReuseUnchangedWidgets );
+
 		// Note: it is very dangerous to do, say...
 		//
 		// to.getAttributes().putAll( from.getAttributes() );
@@ -731,13 +778,15 @@ public abstract class UIMetawidget
 	@Override
 	public Object saveState( FacesContext context ) {
 
-		Object values[] = new Object[6];
+		Object values[] = new Object[8];
 		values[0] = super.saveState( context );
 		values[1] = mExplicitRendererType;
 		values[2] = mReadOnly;
 		values[3] = mPipeline.getConfig();
 		values[4] = mInspectFromParent;
 		values[5] = mBuildWidgetsOnAjaxRequest;
+		values[6] = mReuseUnchangedWidgets;
+		values[7] = mBuiltInspectionResultDigest;
 
 		return values;
 	}
@@ -753,6 +802,8 @@ public abstract class UIMetawidget
 		mPipeline.setConfig( values[3] );
 		mInspectFromParent = (Boolean) values[4];
 		mBuildWidgetsOnAjaxRequest = (Boolean) values[5];
+		mReuseUnchangedWidgets = (Boolean) values[6];
+		mBuiltInspectionResultDigest = (String) values[7];
 	}
 
 	//
@@ -867,7 +918,7 @@ public abstract class UIMetawidget
 		ValueBinding valueBinding = getValueBinding( "value" );
 
 		if ( valueBinding != null ) {
-			mPipeline.buildWidgets( inspect( valueBinding, mInspectFromParent ) );
+			buildWidgets( inspect( valueBinding, mInspectFromParent ) );
 			return;
 		}
 
@@ -876,27 +927,27 @@ public abstract class UIMetawidget
 		Object value = getValue();
 
 		if ( value instanceof String ) {
-			mPipeline.buildWidgets( mPipeline.inspectAsDom( null, (String) value ) );
+			buildWidgets( mPipeline.inspectAsDom( null, (String) value ) );
 			return;
 		}
 
 		// ...or a Class (for 'binding' attribute)...
 
 		if ( value instanceof Class<?> ) {
-			mPipeline.buildWidgets( mPipeline.inspectAsDom( null, ( (Class<?>) value ).getName() ) );
+			buildWidgets( mPipeline.inspectAsDom( null, ( (Class<?>) value ).getName() ) );
 			return;
 		}
 
 		// ...or a direct Object (for 'binding' attribute)...
 
 		if ( value != null ) {
-			mPipeline.buildWidgets( mPipeline.inspectAsDom( value, value.getClass().getName() ) );
+			buildWidgets( mPipeline.inspectAsDom( value, value.getClass().getName() ) );
 			return;
 		}
 
 		// ...or run without inspection (using the Metawidget purely for layout)
 
-		mPipeline.buildWidgets( null );
+		buildWidgets( null );
 	}
 
 	protected abstract String getDefaultConfiguration();
@@ -1036,6 +1087,46 @@ public abstract class UIMetawidget
 	// Private methods
 	//
 
+	/**
+	 * Build widgets from the given inspection result or, if <code>setReuseUnchangedWidgets</code>
+	 * and the inspection result is unchanged since the last build, reuse the existing ones.
+	 */
+
+	private void buildWidgets( Element inspectionResult )
+		throws Exception {
+
+		if ( !mReuseUnchangedWidgets || inspectionResult == null ) {
+			mBuiltInspectionResultDigest = null;
+			mPipeline.buildWidgets( inspectionResult );
+			return;
+		}
+
+		String digest = getInspectionResultDigest( inspectionResult );
+
+		if ( digest.equals( mBuiltInspectionResultDigest ) && getChildCount() > 0 ) {
+			LOG.trace( "Reusing widgets (inspection result unchanged)" );
+			return;
+		}
+
+		mPipeline.buildWidgets( inspectionResult );
+		mBuiltInspectionResultDigest = digest;
+	}
+
+	/**
+	 * Digest the inspection result and the read-only state. Only the digest, not the inspection
+	 * result itself, is kept in the view state.
+	 */
+
+	private String getInspectionResultDigest( Element inspectionResult )
+		throws Exception {
+
+		MessageDigest messageDigest = MessageDigest.getInstance( "SHA-1" );
+		messageDigest.update( XmlUtils.nodeToString( inspectionResult, false ).getBytes( "UTF-8" ) );
+		messageDigest.update( (byte) ( isReadOnly() ? 1 : 0 ) );
+
+		return new BigInteger( 1, messageDigest.digest() ).toString( Character.MAX_RADIX );
+	}
+
 	/**
 	 * Removes all recreatable children (i.e. not marked COMPONENT_ATTRIBUTE_NOT_RECREATABLE). Does
 	 * not remove top-level <code>UIComponent</code>s if any of their
@@ -1432,6 +1523,7 @@ public abstract class UIMetawidget
 
 			if ( !rendered ) {
 				getMetawidget().getChildren().clear();
+				getMetawidget().mBuiltInspectionResultDigest = null;
 			}
 		}
 
@@ -1450,11 +1542,21 @@ public abstract class UIMetawidget
 				// because the top-level is the 'original' whereas the nested-level is the
 				// 'moved' (i.e. at its final destination).
 
-				for ( Iterator<UIComponent> i = getMetawidget().getChildren().iterator(); i.hasNext(); ) {
+				List<UIComponent> children = getMetawidget().getChildren();
+				Map<String, List<UIComponent>> childrenById = CollectionUtils.newHashMap();
+
+				for ( UIComponent child : children ) {
+					indexIds( child, child, childrenById );
+				}
+
+				Set<UIComponent> removedChildren = CollectionUtils.newHashSet();
+
+				for ( Iterator<UIComponent> i = children.iterator(); i.hasNext(); ) {
 					UIComponent component = i.next();
 
-					if ( findDuplicateChild( getMetawidget(), component ) != null ) {
+					if ( isDuplicateChild( component, childrenById, removedChildren ) ) {
 						i.remove();
+						removedChildren.add( component );
 					}
 				}
 
@@ -1487,31 +1589,57 @@ public abstract class UIMetawidget
 		// Private methods
 		//
 
-		private UIComponent findDuplicateChild( UIComponent componentWithChildren, UIComponent originalComponent ) {
+		/**
+		 * Index the id of the given component, and of all its descendants, against the top-level
+		 * child it belongs to. This avoids searching the whole tree for each child.
+		 */
 
-			String id = originalComponent.getId();
+		private void indexIds( UIComponent component, UIComponent topLevelChild, Map<String, List<UIComponent>> childrenById ) {
 
-			if ( id == null ) {
-				return null;
-			}
+			String id = component.getId();
 
-			for ( UIComponent child : componentWithChildren.getChildren() ) {
-				if ( child == originalComponent ) {
-					continue;
-				}
+			if ( id != null ) {
+				List<UIComponent> topLevelChildren = childrenById.get( id );
 
-				if ( id.equals( child.getId() ) ) {
-					return child;
+				if ( topLevelChildren == null ) {
+					topLevelChildren = CollectionUtils.newArrayList();
+					childrenById.put( id, topLevelChildren );
 				}
 
-				UIComponent found = findDuplicateChild( child, originalComponent );
+				topLevelChildren.add( topLevelChild );
+			}
+
+			if ( component.getChildCount() == 0 ) {
+				return;
+			}
+
+			for ( UIComponent child : component.getChildren() ) {
+				indexIds( child, topLevelChild, childrenById );
+			}
+		}
+
+		/**
+		 * @return true if a component with the same id exists anywhere in the Metawidget, other
+		 *         than within the given top-level child (or within a top-level child already
+		 *         removed)
+		 */
 
-				if ( found != null ) {
-					return found;
+		private boolean isDuplicateChild( UIComponent topLevelChild, Map<String, List<UIComponent>> childrenById, Set<UIComponent> removedChildren ) {
+
+			String id = topLevelChild.getId();
+
+			if ( id == null ) {
+				return false;
+			}
+
+			for ( UIComponent otherTopLevelChild : childrenById.get( id ) ) {
+
+				if ( otherTopLevelChild != topLevelChild && !removedChildren.contains( otherTopLevelChild ) ) {
+					return true;
 				}
 			}
 
-			return null;
+			return false;
 		}
 	}
 
@@ -1641,4 +1769,4 @@ public abstract class UIMetawidget
 			mMetawidget.buildWidgets();
 		}
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -16,19 +16,19 @@
 
 package org.metawidget.inspectionresultprocessor.faces;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.regex.Matcher;
 
 import javax.faces.context.FacesContext;
+import javax.faces.el.ValueBinding;
 
 import org.metawidget.faces.FacesUtils;
 import org.metawidget.faces.component.UIMetawidget;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessorException;
 import org.metawidget.inspectionresultprocessor.impl.BaseInspectionResultProcessor;
+import org.metawidget.inspectionresultprocessor.impl.BaseParsedValueCache;
 import org.metawidget.inspector.impl.propertystyle.PropertyStyle;
 import org.metawidget.util.ArrayUtils;
-import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.simple.StringUtils;
 import org.w3c.dom.Element;
 
@@ -56,6 +56,13 @@ public class FacesInspectionResultProcessor
 
 	private String[]			mIgnoreAttributes;
 
+	/**
+	 * Attribute values containing expressions, parsed. Bounded by
+	 * <code>FacesInspectionResultProcessorConfig.setMaximumCacheSize</code>.
+	 */
+
+	private ParsedValueCache	mParsedValues;
+
 	//
 	// Constructors
 	//
@@ -77,6 +84,7 @@ public class FacesInspectionResultProcessor
 
 		mInjectThis = config.getInjectThis();
 		mIgnoreAttributes = config.getIgnoreAttributes();
+		mParsedValues = new ParsedValueCache( config.getMaximumCacheSize() );
 	}
 
 	//
@@ -168,74 +176,78 @@ public class FacesInspectionResultProcessor
 				continue;
 			}
 
-			// ...that contains an EL expression...
+			// ...that may contain an EL expression (most attributes cannot, so skip them without
+			// any pattern matching)...
 
-			Matcher matcher = FacesUtils.matchExpression( value );
-			int matchOffset = 0;
+			if ( value.indexOf( '{' ) == -1 ) {
+				continue;
+			}
 
-			while ( matcher.find() ) {
+			try {
+				// ...parse it (once, if there is room in the cache), evaluate it, and replace it
 
-				String expression = matcher.group( 0 );
+				attributes.put( key, mParsedValues.evaluate( value, FacesContext.getCurrentInstance() ) );
 
-				// Sanity checks
+			} catch ( InspectionResultProcessorException e ) {
+				throw e;
+			} catch ( Exception e ) {
 
-				if ( mInjectThis == null && matcher.group( 2 ).startsWith( UNDERSCORE_THIS_ATTRIBUTE + StringUtils.SEPARATOR_DOT ) ) {
-					throw InspectionResultProcessorException.newException( "Expression for '" + value + "' contains '" + UNDERSCORE_THIS_ATTRIBUTE + "', but " + FacesInspectionResultProcessorConfig.class.getSimpleName() + ".setInjectThis is null" );
-				}
+				// We have found it helpful to include the actual expression we were trying to
+				// evaluate
 
-				// ...evaluate it...
+				throw InspectionResultProcessorException.newException( "Unable to evaluate " + value, e );
+			}
+		}
+	}
 
-				try {
-					FacesContext context = FacesContext.getCurrentInstance();
-					@SuppressWarnings( "deprecation" )
-					Object valueObject = context.getApplication().createValueBinding( expression ).getValue( context );
-					String valueObjectAsString;
+	//
+	// Inner class
+	//
 
-					if ( valueObject == null ) {
+	/**
+	 * Attribute values, parsed into their literal text and their EL expressions. The expressions
+	 * are parsed into <code>ValueBindings</code>.
+	 */
 
-						// Support the default case (when the String is just one EL)
+	@SuppressWarnings( "deprecation" )
+	private class ParsedValueCache
+		extends BaseParsedValueCache<ValueBinding, FacesContext> {
 
-						if ( matcher.start() == 0 && matcher.end() == value.length() ) {
-							value = null;
-							break;
-						}
+		//
+		// Constructor
+		//
 
-						valueObjectAsString = "";
-					} else {
+		public ParsedValueCache( int maximumSize ) {
 
-						// Support the default case (when the String is just one EL)
+			super( maximumSize );
+		}
 
-						if ( matcher.start() == 0 && matcher.end() == value.length() ) {
-							if ( valueObject instanceof Collection<?> ) {
-								value = CollectionUtils.toString( (Collection<?>) valueObject );
-							} else if ( valueObject.getClass().isArray() ) {
-								value = ArrayUtils.toString( valueObject );
-							} else {
-								value = String.valueOf( valueObject );
-							}
-							break;
-						}
-						
-						valueObjectAsString = String.valueOf( valueObject );
-					}
+		//
+		// Protected methods
+		//
 
-					// Replace multiple ELs within the String
+		@Override
+		protected Matcher matchExpressions( String value ) {
 
-					value = new StringBuilder( value ).replace( matcher.start() + matchOffset, matcher.end() + matchOffset, valueObjectAsString ).toString();
-					matchOffset += valueObjectAsString.length() - ( matcher.end() - matcher.start() );
+			return FacesUtils.matchExpression( value );
+		}
 
-				} catch ( Exception e ) {
+		@Override
+		protected ValueBinding parseExpression( Matcher matcher, FacesContext context ) {
 
-					// We have found it helpful to include the actual expression we were trying to
-					// evaluate
+			// Sanity checks (attribute values that fail them are never cached)
 
-					throw InspectionResultProcessorException.newException( "Unable to evaluate " + value, e );
-				}
+			if ( mInjectThis == null && matcher.group( 2 ).startsWith( UNDERSCORE_THIS_ATTRIBUTE + StringUtils.SEPARATOR_DOT ) ) {
+				throw InspectionResultProcessorException.newException( "Expression for '" + matcher.group( 0 ) + "' contains '" + UNDERSCORE_THIS_ATTRIBUTE + "', but " + FacesInspectionResultProcessorConfig.class.getSimpleName() + ".setInjectThis is null" );
 			}
 
-			// ...and replace it
+			return context.getApplication().createValueBinding( matcher.group( 0 ) );
+		}
+
+		@Override
+		protected Object evaluateExpression( ValueBinding expression, FacesContext context ) {
 
-			attributes.put( key, value );
+			return expression.getValue( context );
 		}
 	}
 }
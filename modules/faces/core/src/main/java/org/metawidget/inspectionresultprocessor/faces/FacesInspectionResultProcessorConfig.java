@@ -38,6 +38,8 @@ public class FacesInspectionResultProcessorConfig {
 
 	private String[]		mIgnoreAttributes	= new String[] { FACES_AJAX_ACTION, FACES_CONVERTER_ID, FACES_EXPRESSION, FACES_LOOKUP, FACES_LOOKUP_ITEM_LABEL, FACES_LOOKUP_ITEM_VALUE, FACES_SUGGEST };
 
+	private int				mMaximumCacheSize	= 1000;
+
 	//
 	// Public methods
 	//
@@ -87,6 +89,24 @@ public class FacesInspectionResultProcessorConfig {
 		return this;
 	}
 
+	/**
+	 * Sets the maximum number of attribute values whose parsed EL expressions are cached. Once this
+	 * is reached, further attribute values are parsed every time they are evaluated.
+	 * <p>
+	 * 1000 by default. Set to 0 to disable caching.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public FacesInspectionResultProcessorConfig setMaximumCacheSize( int maximumCacheSize ) {
+
+		mMaximumCacheSize = maximumCacheSize;
+
+		// Fluent interface
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -106,6 +126,10 @@ public class FacesInspectionResultProcessorConfig {
 			return false;
 		}
 
+		if ( mMaximumCacheSize != ( (FacesInspectionResultProcessorConfig) that ).mMaximumCacheSize ) {
+			return false;
+		}
+
 		return true;
 	}
 
@@ -115,6 +139,7 @@ public class FacesInspectionResultProcessorConfig {
 		int hashCode = 1;
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mInjectThis );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mIgnoreAttributes );
+		hashCode = 31 * hashCode + mMaximumCacheSize;
 
 		return hashCode;
 	}
@@ -132,4 +157,9 @@ public class FacesInspectionResultProcessorConfig {
 
 		return mIgnoreAttributes;
 	}
+
+	protected int getMaximumCacheSize() {
+
+		return mMaximumCacheSize;
+	}
 }
\ No newline at end of file
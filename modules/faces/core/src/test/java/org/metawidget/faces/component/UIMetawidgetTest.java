@@ -32,7 +32,9 @@ import org.metawidget.config.iface.ConfigReader;
 import org.metawidget.faces.FacesMetawidgetTests.MockFacesContext;
 import org.metawidget.faces.component.html.HtmlMetawidget;
 import org.metawidget.faces.component.html.widgetbuilder.HtmlWidgetBuilder;
+import org.metawidget.faces.component.layout.SimpleLayout;
 import org.metawidget.iface.MetawidgetException;
+import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.propertytype.PropertyTypeInspector;
 import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.LogUtils;
@@ -176,6 +178,89 @@ public class UIMetawidgetTest
 		assertEquals( notRecreatableComponent, metawidget.getChildren().get( 0 ) );
 	}
 
+	@SuppressWarnings( "deprecation" )
+	public void testReuseUnchangedWidgets()
+		throws Exception {
+
+		final StringBuilder inspectionResult = new StringBuilder( "<inspection-result><entity type=\"Foo\"><property name=\"bar\"/></entity></inspection-result>" );
+
+		UIMetawidget metawidget = new HtmlMetawidget() {
+
+			@Override
+			protected Pipeline newPipeline() {
+
+				return new Pipeline() {
+
+					@Override
+					protected void configure() {
+
+						// Do not configure from metawidget.xml
+					}
+				};
+			}
+		};
+
+		metawidget.setInspector( new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				return inspectionResult.toString();
+			}
+		} );
+
+		metawidget.setWidgetBuilder( new WidgetBuilder<UIComponent, UIMetawidget>() {
+
+			public UIComponent buildWidget( String elementName, Map<String, String> attributes, UIMetawidget buildingMetawidget ) {
+
+				if ( ENTITY.equals( elementName ) ) {
+					return null;
+				}
+
+				return new HtmlOutputText();
+			}
+		} );
+
+		metawidget.setLayout( new SimpleLayout() );
+		metawidget.setValueBinding( "value", mContext.getApplication().createValueBinding( "#{foo}" ) );
+		assertFalse( metawidget.isReuseUnchangedWidgets() );
+		metawidget.setReuseUnchangedWidgets( true );
+
+		metawidget.buildWidgets();
+		assertEquals( 1, metawidget.getChildCount() );
+		UIComponent built = metawidget.getChildren().get( 0 );
+
+		// Unchanged
+
+		metawidget.buildWidgets();
+		assertEquals( 1, metawidget.getChildCount() );
+		assertTrue( built == metawidget.getChildren().get( 0 ) );
+
+		// Changed inspection result
+
+		inspectionResult.insert( inspectionResult.indexOf( "/>" ), " required=\"true\"" );
+		metawidget.buildWidgets();
+		assertEquals( 1, metawidget.getChildCount() );
+		assertTrue( built != metawidget.getChildren().get( 0 ) );
+		built = metawidget.getChildren().get( 0 );
+
+		// Changed read-only
+
+		metawidget.setReadOnly( true );
+		metawidget.buildWidgets();
+		assertTrue( built != metawidget.getChildren().get( 0 ) );
+		built = metawidget.getChildren().get( 0 );
+
+		metawidget.buildWidgets();
+		assertTrue( built == metawidget.getChildren().get( 0 ) );
+
+		// Not reusing
+
+		metawidget.setReuseUnchangedWidgets( false );
+		metawidget.buildWidgets();
+		assertEquals( 1, metawidget.getChildCount() );
+		assertTrue( built != metawidget.getChildren().get( 0 ) );
+	}
+
 	public void testStub()
 		throws Exception {
 
@@ -21,7 +21,10 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 import java.util.List;
 import java.util.Map;
 
+import javax.faces.application.Application;
+import javax.faces.application.ApplicationWrapper;
 import javax.faces.context.FacesContext;
+import javax.faces.el.ValueBinding;
 
 import junit.framework.TestCase;
 
@@ -296,6 +299,73 @@ public class FacesInspectionResultProcessorTest
 		assertEquals( entity.getChildNodes().getLength(), 1 );
 	}
 
+	public void testParsedValuesAreCached() {
+
+		final List<String> createdValueBindings = CollectionUtils.newArrayList();
+
+		mContext.release();
+		mContext = new MockFacesContext() {
+
+			@Override
+			public Application getApplication() {
+
+				final Application application = super.getApplication();
+
+				return new ApplicationWrapper() {
+
+					@Override
+					public Application getWrapped() {
+
+						return application;
+					}
+
+					@Override
+					@SuppressWarnings( "deprecation" )
+					public ValueBinding createValueBinding( String expression ) {
+
+						createdValueBindings.add( expression );
+						return super.createValueBinding( expression );
+					}
+				};
+			}
+		};
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://www.metawidget.org/inspection-result\" version=\"1.0\">";
+		xml += "<entity type=\"Foo\">";
+		xml += "<property name=\"bar1\" value-is-el=\"#{baz1}\" value-is-text=\"text {}\"/>";
+		xml += "<property name=\"bar2\" value-is-embedded-el=\"first #{abc} middle #{null}#{def} last\"/>";
+		xml += "<property name=\"bar3\" value-is-el=\"#{baz1}\"/>";
+		xml += "</entity></inspection-result>";
+
+		FacesInspectionResultProcessor inspectionResultProcessor = new FacesInspectionResultProcessor();
+		String result = inspectionResultProcessor.processInspectionResult( xml, null, null, "Foo" );
+
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( result ).getDocumentElement() );
+		Element property = XmlUtils.getFirstChildElement( entity );
+		assertEquals( "result of #{baz1}", property.getAttribute( "value-is-el" ) );
+		assertEquals( "text {}", property.getAttribute( "value-is-text" ) );
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "first result of #{abc} middle result of #{def} last", property.getAttribute( "value-is-embedded-el" ) );
+		property = XmlUtils.getNextSiblingElement( property );
+		assertEquals( "result of #{baz1}", property.getAttribute( "value-is-el" ) );
+
+		// Each attribute value is parsed once
+
+		assertEquals( 4, createdValueBindings.size() );
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, null, "Foo" ) );
+		assertEquals( 4, createdValueBindings.size() );
+
+		// Not cached
+
+		createdValueBindings.clear();
+		inspectionResultProcessor = new FacesInspectionResultProcessor( new FacesInspectionResultProcessorConfig().setMaximumCacheSize( 0 ) );
+
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, null, "Foo" ) );
+		assertEquals( result, inspectionResultProcessor.processInspectionResult( xml, null, null, "Foo" ) );
+		assertEquals( 10, createdValueBindings.size() );
+	}
+
 	//
 	// Protected methods
 	//
@@ -829,7 +829,8 @@ public class GwtMetawidget
 			Inspector inspector = mPipeline.getInspector();
 
 			if ( mLastInspection == null ) {
-				// Special support for GwtRemoteInspectorProxy
+				// Special support for GwtRemoteInspectorProxy. Nested GwtMetawidgets share the
+				// same proxy, so inspect their paths in advance (in the same round trip)
 
 				if ( inspector instanceof GwtRemoteInspectorProxy ) {
 					TypeAndNames typeAndNames = PathUtils.parsePath( mPath );
@@ -20,9 +20,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.metawidget.inspector.gwt.remote.iface.CompactInspectionResultDecoder;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults;
 import org.metawidget.pipeline.base.BasePipeline;
 import org.metawidget.widgetprocessor.iface.WidgetProcessor;
 
+import com.google.gwt.xml.client.Document;
 import com.google.gwt.xml.client.Element;
 import com.google.gwt.xml.client.NamedNodeMap;
 import com.google.gwt.xml.client.Node;
@@ -70,9 +73,21 @@ public abstract class GwtPipeline<W, C extends W, M extends C>
 	// Protected methods
 	//
 
+	/**
+	 * Converts the given String to an Element.
+	 * <p>
+	 * As well as XML, accepts the compact format described by
+	 * <code>GwtRemoteInspectionResults</code>, which is built into Elements directly rather than
+	 * going through the browser's XML parser.
+	 */
+
 	@Override
 	protected Element stringToElement( String xml ) {
 
+		if ( xml != null && xml.startsWith( GwtRemoteInspectionResults.COMPACT_SEPARATOR ) ) {
+			return compactStringToElement( xml );
+		}
+
 		return XMLParser.parse( xml ).getDocumentElement();
 	}
 
@@ -136,4 +151,38 @@ public abstract class GwtPipeline<W, C extends W, M extends C>
 
 		return attributes;
 	}
+
+	//
+	// Private methods
+	//
+
+	private Element compactStringToElement( String compact ) {
+
+		final Document document = XMLParser.createDocument();
+
+		Element root = new CompactInspectionResultDecoder<Element>() {
+
+			@Override
+			protected Element createElement( String name ) {
+
+				return document.createElement( name );
+			}
+
+			@Override
+			protected void setAttribute( Element element, String name, String value ) {
+
+				element.setAttribute( name, value );
+			}
+
+			@Override
+			protected void appendChild( Element parent, Element child ) {
+
+				parent.appendChild( child );
+			}
+		}.decode( compact );
+
+		document.appendChild( root );
+
+		return root;
+	}
 }
@@ -17,10 +17,15 @@
 package org.metawidget.inspector.gwt.remote.client;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspector;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectorAsync;
 import org.metawidget.inspector.iface.Inspector;
+import org.metawidget.util.simple.ObjectUtils;
+import org.metawidget.util.simple.PathUtils;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -37,6 +42,18 @@ import com.google.gwt.user.client.rpc.ServiceDefTarget;
  * rather than the entire object. This is because some <code>Inspectors</code> inspect the
  * <em>value</em> of the properties (eg. <code>PropertyTypeInspector</code>). On a case-by-case
  * basis, however, such optimization is possible - see <code>GwtMetawidget.rebind</code>.
+ * <p>
+ * To save a round trip per nested <code>GwtMetawidget</code>, <code>inspectAll</code> asks the
+ * server to inspect nested properties in advance. Their results are held until the nested
+ * <code>GwtMetawidget</code> asks for them, and each is used at most once. They are discarded as
+ * soon as a different object is inspected.
+ * <p>
+ * Where the server's inspection results do <em>not</em> depend on values, they can instead be
+ * cached by type and names (see <code>GwtRemoteInspectorProxyConfig</code>). Cached results are
+ * dropped whenever the server reports a different metadata version. Each time a different object
+ * is inspected, the proxy first asks the server for its metadata version (a small round trip).
+ * After that, cached results are answered without a round trip. If the server has no metadata
+ * version, nothing is cached.
  *
  * @author Richard Kennard
  */
@@ -48,7 +65,39 @@ public class GwtRemoteInspectorProxy
 	// Private members
 	//
 
-	private GwtRemoteInspectorAsync	mInspector;
+	private GwtRemoteInspectorAsync		mInspector;
+
+	private final int					mNestedInspectionDepth;
+
+	/**
+	 * Inspection results returned in advance by <code>inspectAll</code>, keyed by path.
+	 */
+
+	private final Map<String, String>	mInspectionResults	= new HashMap<String, String>();
+
+	/**
+	 * Object that <code>mInspectionResults</code> were inspected from.
+	 */
+
+	private Object						mInspectionResultsFor;
+
+	/**
+	 * Cached inspection results, keyed by path, or null if not caching.
+	 */
+
+	private Map<String, String>			mCache;
+
+	/**
+	 * Metadata version of the server, as last reported.
+	 */
+
+	private String						mMetadataVersion;
+
+	/**
+	 * Object that <code>mMetadataVersion</code> was last checked for.
+	 */
+
+	private Object						mMetadataVersionCheckedFor;
 
 	//
 	// Constructor
@@ -60,7 +109,7 @@ public class GwtRemoteInspectorProxy
 
 	public GwtRemoteInspectorProxy() {
 
-		mInspector = (GwtRemoteInspectorAsync) GWT.create( GwtRemoteInspector.class );
+		this( new GwtRemoteInspectorProxyConfig() );
 	}
 
 	/**
@@ -76,9 +125,47 @@ public class GwtRemoteInspectorProxy
 
 	public GwtRemoteInspectorProxy( String serviceEntryPoint ) {
 
-		this();
+		this( new GwtRemoteInspectorProxyConfig().setServiceEntryPoint( serviceEntryPoint ) );
+	}
+
+	public GwtRemoteInspectorProxy( GwtRemoteInspectorProxyConfig config ) {
+
+		this( (GwtRemoteInspectorAsync) GWT.create( GwtRemoteInspector.class ), config );
+	}
+
+	/**
+	 * Refactored to support unit tests, which cannot use <code>GWT.create</code>.
+	 */
+
+	/* package private */GwtRemoteInspectorProxy( GwtRemoteInspectorAsync inspector, GwtRemoteInspectorProxyConfig config ) {
+
+		mInspector = inspector;
+		mNestedInspectionDepth = config.getNestedInspectionDepth();
+
+		if ( config.getServiceEntryPoint() != null ) {
+			( (ServiceDefTarget) mInspector ).setServiceEntryPoint( GWT.getModuleBaseURL() + config.getServiceEntryPoint() );
+		}
+
+		if ( config.isCacheInspectionResults() ) {
+			mCache = new HashMap<String, String>();
+
+			String[] preloadTypes = config.getPreloadTypes();
 
-		( (ServiceDefTarget) mInspector ).setServiceEntryPoint( GWT.getModuleBaseURL() + serviceEntryPoint );
+			if ( preloadTypes != null && preloadTypes.length > 0 ) {
+				mInspector.inspectTypes( preloadTypes, config.getPreloadDepth(), new AsyncCallback<GwtRemoteInspectionResults>() {
+
+					public void onFailure( Throwable caught ) {
+
+						// Preloading is only an optimization. Types will be fetched as needed
+					}
+
+					public void onSuccess( GwtRemoteInspectionResults inspectionResults ) {
+
+						storeInspectionResults( null, inspectionResults );
+					}
+				} );
+			}
+		}
 	}
 
 	//
@@ -90,24 +177,136 @@ public class GwtRemoteInspectorProxy
 		throw new UnsupportedOperationException( "Use async inspection instead" );
 	}
 
+	/**
+	 * Inspect the given path and, up to the configured <code>nestedInspectionDepth</code>, any
+	 * properties that may become nested <code>GwtMetawidgets</code>, all in one round trip.
+	 */
+
 	public void inspect( Object toInspect, String type, String[] names, final AsyncCallback<String> callback ) {
 
+		inspectAll( toInspect, type, names, mNestedInspectionDepth, callback );
+	}
+
+	/**
+	 * Inspect the given path and, up to the given depth, any properties that may become nested
+	 * <code>GwtMetawidgets</code>, all in one round trip.
+	 * <p>
+	 * Only the result for the given path is passed to the callback. The others are held for
+	 * subsequent calls to <code>inspect</code> or <code>inspectAll</code>.
+	 */
+
+	public void inspectAll( final Object toInspect, final String type, final String[] names, final int depth, final AsyncCallback<String> callback ) {
+
 		if ( !( toInspect instanceof Serializable ) ) {
 			throw new RuntimeException( "Objects passed to GwtRemoteInspector must be Serializable" );
 		}
 
-		mInspector.inspect( (Serializable) toInspect, type, names, new AsyncCallback<String>() {
+		// Check the cache is still current, once per object
+
+		if ( mCache != null && toInspect != mMetadataVersionCheckedFor ) {
+			mInspector.getMetadataVersion( new AsyncCallback<String>() {
+
+				public void onFailure( Throwable caught ) {
+
+					callback.onFailure( caught );
+				}
+
+				public void onSuccess( String metadataVersion ) {
+
+					storeMetadataVersion( metadataVersion );
+					mMetadataVersionCheckedFor = toInspect;
+					inspectAll( toInspect, type, names, depth, callback );
+				}
+			} );
+
+			return;
+		}
+
+		final String path = PathUtils.toPath( type, names );
+
+		if ( mCache != null && mCache.containsKey( path ) ) {
+			callback.onSuccess( mCache.get( path ) );
+			return;
+		}
+
+		if ( consumeInspectionResult( toInspect, path, callback ) ) {
+			return;
+		}
+
+		mInspector.inspectAll( (Serializable) toInspect, type, names, depth, new AsyncCallback<GwtRemoteInspectionResults>() {
 
 			public void onFailure( Throwable caught ) {
 
 				callback.onFailure( caught );
 			}
 
-			public void onSuccess( String xml ) {
+			public void onSuccess( GwtRemoteInspectionResults inspectionResults ) {
+
+				String xml = inspectionResults.getInspectionResults().get( path );
+				storeInspectionResults( toInspect, inspectionResults );
+				mInspectionResults.remove( path );
 
 				callback.onSuccess( xml );
 			}
 		} );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Pass any inspection result returned in advance for this path to the callback.
+	 *
+	 * @return true if there was such a result
+	 */
+
+	private boolean consumeInspectionResult( Object toInspect, String path, AsyncCallback<String> callback ) {
+
+		if ( toInspect != mInspectionResultsFor ) {
+			mInspectionResults.clear();
+			mInspectionResultsFor = null;
+			return false;
+		}
+
+		if ( !mInspectionResults.containsKey( path ) ) {
+			return false;
+		}
+
+		callback.onSuccess( mInspectionResults.remove( path ) );
+		return true;
+	}
+
+	/**
+	 * Store inspection results returned by the server: in the cache, if caching and the server has
+	 * a metadata version, otherwise for the given object's nested inspections.
+	 */
 
+	/* package private */void storeInspectionResults( Object toInspect, GwtRemoteInspectionResults inspectionResults ) {
+
+		if ( mCache != null ) {
+			storeMetadataVersion( inspectionResults.getMetadataVersion() );
+
+			if ( mMetadataVersion != null ) {
+				mCache.putAll( inspectionResults.getInspectionResults() );
+				return;
+			}
+		}
+
+		mInspectionResults.clear();
+		mInspectionResults.putAll( inspectionResults.getInspectionResults() );
+		mInspectionResultsFor = toInspect;
+	}
+
+	/**
+	 * Drop the cache if the server signalled new metadata.
+	 */
+
+	private void storeMetadataVersion( String metadataVersion ) {
+
+		if ( !ObjectUtils.nullSafeEquals( mMetadataVersion, metadataVersion ) ) {
+			mCache.clear();
+			mMetadataVersion = metadataVersion;
+		}
 	}
 }
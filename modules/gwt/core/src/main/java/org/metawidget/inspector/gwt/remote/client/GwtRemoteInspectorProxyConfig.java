@@ -0,0 +1,202 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.client;
+
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a GwtRemoteInspectorProxy prior to use. Once instantiated, Inspectors are immutable.
+ *
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorProxyConfig {
+
+	//
+	// Private members
+	//
+
+	private String		mServiceEntryPoint;
+
+	private boolean		mCacheInspectionResults;
+
+	private String[]	mPreloadTypes;
+
+	private int			mPreloadDepth			= 1;
+
+	private int			mNestedInspectionDepth	= 1;
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Overrides the servlet path of the <code>GwtRemoteInspectorImpl</code> 'service entry point'.
+	 * This can be useful for setting up multiple servlets, each with their own
+	 * <code>metawidget.xml</code> configuration.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setServiceEntryPoint( String serviceEntryPoint ) {
+
+		mServiceEntryPoint = serviceEntryPoint;
+
+		return this;
+	}
+
+	/**
+	 * Sets whether to cache inspection results on the client, keyed by type and names. Cached
+	 * results are kept until the server reports a different metadata version. The version is
+	 * checked each time a different object is inspected. Nothing is cached unless the server's
+	 * <code>metadataVersion</code> is set.
+	 * <p>
+	 * Only enable this if the server's inspection results depend solely on the type, not on the
+	 * <em>values</em> of the object being inspected. For example, <code>PropertyTypeInspector</code>
+	 * reports the runtime type of each property's value, so is not suitable.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setCacheInspectionResults( boolean cacheInspectionResults ) {
+
+		mCacheInspectionResults = cacheInspectionResults;
+
+		return this;
+	}
+
+	/**
+	 * Sets types to inspect, in a single round trip, as soon as the GwtRemoteInspectorProxy is
+	 * created. Only used if <code>setCacheInspectionResults</code> is true.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setPreloadTypes( String... preloadTypes ) {
+
+		mPreloadTypes = preloadTypes;
+
+		return this;
+	}
+
+	/**
+	 * Sets how deep to preload the properties of <code>preloadTypes</code>. Defaults to 1.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setPreloadDepth( int preloadDepth ) {
+
+		mPreloadDepth = preloadDepth;
+
+		return this;
+	}
+
+	/**
+	 * Sets how many levels of nested properties to inspect in advance, in the same round trip, when
+	 * a <code>GwtMetawidget</code> inspects. Defaults to 1.
+	 * <p>
+	 * Deeper levels save more round trips, but every level multiplies the work done by the server
+	 * and the size of the response, whether or not the nested <code>GwtMetawidget</code>s are ever
+	 * shown. Set to 0 to inspect only the given path.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public GwtRemoteInspectorProxyConfig setNestedInspectionDepth( int nestedInspectionDepth ) {
+
+		mNestedInspectionDepth = nestedInspectionDepth;
+
+		return this;
+	}
+
+	@Override
+	public boolean equals( Object that ) {
+
+		if ( this == that ) {
+			return true;
+		}
+
+		if ( !ObjectUtils.nullSafeClassEquals( this, that ) ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mServiceEntryPoint, ( (GwtRemoteInspectorProxyConfig) that ).mServiceEntryPoint ) ) {
+			return false;
+		}
+
+		if ( mCacheInspectionResults != ( (GwtRemoteInspectorProxyConfig) that ).mCacheInspectionResults ) {
+			return false;
+		}
+
+		if ( !ObjectUtils.nullSafeEquals( mPreloadTypes, ( (GwtRemoteInspectorProxyConfig) that ).mPreloadTypes ) ) {
+			return false;
+		}
+
+		if ( mPreloadDepth != ( (GwtRemoteInspectorProxyConfig) that ).mPreloadDepth ) {
+			return false;
+		}
+
+		if ( mNestedInspectionDepth != ( (GwtRemoteInspectorProxyConfig) that ).mNestedInspectionDepth ) {
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+
+		int hashCode = 1;
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mServiceEntryPoint );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mCacheInspectionResults );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mPreloadTypes );
+		hashCode = 31 * hashCode + mPreloadDepth;
+		hashCode = 31 * hashCode + mNestedInspectionDepth;
+
+		return hashCode;
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected String getServiceEntryPoint() {
+
+		return mServiceEntryPoint;
+	}
+
+	protected boolean isCacheInspectionResults() {
+
+		return mCacheInspectionResults;
+	}
+
+	protected String[] getPreloadTypes() {
+
+		return mPreloadTypes;
+	}
+
+	protected int getPreloadDepth() {
+
+		return mPreloadDepth;
+	}
+
+	protected int getNestedInspectionDepth() {
+
+		return mNestedInspectionDepth;
+	}
+}
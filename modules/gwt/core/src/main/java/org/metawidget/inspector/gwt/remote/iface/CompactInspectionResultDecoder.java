@@ -0,0 +1,133 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.iface;
+
+import static org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults.*;
+
+/**
+ * Decodes inspection results from the compact format described by
+ * <code>GwtRemoteInspectionResults</code>.
+ * <p>
+ * Independent of any particular DOM, so that the same decoding can be used by the client (with
+ * <code>com.google.gwt.xml.client</code>) and tested on the server (with <code>org.w3c.dom</code>).
+ *
+ * @param <E>
+ *            element type
+ * @author Richard Kennard
+ */
+
+public abstract class CompactInspectionResultDecoder<E> {
+
+	//
+	// Public methods
+	//
+
+	public E decode( String compact ) {
+
+		String[] tokens = compact.split( COMPACT_SEPARATOR );
+
+		// tokens[0] is the empty String before the leading separator, tokens[1] is the size of the
+		// dictionary, and the dictionary follows
+
+		int dictionaryLength = Integer.parseInt( tokens[1], COMPACT_RADIX );
+
+		for ( int loop = 2, length = 2 + dictionaryLength; loop < length; loop++ ) {
+			tokens[loop] = unescape( tokens[loop] );
+		}
+
+		int[] position = new int[] { 2 + dictionaryLength };
+
+		return decode( tokens, position );
+	}
+
+	//
+	// Protected methods
+	//
+
+	protected abstract E createElement( String name );
+
+	protected abstract void setAttribute( E element, String name, String value );
+
+	protected abstract void appendChild( E parent, E child );
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * @param position
+	 *            index of the next token to read. Advanced as tokens are read
+	 */
+
+	private E decode( String[] tokens, int[] position ) {
+
+		E element = createElement( dictionaryEntry( tokens, position ) );
+
+		// Attributes
+
+		for ( int loop = 0, length = number( tokens, position ); loop < length; loop++ ) {
+			String name = dictionaryEntry( tokens, position );
+			setAttribute( element, name, dictionaryEntry( tokens, position ) );
+		}
+
+		// Children
+
+		for ( int loop = 0, length = number( tokens, position ); loop < length; loop++ ) {
+			appendChild( element, decode( tokens, position ) );
+		}
+
+		return element;
+	}
+
+	private String dictionaryEntry( String[] tokens, int[] position ) {
+
+		return tokens[2 + number( tokens, position )];
+	}
+
+	private int number( String[] tokens, int[] position ) {
+
+		return Integer.parseInt( tokens[position[0]++], COMPACT_RADIX );
+	}
+
+	private String unescape( String entry ) {
+
+		if ( entry.indexOf( COMPACT_ESCAPE ) == -1 ) {
+			return entry;
+		}
+
+		StringBuilder builder = new StringBuilder( entry.length() );
+
+		for ( int loop = 0, length = entry.length(); loop < length; loop++ ) {
+			char c = entry.charAt( loop );
+
+			if ( c != COMPACT_ESCAPE.charAt( 0 ) ) {
+				builder.append( c );
+				continue;
+			}
+
+			loop++;
+
+			if ( entry.charAt( loop ) == COMPACT_ESCAPED_SEPARATOR ) {
+				builder.append( COMPACT_SEPARATOR );
+			} else {
+				builder.append( COMPACT_ESCAPE );
+			}
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,112 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.iface;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Inspection results returned by <code>GwtRemoteInspector</code>, keyed by path (as per
+ * <code>PathUtils.toPath</code>), together with the version of the server's metadata they were
+ * inspected against.
+ * <p>
+ * Paths that inspected to <code>null</code> are included, with a <code>null</code> value.
+ * <p>
+ * Each result is either an XML string or, if the server is configured with
+ * <code>compactInspectionResults</code>, a compact encoding that the client can turn into elements
+ * without parsing XML. The compact encoding starts with <code>COMPACT_SEPARATOR</code> (which can
+ * never start, nor appear in, well-formed XML) and is made up of tokens separated by it:
+ * <ul>
+ * <li>the number of strings in the dictionary, then each string. Every element name, attribute
+ * name and attribute value is stored in the dictionary once</li>
+ * <li>each element, depth first, as: dictionary index of its name, number of attributes, dictionary
+ * indexes of each attribute's name and value, number of child elements</li>
+ * </ul>
+ * All numbers are in base 36. Text nodes are not encoded, as inspection results do not use them.
+ * <p>
+ * Although well-formed XML cannot contain them, an Inspector may still put
+ * <code>COMPACT_SEPARATOR</code> or <code>COMPACT_ESCAPE</code> into an attribute value. Within a
+ * dictionary string, each is replaced by <code>COMPACT_ESCAPE</code> followed by
+ * <code>COMPACT_ESCAPED_SEPARATOR</code> or <code>COMPACT_ESCAPED_ESCAPE</code> respectively.
+ *
+ * @author Richard Kennard
+ */
+
+@SuppressWarnings( "serial" )
+public class GwtRemoteInspectionResults
+	implements Serializable {
+
+	//
+	// Public statics
+	//
+
+	public static final String		COMPACT_SEPARATOR			= "\u0001";
+
+	public static final String		COMPACT_ESCAPE				= "\u0002";
+
+	public static final char		COMPACT_ESCAPED_SEPARATOR	= '1';
+
+	public static final char		COMPACT_ESCAPED_ESCAPE		= '2';
+
+	public static final int			COMPACT_RADIX				= 36;
+
+	//
+	// Private members
+	//
+
+	private String					mMetadataVersion;
+
+	private HashMap<String, String>	mInspectionResults;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * Required for GWT serialization.
+	 */
+
+	public GwtRemoteInspectionResults() {
+
+		// Default constructor
+	}
+
+	public GwtRemoteInspectionResults( String metadataVersion, HashMap<String, String> inspectionResults ) {
+
+		mMetadataVersion = metadataVersion;
+		mInspectionResults = inspectionResults;
+	}
+
+	//
+	// Public methods
+	//
+
+	/**
+	 * Version of the server's metadata. Clients can cache these results until the version changes.
+	 * If null, the server has no version and clients should not cache.
+	 */
+
+	public String getMetadataVersion() {
+
+		return mMetadataVersion;
+	}
+
+	public HashMap<String, String> getInspectionResults() {
+
+		return mInspectionResults;
+	}
+}
@@ -52,4 +52,31 @@ public interface GwtRemoteInspector
 	//
 
 	String inspect( Serializable toInspect, String type, String[] names );
+
+	/**
+	 * Inspect the given path and, up to the given depth, the paths of any properties that may
+	 * become nested Metawidgets.
+	 * <p>
+	 * Returns all the results in one round trip.
+	 */
+
+	GwtRemoteInspectionResults inspectAll( Serializable toInspect, String type, String[] names, int depth );
+
+	/**
+	 * Inspect the given types, without any objects, and up to the given depth the paths of any
+	 * of their properties that may become nested Metawidgets.
+	 * <p>
+	 * Suitable for preloading a client-side cache with commonly used types.
+	 */
+
+	GwtRemoteInspectionResults inspectTypes( String[] types, int depth );
+
+	/**
+	 * Gets the version of the business model's metadata, or null if there is none.
+	 * <p>
+	 * Clients that cache inspection results use this to check their cache is still current, without
+	 * a full inspection.
+	 */
+
+	String getMetadataVersion();
 }
@@ -40,4 +40,10 @@ public interface GwtRemoteInspectorAsync {
 	//
 
 	void inspect( Serializable toInspect, String type, String[] names, AsyncCallback<String> callback );
+
+	void inspectAll( Serializable toInspect, String type, String[] names, int depth, AsyncCallback<GwtRemoteInspectionResults> callback );
+
+	void inspectTypes( String[] types, int depth, AsyncCallback<GwtRemoteInspectionResults> callback );
+
+	void getMetadataVersion( AsyncCallback<String> callback );
 }
@@ -0,0 +1,142 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.server;
+
+import static org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.metawidget.util.CollectionUtils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Encodes inspection results into the compact format described by
+ * <code>GwtRemoteInspectionResults</code>.
+ * <p>
+ * Compared to XML, the compact format stores each repeated name and value once (inspection results
+ * repeat attribute names on every property, and values such as <code>true</code> or
+ * <code>java.lang.String</code> on many), and lets the client build its elements without running
+ * the browser's XML parser.
+ *
+ * @author Richard Kennard
+ */
+
+public final class CompactInspectionResultEncoder {
+
+	//
+	// Public statics
+	//
+
+	public static String encode( Element element ) {
+
+		Map<String, Integer> dictionaryIndexes = CollectionUtils.newHashMap();
+		List<String> dictionary = CollectionUtils.newArrayList();
+		StringBuilder structure = new StringBuilder();
+
+		encode( element, dictionaryIndexes, dictionary, structure );
+
+		StringBuilder builder = new StringBuilder( structure.length() + dictionary.size() * 16 );
+		builder.append( COMPACT_SEPARATOR );
+		builder.append( Integer.toString( dictionary.size(), COMPACT_RADIX ) );
+
+		for ( String entry : dictionary ) {
+			builder.append( COMPACT_SEPARATOR );
+			builder.append( escape( entry ) );
+		}
+
+		builder.append( structure );
+
+		return builder.toString();
+	}
+
+	//
+	// Private statics
+	//
+
+	private static void encode( Element element, Map<String, Integer> dictionaryIndexes, List<String> dictionary, StringBuilder structure ) {
+
+		appendIndex( element.getNodeName(), dictionaryIndexes, dictionary, structure );
+
+		// Attributes
+
+		NamedNodeMap attributes = element.getAttributes();
+		int length = attributes.getLength();
+		appendNumber( length, structure );
+
+		for ( int loop = 0; loop < length; loop++ ) {
+			Node attribute = attributes.item( loop );
+			appendIndex( attribute.getNodeName(), dictionaryIndexes, dictionary, structure );
+			appendIndex( attribute.getNodeValue(), dictionaryIndexes, dictionary, structure );
+		}
+
+		// Children
+
+		List<Element> children = CollectionUtils.newArrayList();
+
+		for ( Node child = element.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			if ( child instanceof Element ) {
+				children.add( (Element) child );
+			}
+		}
+
+		appendNumber( children.size(), structure );
+
+		for ( Element child : children ) {
+			encode( child, dictionaryIndexes, dictionary, structure );
+		}
+	}
+
+	private static void appendIndex( String value, Map<String, Integer> dictionaryIndexes, List<String> dictionary, StringBuilder structure ) {
+
+		Integer index = dictionaryIndexes.get( value );
+
+		if ( index == null ) {
+			index = dictionary.size();
+			dictionary.add( value );
+			dictionaryIndexes.put( value, index );
+		}
+
+		appendNumber( index, structure );
+	}
+
+	private static void appendNumber( int number, StringBuilder structure ) {
+
+		structure.append( COMPACT_SEPARATOR );
+		structure.append( Integer.toString( number, COMPACT_RADIX ) );
+	}
+
+	private static String escape( String entry ) {
+
+		if ( entry.indexOf( COMPACT_SEPARATOR ) == -1 && entry.indexOf( COMPACT_ESCAPE ) == -1 ) {
+			return entry;
+		}
+
+		return entry.replace( COMPACT_ESCAPE, COMPACT_ESCAPE + COMPACT_ESCAPED_ESCAPE ).replace( COMPACT_SEPARATOR, COMPACT_ESCAPE + COMPACT_ESCAPED_SEPARATOR );
+	}
+
+	//
+	// Private constructor
+	//
+
+	private CompactInspectionResultEncoder() {
+
+		// Can never be called
+	}
+}
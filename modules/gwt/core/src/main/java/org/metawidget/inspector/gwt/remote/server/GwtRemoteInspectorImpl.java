@@ -16,8 +16,13 @@
 
 package org.metawidget.inspector.gwt.remote.server;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -25,10 +30,15 @@ import javax.servlet.ServletException;
 import org.metawidget.config.impl.BaseConfigReader;
 import org.metawidget.config.impl.ServletResourceResolver;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults;
 import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.pipeline.w3c.W3CPipeline;
+import org.metawidget.util.ArrayUtils;
 import org.metawidget.util.ClassUtils;
+import org.metawidget.util.XmlUtils;
+import org.metawidget.util.simple.PathUtils;
+import org.w3c.dom.Element;
 
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 
@@ -39,6 +49,13 @@ import com.google.gwt.user.server.rpc.RemoteServiceServlet;
  * <ul>
  * <li><code>config</code> - fully qualified path to (optional) <code>metawidget.xml</code>, for
  * example <code>com/foo/metawidget.xml</code>.
+ * <li><code>metadataVersion</code> - (optional) version of the business model's metadata, such as
+ * the application's build number. Clients that cache inspection results keep them until this
+ * changes. It must be the same on every node of a cluster. If not set, clients do not cache.
+ * <li><code>compactInspectionResults</code> - (optional) if <code>true</code>, return the results
+ * of <code>inspectAll</code> and <code>inspectTypes</code> in the compact format described by
+ * <code>GwtRemoteInspectionResults</code>, rather than as XML. This makes for smaller payloads, and
+ * saves the browser parsing XML.
  * </ul>
  * <p>
  * <strong>This Inspector is designed to work 'out of the box' for most cases. However, use of
@@ -58,6 +75,10 @@ public class GwtRemoteInspectorImpl
 
 	private transient GwtRemoteInspectorImplPipeline	mPipeline;
 
+	private volatile String								mMetadataVersion;
+
+	private boolean										mCompactInspectionResults;
+
 	//
 	// Constructor
 	//
@@ -86,6 +107,14 @@ public class GwtRemoteInspectorImpl
 		if ( config != null ) {
 			mPipeline.setConfig( config );
 		}
+
+		// Metadata version
+
+		setMetadataVersion( getMetadataVersionInitParameter() );
+
+		// Compact inspection results
+
+		setCompactInspectionResults( Boolean.parseBoolean( getCompactInspectionResultsInitParameter() ) );
 	}
 
 	/**
@@ -102,6 +131,77 @@ public class GwtRemoteInspectorImpl
 		return mPipeline.inspect( toInspect, type, names );
 	}
 
+	/**
+	 * Inspect the given Serializable/type and, up to the given depth, each of its properties that
+	 * may become a nested <code>GwtMetawidget</code>. Return all the results at once.
+	 * <p>
+	 * This saves a nested <code>GwtMetawidget</code> from making its own round trip (and
+	 * re-serializing <code>toInspect</code>) for each level of nesting. The depth is capped at this
+	 * servlet's <code>maximumInspectionDepth</code>, and properties whose type is already on the
+	 * path (ie. recursive references) are not inspected in advance.
+	 *
+	 * @return the inspection results
+	 */
+
+	public GwtRemoteInspectionResults inspectAll( Serializable toInspect, String type, String[] names, int depth ) {
+
+		HashMap<String, String> inspectionResults = new HashMap<String, String>();
+		inspectAll( toInspect, type, names, Math.min( depth, mPipeline.getMaximumInspectionDepth() ), new HashSet<String>(), inspectionResults );
+
+		return new GwtRemoteInspectionResults( getMetadataVersion(), inspectionResults );
+	}
+
+	/**
+	 * Inspect the given types, without any objects, and return all the results at once.
+	 * <p>
+	 * Clients use this to preload their cache (see <code>GwtRemoteInspectorProxyConfig</code>).
+	 */
+
+	public GwtRemoteInspectionResults inspectTypes( String[] types, int depth ) {
+
+		HashMap<String, String> inspectionResults = new HashMap<String, String>();
+		int cappedDepth = Math.min( depth, mPipeline.getMaximumInspectionDepth() );
+
+		for ( String type : types ) {
+			inspectAll( null, type, new String[0], cappedDepth, new HashSet<String>(), inspectionResults );
+		}
+
+		return new GwtRemoteInspectionResults( getMetadataVersion(), inspectionResults );
+	}
+
+	/**
+	 * Gets the version of the business model's metadata, or null if there is none (in which case
+	 * clients do not cache inspection results).
+	 */
+
+	public String getMetadataVersion() {
+
+		return mMetadataVersion;
+	}
+
+	/**
+	 * Sets the version of the business model's metadata.
+	 * <p>
+	 * Call this whenever the metadata changes (for example after reloading
+	 * <code>metawidget.xml</code>). Clients drop their cached inspection results the next time they
+	 * see a different version. In a cluster, every node must use the same version.
+	 */
+
+	public void setMetadataVersion( String metadataVersion ) {
+
+		mMetadataVersion = metadataVersion;
+	}
+
+	/**
+	 * Sets whether to return the results of <code>inspectAll</code> and <code>inspectTypes</code>
+	 * in the compact format described by <code>GwtRemoteInspectionResults</code>.
+	 */
+
+	public void setCompactInspectionResults( boolean compactInspectionResults ) {
+
+		mCompactInspectionResults = compactInspectionResults;
+	}
+
 	public void setInspector( Inspector inspector ) {
 
 		mPipeline.setInspector( inspector );
@@ -128,6 +228,90 @@ public class GwtRemoteInspectorImpl
 		return new GwtRemoteInspectorImplPipeline();
 	}
 
+	/**
+	 * Inspect the given path and, if <code>depth</code> allows, recurse into its nested properties.
+	 *
+	 * @param typesOnPath
+	 *            types inspected so far along this path. Properties of these types are not
+	 *            recursed into, so that recursive references do not inspect the same types over and
+	 *            over
+	 */
+
+	protected void inspectAll( Serializable toInspect, String type, String[] names, int depth, Set<String> typesOnPath, Map<String, String> inspectionResults ) {
+
+		Element inspectionResult = mPipeline.inspectAsDom( toInspect, type, names );
+
+		if ( inspectionResult == null ) {
+			inspectionResults.put( PathUtils.toPath( type, names ), null );
+			return;
+		}
+
+		inspectionResults.put( PathUtils.toPath( type, names ), encodeInspectionResult( inspectionResult ) );
+
+		if ( depth <= 0 ) {
+			return;
+		}
+
+		Element entity = XmlUtils.getFirstChildElement( inspectionResult );
+		String entityType = entity.getAttribute( TYPE );
+		boolean addedToPath = typesOnPath.add( entityType );
+
+		Element property = XmlUtils.getFirstChildElement( entity );
+
+		while ( property != null ) {
+
+			if ( isNestedMetawidgetCandidate( property ) && !typesOnPath.contains( property.getAttribute( TYPE ) ) ) {
+				String[] nestedNames = ArrayUtils.add( names, property.getAttribute( NAME ) );
+				inspectAll( toInspect, type, nestedNames, depth - 1, typesOnPath, inspectionResults );
+			}
+
+			property = XmlUtils.getNextSiblingElement( property );
+		}
+
+		if ( addedToPath ) {
+			typesOnPath.remove( entityType );
+		}
+	}
+
+	/**
+	 * Convert the given inspection result into a String for sending to the client.
+	 */
+
+	protected String encodeInspectionResult( Element inspectionResult ) {
+
+		if ( mCompactInspectionResults ) {
+			return CompactInspectionResultEncoder.encode( inspectionResult );
+		}
+
+		return XmlUtils.nodeToString( inspectionResult, false );
+	}
+
+	/**
+	 * Whether the given trait may become a nested <code>GwtMetawidget</code>, and so is worth
+	 * inspecting in advance.
+	 * <p>
+	 * Only the client's <code>WidgetBuilder</code>s know for sure, so this errs on the side of
+	 * inspecting: a wasted inspection costs some server time, but a missed one costs a round trip.
+	 * Subclasses can refine it for their own business model.
+	 */
+
+	protected boolean isNestedMetawidgetCandidate( Element trait ) {
+
+		if ( !PROPERTY.equals( trait.getNodeName() ) ) {
+			return false;
+		}
+
+		if ( TRUE.equals( trait.getAttribute( HIDDEN ) ) || TRUE.equals( trait.getAttribute( DONT_EXPAND ) ) || trait.hasAttribute( LOOKUP ) ) {
+			return false;
+		}
+
+		// Primitives and JDK types (String, Date, Collections...) have their own widgets
+
+		String type = trait.getAttribute( TYPE );
+
+		return ( !ClassUtils.isPrimitive( type ) && !type.startsWith( "java." ) );
+	}
+
 	/**
 	 * Refactored to support <code>GwtRemoteInspectorTestImpl</code>.
 	 */
@@ -137,6 +321,16 @@ public class GwtRemoteInspectorImpl
 		return getServletConfig().getInitParameter( "config" );
 	}
 
+	protected String getMetadataVersionInitParameter() {
+
+		return getServletConfig().getInitParameter( "metadataVersion" );
+	}
+
+	protected String getCompactInspectionResultsInitParameter() {
+
+		return getServletConfig().getInitParameter( "compactInspectionResults" );
+	}
+
 	//
 	// Inner class
 	//
@@ -0,0 +1,285 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.client;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults;
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectorAsync;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorProxyTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testMetadataVersion() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		inspector.setMetadataVersion( "1" );
+		GwtRemoteInspectorProxy proxy = new GwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig().setCacheInspectionResults( true ) );
+
+		// Version checked once per object
+
+		proxy.storeInspectionResults( null, newInspectionResults( "1", "Foo", "<foo1/>", "Baz", null ) );
+		assertEquals( "<foo1/>", inspect( proxy, "Foo" ) );
+		assertEquals( null, inspect( proxy, "Baz" ) );
+		assertEquals( 1, inspector.getMetadataVersionCount() );
+		assertEquals( 0, inspector.getInspectAllCount() );
+
+		// Same version keeps the cache
+
+		proxy.storeInspectionResults( null, newInspectionResults( "1", "Bar", "<bar1/>" ) );
+		assertEquals( "<foo1/>", inspect( proxy, "Foo" ) );
+		assertEquals( "<bar1/>", inspect( proxy, "Bar" ) );
+		assertEquals( null, inspect( proxy, "Baz" ) );
+		assertEquals( 1, inspector.getMetadataVersionCount() );
+		assertEquals( 0, inspector.getInspectAllCount() );
+
+		// Different version clears the cache
+
+		proxy.storeInspectionResults( null, newInspectionResults( "2", "Bar", "<bar2/>" ) );
+		assertEquals( "<bar2/>", inspect( proxy, "Bar" ) );
+		assertEquals( 0, inspector.getInspectAllCount() );
+
+		inspector.setInspectionResults( newInspectionResults( "2", "Foo", "<foo2/>" ) );
+		assertEquals( "<foo2/>", inspect( proxy, "Foo" ) );
+		assertEquals( 1, inspector.getInspectAllCount() );
+		assertEquals( "<foo2/>", inspect( proxy, "Foo" ) );
+		assertEquals( 1, inspector.getInspectAllCount() );
+
+		// Cache hits for the same object do not see a newer version...
+
+		inspector.setMetadataVersion( "3" );
+		inspector.setInspectionResults( newInspectionResults( "3", "Foo", "<foo3/>" ) );
+		assertEquals( "<foo2/>", inspect( proxy, "Foo" ) );
+		assertEquals( "<bar2/>", inspect( proxy, "Bar" ) );
+		assertEquals( 1, inspector.getMetadataVersionCount() );
+		assertEquals( 1, inspector.getInspectAllCount() );
+
+		// ...but a different object does
+
+		assertEquals( "<foo3/>", inspect( proxy, "another foo", "Foo" ) );
+		assertEquals( 2, inspector.getMetadataVersionCount() );
+		assertEquals( 2, inspector.getInspectAllCount() );
+		assertEquals( "<foo3/>", inspect( proxy, "another foo", "Foo" ) );
+		assertEquals( 2, inspector.getInspectAllCount() );
+	}
+
+	public void testNoMetadataVersion() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		GwtRemoteInspectorProxy proxy = new GwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig().setCacheInspectionResults( true ) );
+
+		// Server without a metadata version is never cached
+
+		inspector.setInspectionResults( newInspectionResults( null, "Foo", "<foo1/>" ) );
+		assertEquals( "<foo1/>", inspect( proxy, "Foo" ) );
+		assertEquals( 1, inspector.getInspectAllCount() );
+		assertEquals( "<foo1/>", inspect( proxy, "Foo" ) );
+		assertEquals( 2, inspector.getInspectAllCount() );
+		assertEquals( 1, inspector.getMetadataVersionCount() );
+	}
+
+	public void testNotCaching() {
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		GwtRemoteInspectorProxy proxy = new GwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig() );
+
+		// Results held for the object they were inspected from, and used at most once
+
+		String toInspect = "foo";
+		proxy.storeInspectionResults( toInspect, newInspectionResults( "1", "Foo/bar", "<bar1/>" ) );
+		assertEquals( "<bar1/>", inspect( proxy, toInspect, "Foo", "bar" ) );
+		assertEquals( 0, inspector.getInspectAllCount() );
+
+		inspector.setInspectionResults( newInspectionResults( "1", "Foo/bar", "<bar2/>" ) );
+		assertEquals( "<bar2/>", inspect( proxy, toInspect, "Foo", "bar" ) );
+		assertEquals( 1, inspector.getInspectAllCount() );
+
+		// Metadata version does not matter
+
+		proxy.storeInspectionResults( toInspect, newInspectionResults( "2", "Foo/bar", "<bar3/>" ) );
+		assertEquals( "<bar3/>", inspect( proxy, toInspect, "Foo", "bar" ) );
+		assertEquals( 1, inspector.getInspectAllCount() );
+
+		// Different object
+
+		proxy.storeInspectionResults( toInspect, newInspectionResults( "2", "Foo/bar", "<bar4/>" ) );
+		inspector.setInspectionResults( newInspectionResults( "2", "Foo/bar", "<bar5/>" ) );
+		assertEquals( "<bar5/>", inspect( proxy, "another foo", "Foo", "bar" ) );
+		assertEquals( 2, inspector.getInspectAllCount() );
+	}
+
+	public void testNestedInspectionDepth() {
+
+		AsyncCallback<String> callback = new AsyncCallback<String>() {
+
+			public void onFailure( Throwable caught ) {
+
+				throw new RuntimeException( caught );
+			}
+
+			public void onSuccess( String inspectionResult ) {
+
+				// Do nothing
+			}
+		};
+
+		// Defaults to 1
+
+		MockInspectorAsync inspector = new MockInspectorAsync();
+		inspector.setInspectionResults( newInspectionResults( "1", "Foo", "<foo1/>" ) );
+		new GwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig() ).inspect( "foo", "Foo", new String[0], callback );
+		assertEquals( 1, inspector.getLastDepth() );
+
+		new GwtRemoteInspectorProxy( inspector, new GwtRemoteInspectorProxyConfig().setNestedInspectionDepth( 0 ) ).inspect( "foo", "Foo", new String[0], callback );
+		assertEquals( 0, inspector.getLastDepth() );
+		assertEquals( 2, inspector.getInspectAllCount() );
+	}
+
+	//
+	// Private methods
+	//
+
+	private String inspect( GwtRemoteInspectorProxy proxy, String type ) {
+
+		return inspect( proxy, "foo", type );
+	}
+
+	private String inspect( GwtRemoteInspectorProxy proxy, Object toInspect, String type, String... names ) {
+
+		final String[] result = new String[1];
+		final boolean[] called = new boolean[1];
+
+		proxy.inspectAll( toInspect, type, names, 0, new AsyncCallback<String>() {
+
+			public void onFailure( Throwable caught ) {
+
+				throw new RuntimeException( caught );
+			}
+
+			public void onSuccess( String inspectionResult ) {
+
+				result[0] = inspectionResult;
+				called[0] = true;
+			}
+		} );
+
+		assertTrue( called[0] );
+		return result[0];
+	}
+
+	private GwtRemoteInspectionResults newInspectionResults( String metadataVersion, String... pathsAndResults ) {
+
+		HashMap<String, String> inspectionResults = new HashMap<String, String>();
+
+		for ( int loop = 0; loop < pathsAndResults.length; loop += 2 ) {
+			inspectionResults.put( pathsAndResults[loop], pathsAndResults[loop + 1] );
+		}
+
+		return new GwtRemoteInspectionResults( metadataVersion, inspectionResults );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Answers every call synchronously, with whatever results it was last given.
+	 */
+
+	static class MockInspectorAsync
+		implements GwtRemoteInspectorAsync {
+
+		//
+		// Private members
+		//
+
+		private GwtRemoteInspectionResults	mInspectionResults;
+
+		private int							mInspectAllCount;
+
+		private int							mLastDepth;
+
+		private String						mMetadataVersion;
+
+		private int							mMetadataVersionCount;
+
+		//
+		// Public methods
+		//
+
+		public void setInspectionResults( GwtRemoteInspectionResults inspectionResults ) {
+
+			mInspectionResults = inspectionResults;
+		}
+
+		public int getInspectAllCount() {
+
+			return mInspectAllCount;
+		}
+
+		public int getLastDepth() {
+
+			return mLastDepth;
+		}
+
+		public void setMetadataVersion( String metadataVersion ) {
+
+			mMetadataVersion = metadataVersion;
+		}
+
+		public int getMetadataVersionCount() {
+
+			return mMetadataVersionCount;
+		}
+
+		public void inspect( Serializable toInspect, String type, String[] names, AsyncCallback<String> callback ) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		public void inspectAll( Serializable toInspect, String type, String[] names, int depth, AsyncCallback<GwtRemoteInspectionResults> callback ) {
+
+			mInspectAllCount++;
+			mLastDepth = depth;
+			callback.onSuccess( mInspectionResults );
+		}
+
+		public void inspectTypes( String[] types, int depth, AsyncCallback<GwtRemoteInspectionResults> callback ) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		public void getMetadataVersion( AsyncCallback<String> callback ) {
+
+			mMetadataVersionCount++;
+			callback.onSuccess( mMetadataVersion );
+		}
+	}
+}
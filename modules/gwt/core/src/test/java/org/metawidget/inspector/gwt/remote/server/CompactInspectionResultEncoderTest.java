@@ -0,0 +1,215 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.server;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+import static org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults.*;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.gwt.remote.iface.CompactInspectionResultDecoder;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Round trips inspection results through <code>CompactInspectionResultEncoder</code> (as used by
+ * the server) and <code>CompactInspectionResultDecoder</code> (as used by
+ * <code>GwtPipeline</code> on the client).
+ *
+ * @author Richard Kennard
+ */
+
+public class CompactInspectionResultEncoderTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testRoundTrip() {
+
+		String xml = "<inspection-result version=\"1.0\">";
+		xml += "<entity type=\"com.foo.Person\">";
+		xml += "<property name=\"name\" required=\"true\" type=\"java.lang.String\"/>";
+		xml += "<property name=\"address\" type=\"com.foo.Address\">";
+		xml += "<property name=\"street\" type=\"java.lang.String\"/>";
+		xml += "<action name=\"lookup\"/>";
+		xml += "</property>";
+		xml += "<property hidden=\"true\" name=\"id\" type=\"long\"/>";
+		xml += "<action name=\"save\"/>";
+		xml += "<action name=\"delete\" read-only=\"true\"/>";
+		xml += "</entity>";
+		xml += "</inspection-result>";
+
+		String compact = assertRoundTrip( xml );
+		assertTrue( compact.startsWith( COMPACT_SEPARATOR ) );
+
+		// Repeated names and values are stored once
+
+		assertEquals( compact.indexOf( "java.lang.String" ), compact.lastIndexOf( "java.lang.String" ) );
+		assertEquals( compact.indexOf( COMPACT_SEPARATOR + PROPERTY + COMPACT_SEPARATOR ), compact.lastIndexOf( COMPACT_SEPARATOR + PROPERTY + COMPACT_SEPARATOR ) );
+	}
+
+	public void testEmptyValues() {
+
+		String xml = "<inspection-result version=\"1.0\">";
+		xml += "<entity type=\"\">";
+		xml += "<property lookup=\"\" name=\"foo\"/>";
+		xml += "<property label=\"\" name=\"bar\"/>";
+		xml += "<property name=\"baz\" section=\"\"/>";
+		xml += "</entity>";
+		xml += "</inspection-result>";
+
+		assertRoundTrip( xml );
+
+		// Empty value as the last dictionary entry
+
+		xml = "<inspection-result version=\"\"/>";
+		assertRoundTrip( xml );
+	}
+
+	public void testSeparatorInValues() {
+
+		Document document = XmlUtils.newDocument();
+		Element inspectionResult = document.createElement( "inspection-result" );
+		document.appendChild( inspectionResult );
+		Element entity = document.createElement( ENTITY );
+		entity.setAttribute( TYPE, "Foo" );
+		inspectionResult.appendChild( entity );
+
+		String[] values = new String[] { COMPACT_SEPARATOR, COMPACT_ESCAPE, COMPACT_SEPARATOR + COMPACT_SEPARATOR, COMPACT_ESCAPE + COMPACT_ESCAPE, COMPACT_ESCAPE + COMPACT_ESCAPED_SEPARATOR, COMPACT_ESCAPE + COMPACT_ESCAPED_ESCAPE, "foo" + COMPACT_SEPARATOR + "bar", "foo" + COMPACT_ESCAPE + COMPACT_SEPARATOR + "bar", COMPACT_SEPARATOR + "1" + COMPACT_ESCAPE + "2" };
+
+		for ( int loop = 0; loop < values.length; loop++ ) {
+			Element property = document.createElement( PROPERTY );
+			property.setAttribute( NAME, "property" + loop );
+			property.setAttribute( LOOKUP, values[loop] );
+			entity.appendChild( property );
+		}
+
+		Element decoded = assertRoundTrip( inspectionResult );
+
+		Element property = XmlUtils.getFirstChildElement( XmlUtils.getFirstChildElement( decoded ) );
+
+		for ( String value : values ) {
+			assertEquals( value, property.getAttribute( LOOKUP ) );
+			property = XmlUtils.getNextSiblingElement( property );
+		}
+
+		assertTrue( property == null );
+	}
+
+	public void testMoreThan36Names() {
+
+		StringBuilder builder = new StringBuilder( "<inspection-result version=\"1.0\"><entity type=\"Foo\">" );
+
+		for ( int loop = 0; loop < 50; loop++ ) {
+			builder.append( "<property name=\"property" );
+			builder.append( loop );
+			builder.append( "\" attribute" );
+			builder.append( loop );
+			builder.append( "=\"value" );
+			builder.append( loop );
+			builder.append( "\"/>" );
+		}
+
+		builder.append( "</entity></inspection-result>" );
+
+		String compact = assertRoundTrip( builder.toString() );
+
+		// Dictionary needs two-digit, base 36 indexes
+
+		int dictionaryLength = Integer.parseInt( compact.split( COMPACT_SEPARATOR )[1], COMPACT_RADIX );
+		assertTrue( dictionaryLength > COMPACT_RADIX );
+		assertTrue( Integer.toString( dictionaryLength - 1, COMPACT_RADIX ).length() == 2 );
+	}
+
+	//
+	// Private methods
+	//
+
+	private String assertRoundTrip( String xml ) {
+
+		Element inspectionResult = XmlUtils.documentFromString( xml ).getDocumentElement();
+		String compact = CompactInspectionResultEncoder.encode( inspectionResult );
+		assertEquals( XmlUtils.nodeToString( inspectionResult, false ), XmlUtils.nodeToString( new W3CDecoder().decode( compact ), false ) );
+
+		return compact;
+	}
+
+	private Element assertRoundTrip( Element inspectionResult ) {
+
+		Element decoded = new W3CDecoder().decode( CompactInspectionResultEncoder.encode( inspectionResult ) );
+		assertEquals( XmlUtils.nodeToString( inspectionResult, false ), XmlUtils.nodeToString( decoded, false ) );
+
+		return decoded;
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Decodes into <code>org.w3c.dom</code>, the same way <code>GwtPipeline</code> decodes into
+	 * <code>com.google.gwt.xml.client</code>.
+	 */
+
+	static class W3CDecoder
+		extends CompactInspectionResultDecoder<Element> {
+
+		//
+		// Private members
+		//
+
+		private Document	mDocument	= XmlUtils.newDocument();
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public Element decode( String compact ) {
+
+			Element root = super.decode( compact );
+			mDocument.appendChild( root );
+
+			return root;
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Element createElement( String name ) {
+
+			return mDocument.createElement( name );
+		}
+
+		@Override
+		protected void setAttribute( Element element, String name, String value ) {
+
+			element.setAttribute( name, value );
+		}
+
+		@Override
+		protected void appendChild( Element parent, Element child ) {
+
+			parent.appendChild( child );
+		}
+	}
+}
@@ -0,0 +1,252 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.gwt.remote.server;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.gwt.remote.iface.GwtRemoteInspectionResults;
+import org.metawidget.inspector.xml.XmlInspector;
+import org.metawidget.inspector.xml.XmlInspectorConfig;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class GwtRemoteInspectorImplTest
+	extends TestCase {
+
+	//
+	// Private statics
+	//
+
+	private static final String	INSPECTION_RESULT;
+
+	static {
+
+		String xml = "<?xml version=\"1.0\"?>";
+		xml += "<inspection-result xmlns=\"http://www.metawidget.org/inspection-result\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.metawidget.org/inspection-result ../../inspector/inspection-result-1.0.xsd\" version=\"1.0\">";
+		xml += "<entity type=\"Person\">";
+		xml += "<property name=\"name\" type=\"java.lang.String\"/>";
+		xml += "<property name=\"age\" type=\"int\"/>";
+		xml += "<property name=\"address\" type=\"Address\"/>";
+		xml += "<property name=\"password\" type=\"Password\" hidden=\"true\"/>";
+		xml += "<property name=\"friends\" type=\"Friends\" dont-expand=\"true\"/>";
+		xml += "<property name=\"title\" type=\"Title\" lookup=\"Mr, Mrs\"/>";
+		xml += "<property name=\"manager\" type=\"Person\"/>";
+		xml += "<action name=\"save\"/>";
+		xml += "</entity>";
+		xml += "<entity type=\"Address\">";
+		xml += "<property name=\"street\" type=\"java.lang.String\"/>";
+		xml += "<property name=\"country\" type=\"Country\"/>";
+		xml += "</entity>";
+		xml += "</inspection-result>";
+
+		INSPECTION_RESULT = xml;
+	}
+
+	//
+	// Public methods
+	//
+
+	public void testInspectAll() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 10 );
+		servlet.setMetadataVersion( "1" );
+
+		// Depth 0 only inspects the given path
+
+		GwtRemoteInspectionResults results = servlet.inspectAll( null, "Person", new String[0], 0 );
+		assertEquals( "1", results.getMetadataVersion() );
+		assertEquals( 1, results.getInspectionResults().size() );
+		assertEntity( "Person", null, results.getInspectionResults().get( "Person" ) );
+
+		// Depth 1 includes only those properties that may become nested Metawidgets (and not
+		// recursive references)
+
+		results = servlet.inspectAll( null, "Person", new String[0], 1 );
+		Map<String, String> inspectionResults = results.getInspectionResults();
+		assertEntity( "Person", null, inspectionResults.get( "Person" ) );
+		assertEntity( "Address", "address", inspectionResults.get( "Person/address" ) );
+		assertEquals( 2, inspectionResults.size() );
+
+		// Depth 2
+
+		results = servlet.inspectAll( null, "Person", new String[0], 2 );
+		inspectionResults = results.getInspectionResults();
+		assertEntity( "Address", "address", inspectionResults.get( "Person/address" ) );
+		assertEntity( "Country", "country", inspectionResults.get( "Person/address/country" ) );
+		assertEquals( 3, inspectionResults.size() );
+
+		// Starting from a nested path
+
+		results = servlet.inspectAll( null, "Person", new String[] { "manager" }, 1 );
+		inspectionResults = results.getInspectionResults();
+		assertEntity( "Person", "manager", inspectionResults.get( "Person/manager" ) );
+		assertEntity( "Address", "address", inspectionResults.get( "Person/manager/address" ) );
+		assertEquals( 2, inspectionResults.size() );
+	}
+
+	public void testRecursiveTypes() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 100 );
+
+		// Recursive references are not inspected in advance, however deep
+
+		Map<String, String> inspectionResults = servlet.inspectAll( null, "Person", new String[0], 100 ).getInspectionResults();
+		assertTrue( inspectionResults.containsKey( "Person" ) );
+		assertTrue( inspectionResults.containsKey( "Person/address" ) );
+		assertTrue( inspectionResults.containsKey( "Person/address/country" ) );
+		assertEquals( 3, inspectionResults.size() );
+
+		// Only types on the current path count as recursive
+
+		inspectionResults = servlet.inspectTypes( new String[] { "Person", "Address" }, 100 ).getInspectionResults();
+		assertTrue( inspectionResults.containsKey( "Address/country" ) );
+		assertTrue( inspectionResults.containsKey( "Person/address/country" ) );
+		assertEquals( 5, inspectionResults.size() );
+	}
+
+	public void testNoMetadataVersion() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 10 );
+		assertEquals( null, servlet.getMetadataVersion() );
+		assertEquals( null, servlet.inspectAll( null, "Person", new String[0], 0 ).getMetadataVersion() );
+	}
+
+	public void testMaximumInspectionDepth() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 1 );
+
+		Map<String, String> inspectionResults = servlet.inspectAll( null, "Person", new String[0], 100 ).getInspectionResults();
+		assertTrue( inspectionResults.containsKey( "Person" ) );
+		assertTrue( inspectionResults.containsKey( "Person/address" ) );
+		assertEquals( 2, inspectionResults.size() );
+
+		inspectionResults = servlet.inspectTypes( new String[] { "Person" }, 100 ).getInspectionResults();
+		assertTrue( inspectionResults.containsKey( "Person" ) );
+		assertTrue( inspectionResults.containsKey( "Person/address" ) );
+		assertEquals( 2, inspectionResults.size() );
+	}
+
+	public void testInspectTypes() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 10 );
+		servlet.setMetadataVersion( "2" );
+
+		GwtRemoteInspectionResults results = servlet.inspectTypes( new String[] { "Person", "Address", "Missing" }, 1 );
+		assertEquals( "2", results.getMetadataVersion() );
+
+		Map<String, String> inspectionResults = results.getInspectionResults();
+		assertEntity( "Person", null, inspectionResults.get( "Person" ) );
+		assertEntity( "Address", "address", inspectionResults.get( "Person/address" ) );
+		assertEntity( "Address", null, inspectionResults.get( "Address" ) );
+		assertEntity( "Country", "country", inspectionResults.get( "Address/country" ) );
+
+		// Paths that inspect to null are still returned
+
+		assertTrue( inspectionResults.containsKey( "Missing" ) );
+		assertEquals( null, inspectionResults.get( "Missing" ) );
+		assertEquals( 5, inspectionResults.size() );
+	}
+
+	public void testNullInspectionResult() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 10 );
+
+		Map<String, String> inspectionResults = servlet.inspectAll( null, "Missing", new String[] { "foo" }, 1 ).getInspectionResults();
+		assertTrue( inspectionResults.containsKey( "Missing/foo" ) );
+		assertEquals( null, inspectionResults.get( "Missing/foo" ) );
+		assertEquals( 1, inspectionResults.size() );
+	}
+
+	public void testIsNestedMetawidgetCandidate() {
+
+		GwtRemoteInspectorImpl servlet = newServlet( 10 );
+
+		assertTrue( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\"/>" ) ) );
+		assertTrue( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"com.foo.Address\"/>" ) ) );
+		assertTrue( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\" hidden=\"false\" dont-expand=\"false\"/>" ) ) );
+
+		// Not properties
+
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<action name=\"foo\"/>" ) ) );
+
+		// Hidden, dont-expand and lookup
+
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\" hidden=\"true\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\" dont-expand=\"true\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\" lookup=\"Home, Work\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"Address\" lookup=\"\"/>" ) ) );
+
+		// Primitives and JDK types
+
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"int\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"java.lang.String\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"java.util.Date\"/>" ) ) );
+		assertFalse( servlet.isNestedMetawidgetCandidate( newTrait( "<property name=\"foo\" type=\"java.util.List\"/>" ) ) );
+	}
+
+	//
+	// Private methods
+	//
+
+	private GwtRemoteInspectorImpl newServlet( final int maximumInspectionDepth ) {
+
+		GwtRemoteInspectorImpl servlet = new GwtRemoteInspectorTestImpl() {
+
+			@Override
+			protected GwtRemoteInspectorImplPipeline newPipeline() {
+
+				GwtRemoteInspectorImplPipeline pipeline = super.newPipeline();
+				pipeline.setMaximumInspectionDepth( maximumInspectionDepth );
+
+				return pipeline;
+			}
+		};
+
+		servlet.setInspector( new XmlInspector( new XmlInspectorConfig().setInputStream( new ByteArrayInputStream( INSPECTION_RESULT.getBytes() ) ) ) );
+
+		return servlet;
+	}
+
+	private void assertEntity( String type, String name, String inspectionResult ) {
+
+		assertTrue( inspectionResult != null );
+
+		Element entity = XmlUtils.getFirstChildElement( XmlUtils.documentFromString( inspectionResult ).getDocumentElement() );
+		assertEquals( ENTITY, entity.getNodeName() );
+		assertEquals( type, entity.getAttribute( TYPE ) );
+
+		if ( name == null ) {
+			assertFalse( entity.hasAttribute( NAME ) );
+		} else {
+			assertEquals( name, entity.getAttribute( NAME ) );
+		}
+	}
+
+	private Element newTrait( String xml ) {
+
+		return XmlUtils.documentFromString( xml ).getDocumentElement();
+	}
+}
@@ -62,6 +62,12 @@ public class HibernateValidatorInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectProperty( Property property )
 		throws Exception {
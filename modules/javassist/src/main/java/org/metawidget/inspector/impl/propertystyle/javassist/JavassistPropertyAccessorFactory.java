@@ -0,0 +1,424 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl.propertystyle.javassist;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.metawidget.inspector.impl.propertystyle.javabean.PropertyAccessor;
+import org.metawidget.inspector.impl.propertystyle.javabean.PropertyAccessorFactory;
+import org.metawidget.inspector.impl.propertystyle.javabean.ReflectionPropertyAccessorFactory;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.LogUtils;
+import org.metawidget.util.LogUtils.Log;
+
+/**
+ * PropertyAccessorFactory for environments that have Javassist available.
+ * <p>
+ * Generates a small class per JavaBean property that calls its getter and setter directly, rather
+ * than through <code>Method.invoke</code>. Generated calls are ordinary virtual calls the JIT can
+ * inline, so they avoid reflection's argument array, access checks and boxing of
+ * <code>InvocationTargetExceptions</code>. This is most noticeable for large forms, which read every
+ * property on every inspection and write every property on every save.
+ * <p>
+ * Generated classes are defined in a child of the ClassLoader of the class that declares the getter
+ * (or setter), rather than injected into that ClassLoader (which newer JDKs forbid). Where
+ * generation is not possible (eg. the declaring class is not public) this factory falls back to
+ * <code>ReflectionPropertyAccessorFactory</code>.
+ * <p>
+ * Use it by setting <code>JavaBeanPropertyStyleConfig.setPropertyAccessorFactory</code>.
+ * <p>
+ * Generated classes can never be unloaded while any of their siblings are still in use, so they
+ * are generated at most once per getter and setter. <code>JavaBeanPropertyStyle</code> may
+ * recreate its properties (eg. after <code>clearCache</code>, or for each context ClassLoader),
+ * but each time it is given new instances of the same classes.
+ *
+ * @author Richard Kennard
+ */
+
+public class JavassistPropertyAccessorFactory
+	implements PropertyAccessorFactory {
+
+	//
+	// Private statics
+	//
+
+	private static final Log													LOG										= LogUtils.getLog( JavassistPropertyAccessorFactory.class );
+
+	private static final String													GENERATED_CLASS_SUFFIX					= "$$PropertyAccessor";
+
+	/**
+	 * Wrapper types a primitive setter accepts, as per <code>Method.invoke</code>: the exact
+	 * wrapper, then those that widen to it.
+	 */
+
+	private static final Map<Class<?>, Class<?>[]>								ACCEPTED_WRAPPERS						= CollectionUtils.newHashMap();
+
+	static {
+
+		ACCEPTED_WRAPPERS.put( boolean.class, new Class<?>[] { Boolean.class } );
+		ACCEPTED_WRAPPERS.put( char.class, new Class<?>[] { Character.class } );
+		ACCEPTED_WRAPPERS.put( byte.class, new Class<?>[] { Byte.class } );
+		ACCEPTED_WRAPPERS.put( short.class, new Class<?>[] { Short.class, Byte.class } );
+		ACCEPTED_WRAPPERS.put( int.class, new Class<?>[] { Integer.class, Character.class, Short.class, Byte.class } );
+		ACCEPTED_WRAPPERS.put( long.class, new Class<?>[] { Long.class, Integer.class, Character.class, Short.class, Byte.class } );
+		ACCEPTED_WRAPPERS.put( float.class, new Class<?>[] { Float.class, Long.class, Integer.class, Character.class, Short.class, Byte.class } );
+		ACCEPTED_WRAPPERS.put( double.class, new Class<?>[] { Double.class, Float.class, Long.class, Integer.class, Character.class, Short.class, Byte.class } );
+	}
+
+	private static final AtomicInteger											GENERATED_CLASS_NUMBER					= new AtomicInteger();
+
+	private static final PropertyAccessorFactory								REFLECTION_PROPERTY_ACCESSOR_FACTORY	= new ReflectionPropertyAccessorFactory();
+
+	/**
+	 * AccessorClassLoaders, keyed by their parent ClassLoader.
+	 * <p>
+	 * Both are only weakly referenced: each AccessorClassLoader is kept alive by the classes it
+	 * defines, and references its parent strongly.
+	 */
+
+	private static final Map<ClassLoader, WeakReference<AccessorClassLoader>>	ACCESSOR_CLASS_LOADERS					= CollectionUtils.newWeakHashMap();
+
+	//
+	// Public methods
+	//
+
+	public PropertyAccessor newPropertyAccessor( Method readMethod, Method writeMethod ) {
+
+		if ( !isAccessible( readMethod ) || !isAccessible( writeMethod ) ) {
+			LOG.debug( "{0} is not accessible, falling back to reflection", readMethod == null ? writeMethod : readMethod );
+			return REFLECTION_PROPERTY_ACCESSOR_FACTORY.newPropertyAccessor( readMethod, writeMethod );
+		}
+
+		Class<?> declaringClass;
+
+		if ( readMethod != null ) {
+			declaringClass = readMethod.getDeclaringClass();
+		} else {
+			declaringClass = writeMethod.getDeclaringClass();
+		}
+
+		try {
+			return (PropertyAccessor) getPropertyAccessorClass( declaringClass, readMethod, writeMethod ).newInstance();
+		} catch ( Exception e ) {
+			LOG.warn( "Unable to generate PropertyAccessor for {0}, falling back to reflection: {1}", declaringClass, e );
+		} catch ( LinkageError e ) {
+			LOG.warn( "Unable to generate PropertyAccessor for {0}, falling back to reflection: {1}", declaringClass, e );
+		}
+
+		return REFLECTION_PROPERTY_ACCESSOR_FACTORY.newPropertyAccessor( readMethod, writeMethod );
+	}
+
+	//
+	// Private methods
+	//
+
+	/**
+	 * Gets the generated class for the given getter and setter, generating it if this is the first
+	 * time they have been asked for.
+	 */
+
+	private Class<?> getPropertyAccessorClass( Class<?> declaringClass, Method readMethod, Method writeMethod )
+		throws Exception {
+
+		ClassLoader classLoader = declaringClass.getClassLoader();
+
+		if ( classLoader == null ) {
+			throw new ClassNotFoundException( "No ClassLoader for " + declaringClass );
+		}
+
+		AccessorClassLoader accessorClassLoader = getAccessorClassLoader( classLoader );
+		String key = readMethod + " " + writeMethod;
+
+		synchronized ( accessorClassLoader ) {
+
+			Class<?> accessorClass = accessorClassLoader.getAccessorClass( key );
+
+			if ( accessorClass == null ) {
+				accessorClass = generatePropertyAccessorClass( accessorClassLoader, declaringClass, readMethod, writeMethod );
+				accessorClassLoader.putAccessorClass( key, accessorClass );
+			}
+
+			return accessorClass;
+		}
+	}
+
+	private Class<?> generatePropertyAccessorClass( AccessorClassLoader accessorClassLoader, Class<?> declaringClass, Method readMethod, Method writeMethod )
+		throws Exception {
+
+		// Use a fresh ClassPool (rather than ClassPool.getDefault) so that the bean's own
+		// ClassLoader is searched, and so the pool is not left holding every CtClass we compile
+		// against
+
+		ClassPool pool = new ClassPool( true );
+		pool.appendClassPath( new LoaderClassPath( declaringClass.getClassLoader() ) );
+		pool.appendClassPath( new LoaderClassPath( PropertyAccessor.class.getClassLoader() ) );
+
+		String className = declaringClass.getName() + GENERATED_CLASS_SUFFIX + GENERATED_CLASS_NUMBER.incrementAndGet();
+		CtClass ctClass = pool.makeClass( className );
+		ctClass.addInterface( pool.get( PropertyAccessor.class.getName() ) );
+
+		// Read
+
+		StringBuilder builder = new StringBuilder( "public Object read( Object obj ) { " );
+
+		if ( readMethod == null ) {
+			builder.append( "throw new UnsupportedOperationException( \"No getter\" );" );
+		} else {
+			builder.append( "return ($w) ( (" );
+			builder.append( getSourceName( readMethod.getDeclaringClass() ) );
+			builder.append( ") obj )." );
+			builder.append( readMethod.getName() );
+			builder.append( "();" );
+		}
+
+		builder.append( " }" );
+		ctClass.addMethod( CtNewMethod.make( builder.toString(), ctClass ) );
+
+		// Write
+
+		builder = new StringBuilder( "public void write( Object obj, Object value ) { " );
+
+		if ( writeMethod == null ) {
+			builder.append( "throw new UnsupportedOperationException( \"No setter\" );" );
+		} else {
+			Class<?> type = writeMethod.getParameterTypes()[0];
+
+			if ( !type.isPrimitive() ) {
+				appendWrite( builder, writeMethod, "(" + getSourceName( type ) + ") value" );
+			} else {
+
+				// Javassist's compiler does not autobox, so unwrap primitives explicitly. Like
+				// Method.invoke, only accept wrappers that widen to the primitive (never narrow)
+
+				for ( Class<?> wrapper : ACCEPTED_WRAPPERS.get( type ) ) {
+					builder.append( "if ( value instanceof " );
+					builder.append( wrapper.getName() );
+					builder.append( " ) { " );
+					appendWrite( builder, writeMethod, getUnboxedValue( wrapper, type ) );
+					builder.append( " return; } " );
+				}
+
+				builder.append( "throw new IllegalArgumentException( \"argument type mismatch\" );" );
+			}
+		}
+
+		builder.append( " }" );
+		ctClass.addMethod( CtNewMethod.make( builder.toString(), ctClass ) );
+
+		byte[] bytecode;
+
+		try {
+			bytecode = ctClass.toBytecode();
+		} finally {
+			ctClass.detach();
+		}
+
+		return accessorClassLoader.defineClass( className, bytecode );
+	}
+
+	private AccessorClassLoader getAccessorClassLoader( ClassLoader parent ) {
+
+		synchronized ( ACCESSOR_CLASS_LOADERS ) {
+
+			WeakReference<AccessorClassLoader> reference = ACCESSOR_CLASS_LOADERS.get( parent );
+
+			if ( reference != null ) {
+				AccessorClassLoader accessorClassLoader = reference.get();
+
+				if ( accessorClassLoader != null ) {
+					return accessorClassLoader;
+				}
+			}
+
+			AccessorClassLoader accessorClassLoader = new AccessorClassLoader( parent );
+			ACCESSOR_CLASS_LOADERS.put( parent, new WeakReference<AccessorClassLoader>( accessorClassLoader ) );
+
+			return accessorClassLoader;
+		}
+	}
+
+	/**
+	 * Generated classes can only call public methods of public classes (they are not in the same
+	 * package, and not nested).
+	 */
+
+	private boolean isAccessible( Method method ) {
+
+		if ( method == null ) {
+			return true;
+		}
+
+		if ( !Modifier.isPublic( method.getModifiers() ) ) {
+			return false;
+		}
+
+		if ( !isPublic( method.getReturnType() ) ) {
+			return false;
+		}
+
+		for ( Class<?> clazz : method.getParameterTypes() ) {
+			if ( !isPublic( clazz ) ) {
+				return false;
+			}
+		}
+
+		return isPublic( method.getDeclaringClass() );
+	}
+
+	private boolean isPublic( Class<?> clazz ) {
+
+		Class<?> classToCheck = clazz;
+
+		while ( classToCheck.isArray() ) {
+			classToCheck = classToCheck.getComponentType();
+		}
+
+		while ( classToCheck != null ) {
+			if ( !Modifier.isPublic( classToCheck.getModifiers() ) ) {
+				return false;
+			}
+
+			classToCheck = classToCheck.getEnclosingClass();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Javassist source uses <code>Outer$Inner</code> for nested classes, but
+	 * <code>String[]</code> (not <code>[Ljava.lang.String;</code>) for arrays.
+	 */
+
+	private String getSourceName( Class<?> clazz ) {
+
+		if ( clazz.isArray() ) {
+			return getSourceName( clazz.getComponentType() ) + "[]";
+		}
+
+		return clazz.getName();
+	}
+
+	private void appendWrite( StringBuilder builder, Method writeMethod, String value ) {
+
+		builder.append( "( (" );
+		builder.append( getSourceName( writeMethod.getDeclaringClass() ) );
+		builder.append( ") obj )." );
+		builder.append( writeMethod.getName() );
+		builder.append( "( " );
+		builder.append( value );
+		builder.append( " );" );
+	}
+
+	/**
+	 * @param wrapper
+	 *            one of <code>ACCEPTED_WRAPPERS</code> for the given primitive type
+	 */
+
+	private String getUnboxedValue( Class<?> wrapper, Class<?> type ) {
+
+		if ( Boolean.class.equals( wrapper ) ) {
+			return "( (Boolean) value ).booleanValue()";
+		}
+
+		if ( Character.class.equals( wrapper ) ) {
+
+			if ( char.class.equals( type ) ) {
+				return "( (Character) value ).charValue()";
+			}
+
+			return "(" + type.getName() + ") ( (Character) value ).charValue()";
+		}
+
+		// Byte, Short, Integer, Long, Float, Double
+
+		return "( (" + wrapper.getName() + ") value )." + type.getName() + "Value()";
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * ClassLoader for generated classes.
+	 * <p>
+	 * Delegates to the bean's ClassLoader first, then to Metawidget's own (in case the bean's
+	 * ClassLoader cannot see <code>PropertyAccessor</code>).
+	 */
+
+	private static class AccessorClassLoader
+		extends ClassLoader {
+
+		//
+		// Private members
+		//
+
+		/**
+		 * Classes generated by this ClassLoader, keyed by getter and setter. Guarded by
+		 * synchronizing on this ClassLoader.
+		 */
+
+		private final Map<String, Class<?>>	mAccessorClasses	= CollectionUtils.newHashMap();
+
+		//
+		// Constructor
+		//
+
+		public AccessorClassLoader( ClassLoader parent ) {
+
+			super( parent );
+		}
+
+		//
+		// Public methods
+		//
+
+		public Class<?> getAccessorClass( String key ) {
+
+			return mAccessorClasses.get( key );
+		}
+
+		public void putAccessorClass( String key, Class<?> accessorClass ) {
+
+			mAccessorClasses.put( key, accessorClass );
+		}
+
+		public Class<?> defineClass( String name, byte[] bytecode ) {
+
+			return defineClass( name, bytecode, 0, bytecode.length );
+		}
+
+		//
+		// Protected methods
+		//
+
+		@Override
+		protected Class<?> findClass( String name )
+			throws ClassNotFoundException {
+
+			return Class.forName( name, false, PropertyAccessor.class.getClassLoader() );
+		}
+	}
+}
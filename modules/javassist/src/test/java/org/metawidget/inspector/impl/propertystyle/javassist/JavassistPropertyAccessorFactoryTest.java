@@ -0,0 +1,250 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.inspector.impl.propertystyle.javassist;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.inspector.impl.propertystyle.Property;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyle;
+import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyleConfig;
+import org.metawidget.inspector.impl.propertystyle.javabean.PropertyAccessor;
+import org.metawidget.inspector.impl.propertystyle.javabean.ReflectionPropertyAccessorFactory;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class JavassistPropertyAccessorFactoryTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testGeneratedAccessor()
+		throws Exception {
+
+		JavassistPropertyAccessorFactory factory = new JavassistPropertyAccessorFactory();
+		PropertyAccessor accessor = factory.newPropertyAccessor( Foo.class.getMethod( "getName" ), Foo.class.getMethod( "setName", String.class ) );
+		assertTrue( accessor.getClass().getName().startsWith( Foo.class.getName() + "$$PropertyAccessor" ) );
+
+		Foo foo = new Foo();
+		accessor.write( foo, "Bar" );
+		assertEquals( "Bar", foo.getName() );
+		assertEquals( "Bar", accessor.read( foo ) );
+
+		// Primitives
+
+		accessor = factory.newPropertyAccessor( Foo.class.getMethod( "getAge" ), Foo.class.getMethod( "setAge", int.class ) );
+		accessor.write( foo, 42 );
+		assertEquals( 42, foo.getAge() );
+		assertEquals( 42, accessor.read( foo ) );
+
+		accessor = factory.newPropertyAccessor( Foo.class.getMethod( "isRetired" ), Foo.class.getMethod( "setRetired", boolean.class ) );
+		accessor.write( foo, Boolean.TRUE );
+		assertTrue( foo.isRetired() );
+		assertEquals( Boolean.TRUE, accessor.read( foo ) );
+
+		// Arrays
+
+		accessor = factory.newPropertyAccessor( Foo.class.getMethod( "getNicknames" ), Foo.class.getMethod( "setNicknames", String[].class ) );
+		accessor.write( foo, new String[] { "Baz" } );
+		assertEquals( "Baz", foo.getNicknames()[0] );
+		assertEquals( "Baz", ( (String[]) accessor.read( foo ) )[0] );
+
+		// Read-only
+
+		accessor = factory.newPropertyAccessor( Foo.class.getMethod( "getReadOnly" ), null );
+		assertEquals( "Read only", accessor.read( foo ) );
+
+		try {
+			accessor.write( foo, "Foo" );
+			fail();
+		} catch ( UnsupportedOperationException e ) {
+			assertEquals( "No setter", e.getMessage() );
+		}
+	}
+
+	public void testPrimitiveConversions()
+		throws Exception {
+
+		JavassistPropertyAccessorFactory factory = new JavassistPropertyAccessorFactory();
+		PropertyAccessor accessor = factory.newPropertyAccessor( Foo.class.getMethod( "getAge" ), Foo.class.getMethod( "setAge", int.class ) );
+		PropertyAccessor reflectionAccessor = new ReflectionPropertyAccessorFactory().newPropertyAccessor( Foo.class.getMethod( "getAge" ), Foo.class.getMethod( "setAge", int.class ) );
+		Foo foo = new Foo();
+
+		// Widening, as per Method.invoke
+
+		accessor.write( foo, Short.valueOf( (short) 42 ) );
+		assertEquals( 42, foo.getAge() );
+		accessor.write( foo, Byte.valueOf( (byte) 43 ) );
+		assertEquals( 43, foo.getAge() );
+		accessor.write( foo, Character.valueOf( 'A' ) );
+		assertEquals( 65, foo.getAge() );
+
+		// Never narrowing, as per Method.invoke
+
+		for ( Object value : new Object[] { Long.valueOf( 44 ), Double.valueOf( 45 ), "46", null } ) {
+
+			try {
+				accessor.write( foo, value );
+				fail();
+			} catch ( IllegalArgumentException e ) {
+				assertEquals( "argument type mismatch", e.getMessage() );
+			}
+
+			try {
+				reflectionAccessor.write( foo, value );
+				fail();
+			} catch ( IllegalArgumentException e ) {
+				// Same as generated
+			}
+		}
+
+		assertEquals( 65, foo.getAge() );
+	}
+
+	public void testGeneratedClassesAreReused()
+		throws Exception {
+
+		JavassistPropertyAccessorFactory factory = new JavassistPropertyAccessorFactory();
+		PropertyAccessor accessor1 = factory.newPropertyAccessor( Foo.class.getMethod( "getName" ), Foo.class.getMethod( "setName", String.class ) );
+		PropertyAccessor accessor2 = new JavassistPropertyAccessorFactory().newPropertyAccessor( Foo.class.getMethod( "getName" ), Foo.class.getMethod( "setName", String.class ) );
+		assertTrue( accessor1 != accessor2 );
+		assertTrue( accessor1.getClass() == accessor2.getClass() );
+
+		// Different getter or setter
+
+		assertTrue( accessor1.getClass() != factory.newPropertyAccessor( Foo.class.getMethod( "getName" ), null ).getClass() );
+		assertTrue( accessor1.getClass() != factory.newPropertyAccessor( Foo.class.getMethod( "getAge" ), Foo.class.getMethod( "setAge", int.class ) ).getClass() );
+	}
+
+	public void testFallbackToReflection()
+		throws Exception {
+
+		// Generated classes cannot refer to non-public classes
+
+		PropertyAccessor accessor = new JavassistPropertyAccessorFactory().newPropertyAccessor( null, Foo.class.getMethod( "setSecret", Secret.class ) );
+		assertFalse( accessor.getClass().getName().contains( "$$PropertyAccessor" ) );
+
+		Foo foo = new Foo();
+		Secret secret = new Secret();
+		accessor.write( foo, secret );
+		assertTrue( secret == foo.mSecret );
+
+		try {
+			accessor.read( foo );
+			fail();
+		} catch ( UnsupportedOperationException e ) {
+			assertEquals( "No getter", e.getMessage() );
+		}
+	}
+
+	public void testJavaBeanPropertyStyle() {
+
+		JavaBeanPropertyStyleConfig config = new JavaBeanPropertyStyleConfig().setPropertyAccessorFactory( new JavassistPropertyAccessorFactory() );
+		Map<String, Property> properties = new JavaBeanPropertyStyle( config ).getProperties( Foo.class.getName() );
+
+		Foo foo = new Foo();
+		properties.get( "age" ).write( foo, 42 );
+		assertEquals( 42, properties.get( "age" ).read( foo ) );
+		properties.get( "name" ).write( foo, "Bar" );
+		assertEquals( "Bar", properties.get( "name" ).read( foo ) );
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		//
+		// Private members
+		//
+
+		private String		mName;
+
+		private int			mAge;
+
+		private boolean		mRetired;
+
+		private String[]	mNicknames;
+
+		private Secret		mSecret;
+
+		//
+		// Public methods
+		//
+
+		public String getName() {
+
+			return mName;
+		}
+
+		public void setName( String name ) {
+
+			mName = name;
+		}
+
+		public int getAge() {
+
+			return mAge;
+		}
+
+		public void setAge( int age ) {
+
+			mAge = age;
+		}
+
+		public boolean isRetired() {
+
+			return mRetired;
+		}
+
+		public void setRetired( boolean retired ) {
+
+			mRetired = retired;
+		}
+
+		public String[] getNicknames() {
+
+			return mNicknames;
+		}
+
+		public void setNicknames( String[] nicknames ) {
+
+			mNicknames = nicknames;
+		}
+
+		public String getReadOnly() {
+
+			return "Read only";
+		}
+
+		public void setSecret( Secret secret ) {
+
+			mSecret = secret;
+		}
+	}
+
+	static class Secret {
+
+		// Package private
+	}
+}
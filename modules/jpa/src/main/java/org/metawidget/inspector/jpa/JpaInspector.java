@@ -76,6 +76,12 @@ public class JpaInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectProperty( Property property )
 		throws Exception {
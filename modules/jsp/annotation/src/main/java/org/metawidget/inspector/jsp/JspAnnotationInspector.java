@@ -52,6 +52,12 @@ public class JspAnnotationInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectProperty( Property property )
 		throws Exception {
@@ -59,24 +59,50 @@ public final class JspUtils {
 	//
 
 	/**
+	 * Slot markers (as used by template caching in <code>BaseHtmlMetawidgetTag</code>) are ignored.
+	 *
 	 * @return true if the given HTML consists of nothing but hidden fields
 	 */
 
 	public static boolean isJustHiddenFields( CharSequence html ) {
 
-		return PATTERN_HIDDEN_FIELDS.matcher( html ).matches();
+		CharSequence toMatch = html;
+
+		if ( html.toString().indexOf( TEMPLATE_SLOT_START ) != -1 ) {
+			toMatch = PATTERN_TEMPLATE_SLOT_MARKERS.matcher( html ).replaceAll( "" );
+		}
+
+		return PATTERN_HIDDEN_FIELDS.matcher( toMatch ).matches();
 	}
 
 	/**
 	 * Writes the given Tag to a String (<em>not</em> its usual pageContext.getOut).
+	 * <p>
+	 * The buffer used is pooled (per request), so repeated calls do not allocate a new buffer each
+	 * time. Where the String is not actually needed, prefer <code>streamTag</code>.
 	 */
 
 	public static String writeTag( PageContext context, Tag tag, Tag parentTag )
 		throws JspException {
 
-		PageContextDelegate delegateContext = new PageContextDelegate( context );
-		writeTagInternal( delegateContext, tag, parentTag );
-		return delegateContext.getOut().toString();
+		PageContextDelegate delegateContext = acquirePageContextDelegate( context );
+
+		try {
+			writeTagInternal( delegateContext, tag, parentTag );
+			return delegateContext.getOut().toString();
+		} finally {
+			releasePageContextDelegate( context, delegateContext );
+		}
+	}
+
+	/**
+	 * Writes the given Tag directly to its usual pageContext.getOut, without buffering it.
+	 */
+
+	public static void streamTag( PageContext context, Tag tag, Tag parentTag )
+		throws JspException {
+
+		writeTagInternal( context, tag, parentTag );
 	}
 
 	/**
@@ -119,7 +145,76 @@ public final class JspUtils {
 	// Private statics
 	//
 
-	private static final String	DEFERRED_CHILD_KEY	= JspUtils.class + ".DEFERRED_CHILD";
+	private static final String	DEFERRED_CHILD_KEY			= JspUtils.class + ".DEFERRED_CHILD";
+
+	/**
+	 * Request-level attribute holding the pool of <code>PageContextDelegate</code>s (and their
+	 * buffers) for <code>writeTag</code>.
+	 * <p>
+	 * The pool is a list, not a single instance, because <code>writeTag</code> is re-entrant (eg.
+	 * when writing a nested Metawidget). It is held per request, rather than per Thread, so that it
+	 * is released along with the request (and does not pin the web application's ClassLoader to a
+	 * pooled container Thread after redeployment).
+	 */
+
+	private static final String	PAGE_CONTEXT_DELEGATES_KEY	= JspUtils.class + ".PAGE_CONTEXT_DELEGATES";
+
+	private static final int	MAXIMUM_POOLED_DELEGATES	= 8;
+
+	/**
+	 * Buffers that have grown larger than this (in characters) are not pooled, so that one large
+	 * widget does not pin a large buffer for the rest of the request.
+	 */
+
+	private static final int	MAXIMUM_POOLED_BUFFER_SIZE	= 8192;
+
+	private static PageContextDelegate acquirePageContextDelegate( PageContext context ) {
+
+		if ( context == null ) {
+			return new PageContextDelegate( context );
+		}
+
+		@SuppressWarnings( "unchecked" )
+		List<PageContextDelegate> pool = (List<PageContextDelegate>) context.getAttribute( PAGE_CONTEXT_DELEGATES_KEY, PageContext.REQUEST_SCOPE );
+
+		if ( pool == null || pool.isEmpty() ) {
+			return new PageContextDelegate( context );
+		}
+
+		PageContextDelegate delegateContext = pool.remove( pool.size() - 1 );
+		delegateContext.setContext( context );
+
+		return delegateContext;
+	}
+
+	private static void releasePageContextDelegate( PageContext context, PageContextDelegate delegateContext ) {
+
+		delegateContext.setContext( null );
+
+		if ( context == null ) {
+			return;
+		}
+
+		BufferedContent bufferedContent = (BufferedContent) delegateContext.getOut();
+
+		if ( !bufferedContent.isReusable() || bufferedContent.getCapacity() > MAXIMUM_POOLED_BUFFER_SIZE ) {
+			return;
+		}
+
+		bufferedContent.clear();
+
+		@SuppressWarnings( "unchecked" )
+		List<PageContextDelegate> pool = (List<PageContextDelegate>) context.getAttribute( PAGE_CONTEXT_DELEGATES_KEY, PageContext.REQUEST_SCOPE );
+
+		if ( pool == null ) {
+			pool = CollectionUtils.newArrayList();
+			context.setAttribute( PAGE_CONTEXT_DELEGATES_KEY, pool, PageContext.REQUEST_SCOPE );
+		}
+
+		if ( pool.size() < MAXIMUM_POOLED_DELEGATES ) {
+			pool.add( delegateContext );
+		}
+	}
 
 	private static void writeTagInternal( PageContext context, Tag tag, Tag parentTag )
 		throws JspException {
@@ -176,6 +271,9 @@ public final class JspUtils {
 	/**
 	 * Subverts the <code>getOut</code> method of a <code>PageContext</code> to use
 	 * <code>BufferedContent</code>.
+	 * <p>
+	 * Pooled by <code>writeTag</code>, so the <code>PageContext</code> it delegates to can be
+	 * changed.
 	 */
 
 	private static class PageContextDelegate
@@ -203,6 +301,11 @@ public final class JspUtils {
 		// Public methods
 		//
 
+		public void setContext( PageContext context ) {
+
+			mContext = context;
+		}
+
 		@Override
 		public JspWriter getOut() {
 
@@ -389,6 +492,8 @@ public final class JspUtils {
 
 		private PrintWriter		mPrintWriter;
 
+		private boolean			mClosed;
+
 		//
 		// Constructor
 		//
@@ -403,11 +508,38 @@ public final class JspUtils {
 		// Public methods
 		//
 
+		/**
+		 * Whether this BufferedContent can be cleared and written to again. False if it has been
+		 * closed.
+		 */
+
+		public boolean isReusable() {
+
+			return !mClosed;
+		}
+
+		/**
+		 * @return the current capacity of the underlying buffer, in characters
+		 */
+
+		public int getCapacity() {
+
+			return mStringWriter.getBuffer().capacity();
+		}
+
 		@Override
 		public void clear() {
 
+			// Reuse the existing buffer if we can
+
+			if ( mStringWriter != null && !mClosed ) {
+				mStringWriter.getBuffer().setLength( 0 );
+				return;
+			}
+
 			mStringWriter = new StringWriter();
 			mPrintWriter = new PrintWriter( mStringWriter );
+			mClosed = false;
 		}
 
 		@Override
@@ -420,6 +552,7 @@ public final class JspUtils {
 		public void close() {
 
 			mPrintWriter.close();
+			mClosed = true;
 		}
 
 		@Override
@@ -590,7 +723,16 @@ public final class JspUtils {
 	// Private statics
 	//
 
-	private static final Pattern	PATTERN_HIDDEN_FIELDS	= Pattern.compile( "(\\s*<\\s*(input)\\s+[^>]*?(type)\\s*=\\s*\"\\s*hidden\\s*\"[^>]*?>\\s*)+?" );
+	private static final Pattern	PATTERN_HIDDEN_FIELDS			= Pattern.compile( "(\\s*<\\s*(input)\\s+[^>]*?(type)\\s*=\\s*\"\\s*hidden\\s*\"[^>]*?>\\s*)+?" );
+
+	/**
+	 * Same markers as <code>RenderTemplate.SLOT_START</code>, <code>SLOT_SEPARATOR</code> and
+	 * <code>SLOT_END</code>.
+	 */
+
+	private static final char		TEMPLATE_SLOT_START				= '\uE000';
+
+	private static final Pattern	PATTERN_TEMPLATE_SLOT_MARKERS	= Pattern.compile( "\\uE000[0-9]+\\uE001|\\uE002" );
 
 	//
 	// Private constructor
@@ -19,6 +19,7 @@ package org.metawidget.jsp.tagext;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.io.FileNotFoundException;
+import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
@@ -35,6 +36,11 @@ import org.metawidget.config.impl.BaseConfigReader;
 import org.metawidget.config.impl.ServletResourceResolver;
 import org.metawidget.iface.MetawidgetException;
 import org.metawidget.inspectionresultprocessor.iface.InspectionResultProcessor;
+import org.metawidget.inspector.caching.CachingInspector;
+import org.metawidget.inspector.caching.CachingInspectorConfig;
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.iface.CacheableInspector;
+import org.metawidget.inspector.iface.DomInspector;
 import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.layout.iface.Layout;
 import org.metawidget.pipeline.w3c.W3CPipeline;
@@ -46,6 +52,7 @@ import org.metawidget.util.simple.PathUtils.TypeAndNames;
 import org.metawidget.util.simple.StringUtils;
 import org.metawidget.widgetbuilder.iface.WidgetBuilder;
 import org.metawidget.widgetprocessor.iface.WidgetProcessor;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
@@ -66,9 +73,26 @@ public abstract class MetawidgetTag
 	 * different ConfigReader if needed (ie. for Grails).
 	 */
 
-	private static final String										CONFIG_READER_ATTRIBUTE	= "metawidget-config-reader";
+	private static final String										CONFIG_READER_ATTRIBUTE			= "metawidget-config-reader";
 
-	private static final String										DEFAULT_USER_CONFIG		= "metawidget.xml";
+	/**
+	 * Cache the inspection results of 'raw' types (eg. contactForm) at the ServletContext level,
+	 * for combined inspection. Keyed by CompositeInspector: ConfigReader shares the same
+	 * CompositeInspector instance between all Metawidgets with the same configuration.
+	 * <p>
+	 * The keys are weak, so that replacing the ConfigReader (eg. to reload configuration) releases
+	 * the old CompositeInspectors and their cached inspection results.
+	 */
+
+	private static final String										SYMBOLIC_INSPECTORS_ATTRIBUTE	= "metawidget-symbolic-inspectors";
+
+	/**
+	 * Guards creating the <code>SYMBOLIC_INSPECTORS_ATTRIBUTE</code>.
+	 */
+
+	private static final Object										SYMBOLIC_INSPECTORS_LOCK		= new Object();
+
+	private static final String										DEFAULT_USER_CONFIG				= "metawidget.xml";
 
 	/* package private */static boolean								LOGGED_MISSING_CONFIG;
 
@@ -93,6 +117,8 @@ public abstract class MetawidgetTag
 
 	private boolean													mNullConfig;
 
+	private boolean													mCombinedInspection;
+
 	private ResourceBundle											mBundle;
 
 	private Map<String, FacetTag>									mFacets;
@@ -103,6 +129,49 @@ public abstract class MetawidgetTag
 
 	/* package private */W3CPipeline<Tag, BodyTag, MetawidgetTag>	mPipeline;
 
+	//
+	// Public statics
+	//
+
+	/**
+	 * Invalidates all cached inspection results of 'raw' types, as used by combined inspection.
+	 * <p>
+	 * This should be called if the Inspectors' metadata changes (eg. a reloaded XML file).
+	 */
+
+	public static void clearSymbolicInspectorCache( ServletContext servletContext ) {
+
+		Map<CompositeInspector, CachingInspector> symbolicInspectors = getSymbolicInspectors( servletContext );
+
+		if ( symbolicInspectors == null ) {
+			return;
+		}
+
+		synchronized ( symbolicInspectors ) {
+			symbolicInspectors.clear();
+		}
+	}
+
+	/**
+	 * Invalidates all cached inspection results of the given 'raw' type (including those for paths
+	 * beneath it).
+	 */
+
+	public static void clearSymbolicInspectorCache( ServletContext servletContext, String type ) {
+
+		Map<CompositeInspector, CachingInspector> symbolicInspectors = getSymbolicInspectors( servletContext );
+
+		if ( symbolicInspectors == null ) {
+			return;
+		}
+
+		synchronized ( symbolicInspectors ) {
+			for ( CachingInspector symbolicInspector : symbolicInspectors.values() ) {
+				symbolicInspector.clearCache( type );
+			}
+		}
+	}
+
 	//
 	// Constructor
 	//
@@ -144,6 +213,17 @@ public abstract class MetawidgetTag
 		}
 
 		mPipeline.setConfigReader( configReader );
+
+		mCombinedInspection = Boolean.parseBoolean( servletContext.getInitParameter( "org.metawidget.jsp.tagext.COMBINED_INSPECTION" ) );
+
+		// (create once, rather than racing to create it on first use)
+
+		synchronized ( SYMBOLIC_INSPECTORS_LOCK ) {
+			if ( getSymbolicInspectors( servletContext ) == null ) {
+				Map<CompositeInspector, CachingInspector> symbolicInspectors = CollectionUtils.newWeakHashMap();
+				servletContext.setAttribute( SYMBOLIC_INSPECTORS_ATTRIBUTE, symbolicInspectors );
+			}
+		}
 	}
 
 	public String getPath() {
@@ -259,6 +339,33 @@ public abstract class MetawidgetTag
 		mStubs.put( path, stubTag );
 	}
 
+	public boolean isCombinedInspection() {
+
+		return mCombinedInspection;
+	}
+
+	/**
+	 * Sets whether to inspect the 'raw' type (eg. contactForm) and the runtime bean (eg.
+	 * BusinessContactForm) in a single pass.
+	 * <p>
+	 * By default, each is inspected (and has its InspectionResultProcessors run) separately, and the
+	 * two results combined afterwards. In combined mode, the inspection result of the 'raw' type is
+	 * instead used as the master document of the <code>CompositeInspector</code>'s inspection of the
+	 * runtime bean, and InspectionResultProcessors are run once over the combined result. The
+	 * inspection result of the 'raw' type is also cached across requests, wherever the
+	 * <code>CompositeInspector</code> declares it cacheable. The cache is invalidated using
+	 * <code>clearSymbolicInspectorCache</code>.
+	 * <p>
+	 * Combined mode only applies if the Inspector is a <code>CompositeInspector</code>. It can also
+	 * be enabled for all Metawidgets using the <code>org.metawidget.jsp.tagext.COMBINED_INSPECTION</code>
+	 * context parameter.
+	 */
+
+	public void setCombinedInspection( boolean combinedInspection ) {
+
+		mCombinedInspection = combinedInspection;
+	}
+
 	public boolean isReadOnly() {
 
 		return mPipeline.isReadOnly();
@@ -376,7 +483,7 @@ public abstract class MetawidgetTag
 		mPipeline.configureOnce();
 
 		try {
-			mPipeline.buildWidgets( inspect() );
+			buildWidgets();
 		} catch ( Exception e ) {
 			throw MetawidgetException.newException( e );
 		}
@@ -438,6 +545,30 @@ public abstract class MetawidgetTag
 		mBundle = bundle;
 	}
 
+	protected ResourceBundle getBundle() {
+
+		return mBundle;
+	}
+
+	protected Object getConfig() {
+
+		return mPipeline.getConfig();
+	}
+
+	protected ConfigReader getConfigReader() {
+
+		return mPipeline.getConfigReader();
+	}
+
+	/**
+	 * Whether this Metawidget has any facets or stubs. Their content is only known at runtime.
+	 */
+
+	protected boolean hasFacetsOrStubs() {
+
+		return ( mFacets != null && !mFacets.isEmpty() ) || ( mStubs != null && !mStubs.isEmpty() );
+	}
+
 	/**
 	 * Instantiate the Pipeline used by this Metawidget.
 	 * <p>
@@ -452,6 +583,63 @@ public abstract class MetawidgetTag
 
 	protected abstract void beforeBuildCompoundWidget( Element element );
 
+	/**
+	 * Inspect, then build and lay out the widgets.
+	 * <p>
+	 * Subclasses can override this method to, say, render the widgets some other way.
+	 */
+
+	protected void buildWidgets()
+		throws Exception {
+
+		mPipeline.buildWidgets( inspect() );
+	}
+
+	/**
+	 * Called before each widget is laid out.
+	 * <p>
+	 * Does nothing by default. Subclasses can override this method to, say, substitute a different
+	 * widget for the Layout.
+	 *
+	 * @return the widget to lay out
+	 */
+
+	protected Tag beforeLayoutWidget( Tag widget, String elementName, Map<String, String> attributes ) {
+
+		return widget;
+	}
+
+	/**
+	 * Build and process a single widget, without inspecting or laying it out.
+	 * <p>
+	 * Useful for subclasses that lay out widgets some other way (eg. from a template).
+	 *
+	 * @param nestedMetawidget
+	 *            whether to build a nested Metawidget, rather than use the WidgetBuilder
+	 * @return the widget, or null if the WidgetBuilder or a WidgetProcessor returned null
+	 */
+
+	protected Tag buildWidget( String elementName, Map<String, String> attributes, boolean nestedMetawidget )
+		throws Exception {
+
+		if ( !( mPipeline instanceof MetawidgetTagPipeline ) ) {
+			throw MetawidgetException.newException( "Building a single widget requires a " + MetawidgetTagPipeline.class.getSimpleName() );
+		}
+
+		mPipeline.configureOnce();
+		return ( (MetawidgetTagPipeline) mPipeline ).buildWidget( elementName, attributes, nestedMetawidget );
+	}
+
+	/**
+	 * Whether this Metawidget's pipeline supports <code>beforeLayoutWidget</code> and
+	 * <code>buildWidget</code> (ie. is a <code>MetawidgetTagPipeline</code>).
+	 */
+
+	protected boolean isDefaultPipeline() {
+
+		return ( mPipeline instanceof MetawidgetTagPipeline );
+	}
+
 	protected void initNestedMetawidget( MetawidgetTag nestedMetawidget, Map<String, String> attributes ) {
 
 		// Don't reconfigure...
@@ -470,6 +658,12 @@ public abstract class MetawidgetTag
 		TypeAndNames typeAndNames = PathUtils.parsePath( mPath, StringUtils.SEPARATOR_DOT_CHAR );
 		String type = typeAndNames.getType();
 
+		// (pageContext may be null in unit tests)
+
+		if ( mCombinedInspection && pageContext != null && mPipeline instanceof MetawidgetTagPipeline && mPipeline.getInspector() instanceof CompositeInspector ) {
+			return ( (MetawidgetTagPipeline) mPipeline ).inspectCombinedAsDom( type, typeAndNames.getNamesAsArray() );
+		}
+
 		// Inspect using the 'raw' type (eg. contactForm)
 
 		Element inspectionResult = mPipeline.inspectAsDom( null, type, typeAndNames.getNamesAsArray() );
@@ -506,6 +700,16 @@ public abstract class MetawidgetTag
 
 	protected abstract String getDefaultConfiguration();
 
+	//
+	// Private statics
+	//
+
+	@SuppressWarnings( "unchecked" )
+	private static Map<CompositeInspector, CachingInspector> getSymbolicInspectors( ServletContext servletContext ) {
+
+		return (Map<CompositeInspector, CachingInspector>) servletContext.getAttribute( SYMBOLIC_INSPECTORS_ATTRIBUTE );
+	}
+
 	//
 	// Inner class
 	//
@@ -517,6 +721,55 @@ public abstract class MetawidgetTag
 		// Protected methods
 		//
 
+		/**
+		 * Inspect the 'raw' type (eg. contactForm) and the runtime bean in a single
+		 * <code>CompositeInspector</code> pass.
+		 * <p>
+		 * The inspection result of the 'raw' type is fetched through a per-CompositeInspector
+		 * <code>CachingInspector</code>, and used as the master document for inspecting the
+		 * runtime bean. InspectionResultProcessors are then run once, over the combined result.
+		 */
+
+		protected Element inspectCombinedAsDom( String type, String... names ) {
+
+			CompositeInspector inspector = (CompositeInspector) getInspector();
+
+			// Inspect using the 'raw' type (eg. contactForm). Note CachingInspector always
+			// returns a copy, so we are free to combine into it
+
+			Element inspectionResult = getSymbolicInspector( inspector ).inspectAsDom( null, type, names );
+			Object toInspect = null;
+			String typeToInspect = type;
+
+			// Try to locate the runtime bean. This allows some Inspectors
+			// to act on it polymorphically.
+
+			Object obj = pageContext.findAttribute( type );
+
+			if ( obj != null ) {
+				toInspect = obj;
+				typeToInspect = obj.getClass().getName();
+				Document masterDocument = null;
+
+				// The top-level types attribute will be different, because one is the 'raw' type
+				// and one the runtime bean. Align them, so that CompositeInspector combines the
+				// two entities (the runtime bean's type wins, as it would have post hoc)
+
+				if ( inspectionResult != null ) {
+					XmlUtils.getFirstChildElement( inspectionResult ).setAttribute( TYPE, typeToInspect );
+					masterDocument = inspectionResult.getOwnerDocument();
+				}
+
+				inspectionResult = inspector.inspectAsDom( masterDocument, toInspect, typeToInspect, names );
+			}
+
+			if ( inspectionResult == null ) {
+				return null;
+			}
+
+			return processInspectionResult( inspectionResult, toInspect, typeToInspect, names );
+		}
+
 		@Override
 		protected MetawidgetTag getPipelineOwner() {
 
@@ -554,6 +807,34 @@ public abstract class MetawidgetTag
 			}
 		}
 
+		/**
+		 * Build and process a single widget.
+		 */
+
+		protected Tag buildWidget( String elementName, Map<String, String> attributes, boolean nestedMetawidget )
+			throws Exception {
+
+			Tag widget;
+
+			if ( nestedMetawidget ) {
+				widget = buildNestedMetawidget( attributes );
+			} else {
+				widget = buildWidget( elementName, attributes );
+			}
+
+			if ( widget == null ) {
+				return null;
+			}
+
+			return processWidget( widget, elementName, attributes );
+		}
+
+		@Override
+		protected void layoutWidget( Tag widget, String elementName, Map<String, String> attributes ) {
+
+			super.layoutWidget( MetawidgetTag.this.beforeLayoutWidget( widget, elementName, attributes ), elementName, attributes );
+		}
+
 		@Override
 		protected Map<String, String> getAdditionalAttributes( Tag tag ) {
 
@@ -581,5 +862,71 @@ public abstract class MetawidgetTag
 
 			return metawidgetTag;
 		}
+
+		//
+		// Private methods
+		//
+
+		private CachingInspector getSymbolicInspector( CompositeInspector inspector ) {
+
+			Map<CompositeInspector, CachingInspector> symbolicInspectors = getSymbolicInspectors( pageContext.getServletContext() );
+
+			synchronized ( symbolicInspectors ) {
+				CachingInspector symbolicInspector = symbolicInspectors.get( inspector );
+
+				if ( symbolicInspector == null ) {
+					symbolicInspector = new CachingInspector( new CachingInspectorConfig().setInspector( new WeakCompositeInspector( inspector ) ) );
+					symbolicInspectors.put( inspector, symbolicInspector );
+				}
+
+				return symbolicInspector;
+			}
+		}
+	}
+
+	/**
+	 * Delegates to a CompositeInspector without keeping it reachable.
+	 * <p>
+	 * The symbolic inspectors' map is weakly keyed by CompositeInspector, so its values must not
+	 * strongly reference their key. Callers always hold the CompositeInspector themselves while
+	 * inspecting.
+	 */
+
+	private static class WeakCompositeInspector
+		implements DomInspector<Element>, CacheableInspector {
+
+		//
+		// Private members
+		//
+
+		private final WeakReference<CompositeInspector>	mInspector;
+
+		//
+		// Constructor
+		//
+
+		public WeakCompositeInspector( CompositeInspector inspector ) {
+
+			mInspector = new WeakReference<CompositeInspector>( inspector );
+		}
+
+		//
+		// Public methods
+		//
+
+		public String inspect( Object toInspect, String type, String... names ) {
+
+			return mInspector.get().inspect( toInspect, type, names );
+		}
+
+		public Element inspectAsDom( Object toInspect, String type, String... names ) {
+
+			return mInspector.get().inspectAsDom( toInspect, type, names );
+		}
+
+		public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+			return mInspector.get().isInspectionResultCacheable( toInspect, type, names );
+		}
 	}
 }
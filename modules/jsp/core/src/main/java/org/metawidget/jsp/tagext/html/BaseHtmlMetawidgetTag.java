@@ -16,12 +16,32 @@
 
 package org.metawidget.jsp.tagext.html;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.servlet.ServletContext;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.Tag;
+import javax.servlet.jsp.tagext.TagSupport;
+
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.jsp.JspUtils;
+import org.metawidget.jsp.tagext.LiteralTag;
 import org.metawidget.jsp.tagext.MetawidgetTag;
+import org.metawidget.jsp.tagext.StubTag;
+import org.metawidget.jsp.tagext.html.RenderTemplate.Slot;
+import org.metawidget.util.CollectionUtils;
+import org.metawidget.util.simple.PathUtils;
+import org.metawidget.util.simple.StringUtils;
 
 /**
  * Base Metawidget for JSP environments that output HTML.
+ * <p>
+ * Supports an optional <em>template caching</em> render mode (see
+ * <code>setTemplateCaching</code>).
  *
  * @author Richard Kennard
  */
@@ -29,6 +49,22 @@ import org.metawidget.jsp.tagext.MetawidgetTag;
 public abstract class BaseHtmlMetawidgetTag
 	extends MetawidgetTag {
 
+	//
+	// Private statics
+	//
+
+	/**
+	 * Cache RenderTemplates at the ServletContext level.
+	 */
+
+	private static final String	TEMPLATES_ATTRIBUTE	= "metawidget-templates";
+
+	/**
+	 * Guards creating the <code>TEMPLATES_ATTRIBUTE</code>.
+	 */
+
+	private static final Object	TEMPLATES_LOCK		= new Object();
+
 	//
 	// Protected members
 	//
@@ -37,10 +73,120 @@ public abstract class BaseHtmlMetawidgetTag
 
 	protected String			mStyleClass;
 
+	//
+	// Private members
+	//
+
+	private boolean				mTemplateCaching;
+
+	/**
+	 * Slots recorded so far, or null if not recording a template.
+	 */
+
+	private List<Slot>			mRecordingSlots;
+
+	//
+	// Public statics
+	//
+
+	/**
+	 * Invalidates all cached templates.
+	 * <p>
+	 * Templates are cached per <code>ConfigReader</code>, so replacing the ConfigReader (eg. to
+	 * reload configuration) means new templates are recorded regardless. But this method should
+	 * still be called in that case, to release the old ones. It should also be called if the
+	 * Inspectors' metadata changes (eg. a reloaded XML file).
+	 */
+
+	public static void clearTemplateCache( ServletContext servletContext ) {
+
+		ConcurrentMap<List<Object>, RenderTemplate> templates = getTemplates( servletContext );
+
+		if ( templates != null ) {
+			templates.clear();
+		}
+	}
+
+	/**
+	 * Invalidates all cached templates for the given path (including those for paths beneath it).
+	 */
+
+	public static void clearTemplateCache( ServletContext servletContext, String path ) {
+
+		ConcurrentMap<List<Object>, RenderTemplate> templates = getTemplates( servletContext );
+
+		if ( templates == null ) {
+			return;
+		}
+
+		String nestedPath = path + StringUtils.SEPARATOR_DOT_CHAR;
+
+		for ( List<Object> key : templates.keySet() ) {
+
+			String keyPath = (String) key.get( 1 );
+
+			if ( path.equals( keyPath ) || ( keyPath != null && keyPath.startsWith( nestedPath ) ) ) {
+				templates.remove( key );
+			}
+		}
+	}
+
 	//
 	// Public methods
 	//
 
+	@Override
+	public void setPageContext( PageContext newPageContext ) {
+
+		super.setPageContext( newPageContext );
+
+		// (may already have been set by initNestedMetawidget)
+
+		ServletContext servletContext = pageContext.getServletContext();
+		mTemplateCaching = mTemplateCaching || Boolean.parseBoolean( servletContext.getInitParameter( "org.metawidget.jsp.tagext.html.TEMPLATE_CACHING" ) );
+
+		// (create once, rather than racing to create it on first use. Even if mTemplateCaching is
+		// false, because JSP sets tag attributes after setPageContext)
+
+		synchronized ( TEMPLATES_LOCK ) {
+			if ( getTemplates( servletContext ) == null ) {
+				ConcurrentMap<List<Object>, RenderTemplate> templates = CollectionUtils.newConcurrentHashMap();
+				servletContext.setAttribute( TEMPLATES_ATTRIBUTE, templates );
+			}
+		}
+	}
+
+	public boolean isTemplateCaching() {
+
+		return mTemplateCaching;
+	}
+
+	/**
+	 * Sets whether to cache the HTML output as a template.
+	 * <p>
+	 * For a given path, configuration and read-only flag, the HTML skeleton output by the Layout
+	 * (labels, table structure, section headings and so on) is the same across requests. Only the
+	 * widgets differ, because they contain values. In template caching mode, the first request
+	 * records the output as a <code>RenderTemplate</code> with a slot for each widget. Subsequent
+	 * requests skip inspection, InspectionResultProcessors and Layout, and just fill in the slots
+	 * by building each widget again (which evaluates its current value).
+	 * <p>
+	 * Template caching is bypassed if the Metawidget has facets or stubs (whose content is only
+	 * known at runtime). It should not be used with InspectionResultProcessors or Layouts whose
+	 * output depends on runtime values (other than those of the widgets themselves), nor with
+	 * <code>AdvancedWidgetProcessors</code>, which are not notified of
+	 * <code>onStartBuild</code>/<code>onEndBuild</code> when filling in a template. Templates are
+	 * invalidated using <code>clearTemplateCache</code>.
+	 * <p>
+	 * It can also be enabled for all Metawidgets using the
+	 * <code>org.metawidget.jsp.tagext.html.TEMPLATE_CACHING</code> context parameter.
+	 */
+
+	public void setTemplateCaching( boolean templateCaching ) {
+
+		mTemplateCaching = templateCaching;
+	}
+
 	public String getStyle() {
 
 		return mStyle;
@@ -74,5 +220,179 @@ public abstract class BaseHtmlMetawidgetTag
 
 		tag.setStyle( mStyle );
 		tag.setStyleClass( mStyleClass );
+		tag.setTemplateCaching( mTemplateCaching );
+	}
+
+	@Override
+	protected void buildWidgets()
+		throws Exception {
+
+		// (pageContext may be null in unit tests)
+
+		if ( !mTemplateCaching || pageContext == null || !isDefaultPipeline() || hasFacetsOrStubs() ) {
+			super.buildWidgets();
+			return;
+		}
+
+		// Fill in the template...
+
+		List<Object> key = getTemplateKey();
+		ConcurrentMap<List<Object>, RenderTemplate> templates = getTemplates( pageContext.getServletContext() );
+		RenderTemplate template = templates.get( key );
+
+		if ( template != null ) {
+			fillTemplate( template );
+			return;
+		}
+
+		// ...or record one
+
+		String recorded;
+		mRecordingSlots = CollectionUtils.newArrayList();
+
+		try {
+			recorded = JspUtils.writeTag( pageContext, new RecordingTag(), this );
+			templates.putIfAbsent( key, new RenderTemplate( recorded, mRecordingSlots, getPathPrefix() ) );
+		} finally {
+			mRecordingSlots = null;
+		}
+
+		pageContext.getOut().write( RenderTemplate.unmarkSlots( recorded ) );
+	}
+
+	/**
+	 * While recording a template, wraps each widget's output in slot markers.
+	 */
+
+	@Override
+	protected Tag beforeLayoutWidget( Tag widget, String elementName, Map<String, String> attributes ) {
+
+		if ( mRecordingSlots == null || widget instanceof StubTag ) {
+			return widget;
+		}
+
+		try {
+			int slot = mRecordingSlots.size();
+			mRecordingSlots.add( new Slot( elementName, attributes, widget instanceof MetawidgetTag ) );
+
+			return new LiteralTag( RenderTemplate.markSlot( slot, JspUtils.writeTag( pageContext, widget, this ) ) );
+		} catch ( JspException e ) {
+			throw MetawidgetException.newException( e );
+		}
+	}
+
+	/**
+	 * Key to cache this Metawidget's template under.
+	 * <p>
+	 * By default, the key is based on the Metawidget's class, path, configuration, read-only flag,
+	 * styles, bundle and the class of the runtime bean. Subclasses whose output depends on other
+	 * things (eg. the request's Locale) should override this method to add them.
+	 */
+
+	protected List<Object> getTemplateKey() {
+
+		List<Object> key = CollectionUtils.newArrayList();
+
+		// (path must be second, for clearTemplateCache)
+
+		key.add( getClass() );
+		key.add( getPath() );
+		key.add( getConfig() );
+		key.add( getConfigReader() );
+		key.add( isReadOnly() );
+		key.add( mStyle );
+		key.add( mStyleClass );
+		key.add( getBundle() );
+
+		// Runtime bean (which may be polymorphic)
+
+		String path = getPath();
+
+		if ( path != null ) {
+			Object bean = pageContext.findAttribute( PathUtils.parsePath( path, StringUtils.SEPARATOR_DOT_CHAR ).getType() );
+
+			if ( bean != null ) {
+				key.add( bean.getClass().getName() );
+			}
+		}
+
+		return key;
+	}
+
+	//
+	// Private statics
+	//
+
+	@SuppressWarnings( "unchecked" )
+	private static ConcurrentMap<List<Object>, RenderTemplate> getTemplates( ServletContext servletContext ) {
+
+		return (ConcurrentMap<List<Object>, RenderTemplate>) servletContext.getAttribute( TEMPLATES_ATTRIBUTE );
+	}
+
+	//
+	// Private methods
+	//
+
+	private void fillTemplate( RenderTemplate template )
+		throws Exception {
+
+		// Path prefix may have been set during building (eg. by beforeBuildCompoundWidget)
+
+		setPathPrefix( template.getPathPrefix() );
+
+		JspWriter writer = pageContext.getOut();
+		String[] literals = template.getLiterals();
+		Slot[] slots = template.getSlots();
+
+		for ( int loop = 0, length = slots.length; loop < length; loop++ ) {
+
+			writer.write( literals[loop] );
+
+			Slot slot = slots[loop];
+			Tag widget = buildWidget( slot.getElementName(), slot.getAttributes(), slot.isNestedMetawidget() );
+
+			if ( widget != null ) {
+				JspUtils.streamTag( pageContext, widget, this );
+			}
+		}
+
+		writer.write( literals[slots.length] );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * Builds the widgets as normal, but into the buffer supplied by <code>JspUtils.writeTag</code>
+	 * rather than onto the page.
+	 */
+
+	private class RecordingTag
+		extends TagSupport {
+
+		//
+		// Public methods
+		//
+
+		@Override
+		public int doEndTag()
+			throws JspException {
+
+			PageContext originalPageContext = BaseHtmlMetawidgetTag.this.pageContext;
+			BaseHtmlMetawidgetTag.this.pageContext = pageContext;
+
+			try {
+				BaseHtmlMetawidgetTag.super.buildWidgets();
+			} catch ( RuntimeException e ) {
+				throw e;
+			} catch ( Exception e ) {
+				throw new JspException( e );
+			} finally {
+				BaseHtmlMetawidgetTag.this.pageContext = originalPageContext;
+			}
+
+			return super.doEndTag();
+		}
 	}
 }
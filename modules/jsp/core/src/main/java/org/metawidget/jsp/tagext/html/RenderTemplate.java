@@ -0,0 +1,331 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.jsp.tagext.html;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * Compiled form of the output of a <code>BaseHtmlMetawidgetTag</code>, for template caching.
+ * <p>
+ * A <code>RenderTemplate</code> is the HTML skeleton output by the Layout (labels, table
+ * structure, section headings and so on) with a slot wherever the Layout output a widget. It is
+ * compiled from output recorded with each widget wrapped in slot markers. Filling it in requires
+ * only building each slot's widget again, not inspecting or laying out.
+ * <p>
+ * Once built, a <code>RenderTemplate</code> is never modified, so it can be filled in by many
+ * threads at once without locking.
+ *
+ * @author Richard Kennard
+ */
+
+/* package private */final class RenderTemplate {
+
+	//
+	// Package private statics
+	//
+
+	/**
+	 * Marks the start of a slot. Followed by the slot number, <code>SLOT_SEPARATOR</code>, the
+	 * widget's output as recorded and <code>SLOT_END</code>.
+	 * <p>
+	 * Markers are taken from the Unicode private use area. But the widget's output may include user
+	 * input, so within a slot any marker characters are escaped with <code>SLOT_ESCAPE</code>. This
+	 * way user input can never end a slot early, or start a slot of its own. Outside of slots,
+	 * marker characters that do not start a well-formed slot are treated as literal output. Note
+	 * <code>JspUtils.isJustHiddenFields</code> ignores markers.
+	 */
+
+	/* package private */static final char	SLOT_START		= '\uE000';
+
+	/* package private */static final char	SLOT_SEPARATOR	= '\uE001';
+
+	/* package private */static final char	SLOT_END		= '\uE002';
+
+	/* package private */static final char	SLOT_ESCAPE		= '\uE003';
+
+	//
+	// Private members
+	//
+
+	/**
+	 * Literal output. There is always one more literal than there are slots: the literal before
+	 * each slot, then the literal after the last slot.
+	 */
+
+	private final String[]					mLiterals;
+
+	/**
+	 * Slots, in the order they appear in the output. This may differ from the order they were
+	 * recorded in (eg. <code>HtmlTableLayout</code> outputs hidden fields at the end).
+	 */
+
+	private final Slot[]					mSlots;
+
+	private final String					mPathPrefix;
+
+	//
+	// Constructor
+	//
+
+	/**
+	 * @param recorded
+	 *            the output, with each widget wrapped in slot markers
+	 * @param slots
+	 *            the slots, in the order they were recorded
+	 * @param pathPrefix
+	 *            the Metawidget's path prefix at the end of recording
+	 */
+
+	/* package private */RenderTemplate( String recorded, List<Slot> slots, String pathPrefix ) {
+
+		List<String> literals = CollectionUtils.newArrayList();
+		List<Integer> slotNumbers = CollectionUtils.newArrayList();
+		parse( recorded, literals, slotNumbers, null );
+
+		mLiterals = literals.toArray( new String[literals.size()] );
+		mSlots = new Slot[slotNumbers.size()];
+
+		for ( int loop = 0, length = mSlots.length; loop < length; loop++ ) {
+			mSlots[loop] = slots.get( slotNumbers.get( loop ) );
+		}
+
+		mPathPrefix = pathPrefix;
+	}
+
+	//
+	// Public statics
+	//
+
+	/**
+	 * Wraps the given widget output in slot markers, escaping any marker characters within it.
+	 */
+
+	public static String markSlot( int slot, String output ) {
+
+		StringBuilder builder = new StringBuilder( output.length() + 8 );
+		builder.append( SLOT_START );
+		builder.append( slot );
+		builder.append( SLOT_SEPARATOR );
+
+		for ( int loop = 0, length = output.length(); loop < length; loop++ ) {
+
+			char c = output.charAt( loop );
+
+			if ( c >= SLOT_START && c <= SLOT_ESCAPE ) {
+				builder.append( SLOT_ESCAPE );
+			}
+
+			builder.append( c );
+		}
+
+		builder.append( SLOT_END );
+
+		return builder.toString();
+	}
+
+	/**
+	 * Removes slot markers from the given output, leaving the widget output as it was before
+	 * <code>markSlot</code>.
+	 */
+
+	public static String unmarkSlots( String recorded ) {
+
+		if ( recorded.indexOf( SLOT_START ) == -1 ) {
+			return recorded;
+		}
+
+		List<String> literals = CollectionUtils.newArrayList();
+		List<String> slotOutputs = CollectionUtils.newArrayList();
+		parse( recorded, literals, null, slotOutputs );
+
+		StringBuilder builder = new StringBuilder( recorded.length() );
+
+		for ( int loop = 0, length = slotOutputs.size(); loop < length; loop++ ) {
+			builder.append( literals.get( loop ) );
+			builder.append( slotOutputs.get( loop ) );
+		}
+
+		builder.append( literals.get( slotOutputs.size() ) );
+
+		return builder.toString();
+	}
+
+	//
+	// Public methods
+	//
+
+	public String[] getLiterals() {
+
+		return mLiterals;
+	}
+
+	public Slot[] getSlots() {
+
+		return mSlots;
+	}
+
+	public String getPathPrefix() {
+
+		return mPathPrefix;
+	}
+
+	//
+	// Private statics
+	//
+
+	/**
+	 * Parses output recorded with each widget wrapped in slot markers.
+	 *
+	 * @param literals
+	 *            the literal output before each slot, and after the last slot, is added to this
+	 * @param slotNumbers
+	 *            the number of each slot, in the order they appear in the output, is added to this
+	 *            (may be null)
+	 * @param slotOutputs
+	 *            the unescaped widget output of each slot is added to this (may be null)
+	 */
+
+	private static void parse( String recorded, List<String> literals, List<Integer> slotNumbers, List<String> slotOutputs ) {
+
+		StringBuilder literal = new StringBuilder();
+		int length = recorded.length();
+		int loop = 0;
+
+		while ( loop < length ) {
+
+			char c = recorded.charAt( loop );
+
+			// Anything other than a well-formed slot start is literal output
+
+			int separator = loop + 1;
+
+			if ( c == SLOT_START ) {
+				while ( separator < length && Character.isDigit( recorded.charAt( separator ) ) ) {
+					separator++;
+				}
+			}
+
+			if ( separator == loop + 1 || separator == length || recorded.charAt( separator ) != SLOT_SEPARATOR ) {
+				literal.append( c );
+				loop++;
+				continue;
+			}
+
+			// Slot
+
+			int slotStart = loop;
+			StringBuilder slotOutput = new StringBuilder();
+			loop = separator + 1;
+
+			while ( true ) {
+
+				if ( loop == length ) {
+					throw MetawidgetException.newException( "Unterminated slot at character " + slotStart );
+				}
+
+				c = recorded.charAt( loop++ );
+
+				if ( c == SLOT_END ) {
+					break;
+				}
+
+				if ( c == SLOT_ESCAPE && loop < length ) {
+					c = recorded.charAt( loop++ );
+				}
+
+				slotOutput.append( c );
+			}
+
+			literals.add( literal.toString() );
+			literal.setLength( 0 );
+
+			if ( slotNumbers != null ) {
+				slotNumbers.add( Integer.valueOf( recorded.substring( slotStart + 1, separator ) ) );
+			}
+
+			if ( slotOutputs != null ) {
+				slotOutputs.add( slotOutput.toString() );
+			}
+		}
+
+		literals.add( literal.toString() );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * A widget to build each time the template is filled in.
+	 */
+
+	/* package private */static final class Slot {
+
+		//
+		// Private members
+		//
+
+		private final String				mElementName;
+
+		private final Map<String, String>	mAttributes;
+
+		private final boolean				mNestedMetawidget;
+
+		//
+		// Constructor
+		//
+
+		public Slot( String elementName, Map<String, String> attributes, boolean nestedMetawidget ) {
+
+			mElementName = elementName;
+
+			// (defensive copy)
+
+			mAttributes = Collections.unmodifiableMap( CollectionUtils.newHashMap( attributes ) );
+			mNestedMetawidget = nestedMetawidget;
+		}
+
+		//
+		// Public methods
+		//
+
+		public String getElementName() {
+
+			return mElementName;
+		}
+
+		/**
+		 * @return a new, modifiable copy of the attributes (WidgetBuilders and WidgetProcessors
+		 *         may modify it)
+		 */
+
+		public Map<String, String> getAttributes() {
+
+			return CollectionUtils.newHashMap( mAttributes );
+		}
+
+		public boolean isNestedMetawidget() {
+
+			return mNestedMetawidget;
+		}
+	}
+}
@@ -30,6 +30,7 @@ import org.metawidget.jsp.JspUtils;
 import org.metawidget.jsp.tagext.FacetTag;
 import org.metawidget.jsp.tagext.MetawidgetTag;
 import org.metawidget.jsp.tagext.StubTag;
+import org.metawidget.jsp.tagext.html.widgetprocessor.HiddenFieldProcessor;
 import org.metawidget.layout.iface.AdvancedLayout;
 import org.metawidget.layout.iface.LayoutException;
 import org.metawidget.util.CollectionUtils;
@@ -76,6 +77,8 @@ public class HtmlTableLayout
 
 	private final String		mFooterStyleClass;
 
+	private final boolean		mStreamWidgets;
+
 	//
 	// Constructor
 	//
@@ -93,6 +96,7 @@ public class HtmlTableLayout
 		mColumnStyleClasses = config.getColumnStyleClasses();
 		mFooterStyle = config.getFooterStyle();
 		mFooterStyleClass = config.getFooterStyleClass();
+		mStreamWidgets = config.isStreamWidgets();
 	}
 
 	//
@@ -197,6 +201,19 @@ public class HtmlTableLayout
 				if ( literal == null || literal.length() == 0 ) {
 					return;
 				}
+			} else if ( mStreamWidgets ) {
+
+				// Decide from metadata, rather than writing to a String and parsing it
+
+				if ( isJustHiddenFields( tag, attributes ) ) {
+					addHiddenFields( JspUtils.writeTag( metawidgetTag.getPageContext(), tag, containerTag ), metawidgetTag );
+					return;
+				}
+
+				layoutBeforeChild( tag, elementName, attributes, metawidgetTag );
+				JspUtils.streamTag( metawidgetTag.getPageContext(), tag, containerTag );
+				layoutAfterChild( attributes, metawidgetTag );
+				return;
 			} else {
 				literal = JspUtils.writeTag( metawidgetTag.getPageContext(), tag, containerTag );
 			}
@@ -207,14 +224,7 @@ public class HtmlTableLayout
 				// ...store it up for later (eg. don't render a row in the table
 				// and a label)
 
-				State state = getState( metawidgetTag );
-
-				if ( state.hiddenFields == null ) {
-					state.hiddenFields = CollectionUtils.newArrayList();
-				}
-
-				state.hiddenFields.add( literal );
-
+				addHiddenFields( literal, metawidgetTag );
 				return;
 			}
 
@@ -264,6 +274,25 @@ public class HtmlTableLayout
 	// Protected methods
 	//
 
+	/**
+	 * Whether the given widget consists of nothing but hidden fields, judging by its metadata.
+	 * Only consulted if <code>HtmlTableLayoutConfig.setStreamWidgets</code>. Widgets that are just
+	 * hidden fields are not given a row in the table, but written out at the end.
+	 * <p>
+	 * By default, returns true for hidden properties that a <code>WidgetBuilder</code> has marked
+	 * for <code>HiddenFieldProcessor</code>. Subclasses can override this to recognize other
+	 * widgets.
+	 */
+
+	protected boolean isJustHiddenFields( Tag tag, Map<String, String> attributes ) {
+
+		if ( attributes == null ) {
+			return false;
+		}
+
+		return ( TRUE.equals( attributes.get( HIDDEN ) ) && TRUE.equals( attributes.get( HiddenFieldProcessor.ATTRIBUTE_NEEDS_HIDDEN_FIELD ) ) );
+	}
+
 	protected void layoutBeforeChild( Tag tag, String elementName, Map<String, String> attributes, MetawidgetTag metawidgetTag ) {
 
 		State state = getState( metawidgetTag );
@@ -501,6 +530,22 @@ public class HtmlTableLayout
 	// Private methods
 	//
 
+	/**
+	 * Store up the given hidden fields, to be written out at the end (eg. don't render a row in the
+	 * table and a label).
+	 */
+
+	private void addHiddenFields( String hiddenFields, MetawidgetTag metawidgetTag ) {
+
+		State state = getState( metawidgetTag );
+
+		if ( state.hiddenFields == null ) {
+			state.hiddenFields = CollectionUtils.newArrayList();
+		}
+
+		state.hiddenFields.add( hiddenFields );
+	}
+
 	private State getState( MetawidgetTag metawidget ) {
 
 		State state = (State) metawidget.getClientProperty( HtmlTableLayout.class );
@@ -43,6 +43,8 @@ public class HtmlTableLayoutConfig {
 
 	private String		mFooterStyleClass;
 
+	private boolean		mStreamWidgets;
+
 	//
 	// Public methods
 	//
@@ -114,6 +116,25 @@ public class HtmlTableLayoutConfig {
 		return this;
 	}
 
+	/**
+	 * Whether to write widgets straight to the page, rather than first writing each one to a
+	 * String and checking whether it is just hidden fields (which get moved outside the table).
+	 * <p>
+	 * When streaming, whether a widget is just hidden fields is decided from its metadata instead
+	 * (see <code>HtmlTableLayout.isJustHiddenFields</code>). This saves a buffer and a regular
+	 * expression per widget, but means a widget that happens to render only hidden fields, despite
+	 * its metadata, is laid out like any other widget.
+	 *
+	 * @return this, as part of a fluent interface
+	 */
+
+	public HtmlTableLayoutConfig setStreamWidgets( boolean streamWidgets ) {
+
+		mStreamWidgets = streamWidgets;
+
+		return this;
+	}
+
 	@Override
 	public boolean equals( Object that ) {
 
@@ -149,6 +170,10 @@ public class HtmlTableLayoutConfig {
 			return false;
 		}
 
+		if ( mStreamWidgets != ( (HtmlTableLayoutConfig) that ).mStreamWidgets ) {
+			return false;
+		}
+
 		return true;
 	}
 
@@ -162,6 +187,7 @@ public class HtmlTableLayoutConfig {
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mColumnStyleClasses );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mFooterStyle );
 		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mFooterStyleClass );
+		hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode( mStreamWidgets );
 
 		return hashCode;
 	}
@@ -199,4 +225,9 @@ public class HtmlTableLayoutConfig {
 
 		return mFooterStyleClass;
 	}
+
+	protected boolean isStreamWidgets() {
+
+		return mStreamWidgets;
+	}
 }
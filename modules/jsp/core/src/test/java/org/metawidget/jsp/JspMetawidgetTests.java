@@ -55,9 +55,11 @@ public class JspMetawidgetTests {
 		// Private members
 		//
 
-		private ServletContext	mServletContext	= new MockServletContext();
+		private ServletContext	mServletContext		= new MockServletContext();
 
-		Map<String, Object>		mAttributes		= CollectionUtils.newHashMap();
+		Map<String, Object>		mAttributes			= CollectionUtils.newHashMap();
+
+		Map<String, Object>		mRequestAttributes	= CollectionUtils.newHashMap();
 
 		//
 		// Supported public methods
@@ -81,6 +83,32 @@ public class JspMetawidgetTests {
 			mAttributes.put( name, value );
 		}
 
+		@Override
+		public Object findAttribute( String name ) {
+
+			return mAttributes.get( name );
+		}
+
+		@Override
+		public Object getAttribute( String name, int scope ) {
+
+			if ( scope == REQUEST_SCOPE ) {
+				return mRequestAttributes.get( name );
+			}
+
+			return null;
+		}
+
+		@Override
+		public void setAttribute( String name, Object value, int scope ) {
+
+			if ( scope != REQUEST_SCOPE ) {
+				throw new UnsupportedOperationException();
+			}
+
+			mRequestAttributes.put( name, value );
+		}
+
 		//
 		// Unsupported public methods
 		//
@@ -164,18 +192,6 @@ public class JspMetawidgetTests {
 			throw new UnsupportedOperationException();
 		}
 
-		@Override
-		public Object findAttribute( String arg0 ) {
-
-			throw new UnsupportedOperationException();
-		}
-
-		@Override
-		public Object getAttribute( String name, int index ) {
-
-			return null;
-		}
-
 		@Override
 		public Enumeration<?> getAttributeNamesInScope( int arg0 ) {
 
@@ -218,11 +234,6 @@ public class JspMetawidgetTests {
 			throw new UnsupportedOperationException();
 		}
 
-		@Override
-		public void setAttribute( String arg0, Object arg1, int arg2 ) {
-
-			throw new UnsupportedOperationException();
-		}
 	}
 
 	@SuppressWarnings( "deprecation" )
@@ -16,6 +16,7 @@
 
 package org.metawidget.jsp;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Enumeration;
@@ -155,7 +156,12 @@ public class JspUtilsTest
 
 		final DummyPageContext dummyPageContext = new DummyPageContext();
 		assertEquals( verify, JspUtils.writeTag( dummyPageContext, parentTag, null ) );
-		assertEquals( dummyPageContext.getPageContextHits(), 25 );
+
+
+		// 25 delegated hits, plus 1 to look for a pooled buffer (the closed buffer is not returned
+		// to the pool)
+
+		assertEquals( dummyPageContext.getPageContextHits(), 26 );
 	}
 
 	public void testSkipBody()
@@ -182,8 +188,75 @@ public class JspUtilsTest
 		assertEquals( "", JspUtils.writeTag( dummyPageContext, testTag, null ) );
 	}
 
+	public void testBufferReuse()
+		throws Exception {
+
+		// writeTag is re-entrant
+
+		Tag outerTag = new TagSupport() {
+
+			@Override
+			public int doEndTag()
+				throws JspException {
+
+				try {
+					String inner = JspUtils.writeTag( pageContext, new LiteralTag( "inner" ), this );
+					pageContext.getOut().write( "[" + inner + "]" );
+				} catch ( IOException e ) {
+					throw new JspException( e );
+				}
+
+				return Tag.EVAL_PAGE;
+			}
+		};
+
+		final DummyPageContext dummyPageContext = new DummyPageContext();
+		assertEquals( "[inner]", JspUtils.writeTag( dummyPageContext, outerTag, null ) );
+
+		// Buffers are cleared before being reused
+
+		assertEquals( "[inner]", JspUtils.writeTag( dummyPageContext, outerTag, null ) );
+		assertEquals( "Foo", JspUtils.writeTag( dummyPageContext, new LiteralTag( "Foo" ), null ) );
+
+		// Closed buffers are not reused
+
+		Tag closingTag = new TagSupport() {
+
+			@Override
+			public int doEndTag()
+				throws JspException {
+
+				try {
+					JspWriter writer = pageContext.getOut();
+					writer.write( "Closed" );
+					writer.close();
+				} catch ( IOException e ) {
+					throw new JspException( e );
+				}
+
+				return Tag.EVAL_PAGE;
+			}
+		};
+
+		assertEquals( "Closed", JspUtils.writeTag( dummyPageContext, closingTag, null ) );
+		assertEquals( "Foo", JspUtils.writeTag( dummyPageContext, new LiteralTag( "Foo" ), null ) );
+		assertEquals( "[inner]", JspUtils.writeTag( dummyPageContext, outerTag, null ) );
+	}
+
 	int	mRepeat;
 
+	public void testIsJustHiddenFields() {
+
+		assertTrue( JspUtils.isJustHiddenFields( "<input type=\"hidden\" name=\"foo\"/>" ) );
+		assertFalse( JspUtils.isJustHiddenFields( "<input type=\"text\" name=\"foo\"/>" ) );
+
+		// Template slot markers (see BaseHtmlMetawidgetTag.setTemplateCaching) are ignored
+
+		assertTrue( JspUtils.isJustHiddenFields( "\uE0000\uE001<input type=\"hidden\" name=\"foo\"/>\uE002" ) );
+		assertTrue( JspUtils.isJustHiddenFields( "\uE00012\uE001<input type=\"hidden\" name=\"foo\"/>\uE002 \uE00013\uE001<input type=\"hidden\" name=\"bar\"/>\uE002" ) );
+		assertFalse( JspUtils.isJustHiddenFields( "\uE0000\uE001<input type=\"text\" name=\"foo\"/>\uE002" ) );
+	}
+
 	public void testRepeatBody()
 		throws Exception {
 
@@ -16,14 +16,29 @@
 
 package org.metawidget.jsp.tagext.html;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import javax.servlet.jsp.JspException;
 
 import junit.framework.TestCase;
 
+import org.metawidget.inspector.composite.CompositeInspector;
+import org.metawidget.inspector.composite.CompositeInspectorConfig;
+import org.metawidget.inspector.iface.CacheableInspector;
+import org.metawidget.inspector.propertytype.PropertyTypeInspector;
+import org.metawidget.jsp.JspMetawidgetTests.MockPageContext;
+import org.metawidget.jsp.JspUtils;
 import org.metawidget.jsp.tagext.FacetTag;
 import org.metawidget.jsp.tagext.MetawidgetTag;
 import org.metawidget.jsp.tagext.StubTag;
 import org.metawidget.pipeline.base.BasePipeline;
+import org.metawidget.util.XmlUtils;
+import org.w3c.dom.Element;
 
 /**
  * HtmlMetawidgetTag test cases.
@@ -103,4 +118,227 @@ public class HtmlMetawidgetTagTest
 		assertEquals( null, stubs.get( metawidget ) );
 		assertTrue( true == (Boolean) needsConfiguringField.get( pipeline ) );
 	}
+
+	public void testCombinedInspection()
+		throws Exception {
+
+		MockPageContext pageContext = new MockPageContext();
+		pageContext.setAttribute( "foo", new Foo() );
+		SymbolicInspector symbolicInspector = new SymbolicInspector();
+		CompositeInspector inspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( symbolicInspector, new PropertyTypeInspector() ) );
+		Method inspectMethod = MetawidgetTag.class.getDeclaredMethod( "inspect" );
+		inspectMethod.setAccessible( true );
+
+		// Post hoc
+
+		HtmlMetawidgetTag metawidget = newMetawidget( pageContext, inspector );
+		assertFalse( metawidget.isCombinedInspection() );
+		String expected = XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false );
+		assertTrue( expected.contains( "<entity type=\"" + Foo.class.getName() + "\">" ) );
+		assertTrue( expected.contains( "name=\"bar\"" ) );
+		assertTrue( expected.contains( "required=\"true\"" ) );
+		assertTrue( expected.contains( "type=\"java.lang.String\"" ) );
+		assertEquals( 1, symbolicInspector.mInspections );
+
+		// Combined (should give the same result, but only inspect the 'raw' type once)
+
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		assertEquals( expected, XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false ) );
+		assertEquals( 2, symbolicInspector.mInspections );
+
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		assertEquals( expected, XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false ) );
+		assertEquals( 2, symbolicInspector.mInspections );
+
+		// Invalidate
+
+		MetawidgetTag.clearSymbolicInspectorCache( pageContext.getServletContext(), "bar" );
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		assertEquals( expected, XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false ) );
+		assertEquals( 2, symbolicInspector.mInspections );
+
+		MetawidgetTag.clearSymbolicInspectorCache( pageContext.getServletContext(), "foo" );
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		assertEquals( expected, XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false ) );
+		assertEquals( 3, symbolicInspector.mInspections );
+
+		MetawidgetTag.clearSymbolicInspectorCache( pageContext.getServletContext() );
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		assertEquals( expected, XmlUtils.nodeToString( (Element) inspectMethod.invoke( metawidget ), false ) );
+		assertEquals( 4, symbolicInspector.mInspections );
+	}
+
+	public void testCombinedInspectionReleasesInspectors()
+		throws Exception {
+
+		MockPageContext pageContext = new MockPageContext();
+		pageContext.setAttribute( "foo", new Foo() );
+		Method inspectMethod = MetawidgetTag.class.getDeclaredMethod( "inspect" );
+		inspectMethod.setAccessible( true );
+
+		CompositeInspector inspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( new SymbolicInspector(), new PropertyTypeInspector() ) );
+		HtmlMetawidgetTag metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setCombinedInspection( true );
+		inspectMethod.invoke( metawidget );
+
+		Map<?, ?> symbolicInspectors = (Map<?, ?>) pageContext.getServletContext().getAttribute( "metawidget-symbolic-inspectors" );
+		assertEquals( 1, symbolicInspectors.size() );
+
+		// Once nothing else references the CompositeInspector (eg. the ConfigReader has been
+		// replaced), its cached inspection results are released
+
+		WeakReference<CompositeInspector> inspectorReference = new WeakReference<CompositeInspector>( inspector );
+		inspector = null;
+		metawidget = null;
+
+		for ( int loop = 0; loop < 100 && inspectorReference.get() != null; loop++ ) {
+			System.gc();
+			Thread.sleep( 10 );
+		}
+
+		assertTrue( inspectorReference.get() == null );
+		assertEquals( 0, symbolicInspectors.size() );
+	}
+
+	public void testTemplateCaching()
+		throws Exception {
+
+		MockPageContext pageContext = new MockPageContext();
+		pageContext.setAttribute( "foo", new Foo() );
+		SymbolicInspector symbolicInspector = new SymbolicInspector();
+		CompositeInspector inspector = new CompositeInspector( new CompositeInspectorConfig().setInspectors( symbolicInspector, new PropertyTypeInspector() ) );
+
+		// Without template caching
+
+		HtmlMetawidgetTag metawidget = newMetawidget( pageContext, inspector );
+		assertFalse( metawidget.isTemplateCaching() );
+		String expected = JspUtils.writeTag( pageContext, metawidget, null );
+		assertTrue( expected.startsWith( "<table id=\"table-foo\"><tbody>" ) );
+		assertTrue( expected.contains( "<input type=\"text\" value=\"result of ${foo.bar}\" name=\"foo.bar\"/>" ) );
+		assertEquals( 1, symbolicInspector.mInspections );
+
+		// With template caching (first time records the template, second time fills it in without
+		// inspecting)
+
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setTemplateCaching( true );
+		assertEquals( expected, JspUtils.writeTag( pageContext, metawidget, null ) );
+		assertEquals( 2, symbolicInspector.mInspections );
+
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setTemplateCaching( true );
+		assertEquals( expected, JspUtils.writeTag( pageContext, metawidget, null ) );
+		assertEquals( 2, symbolicInspector.mInspections );
+
+		// Invalidate
+
+		BaseHtmlMetawidgetTag.clearTemplateCache( pageContext.getServletContext(), "foo" );
+		metawidget = newMetawidget( pageContext, inspector );
+		metawidget.setTemplateCaching( true );
+		assertEquals( expected, JspUtils.writeTag( pageContext, metawidget, null ) );
+		assertEquals( 3, symbolicInspector.mInspections );
+
+		// Facets bypass template caching
+
+		final FacetTag facetTag = new FacetTag();
+		Field savedBodyContentField = FacetTag.class.getDeclaredField( "mSavedBodyContent" );
+		savedBodyContentField.setAccessible( true );
+		savedBodyContentField.set( facetTag, "abc" );
+
+		metawidget = new HtmlMetawidgetTag() {
+
+			@Override
+			public int doStartTag()
+				throws JspException {
+
+				int result = super.doStartTag();
+				setFacet( "footer", facetTag );
+				return result;
+			}
+		};
+		metawidget.setConfig( null );
+		metawidget.setPageContext( pageContext );
+		metawidget.setInspector( inspector );
+		metawidget.setInspectionResultProcessors();
+		metawidget.setValue( "foo" );
+		metawidget.setTemplateCaching( true );
+		assertTrue( JspUtils.writeTag( pageContext, metawidget, null ).contains( "<tfoot><tr><td colspan=\"3\">abc</td></tr></tfoot>" ) );
+		assertEquals( 4, symbolicInspector.mInspections );
+	}
+
+	//
+	// Private methods
+	//
+
+	@SuppressWarnings( "unchecked" )
+	private HtmlMetawidgetTag newMetawidget( MockPageContext pageContext, CompositeInspector inspector ) {
+
+		HtmlMetawidgetTag metawidget = new HtmlMetawidgetTag();
+		metawidget.setConfig( null );
+		metawidget.setPageContext( pageContext );
+		metawidget.setInspector( inspector );
+		metawidget.setInspectionResultProcessors();
+		metawidget.setValue( "foo" );
+
+		return metawidget;
+	}
+
+	//
+	// Inner class
+	//
+
+	public static class Foo {
+
+		//
+		// Public methods
+		//
+
+		public String getBar() {
+
+			return "Bar";
+		}
+
+		public void setBar( @SuppressWarnings( "unused" ) String bar ) {
+
+			// Do nothing
+		}
+	}
+
+	/**
+	 * Inspects the 'raw' type <code>foo</code>, counting how many times it is asked to.
+	 */
+
+	/* package private */static class SymbolicInspector
+		implements CacheableInspector {
+
+		//
+		// Private members
+		//
+
+		/* package private */int	mInspections;
+
+		//
+		// Public methods
+		//
+
+		public String inspect( Object toInspect, String type, String... names ) {
+
+			if ( !"foo".equals( type ) ) {
+				return null;
+			}
+
+			mInspections++;
+			return "<inspection-result xmlns=\"" + NAMESPACE + "\" version=\"1.0\"><entity type=\"foo\"><property name=\"bar\" required=\"true\"/></entity></inspection-result>";
+		}
+
+		public boolean isInspectionResultCacheable( Object toInspect, String type, String... names ) {
+
+			return true;
+		}
+	}
 }
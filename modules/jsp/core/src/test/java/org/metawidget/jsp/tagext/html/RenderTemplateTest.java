@@ -0,0 +1,142 @@
+// Metawidget
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package org.metawidget.jsp.tagext.html;
+
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.metawidget.iface.MetawidgetException;
+import org.metawidget.jsp.tagext.html.RenderTemplate.Slot;
+import org.metawidget.util.CollectionUtils;
+
+/**
+ * @author Richard Kennard
+ */
+
+public class RenderTemplateTest
+	extends TestCase {
+
+	//
+	// Public methods
+	//
+
+	public void testTemplate() {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+		attributes.put( NAME, "foo" );
+		Slot foo = new Slot( PROPERTY, attributes, false );
+		attributes.put( NAME, "bar" );
+		Slot bar = new Slot( PROPERTY, attributes, true );
+
+		// Slots may be output in a different order to how they were recorded
+
+		List<Slot> slots = CollectionUtils.newArrayList( foo, bar );
+		String recorded = "<table>" + RenderTemplate.markSlot( 1, "<input name=\"bar\"/>" ) + "<tr>" + RenderTemplate.markSlot( 0, "<input name=\"foo\"/>" ) + "</table>";
+		RenderTemplate template = new RenderTemplate( recorded, slots, "foo" );
+
+		String[] literals = template.getLiterals();
+		assertEquals( 3, literals.length );
+		assertEquals( "<table>", literals[0] );
+		assertEquals( "<tr>", literals[1] );
+		assertEquals( "</table>", literals[2] );
+
+		Slot[] templateSlots = template.getSlots();
+		assertEquals( 2, templateSlots.length );
+		assertTrue( bar == templateSlots[0] );
+		assertTrue( foo == templateSlots[1] );
+		assertEquals( "foo", template.getPathPrefix() );
+
+		assertEquals( "<table><input name=\"bar\"/><tr><input name=\"foo\"/></table>", RenderTemplate.unmarkSlots( recorded ) );
+
+		// No slots
+
+		template = new RenderTemplate( "<table></table>", slots, null );
+		assertEquals( 1, template.getLiterals().length );
+		assertEquals( "<table></table>", template.getLiterals()[0] );
+		assertEquals( 0, template.getSlots().length );
+		assertEquals( "<table></table>", RenderTemplate.unmarkSlots( "<table></table>" ) );
+
+		// Unterminated
+
+		try {
+			new RenderTemplate( "<table>\uE0000\uE001<input/>", slots, null );
+			fail();
+		} catch ( MetawidgetException e ) {
+			assertEquals( "Unterminated slot at character 7", e.getMessage() );
+		}
+	}
+
+	public void testEscaping() {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+		attributes.put( NAME, "foo" );
+		Slot foo = new Slot( PROPERTY, attributes, false );
+		attributes.put( NAME, "bar" );
+		Slot bar = new Slot( PROPERTY, attributes, false );
+		List<Slot> slots = CollectionUtils.newArrayList( foo, bar );
+
+		// Widget output (which may include user input) cannot end its slot or start another
+
+		String fooOutput = "<input value=\"\uE002\uE0001\uE001injected\uE002\uE003\"/>";
+		String recorded = "<table>" + RenderTemplate.markSlot( 0, fooOutput ) + "</table>";
+		RenderTemplate template = new RenderTemplate( recorded, slots, null );
+
+		String[] literals = template.getLiterals();
+		assertEquals( 2, literals.length );
+		assertEquals( "<table>", literals[0] );
+		assertEquals( "</table>", literals[1] );
+		assertEquals( 1, template.getSlots().length );
+		assertTrue( foo == template.getSlots()[0] );
+		assertEquals( "<table>" + fooOutput + "</table>", RenderTemplate.unmarkSlots( recorded ) );
+
+		// Marker characters outside of a well-formed slot are literal output
+
+		recorded = "\uE000<table>\uE001\uE003" + RenderTemplate.markSlot( 1, "<input/>" ) + "\uE0001</table>\uE002";
+		template = new RenderTemplate( recorded, slots, null );
+
+		literals = template.getLiterals();
+		assertEquals( 2, literals.length );
+		assertEquals( "\uE000<table>\uE001\uE003", literals[0] );
+		assertEquals( "\uE0001</table>\uE002", literals[1] );
+		assertEquals( 1, template.getSlots().length );
+		assertTrue( bar == template.getSlots()[0] );
+		assertEquals( "\uE000<table>\uE001\uE003<input/>\uE0001</table>\uE002", RenderTemplate.unmarkSlots( recorded ) );
+	}
+
+	public void testSlot() {
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+		attributes.put( NAME, "foo" );
+		Slot slot = new Slot( PROPERTY, attributes, false );
+
+		assertEquals( PROPERTY, slot.getElementName() );
+		assertFalse( slot.isNestedMetawidget() );
+
+		// Slots are unaffected by changes to the original attributes, or to the attributes
+		// they return
+
+		attributes.put( NAME, "bar" );
+		assertEquals( "foo", slot.getAttributes().get( NAME ) );
+		slot.getAttributes().put( NAME, "baz" );
+		assertEquals( "foo", slot.getAttributes().get( NAME ) );
+		assertTrue( slot.getAttributes() != slot.getAttributes() );
+	}
+}
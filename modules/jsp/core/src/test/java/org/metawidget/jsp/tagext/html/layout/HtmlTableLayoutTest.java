@@ -16,9 +16,15 @@
 
 package org.metawidget.jsp.tagext.html.layout;
 
+import static org.metawidget.inspector.InspectionResultConstants.*;
+
+import java.util.Map;
+
 import junit.framework.TestCase;
 
+import org.metawidget.jsp.tagext.html.widgetprocessor.HiddenFieldProcessor;
 import org.metawidget.layout.iface.LayoutException;
+import org.metawidget.util.CollectionUtils;
 import org.metawidget.util.MetawidgetTestUtils;
 
 /**
@@ -54,4 +60,22 @@ public class HtmlTableLayoutTest
 			assertEquals( "numberOfColumns must be >= 0", e.getMessage() );
 		}
 	}
+
+	public void testIsJustHiddenFields() {
+
+		HtmlTableLayout layout = new HtmlTableLayout( new HtmlTableLayoutConfig().setStreamWidgets( true ) );
+		assertFalse( layout.isJustHiddenFields( null, null ) );
+
+		Map<String, String> attributes = CollectionUtils.newHashMap();
+		assertFalse( layout.isJustHiddenFields( null, attributes ) );
+
+		attributes.put( HIDDEN, TRUE );
+		assertFalse( layout.isJustHiddenFields( null, attributes ) );
+
+		attributes.put( HiddenFieldProcessor.ATTRIBUTE_NEEDS_HIDDEN_FIELD, TRUE );
+		assertTrue( layout.isJustHiddenFields( null, attributes ) );
+
+		attributes.remove( HIDDEN );
+		assertFalse( layout.isJustHiddenFields( null, attributes ) );
+	}
 }
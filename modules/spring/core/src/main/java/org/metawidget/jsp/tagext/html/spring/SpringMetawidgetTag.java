@@ -16,6 +16,8 @@
 
 package org.metawidget.jsp.tagext.html.spring;
 
+import java.util.List;
+
 import javax.servlet.http.HttpServletRequest;
 
 import org.metawidget.jsp.tagext.html.BaseHtmlMetawidgetTag;
@@ -89,6 +91,20 @@ public class SpringMetawidgetTag
 		return ClassUtils.getPackagesAsFolderNames( SpringMetawidgetTag.class ) + "/metawidget-spring-default.xml";
 	}
 
+	/**
+	 * Adds the request's Locale, as resolved by Spring, because <code>getLocalizedKey</code> depends
+	 * on it.
+	 */
+
+	@Override
+	protected List<Object> getTemplateKey() {
+
+		List<Object> key = super.getTemplateKey();
+		key.add( RequestContextUtils.getLocale( (HttpServletRequest) pageContext.getRequest() ) );
+
+		return key;
+	}
+
 	@Override
 	protected void beforeBuildCompoundWidget( Element element ) {
 
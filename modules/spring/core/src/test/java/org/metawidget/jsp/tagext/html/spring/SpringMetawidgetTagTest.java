@@ -16,8 +16,17 @@
 
 package org.metawidget.jsp.tagext.html.spring;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
 import junit.framework.TestCase;
 
+import org.metawidget.jsp.JspMetawidgetTests.MockPageContext;
 import org.metawidget.jsp.tagext.html.spring.SpringMetawidgetTag;
 
 /**
@@ -56,4 +65,70 @@ public class SpringMetawidgetTagTest
 		assertEquals( "foo.bar.baz", metawidget.getPath() );
 		assertEquals( "bar.", metawidget.getPathPrefix() );
 	}
+
+	public void testTemplateKey() {
+
+		SpringMetawidgetTag metawidget = new SpringMetawidgetTag();
+		MockSpringPageContext pageContext = new MockSpringPageContext();
+		metawidget.setPageContext( pageContext );
+		metawidget.setPath( "foo" );
+
+		pageContext.setLocale( Locale.ENGLISH );
+		assertTrue( metawidget.getTemplateKey().contains( Locale.ENGLISH ) );
+		assertEquals( metawidget.getTemplateKey(), metawidget.getTemplateKey() );
+
+		// Different Locales must not share a template
+
+		pageContext.setLocale( Locale.FRENCH );
+		assertTrue( metawidget.getTemplateKey().contains( Locale.FRENCH ) );
+		assertFalse( metawidget.getTemplateKey().contains( Locale.ENGLISH ) );
+	}
+
+	//
+	// Inner class
+	//
+
+	/**
+	 * PageContext whose request has no Spring LocaleResolver, so falls back to the request's
+	 * Locale.
+	 */
+
+	static class MockSpringPageContext
+		extends MockPageContext {
+
+		//
+		// Private members
+		//
+
+		private Locale	mLocale;
+
+		//
+		// Public methods
+		//
+
+		public void setLocale( Locale locale ) {
+
+			mLocale = locale;
+		}
+
+		@Override
+		public ServletRequest getRequest() {
+
+			return (HttpServletRequest) Proxy.newProxyInstance( HttpServletRequest.class.getClassLoader(), new Class[] { HttpServletRequest.class }, new InvocationHandler() {
+
+				public Object invoke( Object proxy, Method method, Object[] args ) {
+
+					if ( "getLocale".equals( method.getName() ) ) {
+						return mLocale;
+					}
+
+					if ( "getAttribute".equals( method.getName() ) ) {
+						return null;
+					}
+
+					throw new UnsupportedOperationException( method.getName() );
+				}
+			} );
+		}
+	}
 }
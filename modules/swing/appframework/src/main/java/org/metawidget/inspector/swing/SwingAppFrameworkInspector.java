@@ -51,6 +51,12 @@ public class SwingAppFrameworkInspector
 	// Protected methods
 	//
 
+	@Override
+	protected boolean isTraitInspectionStatic() {
+
+		return true;
+	}
+
 	@Override
 	protected Map<String, String> inspectAction( Action action )
 		throws Exception {
@@ -19,6 +19,7 @@ package org.metawidget.swing;
 import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.awt.BasicStroke;
+import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
@@ -32,9 +33,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 
 import org.metawidget.iface.Immutable;
 import org.metawidget.iface.MetawidgetException;
@@ -107,6 +114,45 @@ public class SwingMetawidget
 
 	private Map<String, Facet>		mFacets				= CollectionUtils.newHashMap();
 
+	private boolean					mIncrementalRebuild;
+
+	/**
+	 * Widgets built by the last build, keyed by element name and attributes, that may be reused by
+	 * the next build. Only used if <code>setIncrementalRebuild</code>.
+	 */
+
+	private Map<String, JComponent>	mLastBuiltWidgets;
+
+	/**
+	 * Widgets built by the build before last, and not reused by the last build. Keeping these means
+	 * toggling back and forth (eg. <code>setReadOnly</code>) reuses widgets in both directions.
+	 */
+
+	private Map<String, JComponent>	mEarlierBuiltWidgets;
+
+	/**
+	 * Widgets built (or reused) by the build in progress.
+	 */
+
+	private Map<String, JComponent>	mBuiltWidgets;
+
+	private Executor				mInspectionExecutor;
+
+	private JComponent				mInspectionPlaceholder;
+
+	/**
+	 * Background inspection in progress, or null if none.
+	 */
+
+	private FutureTask<Object>		mInspectionTask;
+
+	/**
+	 * Whether the background inspection has completed (mLastInspectionResult may legitimately be
+	 * null, so this cannot be inferred from it).
+	 */
+
+	private boolean					mBackgroundInspectionComplete;
+
 	/* package private */Pipeline	mPipeline;
 
 	//
@@ -197,6 +243,7 @@ public class SwingMetawidget
 	public void setConfig( String config ) {
 
 		mPipeline.setConfig( config );
+		clearBuiltWidgets();
 		invalidateInspection();
 	}
 
@@ -236,6 +283,7 @@ public class SwingMetawidget
 	public void setWidgetBuilder( WidgetBuilder<JComponent, SwingMetawidget> widgetBuilder ) {
 
 		mPipeline.setWidgetBuilder( widgetBuilder );
+		clearBuiltWidgets();
 		invalidateWidgets();
 	}
 
@@ -248,18 +296,21 @@ public class SwingMetawidget
 	public void addWidgetProcessor( WidgetProcessor<JComponent, SwingMetawidget> widgetProcessor ) {
 
 		mPipeline.addWidgetProcessor( widgetProcessor );
+		clearBuiltWidgets();
 		invalidateWidgets();
 	}
 
 	public void removeWidgetProcessor( WidgetProcessor<JComponent, SwingMetawidget> widgetProcessor ) {
 
 		mPipeline.removeWidgetProcessor( widgetProcessor );
+		clearBuiltWidgets();
 		invalidateWidgets();
 	}
 
 	public void setWidgetProcessors( WidgetProcessor<JComponent, SwingMetawidget>... widgetProcessors ) {
 
 		mPipeline.setWidgetProcessors( widgetProcessors );
+		clearBuiltWidgets();
 		invalidateWidgets();
 	}
 
@@ -281,6 +332,7 @@ public class SwingMetawidget
 	public void setMetawidgetLayout( Layout<JComponent, JComponent, SwingMetawidget> layout ) {
 
 		mPipeline.setLayout( layout );
+		clearBuiltWidgets();
 		invalidateWidgets();
 	}
 
@@ -292,6 +344,12 @@ public class SwingMetawidget
 
 	public void setBundle( ResourceBundle bundle ) {
 
+		// (nested Metawidgets are always given their parent's bundle, which is usually unchanged)
+
+		if ( bundle != mBundle ) {
+			clearBuiltWidgets();
+		}
+
 		mBundle = bundle;
 		invalidateWidgets();
 	}
@@ -375,6 +433,89 @@ public class SwingMetawidget
 		invalidateWidgets();
 	}
 
+	public boolean isIncrementalRebuild() {
+
+		return mIncrementalRebuild;
+	}
+
+	/**
+	 * Sets whether to rebuild incrementally.
+	 * <p>
+	 * By default, every rebuild (eg. after <code>setToInspect</code> or <code>setReadOnly</code>)
+	 * creates every widget afresh. With incremental rebuild, each widget is remembered against its
+	 * element name and attributes. The next rebuild compares each property's attributes against
+	 * those remembered and, where they are unchanged, reuses the existing widget rather than
+	 * calling the <code>WidgetBuilder</code>. Nested <code>SwingMetawidgets</code> are reused too,
+	 * and themselves rebuild incrementally. So the cost of building widgets scales with what has
+	 * changed, not with the size of the form. <code>WidgetProcessors</code> (ie. binding) and the
+	 * <code>Layout</code> still run for every widget.
+	 * <p>
+	 * Widgets from the last two builds are remembered, so that toggling back and forth (eg. between
+	 * read-only and editable) reuses widgets in both directions. Changing the
+	 * <code>WidgetBuilder</code>, <code>WidgetProcessors</code>, <code>Layout</code> or
+	 * <code>ResourceBundle</code> forgets them.
+	 * <p>
+	 * Incremental rebuild requires <code>WidgetProcessors</code> that can safely be re-applied to
+	 * the same widget. They must replace, rather than add to, whatever they attached to it last time
+	 * (eg. a <code>WidgetProcessor</code> that calls <code>addKeyListener</code> must first remove
+	 * the listener it added before). It also requires <code>WidgetBuilders</code> whose widgets
+	 * depend only on their attributes (not on the value of <code>toInspect</code>).
+	 */
+
+	public void setIncrementalRebuild( boolean incrementalRebuild ) {
+
+		if ( mIncrementalRebuild == incrementalRebuild ) {
+			return;
+		}
+
+		mIncrementalRebuild = incrementalRebuild;
+		clearBuiltWidgets();
+	}
+
+	/**
+	 * Sets an Executor to run inspections on, instead of the Event Dispatch Thread.
+	 * <p>
+	 * Inspection (especially the first inspection by JPA, Hibernate or XML-based Inspectors) can be
+	 * slow. With an Executor, the Inspector runs in the background, so must be thread-safe (as the
+	 * Inspectors supplied with Metawidget are). InspectionResultProcessors are passed this
+	 * SwingMetawidget, so they still run on the EDT, as do building and laying out the widgets.
+	 * <p>
+	 * While the inspection is in progress, this SwingMetawidget shows its
+	 * <code>inspectionPlaceholder</code> (if any) and its <code>inspecting</code> property is
+	 * <code>true</code>. If the inspection is invalidated before it finishes (eg. by calling
+	 * <code>setToInspect</code> again), it is cancelled and its result ignored. Nested
+	 * SwingMetawidgets inherit the Executor. If null (the default), inspection happens synchronously
+	 * on the EDT.
+	 */
+
+	public void setInspectionExecutor( Executor inspectionExecutor ) {
+
+		mInspectionExecutor = inspectionExecutor;
+		invalidateInspection();
+	}
+
+	/**
+	 * Sets a component to display while a background inspection is in progress, such as an
+	 * indeterminate <code>JProgressBar</code>. Only used if <code>setInspectionExecutor</code>.
+	 */
+
+	public void setInspectionPlaceholder( JComponent inspectionPlaceholder ) {
+
+		mInspectionPlaceholder = inspectionPlaceholder;
+	}
+
+	/**
+	 * Whether a background inspection is in progress.
+	 * <p>
+	 * This is a bound property: changes fire a <code>PropertyChangeEvent</code> named
+	 * <code>inspecting</code>.
+	 */
+
+	public boolean isInspecting() {
+
+		return ( mInspectionTask != null );
+	}
+
 	public int getMaximumInspectionDepth() {
 
 		return mPipeline.getMaximumInspectionDepth();
@@ -680,6 +821,8 @@ public class SwingMetawidget
 		nestedMetawidget.setPath( mPath + StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + attributes.get( NAME ) );
 		nestedMetawidget.setBundle( mBundle );
 		nestedMetawidget.setOpaque( isOpaque() );
+		nestedMetawidget.setIncrementalRebuild( mIncrementalRebuild );
+		nestedMetawidget.mInspectionExecutor = mInspectionExecutor;
 		nestedMetawidget.setToInspect( mToInspect );
 	}
 
@@ -739,6 +882,8 @@ public class SwingMetawidget
 	protected void invalidateInspection() {
 
 		mLastInspectionResult = null;
+		mBackgroundInspectionComplete = false;
+		cancelBackgroundInspection();
 		invalidateWidgets();
 	}
 
@@ -802,11 +947,21 @@ public class SwingMetawidget
 
 		mPipeline.configureOnce();
 
+		// Inspect in the background?
+
+		if ( mInspectionExecutor != null && mLastInspectionResult == null && !mBackgroundInspectionComplete && mPath != null ) {
+			startBackgroundInspection();
+			return;
+		}
+
 		mNeedToBuildWidgets = false;
 		mIgnoreAddRemove = true;
 
 		try {
-			if ( mLastInspectionResult == null ) {
+			// (a background inspection that completed with null, or failed, is not re-run here on the
+			// Event Dispatch Thread)
+
+			if ( mLastInspectionResult == null && !mBackgroundInspectionComplete ) {
 				mLastInspectionResult = inspect();
 			}
 
@@ -821,6 +976,10 @@ public class SwingMetawidget
 	protected void startBuild() {
 
 		mExistingUnusedComponents = CollectionUtils.newArrayList( mExistingComponents );
+
+		if ( mIncrementalRebuild ) {
+			mBuiltWidgets = CollectionUtils.newHashMap();
+		}
 	}
 
 	/**
@@ -859,6 +1018,14 @@ public class SwingMetawidget
 
 	protected void endBuild() {
 
+		// Remember built widgets for next time
+
+		if ( mBuiltWidgets != null ) {
+			mEarlierBuiltWidgets = mLastBuiltWidgets;
+			mLastBuiltWidgets = mBuiltWidgets;
+			mBuiltWidgets = null;
+		}
+
 		if ( mExistingUnusedComponents != null ) {
 			for ( JComponent componentExisting : mExistingUnusedComponents ) {
 				// Unused facets don't count
@@ -877,10 +1044,201 @@ public class SwingMetawidget
 		}
 	}
 
+	/**
+	 * Builds the widget for the given attributes or, if rebuilding incrementally, reuses the
+	 * widget built last time for the same attributes.
+	 */
+
+	protected JComponent buildWidget( String elementName, Map<String, String> attributes ) {
+
+		if ( mBuiltWidgets == null ) {
+			return mPipeline.buildWidgetUsingWidgetBuilder( elementName, attributes );
+		}
+
+		String key = elementName + new TreeMap<String, String>( attributes );
+		JComponent widget = takeBuiltWidget( key );
+
+		if ( widget == null ) {
+			widget = mPipeline.buildWidgetUsingWidgetBuilder( elementName, attributes );
+
+			// Don't reuse manually added components (they are handled by
+			// mExistingUnusedComponents), nor SwingMetawidgets (they need initNestedMetawidget)
+
+			if ( widget == null || widget instanceof Stub || widget instanceof SwingMetawidget || mExistingComponents.contains( widget ) ) {
+				return widget;
+			}
+		}
+
+		mBuiltWidgets.put( key, widget );
+		return widget;
+	}
+
+	/**
+	 * Builds a nested SwingMetawidget or, if rebuilding incrementally, reuses the one built last
+	 * time for the same name. A reused SwingMetawidget is re-initialized, so it rebuilds itself
+	 * (incrementally) against our current <code>toInspect</code>.
+	 */
+
+	protected SwingMetawidget buildNestedMetawidget( Map<String, String> attributes )
+		throws Exception {
+
+		SwingMetawidget nestedMetawidget = null;
+		String key = null;
+
+		if ( mBuiltWidgets != null ) {
+			key = SwingMetawidget.class.getName() + StringUtils.SEPARATOR_FORWARD_SLASH_CHAR + attributes.get( NAME );
+			nestedMetawidget = (SwingMetawidget) takeBuiltWidget( key );
+		}
+
+		if ( nestedMetawidget == null ) {
+			nestedMetawidget = getClass().newInstance();
+		}
+
+		initNestedMetawidget( nestedMetawidget, attributes );
+
+		if ( key != null ) {
+			mBuiltWidgets.put( key, nestedMetawidget );
+		}
+
+		return nestedMetawidget;
+	}
+
 	//
 	// Private methods
 	//
 
+	/**
+	 * Start a background inspection (if one is not already in progress) and show the placeholder.
+	 */
+
+	private void startBackgroundInspection() {
+
+		mNeedToBuildWidgets = false;
+
+		if ( mInspectionTask == null ) {
+
+			// Capture state on the EDT
+
+			final Object toInspect = mToInspect;
+			final TypeAndNames typeAndNames = PathUtils.parsePath( mPath );
+
+			mInspectionTask = new FutureTask<Object>( new Callable<Object>() {
+
+				public Object call() {
+
+					return mPipeline.inspectWithoutProcessing( toInspect, typeAndNames.getType(), typeAndNames.getNamesAsArray() );
+				}
+			} ) {
+
+				@Override
+				protected void done() {
+
+					if ( isCancelled() ) {
+						return;
+					}
+
+					final FutureTask<Object> inspectionTask = this;
+
+					SwingUtilities.invokeLater( new Runnable() {
+
+						public void run() {
+
+							backgroundInspectionComplete( inspectionTask, toInspect, typeAndNames );
+						}
+					} );
+				}
+			};
+
+			firePropertyChange( "inspecting", false, true );
+			mInspectionExecutor.execute( mInspectionTask );
+		}
+
+		if ( mInspectionPlaceholder != null ) {
+			mIgnoreAddRemove = true;
+
+			try {
+				setLayout( new BorderLayout() );
+				add( mInspectionPlaceholder, BorderLayout.CENTER );
+			} finally {
+				mIgnoreAddRemove = false;
+			}
+
+			revalidate();
+		}
+	}
+
+	/**
+	 * Process the result of a background inspection, on the EDT.
+	 */
+
+	/* package private */void backgroundInspectionComplete( FutureTask<Object> inspectionTask, Object toInspect, TypeAndNames typeAndNames ) {
+
+		// Superseded?
+
+		if ( inspectionTask != mInspectionTask ) {
+			return;
+		}
+
+		mInspectionTask = null;
+		mBackgroundInspectionComplete = true;
+		firePropertyChange( "inspecting", true, false );
+
+		try {
+			Object inspectionResult = inspectionTask.get();
+
+			if ( inspectionResult != null ) {
+				mLastInspectionResult = mPipeline.processInspectionResult( inspectionResult, toInspect, typeAndNames.getType(), typeAndNames.getNamesAsArray() );
+			}
+		} catch ( ExecutionException e ) {
+			throw MetawidgetException.newException( e.getCause() );
+		} catch ( InterruptedException e ) {
+			throw MetawidgetException.newException( e );
+		} finally {
+
+			// Replace the placeholder with the real widgets
+
+			invalidateWidgets();
+			revalidate();
+		}
+	}
+
+	private void cancelBackgroundInspection() {
+
+		if ( mInspectionTask == null ) {
+			return;
+		}
+
+		// (don't interrupt, as the Executor's threads may not expect it. The result will be
+		// ignored anyway)
+
+		mInspectionTask.cancel( false );
+		mInspectionTask = null;
+		firePropertyChange( "inspecting", true, false );
+	}
+
+	private JComponent takeBuiltWidget( String key ) {
+
+		if ( mLastBuiltWidgets != null ) {
+			JComponent widget = mLastBuiltWidgets.remove( key );
+
+			if ( widget != null ) {
+				return widget;
+			}
+		}
+
+		if ( mEarlierBuiltWidgets != null ) {
+			return mEarlierBuiltWidgets.remove( key );
+		}
+
+		return null;
+	}
+
+	private void clearBuiltWidgets() {
+
+		mLastBuiltWidgets = null;
+		mEarlierBuiltWidgets = null;
+	}
+
 	private Element inspect() {
 
 		if ( mPath == null ) {
@@ -993,6 +1351,22 @@ public class SwingMetawidget
 			return SwingMetawidget.this.getDefaultConfiguration();
 		}
 
+		@Override
+		protected Object inspectWithoutProcessing( Object toInspect, String type, String... names ) {
+
+			// (overridden so that SwingMetawidget can run it in the background)
+
+			return super.inspectWithoutProcessing( toInspect, type, names );
+		}
+
+		@Override
+		protected Element processInspectionResult( Object inspectionResult, Object toInspect, String type, String... names ) {
+
+			// (overridden so that SwingMetawidget can run it on the EDT)
+
+			return super.processInspectionResult( inspectionResult, toInspect, type, names );
+		}
+
 		@Override
 		protected void configure() {
 
@@ -1053,6 +1427,12 @@ public class SwingMetawidget
 			}
 		}
 
+		@Override
+		protected JComponent buildWidget( String elementName, Map<String, String> attributes ) {
+
+			return SwingMetawidget.this.buildWidget( elementName, attributes );
+		}
+
 		@Override
 		protected Map<String, String> getAdditionalAttributes( JComponent component ) {
 
@@ -1067,10 +1447,12 @@ public class SwingMetawidget
 		public SwingMetawidget buildNestedMetawidget( Map<String, String> attributes )
 			throws Exception {
 
-			SwingMetawidget nestedMetawidget = SwingMetawidget.this.getClass().newInstance();
-			SwingMetawidget.this.initNestedMetawidget( nestedMetawidget, attributes );
+			return SwingMetawidget.this.buildNestedMetawidget( attributes );
+		}
+
+		/* package private */JComponent buildWidgetUsingWidgetBuilder( String elementName, Map<String, String> attributes ) {
 
-			return nestedMetawidget;
+			return super.buildWidget( elementName, attributes );
 		}
 
 		@Override
@@ -23,17 +23,22 @@ import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 
 import junit.framework.TestCase;
 
@@ -44,6 +49,7 @@ import org.metawidget.inspector.annotation.UiAction;
 import org.metawidget.inspector.annotation.UiRequired;
 import org.metawidget.inspector.composite.CompositeInspector;
 import org.metawidget.inspector.composite.CompositeInspectorConfig;
+import org.metawidget.inspector.iface.Inspector;
 import org.metawidget.inspector.propertytype.PropertyTypeInspector;
 import org.metawidget.inspector.propertytype.PropertyTypeInspectorTest.RecursiveFoo;
 import org.metawidget.swing.layout.BoxLayout;
@@ -421,6 +427,235 @@ public class SwingMetawidgetTest
 		assertTrue( needToBuildWidgets.getBoolean( metawidget ) );
 	}
 
+	public void testIncrementalRebuild() {
+
+		// Without incremental rebuild
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setToInspect( new Foo() );
+		JComponent name = metawidget.getComponent( "name" );
+		assertTrue( name instanceof JTextField );
+		metawidget.setToInspect( new Foo() );
+		assertTrue( name != metawidget.getComponent( "name" ) );
+
+		// With incremental rebuild, unchanged widgets (and nested Metawidgets) are reused
+
+		metawidget = new SwingMetawidget();
+		metawidget.setIncrementalRebuild( true );
+		metawidget.setToInspect( new Foo() );
+		name = metawidget.getComponent( "name" );
+		SwingMetawidget nestedMetawidget = metawidget.getComponent( "foo" );
+		JComponent nestedName = nestedMetawidget.getComponent( "name" );
+		JComponent action = metawidget.getComponent( "doAction" );
+
+		Foo foo = new Foo();
+		metawidget.setToInspect( foo );
+		assertTrue( name == metawidget.getComponent( "name" ) );
+		assertTrue( action == metawidget.getComponent( "doAction" ) );
+		assertTrue( nestedMetawidget == metawidget.getComponent( "foo" ) );
+		assertTrue( foo == nestedMetawidget.getToInspect() );
+		assertTrue( nestedName == nestedMetawidget.getComponent( "name" ) );
+
+		// Changed attributes are rebuilt, but toggling back reuses the earlier widgets
+
+		metawidget.setReadOnly( true );
+		JComponent readOnlyName = metawidget.getComponent( "name" );
+		assertTrue( !( readOnlyName instanceof JTextField ) );
+		assertTrue( nestedMetawidget == metawidget.getComponent( "foo" ) );
+		assertTrue( nestedMetawidget.isReadOnly() );
+
+		metawidget.setReadOnly( false );
+		assertTrue( name == metawidget.getComponent( "name" ) );
+		assertTrue( !nestedMetawidget.isReadOnly() );
+		assertTrue( nestedName == nestedMetawidget.getComponent( "name" ) );
+
+		metawidget.setReadOnly( true );
+		assertTrue( readOnlyName == metawidget.getComponent( "name" ) );
+
+		// Changing how widgets are built forgets them
+
+		metawidget.setReadOnly( false );
+		metawidget.setWidgetBuilder( new SwingWidgetBuilder() );
+		assertTrue( name != metawidget.getComponent( "name" ) );
+	}
+
+	public void testBackgroundInspection()
+		throws Exception {
+
+		final List<Runnable> tasks = CollectionUtils.newArrayList();
+		final StringBuilder inspecting = new StringBuilder();
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setInspectionExecutor( new Executor() {
+
+			public void execute( Runnable task ) {
+
+				tasks.add( task );
+			}
+		} );
+		metawidget.addPropertyChangeListener( "inspecting", new PropertyChangeListener() {
+
+			public void propertyChange( PropertyChangeEvent event ) {
+
+				inspecting.append( event.getNewValue() );
+				inspecting.append( ' ' );
+			}
+		} );
+
+		JLabel placeholder = new JLabel( "Inspecting..." );
+		metawidget.setInspectionPlaceholder( placeholder );
+		metawidget.setToInspect( new Foo() );
+
+		// Placeholder while inspecting
+
+		assertEquals( 1, metawidget.getComponentCount() );
+		assertTrue( placeholder == metawidget.getComponent( 0 ) );
+		assertTrue( metawidget.isInspecting() );
+		assertEquals( 1, tasks.size() );
+
+		// Inspecting again cancels the previous inspection
+
+		Foo foo = new Foo();
+		foo.setFoo( new Foo() );
+		metawidget.setToInspect( foo );
+		assertTrue( placeholder == metawidget.getComponent( 0 ) );
+		assertEquals( 2, tasks.size() );
+		assertEquals( "true false true ", inspecting.toString() );
+
+		tasks.get( 0 ).run();
+		tasks.get( 1 ).run();
+		flushEventDispatchThread();
+
+		// Widgets built on completion
+
+		assertTrue( !metawidget.isInspecting() );
+		assertEquals( "true false true false ", inspecting.toString() );
+		assertTrue( metawidget.getComponent( "name" ) instanceof JTextField );
+		assertTrue( placeholder.getParent() == null );
+
+		// Nested Metawidgets inspect in the background too
+
+		SwingMetawidget nestedMetawidget = metawidget.getComponent( "foo" );
+		assertTrue( nestedMetawidget.isInspecting() );
+		assertEquals( 3, tasks.size() );
+		tasks.get( 2 ).run();
+		flushEventDispatchThread();
+		assertTrue( foo == nestedMetawidget.getToInspect() );
+		assertTrue( !nestedMetawidget.isInspecting() );
+		assertTrue( nestedMetawidget.getComponent( "name" ) instanceof JTextField );
+
+		// Invalidating widgets (but not the inspection) doesn't re-inspect
+
+		metawidget.setReadOnly( true );
+		assertTrue( !( metawidget.getComponent( "name" ) instanceof JTextField ) );
+		assertTrue( !metawidget.isInspecting() );
+	}
+
+	public void testBackgroundInspectionProcessesOnEventDispatchThread()
+		throws Exception {
+
+		final List<Runnable> tasks = CollectionUtils.newArrayList();
+		final List<Boolean> processedOnEventDispatchThread = CollectionUtils.newArrayList();
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.addInspectionResultProcessor( new InspectionResultProcessor<SwingMetawidget>() {
+
+			public String processInspectionResult( String inspectionResult, SwingMetawidget pipelineOwner, Object toInspect, String type, String... names ) {
+
+				processedOnEventDispatchThread.add( SwingUtilities.isEventDispatchThread() );
+				return inspectionResult;
+			}
+		} );
+		metawidget.setInspectionExecutor( new Executor() {
+
+			public void execute( Runnable task ) {
+
+				tasks.add( task );
+			}
+		} );
+
+		metawidget.setToInspect( new Foo() );
+		assertEquals( 0, metawidget.getComponentCount() );
+		assertTrue( metawidget.isInspecting() );
+		tasks.get( 0 ).run();
+		flushEventDispatchThread();
+		assertEquals( 1, processedOnEventDispatchThread.size() );
+		assertTrue( processedOnEventDispatchThread.get( 0 ) );
+		assertTrue( metawidget.getComponent( "name" ) instanceof JTextField );
+	}
+
+	public void testBackgroundInspectionReturnsNull()
+		throws Exception {
+
+		final List<Runnable> tasks = CollectionUtils.newArrayList();
+		final List<String> inspections = CollectionUtils.newArrayList();
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setInspector( new Inspector() {
+
+			public String inspect( Object toInspect, String type, String... names ) {
+
+				inspections.add( type );
+				return null;
+			}
+		} );
+		metawidget.setInspectionExecutor( new Executor() {
+
+			public void execute( Runnable task ) {
+
+				tasks.add( task );
+			}
+		} );
+
+		metawidget.setToInspect( new Foo() );
+		assertEquals( 0, metawidget.getComponentCount() );
+		assertTrue( metawidget.isInspecting() );
+		assertEquals( 1, tasks.size() );
+		assertEquals( 0, inspections.size() );
+
+		tasks.get( 0 ).run();
+		assertEquals( 1, inspections.size() );
+		flushEventDispatchThread();
+
+		// Completing with null does not re-inspect on the Event Dispatch Thread
+
+		assertTrue( !metawidget.isInspecting() );
+		assertEquals( 0, metawidget.getComponentCount() );
+		assertEquals( 1, inspections.size() );
+		assertEquals( 1, tasks.size() );
+
+		// Nor does invalidating the widgets
+
+		metawidget.setReadOnly( true );
+		assertEquals( 0, metawidget.getComponentCount() );
+		assertEquals( 1, inspections.size() );
+		assertEquals( 1, tasks.size() );
+
+		// Invalidating the inspection inspects in the background again
+
+		metawidget.setToInspect( new Foo() );
+		assertEquals( 0, metawidget.getComponentCount() );
+		assertTrue( metawidget.isInspecting() );
+		assertEquals( 2, tasks.size() );
+		assertEquals( 1, inspections.size() );
+	}
+
+	//
+	// Private methods
+	//
+
+	private void flushEventDispatchThread()
+		throws Exception {
+
+		SwingUtilities.invokeAndWait( new Runnable() {
+
+			public void run() {
+
+				// Wait for earlier events
+			}
+		} );
+	}
+
 	//
 	// Inner class
 	//
@@ -20,6 +20,7 @@ import static org.metawidget.inspector.InspectionResultConstants.*;
 
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
 import java.util.Map;
 
 import javax.swing.JComponent;
@@ -48,6 +49,17 @@ import com.jgoodies.validation.view.ValidationComponentUtils;
 public class JGoodiesValidatorProcessor
 	implements AdvancedWidgetProcessor<JComponent, SwingMetawidget> {
 
+	//
+	// Private statics
+	//
+
+	/**
+	 * Client property under which a component remembers the KeyListener added by
+	 * <code>attachValidator</code>.
+	 */
+
+	private static final String	KEY_LISTENER_CLIENT_PROPERTY	= JGoodiesValidatorProcessor.class.getName() + ".keyListener";
+
 	//
 	// Public methods
 	//
@@ -82,6 +94,7 @@ public class JGoodiesValidatorProcessor
 			// Do not attachValidator if no validator and not required
 
 			if ( !required ) {
+				detachValidator( component );
 				return component;
 			}
 		} else {
@@ -128,7 +141,7 @@ public class JGoodiesValidatorProcessor
 	protected void attachValidator( final JComponent component, final Validator<?> validator, String path, final SwingMetawidget metawidget ) {
 
 		final String[] names = PathUtils.parsePath( path ).getNamesAsArray();
-		component.addKeyListener( new KeyAdapter() {
+		KeyListener keyListener = new KeyAdapter() {
 
 			@Override
 			public void keyReleased( KeyEvent event ) {
@@ -179,7 +192,14 @@ public class JGoodiesValidatorProcessor
 
 				updateComponent( component, validationResult, metawidget );
 			}
-		} );
+		};
+
+		// Replace, rather than add to, any KeyListener from a previous build. The component may be
+		// being reused (see SwingMetawidget.setIncrementalRebuild)
+
+		detachValidator( component );
+		component.addKeyListener( keyListener );
+		component.putClientProperty( KEY_LISTENER_CLIENT_PROPERTY, keyListener );
 	}
 
 	/**
@@ -213,4 +233,18 @@ public class JGoodiesValidatorProcessor
 
 		ValidationComponentUtils.updateComponentTreeSeverityBackground( metawidget, validationResult );
 	}
+
+	//
+	// Private methods
+	//
+
+	private void detachValidator( JComponent component ) {
+
+		KeyListener keyListener = (KeyListener) component.getClientProperty( KEY_LISTENER_CLIENT_PROPERTY );
+
+		if ( keyListener != null ) {
+			component.removeKeyListener( keyListener );
+			component.putClientProperty( KEY_LISTENER_CLIENT_PROPERTY, null );
+		}
+	}
 }
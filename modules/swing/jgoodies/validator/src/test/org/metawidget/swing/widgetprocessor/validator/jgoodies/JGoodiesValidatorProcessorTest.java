@@ -142,6 +142,43 @@ public class JGoodiesValidatorProcessorTest
 		assertFalse( ValidationComponentUtils.getMandatoryBackground().equals( textField1.getBackground() ) );
 	}
 
+	public void testIncrementalRebuild() {
+
+		SwingMetawidget metawidget = new SwingMetawidget();
+		metawidget.setInspector( new CompositeInspector( new CompositeInspectorConfig().setInspectors( new MetawidgetAnnotationInspector(), new PropertyTypeInspector() ) ) );
+		metawidget.setIncrementalRebuild( true );
+		metawidget.addWidgetProcessor( new JGoodiesValidatorProcessor() );
+		metawidget.setToInspect( new Foo() );
+
+		JTextField textField1 = (JTextField) metawidget.getComponent( 1 );
+		assertEquals( 1, textField1.getKeyListeners().length );
+
+		// Rebuild twice, reusing the same widgets
+
+		metawidget.setToInspect( new Foo() );
+		assertTrue( textField1 == metawidget.getComponent( 1 ) );
+		assertEquals( 1, textField1.getKeyListeners().length );
+
+		metawidget.setToInspect( new Foo() );
+		assertTrue( textField1 == metawidget.getComponent( 1 ) );
+		assertEquals( 1, textField1.getKeyListeners().length );
+
+		// Still validates
+
+		textField1.setText( "Not empty" );
+		textField1.getKeyListeners()[0].keyReleased( null );
+		assertFalse( ValidationComponentUtils.getMandatoryBackground().equals( textField1.getBackground() ) );
+
+		textField1.setText( "" );
+		textField1.getKeyListeners()[0].keyReleased( null );
+		assertEquals( ValidationComponentUtils.getMandatoryBackground(), textField1.getBackground() );
+
+		// Unvalidated widgets get no listener
+
+		JTextField textField2 = (JTextField) metawidget.getComponent( 3 );
+		assertEquals( 0, textField2.getKeyListeners().length );
+	}
+
 	//
 	// Inner class
 	//